@@ -0,0 +1,314 @@
+package com.alerts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.alerts.strategy.StreamingAlertStrategy;
+import com.data_management.DataStorage;
+import com.data_management.SampleListener;
+
+/**
+ * Evaluates alert rules as samples are stored, instead of sweeping every
+ * patient's records on a polling interval.
+ *
+ * <p>The engine listens to a {@link DataStorage} and keeps the samples whose
+ * record type maps to a metric type it has rules for; see {@link MetricTypes}.
+ * Patients are split over a fixed number of partitions, each with its own
+ * queue, its own thread and its own {@link RuleRegistry} holding its own
+ * instance of every rule, so a patient's samples are always evaluated by the
+ * same thread, in the order they were stored, and rules need no locking. Other
+ * samples are dropped on the ingest thread without being queued.
+ *
+ * <p>The time from a sample being stored to its rule having been evaluated is
+ * recorded in a {@link LatencyHistogram}. If a partition falls behind, its
+ * queue fills and ingest waits for it, so no sample is skipped. Ingest stops
+ * waiting once the engine is closed or the partition's thread has died, and the
+ * sample is counted as dropped instead.
+ */
+public class AlertEngine implements SampleListener, AutoCloseable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 64 * 1024;
+    private static final int DRAIN_BATCH = 256;
+    private static final long OFFER_WAIT_MILLIS = 100; // How often a waiting producer checks the partition
+
+    private final MetricTypes types;
+    private final Partition[] partitions;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean[] subscribed = new boolean[0]; // By metric type code
+    private final Consumer<Alert> alertHandler;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong alertCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Creates an engine with the default label mapping and starts its partition threads.
+     *
+     * @param partitionCount the number of partitions, and so of evaluating threads
+     * @param alertHandler   receives every alert raised; called from the partition threads
+     */
+    public AlertEngine(int partitionCount, Consumer<Alert> alertHandler) {
+        this(MetricTypes.defaults(), partitionCount, DEFAULT_QUEUE_CAPACITY, alertHandler);
+    }
+
+    /**
+     * Creates an engine and starts its partition threads.
+     *
+     * @param types          the metric types and the mapping of stored labels to them
+     * @param partitionCount the number of partitions, and so of evaluating threads
+     * @param queueCapacity  the number of samples each partition can hold before ingest waits
+     * @param alertHandler   receives every alert raised; called from the partition threads
+     */
+    public AlertEngine(MetricTypes types, int partitionCount, int queueCapacity, Consumer<Alert> alertHandler) {
+        this.types = types;
+        this.alertHandler = alertHandler;
+        partitions = new Partition[Math.max(1, partitionCount)];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition(queueCapacity);
+            Thread thread = new Thread(partitions[i], "alert-engine-" + i);
+            thread.setDaemon(true);
+            partitions[i].thread = thread;
+            thread.start();
+        }
+    }
+
+    /**
+     * Evaluates samples of a metric type with a rule. Each partition creates its
+     * own instance of the rule with the factory the first time it evaluates a sample.
+     *
+     * @param metricType the metric type, e.g. "blood pressure"
+     * @param rule       creates instances of the rule
+     */
+    public synchronized void subscribe(String metricType, Supplier<StreamingAlertStrategy> rule) {
+        int code = types.code(metricType);
+        subscriptions.add(new Subscription(metricType, rule));
+        boolean[] updated = Arrays.copyOf(subscribed, Math.max(subscribed.length, code + 1));
+        updated[code] = true;
+        subscribed = updated;
+    }
+
+    /**
+     * Returns the metric types and label mapping the engine routes samples with.
+     */
+    public MetricTypes getTypes() {
+        return types;
+    }
+
+    /**
+     * Starts evaluating the samples stored into a storage from now on.
+     *
+     * @param storage the storage to listen to
+     */
+    public void attach(DataStorage storage) {
+        storage.addSampleListener(this);
+    }
+
+    /**
+     * Queues a stored sample on the partition of its patient, if a rule is
+     * subscribed to the metric type its record type maps to.
+     */
+    @Override
+    public void onSample(int patientId, String recordType, long timestamp, double value) {
+        int code = types.codeOfLabel(recordType);
+        boolean[] interested = subscribed;
+        if (code < 0 || code >= interested.length || !interested[code] || closed) {
+            return;
+        }
+        Partition partition = partitions[Math.floorMod(patientId, partitions.length)];
+        Sample sample = new Sample(code, patientId, timestamp, value, System.nanoTime());
+        try {
+            while (!partition.queue.offer(sample, OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (closed || !partition.thread.isAlive()) {
+                    droppedCount.incrementAndGet(); // Nobody will take it
+                    return;
+                }
+            }
+            partition.queued.incrementAndGet();
+        } catch (InterruptedException e) {
+            droppedCount.incrementAndGet();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits until every sample queued before the call has been evaluated.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        for (Partition partition : partitions) {
+            long target = partition.queued.get();
+            while (partition.evaluated < target && partition.thread.isAlive()) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of partitions.
+     */
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    /**
+     * Returns the number of samples evaluated so far.
+     */
+    public long getSamplesEvaluated() {
+        long evaluated = 0;
+        for (Partition partition : partitions) {
+            evaluated += partition.evaluated;
+        }
+        return evaluated;
+    }
+
+    /**
+     * Returns the number of alerts raised so far.
+     */
+    public long getAlertCount() {
+        return alertCount.get();
+    }
+
+    /**
+     * Returns the number of samples that could not be queued because the engine
+     * was closed or their partition's thread had died while ingest waited.
+     */
+    public long getSamplesDropped() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Returns the times from samples being stored to their rules having been evaluated.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Returns a one-line report of the samples evaluated and dropped, the alerts
+     * raised and the sample-to-alert latency.
+     */
+    public String report() {
+        return "Alert engine: " + getSamplesEvaluated() + " samples evaluated, " + getSamplesDropped()
+                + " dropped, " + getAlertCount() + " alerts, latency " + latency.summary();
+    }
+
+    /**
+     * Stops the partition threads once they have evaluated what is already
+     * queued. Samples stored afterwards are ignored.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Partition partition : partitions) {
+            partition.queue.offer(Sample.END); // A full queue is drained anyway; interrupt below ends the thread
+            partition.thread.interrupt();
+        }
+        for (Partition partition : partitions) {
+            try {
+                partition.thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void raise(Alert alert) {
+        alertCount.incrementAndGet();
+        alertHandler.accept(alert);
+    }
+
+    private static final class Subscription {
+        final String metricType;
+        final Supplier<StreamingAlertStrategy> rule;
+
+        Subscription(String metricType, Supplier<StreamingAlertStrategy> rule) {
+            this.metricType = metricType;
+            this.rule = rule;
+        }
+    }
+
+    private static final class Sample {
+        static final Sample END = new Sample(MetricTypes.UNMAPPED, 0, 0, 0, 0);
+
+        final int code;
+        final int patientId;
+        final long timestamp;
+        final double value;
+        final long storedNanos;
+
+        Sample(int code, int patientId, long timestamp, double value, long storedNanos) {
+            this.code = code;
+            this.patientId = patientId;
+            this.timestamp = timestamp;
+            this.value = value;
+            this.storedNanos = storedNanos;
+        }
+    }
+
+    private final class Partition implements Runnable {
+        final BlockingQueue<Sample> queue;
+        final AtomicLong queued = new AtomicLong();
+        final RuleRegistry registry = new RuleRegistry(types); // Owned by this partition's thread
+        final Consumer<Alert> alerts = AlertEngine.this::raise;
+        int rulesAdded;
+        volatile long evaluated;
+        Thread thread;
+
+        Partition(int queueCapacity) {
+            queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        }
+
+        @Override
+        public void run() {
+            List<Sample> batch = new ArrayList<>(DRAIN_BATCH);
+            while (true) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    if (!closed) {
+                        continue;
+                    }
+                    // Closing: evaluate whatever is still queued, then stop
+                }
+                queue.drainTo(batch, DRAIN_BATCH - batch.size());
+                for (Sample sample : batch) {
+                    if (sample == Sample.END) {
+                        return;
+                    }
+                    evaluate(sample);
+                }
+                batch.clear();
+                if (closed && queue.isEmpty()) {
+                    return;
+                }
+            }
+        }
+
+        private void evaluate(Sample sample) {
+            try {
+                while (rulesAdded < subscriptions.size()) {
+                    Subscription subscription = subscriptions.get(rulesAdded++);
+                    registry.addRule(subscription.metricType, subscription.rule.get());
+                }
+                registry.dispatch(sample.code, sample.patientId, sample.timestamp, sample.value, alerts);
+            } catch (Throwable e) { // Errors too: if this thread died, ingest would wait on its queue
+                System.err.println("Error evaluating alert rule for patient " + sample.patientId + ": "
+                        + e.getMessage());
+                System.err.println("Error evaluating alert rule for patient " + sample.patientId + ": "
+                        + e.getMessage());
+                e.printStackTrace();
+            }
+            latency.record(System.nanoTime() - sample.storedNanos);
+            evaluated++; // Only this partition's thread writes it
+        }
+    }
+}
@@ -2,7 +2,8 @@ package com.alerts;
 
 import java.util.List;
 
-import com.alerts.strategy.AlertContext;
+import com.alerts.dispatch.AlertDispatcher;
+import com.alerts.dispatch.AlertSink;
 import com.alerts.strategy.BloodPressureStrategy;
 import com.alerts.strategy.HeartRateStrategy;
 import com.alerts.strategy.OxygenSaturationStrategy;
@@ -15,17 +16,75 @@ import com.data_management.PatientRecord;
  * and generating alerts when predefined conditions are met. This class
  * relies on a {@link DataStorage} instance to access patient data and evaluate
  * it against specific health criteria.
+ *
+ * <p>Data can be evaluated in two ways: a patient's records over a time range
+ * with {@link #evaluateData}, or one sample at a time as it arrives with
+ * {@link #evaluateSample}, which costs constant time per sample. Both route
+ * records to the rules through a {@link RuleRegistry}, using the
+ * {@link MetricTypes} label mapping to find each record's metric type.
+ *
+ * <p>Alerts are printed as they are raised, or handed to an
+ * {@link AlertDispatcher} if one is given, which delivers them by priority
+ * from its own threads.
  */
 public class AlertGenerator {
     private final DataStorage dataStorage;
+    private final RuleRegistry rules;
+    private final AlertDispatcher dispatcher; // null prints alerts on the evaluating thread
 
     /**
-     * Constructs an {@code AlertGenerator} with a specified {@code DataStorage}.
+     * Constructs an {@code AlertGenerator} with a specified {@code DataStorage}
+     * and the default label mapping.
      *
      * @param dataStorage The data storage system that provides access to patient data
      */
     public AlertGenerator(DataStorage dataStorage) {
+        this(dataStorage, MetricTypes.defaults());
+    }
+
+    /**
+     * Constructs an {@code AlertGenerator} that maps record types to metric types with {@code types}.
+     *
+     * @param dataStorage The data storage system that provides access to patient data
+     * @param types       The metric types and the mapping of stored labels to them
+     */
+    public AlertGenerator(DataStorage dataStorage, MetricTypes types) {
+        this(dataStorage, types, null);
+    }
+
+    /**
+     * Constructs an {@code AlertGenerator} that hands its alerts to {@code dispatcher}.
+     *
+     * @param dataStorage The data storage system that provides access to patient data
+     * @param types       The metric types and the mapping of stored labels to them
+     * @param dispatcher  The dispatcher that delivers the alerts, or null to print them
+     */
+    public AlertGenerator(DataStorage dataStorage, MetricTypes types, AlertDispatcher dispatcher) {
         this.dataStorage = dataStorage;
+        this.rules = defaultRules(types);
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Creates a registry with one instance each of the blood pressure, heart
+     * rate and oxygen saturation rules, subscribed both as streaming and as
+     * list-based rules.
+     *
+     * @param types The metric types and the mapping of stored labels to them
+     * @return the registry
+     */
+    public static RuleRegistry defaultRules(MetricTypes types) {
+        RuleRegistry rules = new RuleRegistry(types);
+        BloodPressureStrategy bloodPressure = new BloodPressureStrategy();
+        HeartRateStrategy heartRate = new HeartRateStrategy();
+        OxygenSaturationStrategy oxygenSaturation = new OxygenSaturationStrategy();
+        rules.addRule(MetricTypes.BLOOD_PRESSURE, bloodPressure);
+        rules.addBatchRule(MetricTypes.BLOOD_PRESSURE, bloodPressure);
+        rules.addRule(MetricTypes.HEART_RATE, heartRate);
+        rules.addBatchRule(MetricTypes.HEART_RATE, heartRate);
+        rules.addRule(MetricTypes.OXYGEN_SATURATION, oxygenSaturation);
+        rules.addBatchRule(MetricTypes.OXYGEN_SATURATION, oxygenSaturation);
+        return rules;
     }
 
     /**
@@ -38,41 +97,64 @@ public class AlertGenerator {
      */
     public void evaluateData(Patient patient, long startTime, long endTime) {
         List<PatientRecord> records = dataStorage.getRecords(patient.getId(), startTime, endTime);
+        rules.evaluate(patient, records, this::triggerAlert);
+    }
 
-        AlertContext context = new AlertContext();
-
-        // Blood Pressure Strategy
-        context.setStrategy(new BloodPressureStrategy());
-        List<PatientRecord> bpRecords = dataStorage.getRecords("blood pressure", records);
-        Alert bpAlert = context.executeStrategy(patient, bpRecords);
-        if (bpAlert != null) {
-            triggerAlert(bpAlert);
+    /**
+     * Evaluates every patient's data over a time range on several threads, as
+     * {@link #evaluateData} would one patient at a time, and triggers the alerts
+     * in time order once all patients have been evaluated.
+     *
+     * @param startTime The start time for the data evaluation period
+     * @param endTime   The end time for the data evaluation period
+     * @param workers   The number of threads to evaluate on
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public void evaluateAll(long startTime, long endTime, int workers) throws InterruptedException {
+        MetricTypes types = rules.getTypes();
+        try (ParallelAlertSweep sweep = new ParallelAlertSweep(dataStorage, () -> defaultRules(types), workers)) {
+            for (Alert alert : sweep.sweep(startTime, endTime)) {
+                triggerAlert(alert);
+            }
         }
+    }
 
-        // Heart Rate Strategy
-        context.setStrategy(new HeartRateStrategy());
-        List<PatientRecord> hrRecords = dataStorage.getRecords("heart rate", records);
-        Alert hrAlert = context.executeStrategy(patient, hrRecords);
-        if (hrAlert != null) {
-            triggerAlert(hrAlert);
-        }
+    /**
+     * Evaluates one new sample against the rules for its record type, using only
+     * what earlier samples of the patient left behind rather than re-reading the
+     * patient's records. Samples of a patient must arrive in time order and from
+     * one thread at a time.
+     *
+     * @param patientId  The patient the sample belongs to
+     * @param recordType The sample's record type
+     * @param timestamp  The sample's time, in milliseconds since epoch
+     * @param value      The sample's value
+     */
+    public void evaluateSample(int patientId, String recordType, long timestamp, double value) {
+        rules.dispatch(recordType, patientId, timestamp, value, this::triggerAlert);
+    }
 
-        // Oxygen Saturation Strategy
-        context.setStrategy(new OxygenSaturationStrategy());
-        List<PatientRecord> osRecords = dataStorage.getRecords("oxygen saturation", records);
-        Alert osAlert = context.executeStrategy(patient, osRecords);
-        if (osAlert != null) {
-            triggerAlert(osAlert);
-        }
+    /**
+     * Returns the registry that routes records to this generator's rules, for
+     * example to subscribe further rules.
+     *
+     * @return the rule registry
+     */
+    public RuleRegistry getRules() {
+        return rules;
     }
 
     /**
-     * Triggers an alert for the monitoring system. This method can be extended to
-     * notify medical staff, log the alert, or perform other actions.
+     * Triggers an alert for the monitoring system: hands it to the dispatcher,
+     * which delivers it to its sinks by priority, or prints it if there is none.
      *
      * @param alert The alert object containing details about the alert condition
      */
     private void triggerAlert(Alert alert) {
-        System.out.println("Patient: " + alert.getPatientId() + "; Condition: " + alert.getCondition() + "; Time: " + alert.getTimestamp());
+        if (dispatcher != null) {
+            dispatcher.dispatch(alert);
+        } else {
+            System.out.println(AlertSink.format(alert));
+        }
     }
 }
@@ -0,0 +1,436 @@
+package com.alerts;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.alerts.dispatch.AlertPriority;
+
+/**
+ * A time-indexed history of raised alerts that answers range queries over all
+ * alerts, one patient, one condition or one priority in O(log n + k) time.
+ *
+ * <p>Alerts are kept in parallel primitive arrays: a patient ID, a timestamp
+ * and a condition code, interned so each condition's text is held once. Every
+ * index is a pair of arrays of timestamps and alert positions kept sorted by
+ * time, so a query is two binary searches and a scan of the matches. There is
+ * one index over all alerts, one per patient, one per condition and one per
+ * {@link AlertPriority}. Alerts mostly arrive in time order and are appended
+ * to each index; a late alert is moved back past the later ones, which costs
+ * as much as the number of alerts it is late by.
+ *
+ * <p>A history opened on a file appends every alert to it, written through
+ * before {@link #add} returns, so the history survives a restart or a crash.
+ * The file holds, big-endian as written by {@link DataOutputStream}:
+ * <pre>
+ *     int    magic ("ALHF")
+ *     int    version
+ * followed by records, each starting with a kind byte:
+ *     'C'    int code, UTF condition    defines a condition code before its first use
+ *     'A'    int patient ID, long timestamp, int condition code
+ * </pre>
+ * A partly written trailing record, left by a crash, is dropped when the file
+ * is opened again, and a file too short to hold the header is started afresh.
+ *
+ * <p>Safe for concurrent use: queries run in parallel with each other, and
+ * additions are serialized.
+ */
+public class AlertHistory implements AutoCloseable {
+    public static final int MAGIC = 0x414c4846; // "ALHF"
+    public static final int VERSION = 1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final byte CONDITION_RECORD = 'C';
+    private static final byte ALERT_RECORD = 'A';
+    private static final int ALERT_RECORD_BYTES = 17;
+    private static final int HEADER_BYTES = 8;
+    private static final AlertPriority[] PRIORITIES = AlertPriority.values();
+
+    /** Alert positions sorted by time. */
+    private static final class TimeIndex {
+        long[] times = new long[16];
+        int[] positions = new int[16];
+        int size;
+
+        void add(long time, int position) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            int at = size;
+            while (at > 0 && times[at - 1] > time) {
+                at--; // A late alert goes after every alert not later than it
+            }
+            System.arraycopy(times, at, times, at + 1, size - at);
+            System.arraycopy(positions, at, positions, at + 1, size - at);
+            times[at] = time;
+            positions[at] = position;
+            size++;
+        }
+
+        /** Returns the first entry at or after {@code time}. */
+        int lowerBound(long time) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (times[middle] < time) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> conditionCodes = new HashMap<>();
+    private final List<String> conditions = new ArrayList<>();
+    private int[] patientIds = new int[INITIAL_CAPACITY];
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private int[] codes = new int[INITIAL_CAPACITY];
+    private int size;
+    private final TimeIndex all = new TimeIndex();
+    private final Map<Integer, TimeIndex> byPatient = new HashMap<>(); // Keyed by ID, however large
+    private final List<TimeIndex> byCondition = new ArrayList<>();
+    private final List<AlertPriority> conditionPriorities = new ArrayList<>();
+    private final TimeIndex[] byPriority = new TimeIndex[PRIORITIES.length];
+    private DataOutputStream log; // null keeps the history in memory only
+    private final BitSet conditionsLogged = new BitSet(); // Codes whose condition record is in the file
+
+    /**
+     * Creates an empty history kept in memory only.
+     */
+    public AlertHistory() {
+        for (int p = 0; p < PRIORITIES.length; p++) {
+            byPriority[p] = new TimeIndex();
+        }
+    }
+
+    /**
+     * Opens a history backed by an append-only file, loading the alerts already
+     * in it. The file and its directory are created if needed.
+     *
+     * @param file the history file
+     * @return the history
+     * @throws IOException if the file cannot be read or written, or is not a history file
+     */
+    public static AlertHistory open(Path file) throws IOException {
+        AlertHistory history = new AlertHistory();
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        // A crash before the header was written leaves a file shorter than it, holding no alerts
+        boolean isNew = !Files.exists(file) || Files.size(file) < HEADER_BYTES;
+        long validLength = isNew ? 0 : history.load(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(validLength); // Drop a partly written trailing record
+        }
+        history.log = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.APPEND)));
+        if (isNew) {
+            history.log.writeInt(MAGIC);
+            history.log.writeInt(VERSION);
+            history.log.flush();
+        }
+        return history;
+    }
+
+    /**
+     * Adds an alert whose patient ID is numeric.
+     *
+     * @param alert the alert
+     * @throws IllegalArgumentException if the patient ID is not a number
+     */
+    public void add(Alert alert) {
+        int patientId;
+        try {
+            patientId = Integer.parseInt(alert.getPatientId());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid patient ID: " + alert.getPatientId());
+        }
+        add(patientId, alert.getCondition(), alert.getTimestamp());
+    }
+
+    /**
+     * Adds an alert, appending it to the history file if there is one.
+     *
+     * @param patientId the patient's ID
+     * @param condition the alert's condition
+     * @param timestamp the alert's time, in milliseconds since epoch
+     */
+    public void add(int patientId, String condition, long timestamp) {
+        if (patientId < 0) {
+            throw new IllegalArgumentException("Invalid patient ID: " + patientId);
+        }
+        lock.writeLock().lock();
+        try {
+            Integer code = conditionCodes.get(condition);
+            if (code == null) {
+                code = defineCondition(condition);
+            }
+            insert(patientId, timestamp, code);
+            if (log != null) {
+                append(patientId, timestamp, code, condition);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns every alert in a time range, in time order.
+     *
+     * @param startTime the start of the range, inclusive
+     * @param endTime   the end of the range, inclusive
+     */
+    public List<Alert> getAlerts(long startTime, long endTime) {
+        lock.readLock().lock();
+        try {
+            return collect(all, startTime, endTime);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns one patient's alerts in a time range, in time order.
+     *
+     * @param patientId the patient's ID
+     * @param startTime the start of the range, inclusive
+     * @param endTime   the end of the range, inclusive
+     */
+    public List<Alert> getAlerts(int patientId, long startTime, long endTime) {
+        lock.readLock().lock();
+        try {
+            return collect(byPatient.get(patientId), startTime, endTime);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the alerts of one condition in a time range, in time order.
+     *
+     * @param condition the condition
+     * @param startTime the start of the range, inclusive
+     * @param endTime   the end of the range, inclusive
+     */
+    public List<Alert> getAlerts(String condition, long startTime, long endTime) {
+        lock.readLock().lock();
+        try {
+            Integer code = conditionCodes.get(condition);
+            return code == null ? new ArrayList<>() : collect(byCondition.get(code), startTime, endTime);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the alerts of one priority in a time range, in time order.
+     *
+     * @param priority the priority, as given by {@link AlertPriority#of}
+     * @param startTime the start of the range, inclusive
+     * @param endTime   the end of the range, inclusive
+     */
+    public List<Alert> getAlerts(AlertPriority priority, long startTime, long endTime) {
+        lock.readLock().lock();
+        try {
+            return collect(byPriority[priority.ordinal()], startTime, endTime);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of alerts in the history.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the alerts added so far through to the history file.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void flush() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (log != null) {
+                log.flush();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Flushes and closes the history file, if there is one. The history can
+     * still be queried afterwards.
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (log != null) {
+                log.close();
+                log = null;
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing alert history: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int defineCondition(String condition) {
+        int code = conditions.size();
+        conditions.add(condition);
+        conditionCodes.put(condition, code);
+        byCondition.add(new TimeIndex());
+        conditionPriorities.add(AlertPriority.of(condition));
+        return code;
+    }
+
+    /**
+     * Writes an alert record, preceded by its condition's record until one has
+     * been written successfully, so that a failed write never leaves alert
+     * records with a code the file does not define.
+     */
+    private void append(int patientId, long timestamp, int code, String condition) {
+        try {
+            if (!conditionsLogged.get(code)) {
+                log.writeByte(CONDITION_RECORD); // Harmless if an earlier attempt got it into the file after all
+                log.writeInt(code);
+                log.writeUTF(condition);
+            }
+            log.writeByte(ALERT_RECORD);
+            log.writeInt(patientId);
+            log.writeLong(timestamp);
+            log.writeInt(code);
+            log.flush(); // An alert is in the file once add returns, not only after close
+            conditionsLogged.set(code);
+        } catch (IOException e) {
+            System.err.println("Error writing alert history: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private void insert(int patientId, long timestamp, int code) {
+        if (size == timestamps.length) {
+            patientIds = Arrays.copyOf(patientIds, size * 2);
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            codes = Arrays.copyOf(codes, size * 2);
+        }
+        int position = size++;
+        patientIds[position] = patientId;
+        timestamps[position] = timestamp;
+        codes[position] = code;
+
+        all.add(timestamp, position);
+        byPatient.computeIfAbsent(patientId, id -> new TimeIndex()).add(timestamp, position);
+        byCondition.get(code).add(timestamp, position);
+        byPriority[conditionPriorities.get(code).ordinal()].add(timestamp, position);
+    }
+
+    private List<Alert> collect(TimeIndex index, long startTime, long endTime) {
+        List<Alert> alerts = new ArrayList<>();
+        if (index == null || startTime > endTime) {
+            return alerts;
+        }
+        int end = endTime == Long.MAX_VALUE ? index.size : index.lowerBound(endTime + 1);
+        for (int i = index.lowerBound(startTime); i < end; i++) {
+            int position = index.positions[i];
+            alerts.add(new Alert(Integer.toString(patientIds[position]), conditions.get(codes[position]),
+                    timestamps[position]));
+        }
+        return alerts;
+    }
+
+    /**
+     * Loads the records of a history file.
+     *
+     * @return the length of the file up to the last complete record
+     */
+    private long load(Path file) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            DataInputStream data = new DataInputStream(new BufferedInputStream(input));
+            if (data.readInt() != MAGIC) {
+                throw new IOException("Not an alert history file: " + file);
+            }
+            int version = data.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported alert history version " + version + " in " + file);
+            }
+            long validLength = HEADER_BYTES;
+            Map<Integer, Integer> fileCodes = new HashMap<>(); // Code in the file to code in this history
+            try {
+                while (true) {
+                    byte kind = data.readByte();
+                    if (kind == CONDITION_RECORD) {
+                        int fileCode = data.readInt();
+                        String condition = data.readUTF();
+                        Integer code = conditionCodes.get(condition);
+                        if (code == null) {
+                            code = defineCondition(condition);
+                        }
+                        fileCodes.put(fileCode, code);
+                        conditionsLogged.set(code);
+                        validLength += 7 + utfLength(condition);
+                    } else if (kind == ALERT_RECORD) {
+                        int patientId = data.readInt();
+                        long timestamp = data.readLong();
+                        Integer code = fileCodes.get(data.readInt());
+                        if (code == null) {
+                            throw new IOException("Undefined condition code in " + file + " at byte " + validLength);
+                        }
+                        if (patientId < 0) {
+                            throw new IOException("Invalid patient ID in " + file + " at byte " + validLength);
+                        }
+                        insert(patientId, timestamp, code);
+                        validLength += ALERT_RECORD_BYTES;
+                    } else {
+                        throw new IOException("Invalid record kind " + kind + " in " + file + " at byte "
+                                + validLength);
+                    }
+                }
+            } catch (EOFException e) {
+                return validLength; // End of the file, or of its last complete record
+            }
+        }
+    }
+
+    /** Returns the length of a string in the modified UTF-8 written by {@link DataOutputStream#writeUTF}. */
+    private static int utfLength(String text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            length += c >= 1 && c <= 0x7f ? 1 : c <= 0x7ff ? 2 : 3;
+        }
+        return length;
+    }
+}
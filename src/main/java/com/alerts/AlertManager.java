@@ -1,25 +1,60 @@
 package com.alerts;
 
-import java.util.LinkedList;
+import java.util.List;
 
+/**
+ * Collects raised alerts into an {@link AlertStore}, so repeats of the same
+ * condition are coalesced and the number of alerts kept is bounded, and
+ * optionally records every alert in an {@link AlertHistory} for later queries.
+ */
 public class AlertManager 
 {
-    private int alertCount;
-    private LinkedList<Alert> alerts;
+    private final AlertStore store;
+    private final AlertHistory history; // null keeps no history
 
     public AlertManager()
     {
-        alerts = new LinkedList<Alert>();
-        alertCount = 0;
+        this(new AlertStore(AlertStore.DEFAULT_CAPACITY, AlertStore.DEFAULT_SUPPRESSION_MILLIS));
     }
 
-    public void addAlert(Alert alert)
+    public AlertManager(AlertStore store)
     {
-        alerts.add(alert);
-        alertCount++;
+        this(store, null);
     }
 
+    public AlertManager(AlertStore store, AlertHistory history)
+    {
+        this.store = store;
+        this.history = history;
+    }
+
+    public AlertStore.Outcome addAlert(Alert alert)
+    {
+        if (history != null) {
+            history.add(alert);
+        }
+        return store.add(alert);
+    }
+
+    /**
+     * Returns the number of alerts added, whether stored, coalesced or dropped.
+     */
     public int getAlertCount() {
-        return alertCount;
+        return (int) (store.getStoredCount() + store.getCoalescedCount() + store.getRateLimitedCount());
+    }
+
+    public List<AlertStore.StoredAlert> getAlerts() {
+        return store.getAlerts();
+    }
+
+    public AlertStore getStore() {
+        return store;
+    }
+
+    /**
+     * Returns the history every added alert is recorded in, or null if there is none.
+     */
+    public AlertHistory getHistory() {
+        return history;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,271 @@
+package com.alerts;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.alerts.decorator.RepeatedAlertDecorator;
+
+/**
+ * A bounded, thread-safe store of raised alerts that absorbs repeats and
+ * limits how fast new alerts are let through.
+ *
+ * <p>An alert with the same patient and condition as a stored alert less than
+ * the suppression window older is coalesced into it: the stored alert's repeat
+ * count and last time are updated and nothing new is stored. The window is
+ * measured from the first alert, so a condition that keeps firing is stored
+ * again once per window rather than never. Alerts that would be stored are
+ * then checked against the patient's rate limit and the global one, and
+ * dropped if either is exhausted. Windows and limits follow alert timestamps,
+ * not the wall clock.
+ *
+ * <p>Stored alerts go into a ring of fixed capacity, so the oldest are
+ * forgotten once it is full; an alert that has left the ring no longer absorbs
+ * repeats. Producers only contend on the same patient, and readers take no
+ * locks.
+ */
+public class AlertStore {
+    public static final int DEFAULT_CAPACITY = 64 * 1024;
+    public static final long DEFAULT_SUPPRESSION_MILLIS = 60_000;
+
+    /**
+     * What became of an alert passed to {@link #add}.
+     */
+    public enum Outcome {
+        /** Stored as a new alert. */
+        STORED,
+        /** Counted as a repeat of a stored alert. */
+        COALESCED,
+        /** Dropped by a rate limit. */
+        RATE_LIMITED
+    }
+
+    /**
+     * A stored alert with the number of repeats coalesced into it.
+     */
+    public static final class StoredAlert implements AlertInterface {
+        private final Alert alert;
+        private final long sequence;
+        // Written under the patient's lock, read without it
+        private volatile int repeatCount;
+        private volatile long lastTimestamp;
+
+        StoredAlert(Alert alert, long sequence) {
+            this.alert = alert;
+            this.sequence = sequence;
+            this.lastTimestamp = alert.getTimestamp();
+        }
+
+        @Override
+        public String getPatientId() {
+            return alert.getPatientId();
+        }
+
+        @Override
+        public String getCondition() {
+            return alert.getCondition();
+        }
+
+        /**
+         * Returns the time of the first alert.
+         */
+        @Override
+        public long getTimestamp() {
+            return alert.getTimestamp();
+        }
+
+        /**
+         * Returns the time of the latest alert coalesced into this one.
+         */
+        public long getLastTimestamp() {
+            return lastTimestamp;
+        }
+
+        /**
+         * Returns the number of alerts coalesced into this one after the first.
+         */
+        public int getRepeatCount() {
+            return repeatCount;
+        }
+
+        /**
+         * Returns the alert as downstream consumers should see it: decorated with
+         * its repeat count if it was repeated.
+         */
+        public AlertInterface toAlert() {
+            int repeats = repeatCount;
+            return repeats == 0 ? alert : new RepeatedAlertDecorator(alert, repeats);
+        }
+    }
+
+    /** The open alerts and rate limit of one patient; guarded by itself. */
+    private final class PatientAlerts {
+        final Map<String, StoredAlert> byCondition = new HashMap<>();
+        final RateLimiter limiter = patientAlertsPerSecond > 0
+                ? new RateLimiter(patientAlertsPerSecond, patientBurst) : null;
+    }
+
+    private final int capacity;
+    private final long suppressionMillis;
+    private final double patientAlertsPerSecond;
+    private final int patientBurst;
+    private final RateLimiter globalLimiter;
+    private final AtomicReferenceArray<StoredAlert> ring;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentHashMap<String, PatientAlerts> patients = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+
+    /**
+     * Creates a store without rate limits.
+     *
+     * @param capacity          the number of stored alerts kept
+     * @param suppressionMillis how long a stored alert absorbs repeats, or 0 to store every alert
+     */
+    public AlertStore(int capacity, long suppressionMillis) {
+        this(capacity, suppressionMillis, 0, 1, 0, 1);
+    }
+
+    /**
+     * Creates a store.
+     *
+     * @param capacity               the number of stored alerts kept
+     * @param suppressionMillis      how long a stored alert absorbs repeats, or 0 to store every alert
+     * @param patientAlertsPerSecond new alerts let through per patient per second, or 0 for no limit
+     * @param patientBurst           new alerts a patient may raise at once
+     * @param alertsPerSecond        new alerts let through per second overall, or 0 for no limit
+     * @param burst                  new alerts that may be raised at once overall
+     */
+    public AlertStore(int capacity, long suppressionMillis, double patientAlertsPerSecond, int patientBurst,
+            double alertsPerSecond, int burst) {
+        if (capacity < 1 || suppressionMillis < 0) {
+            throw new IllegalArgumentException("Invalid alert store capacity " + capacity
+                    + " or suppression window " + suppressionMillis);
+        }
+        this.capacity = capacity;
+        this.suppressionMillis = suppressionMillis;
+        this.patientAlertsPerSecond = patientAlertsPerSecond;
+        this.patientBurst = patientBurst;
+        if (patientAlertsPerSecond > 0) {
+            new RateLimiter(patientAlertsPerSecond, patientBurst); // Fail now rather than on a patient's first alert
+        }
+        this.globalLimiter = alertsPerSecond > 0 ? new RateLimiter(alertsPerSecond, burst) : null;
+        this.ring = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Adds an alert, coalescing it into a stored alert or dropping it if needed.
+     * Safe to call from any number of threads.
+     *
+     * @param alert the alert
+     * @return what became of the alert
+     */
+    public Outcome add(Alert alert) {
+        PatientAlerts patient = patients.computeIfAbsent(alert.getPatientId(), id -> new PatientAlerts());
+        long timestamp = alert.getTimestamp();
+        synchronized (patient) {
+            StoredAlert open = patient.byCondition.get(alert.getCondition());
+            if (open != null && suppressionMillis > 0 && timestamp - open.getTimestamp() < suppressionMillis
+                    && isRetained(open)) {
+                open.repeatCount++;
+                open.lastTimestamp = Math.max(open.lastTimestamp, timestamp);
+                coalesced.increment();
+                return Outcome.COALESCED;
+            }
+            if (patient.limiter != null && !patient.limiter.tryAcquire(timestamp)) {
+                rateLimited.increment();
+                return Outcome.RATE_LIMITED;
+            }
+            if (globalLimiter != null && !globalLimiter.tryAcquire(timestamp)) {
+                if (patient.limiter != null) {
+                    patient.limiter.release(); // A busy ward must not use up a quiet patient's allowance
+                }
+                rateLimited.increment();
+                return Outcome.RATE_LIMITED;
+            }
+            StoredAlert stored = new StoredAlert(alert, sequence.getAndIncrement());
+            store(stored);
+            patient.byCondition.put(alert.getCondition(), stored);
+            return Outcome.STORED;
+        }
+    }
+
+    /**
+     * Returns the stored alerts still in the ring, oldest first.
+     */
+    public List<StoredAlert> getAlerts() {
+        return collect(null);
+    }
+
+    /**
+     * Returns one patient's stored alerts still in the ring, oldest first.
+     *
+     * @param patientId the patient's ID
+     */
+    public List<StoredAlert> getAlerts(String patientId) {
+        return collect(patientId);
+    }
+
+    /**
+     * Returns the number of alerts stored, including those since forgotten.
+     */
+    public long getStoredCount() {
+        return sequence.get();
+    }
+
+    /**
+     * Returns the number of alerts coalesced into stored alerts.
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Returns the number of alerts dropped by a rate limit.
+     */
+    public long getRateLimitedCount() {
+        return rateLimited.sum();
+    }
+
+    /**
+     * Returns a one-line summary of what became of the alerts added.
+     */
+    public String summary() {
+        return String.format("stored=%d coalesced=%d rate-limited=%d retained=%d", getStoredCount(),
+                getCoalescedCount(), getRateLimitedCount(), Math.min(getStoredCount(), capacity));
+    }
+
+    private void store(StoredAlert stored) {
+        int slot = (int) (stored.sequence % capacity);
+        StoredAlert current;
+        do {
+            current = ring.get(slot);
+            if (current != null && current.sequence > stored.sequence) {
+                return; // A producer that came later has already lapped this one
+            }
+        } while (!ring.compareAndSet(slot, current, stored));
+    }
+
+    private boolean isRetained(StoredAlert stored) {
+        return ring.get((int) (stored.sequence % capacity)) == stored;
+    }
+
+    private List<StoredAlert> collect(String patientId) {
+        long end = sequence.get();
+        List<StoredAlert> alerts = new ArrayList<>();
+        for (long s = Math.max(0, end - capacity); s < end; s++) {
+            StoredAlert stored = ring.get((int) (s % capacity));
+            // Skip slots not yet written or already reused
+            if (stored != null && stored.sequence == s
+                    && (patientId == null || patientId.equals(stored.getPatientId()))) {
+                alerts.add(stored);
+            }
+        }
+        return alerts;
+    }
+}
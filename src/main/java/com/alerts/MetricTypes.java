@@ -0,0 +1,169 @@
+package com.alerts;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The metric types alert rules are written against, each interned to a small
+ * integer code, and the mapping from the record types samples are stored under
+ * to those metric types.
+ *
+ * <p>Rules are written for a metric such as "blood pressure", while sources
+ * label their records in their own way, e.g. "SystolicPressure" from the
+ * simulator. A label that is not mapped has no metric type and reaches no rule.
+ * The mapping can be changed at any time and read from a file where each
+ * non-empty line that is not a {@code #} comment reads
+ * {@code <label> = <metric type>}.
+ *
+ * <p>This class is thread-safe. Codes are never reused or removed.
+ */
+public class MetricTypes {
+    public static final String BLOOD_PRESSURE = "blood pressure";
+    public static final String HEART_RATE = "heart rate";
+    public static final String OXYGEN_SATURATION = "oxygen saturation";
+    public static final int UNMAPPED = -1;
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private final List<String> names = new ArrayList<>(); // Guarded by this
+    private final Map<String, Integer> labels = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a mapping with the built-in metric types, each mapped from its own
+     * name and from the simulator's label for it. Diastolic pressure is not
+     * mapped, since the blood pressure rule's thresholds are systolic ones.
+     *
+     * @return the default mapping
+     */
+    public static MetricTypes defaults() {
+        MetricTypes types = new MetricTypes();
+        types.mapLabel(BLOOD_PRESSURE, BLOOD_PRESSURE);
+        types.mapLabel(HEART_RATE, HEART_RATE);
+        types.mapLabel(OXYGEN_SATURATION, OXYGEN_SATURATION);
+        types.mapLabel("SystolicPressure", BLOOD_PRESSURE);
+        types.mapLabel("HeartRate", HEART_RATE);
+        types.mapLabel("Saturation", OXYGEN_SATURATION);
+        return types;
+    }
+
+    /**
+     * Reads the default mapping and then the label mappings of a file, which
+     * add to and override the defaults.
+     *
+     * @param path the mapping file
+     * @return the mapping
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if a line is not a valid mapping
+     */
+    public static MetricTypes load(Path path) throws IOException {
+        MetricTypes types = defaults();
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            List<String> lines = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+            types.mapLabels(lines);
+        }
+        return types;
+    }
+
+    /**
+     * Applies label mapping lines of the form {@code <label> = <metric type>}.
+     *
+     * @param lines the lines
+     * @throws IllegalArgumentException if a line is not a valid mapping
+     */
+    public void mapLabels(List<String> lines) {
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            int equals = line.indexOf('=');
+            if (equals <= 0 || equals == line.length() - 1) {
+                throw new IllegalArgumentException("Line " + (i + 1) + ": expected '<label> = <metric type>'");
+            }
+            mapLabel(line.substring(0, equals).trim(), line.substring(equals + 1).trim());
+        }
+    }
+
+    /**
+     * Returns the code of a metric type, giving it the next free code if it has none yet.
+     *
+     * @param metricType the metric type, e.g. "blood pressure"
+     * @return the code, from 0 to {@link #size()} minus one
+     */
+    public int code(String metricType) {
+        Integer code = codes.get(metricType);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(metricType);
+            if (code == null) {
+                code = names.size();
+                names.add(metricType);
+                codes.put(metricType, code);
+            }
+            return code;
+        }
+    }
+
+    /**
+     * Returns the metric type with a code.
+     *
+     * @param code the code
+     * @return the metric type
+     */
+    public synchronized String name(int code) {
+        return names.get(code);
+    }
+
+    /**
+     * Returns the number of metric types with a code.
+     */
+    public synchronized int size() {
+        return names.size();
+    }
+
+    /**
+     * Routes records stored under a label to a metric type.
+     *
+     * @param label      the record type as stored
+     * @param metricType the metric type
+     */
+    public void mapLabel(String label, String metricType) {
+        labels.put(label, code(metricType));
+    }
+
+    /**
+     * Stops routing records stored under a label to any metric type.
+     *
+     * @param label the record type as stored
+     */
+    public void unmapLabel(String label) {
+        labels.remove(label);
+    }
+
+    /**
+     * Returns the code of the metric type a label is mapped to.
+     *
+     * @param label the record type as stored
+     * @return the code, or {@link #UNMAPPED} if the label is not mapped
+     */
+    public int codeOfLabel(String label) {
+        Integer code = labels.get(label);
+        return code != null ? code : UNMAPPED;
+    }
+}
@@ -0,0 +1,218 @@
+package com.alerts;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.data_management.DataStorage;
+import com.data_management.Patient;
+
+/**
+ * Evaluates the alert rules for every patient in a {@link DataStorage} over a
+ * time range on several threads, for backfills and periodic sweeps.
+ *
+ * <p>Patients are split into a fixed set of shards by patient ID, several per
+ * worker, and each shard has a home worker. A sweep puts every shard on its home
+ * worker's deque; a worker takes its own shards from the front, and once its
+ * deque is empty takes shards from the back of the other workers' deques, so a
+ * worker held up by a few heavy patients does not hold up the sweep. A patient is
+ * always in the same shard, and each shard keeps its own {@link RuleRegistry},
+ * so any state a rule keeps about a patient is only touched by one thread at a
+ * time, and usually by the same thread sweep after sweep.
+ *
+ * <p>The alerts of a sweep are returned as one list ordered by time, then
+ * patient ID, then condition, so the result does not depend on the number of
+ * workers or on which worker evaluated which shard.
+ */
+public class ParallelAlertSweep implements AutoCloseable {
+    public static final int SHARDS_PER_WORKER = 8;
+    /** The order of a sweep's result. */
+    public static final Comparator<Alert> ALERT_ORDER = Comparator.comparingLong(Alert::getTimestamp)
+            .thenComparingLong(alert -> Long.parseLong(alert.getPatientId()))
+            .thenComparing(Alert::getCondition);
+
+    private final DataStorage storage;
+    private final Shard[] shards;
+    private final Worker[] workers;
+    private final AtomicLong shardsStolen = new AtomicLong();
+    private volatile long startTime;
+    private volatile long endTime;
+    private volatile CountDownLatch finished;
+    private volatile boolean closed;
+
+    /**
+     * Creates a sweep and starts its worker threads.
+     *
+     * @param storage     the storage whose patients are evaluated
+     * @param rules       creates the rules of one shard; called once per shard, on first use
+     * @param workerCount the number of worker threads
+     */
+    public ParallelAlertSweep(DataStorage storage, Supplier<RuleRegistry> rules, int workerCount) {
+        this.storage = storage;
+        workers = new Worker[Math.max(1, workerCount)];
+        shards = new Shard[workers.length * SHARDS_PER_WORKER];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(rules);
+        }
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(i);
+            Thread thread = new Thread(workers[i], "alert-sweep-" + i);
+            thread.setDaemon(true);
+            workers[i].thread = thread;
+            thread.start();
+        }
+    }
+
+    /**
+     * Evaluates every patient's records in a time range and returns the alerts
+     * raised, in {@link #ALERT_ORDER}. Sweeps must not overlap.
+     *
+     * @param startTime the start of the range, in milliseconds since epoch
+     * @param endTime   the end of the range, in milliseconds since epoch
+     * @return the alerts raised
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public synchronized List<Alert> sweep(long startTime, long endTime) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("The sweep is closed");
+        }
+        for (Shard shard : shards) {
+            shard.patients.clear();
+        }
+        for (Worker worker : workers) {
+            worker.deque.clear(); // Nothing from an earlier sweep may be evaluated twice
+        }
+        for (Patient patient : storage.getAllPatients()) {
+            shards[Math.floorMod(patient.getId(), shards.length)].patients.add(patient);
+        }
+        for (int i = 0; i < shards.length; i++) {
+            if (!shards[i].patients.isEmpty()) {
+                workers[i % workers.length].deque.addLast(shards[i]);
+            }
+        }
+        this.startTime = startTime;
+        this.endTime = endTime;
+        finished = new CountDownLatch(workers.length);
+        for (Worker worker : workers) {
+            worker.alerts.clear();
+            worker.start.release();
+        }
+        finished.await();
+
+        int total = 0;
+        for (Worker worker : workers) {
+            total += worker.alerts.size();
+        }
+        List<Alert> alerts = new ArrayList<>(total);
+        for (Worker worker : workers) {
+            alerts.addAll(worker.alerts);
+        }
+        alerts.sort(ALERT_ORDER);
+        return alerts;
+    }
+
+    /**
+     * Returns the number of worker threads.
+     */
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    /**
+     * Returns how many shards were evaluated by a worker other than their home
+     * worker, over all sweeps so far.
+     */
+    public long getShardsStolen() {
+        return shardsStolen.get();
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Worker worker : workers) {
+            worker.thread.interrupt();
+        }
+    }
+
+    private static final class Shard {
+        final Supplier<RuleRegistry> factory;
+        final List<Patient> patients = new ArrayList<>();
+        RuleRegistry rules; // Used by one worker at a time; the deques hand it over safely
+
+        Shard(Supplier<RuleRegistry> factory) {
+            this.factory = factory;
+        }
+    }
+
+    private final class Worker implements Runnable {
+        final int index;
+        final ConcurrentLinkedDeque<Shard> deque = new ConcurrentLinkedDeque<>();
+        final Semaphore start = new Semaphore(0);
+        final List<Alert> alerts = new ArrayList<>(); // Read by the sweeping thread once the latch is down
+        final Consumer<Alert> sink = alerts::add;
+        Thread thread;
+
+        Worker(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            while (!closed) {
+                try {
+                    start.acquire();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    Shard shard;
+                    while ((shard = next()) != null) {
+                        evaluate(shard);
+                    }
+                } finally {
+                    finished.countDown();
+                }
+            }
+        }
+
+        private Shard next() {
+            Shard shard = deque.pollFirst();
+            if (shard != null) {
+                return shard;
+            }
+            for (int i = 1; i < workers.length; i++) {
+                shard = workers[(index + i) % workers.length].deque.pollLast();
+                if (shard != null) {
+                    shardsStolen.incrementAndGet();
+                    return shard;
+                }
+            }
+            return null;
+        }
+
+        private void evaluate(Shard shard) {
+            if (shard.rules == null) {
+                shard.rules = shard.factory.get();
+            }
+            for (Patient patient : shard.patients) {
+                try {
+                    shard.rules.evaluate(patient, patient.getRecords(startTime, endTime), sink);
+                } catch (RuntimeException e) {
+                    // One failing patient must not leave the rest of the sweep unevaluated
+                    System.err.println("Error in alert sweep worker " + index + " for patient " + patient.getId()
+                            + ": " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
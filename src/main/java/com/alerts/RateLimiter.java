@@ -0,0 +1,57 @@
+package com.alerts;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket kept as the single timestamp at which it will next be full,
+ * so taking a token is one compare-and-set with no lock.
+ *
+ * <p>Time is whatever the caller passes in, in milliseconds; the alert store
+ * passes alert timestamps so that limits behave the same in virtual time.
+ */
+class RateLimiter {
+    private final long intervalMicros; // Time to earn one token
+    private final long burstMicros; // How far the bucket's full time may run ahead of now
+    private final AtomicLong fullAtMicros = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Creates a limiter.
+     *
+     * @param perSecond tokens earned per second
+     * @param burst     tokens the bucket holds when full
+     */
+    RateLimiter(double perSecond, int burst) {
+        if (perSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Invalid rate limit: " + perSecond + "/s, burst " + burst);
+        }
+        intervalMicros = Math.max(1, Math.round(1_000_000 / perSecond));
+        burstMicros = intervalMicros * burst;
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @param nowMillis the current time in milliseconds
+     * @return true if a token was taken
+     */
+    boolean tryAcquire(long nowMillis) {
+        long now = nowMillis * 1000;
+        while (true) {
+            long fullAt = fullAtMicros.get();
+            long next = Math.max(fullAt, now) + intervalMicros;
+            if (next - now > burstMicros) {
+                return false;
+            }
+            if (fullAtMicros.compareAndSet(fullAt, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken with {@link #tryAcquire} that was not used.
+     */
+    void release() {
+        fullAtMicros.addAndGet(-intervalMicros);
+    }
+}
@@ -0,0 +1,170 @@
+package com.alerts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.alerts.strategy.AlertStrategy;
+import com.alerts.strategy.StreamingAlertStrategy;
+import com.data_management.Patient;
+import com.data_management.PatientRecord;
+
+/**
+ * Routes samples and records to the alert rules subscribed to their metric type.
+ *
+ * <p>Rules are held in arrays indexed by {@link MetricTypes} code, so once a
+ * sample's code is known, dispatching it is one array lookup and one call per
+ * subscribed rule, and a sample of a type no rule cares about costs nothing
+ * more. Rule instances are created once and reused for every sample.
+ *
+ * <p>A registry is not thread-safe, since the rules it holds are not: each
+ * thread that evaluates samples should have its own.
+ */
+public class RuleRegistry {
+    private static final StreamingAlertStrategy[] NO_RULES = new StreamingAlertStrategy[0];
+    private static final AlertStrategy[] NO_BATCH_RULES = new AlertStrategy[0];
+
+    private final MetricTypes types;
+    private StreamingAlertStrategy[][] rules = new StreamingAlertStrategy[0][];
+    private AlertStrategy[][] batchRules = new AlertStrategy[0][];
+
+    /**
+     * Creates a registry without rules.
+     *
+     * @param types the metric types and label mapping
+     */
+    public RuleRegistry(MetricTypes types) {
+        this.types = types;
+    }
+
+    /**
+     * Returns the metric types and label mapping the registry uses.
+     */
+    public MetricTypes getTypes() {
+        return types;
+    }
+
+    /**
+     * Subscribes a streaming rule to a metric type.
+     *
+     * @param metricType the metric type, e.g. "blood pressure"
+     * @param rule       the rule
+     */
+    public void addRule(String metricType, StreamingAlertStrategy rule) {
+        int code = types.code(metricType);
+        if (code >= rules.length) {
+            rules = grow(rules, code + 1, NO_RULES);
+        }
+        StreamingAlertStrategy[] subscribed = Arrays.copyOf(rules[code], rules[code].length + 1);
+        subscribed[subscribed.length - 1] = rule;
+        rules[code] = subscribed;
+    }
+
+    /**
+     * Subscribes a rule that is evaluated over a patient's records to a metric type.
+     *
+     * @param metricType the metric type, e.g. "blood pressure"
+     * @param rule       the rule
+     */
+    public void addBatchRule(String metricType, AlertStrategy rule) {
+        int code = types.code(metricType);
+        if (code >= batchRules.length) {
+            batchRules = grow(batchRules, code + 1, NO_BATCH_RULES);
+        }
+        AlertStrategy[] subscribed = Arrays.copyOf(batchRules[code], batchRules[code].length + 1);
+        subscribed[subscribed.length - 1] = rule;
+        batchRules[code] = subscribed;
+    }
+
+    /**
+     * Returns true if any streaming rule is subscribed to a metric type.
+     *
+     * @param code the metric type's code
+     * @return whether samples of the type reach a rule
+     */
+    public boolean hasRules(int code) {
+        return code >= 0 && code < rules.length && rules[code].length > 0;
+    }
+
+    /**
+     * Evaluates a sample with every streaming rule subscribed to its metric type.
+     *
+     * @param code      the sample's metric type code, or {@link MetricTypes#UNMAPPED}
+     * @param patientId the patient the sample belongs to
+     * @param timestamp the sample's time, in milliseconds since epoch
+     * @param value     the sample's value
+     * @param alerts    receives the alerts raised
+     * @return the number of alerts raised
+     */
+    public int dispatch(int code, int patientId, long timestamp, double value, Consumer<Alert> alerts) {
+        if (code < 0 || code >= rules.length) {
+            return 0;
+        }
+        int raised = 0;
+        for (StreamingAlertStrategy rule : rules[code]) {
+            Alert alert = rule.onSample(patientId, timestamp, value);
+            if (alert != null) {
+                alerts.accept(alert);
+                raised++;
+            }
+        }
+        return raised;
+    }
+
+    /**
+     * Evaluates a sample stored under a label, looking up the label's metric type first.
+     *
+     * @param recordType the record type as stored
+     * @param patientId  the patient the sample belongs to
+     * @param timestamp  the sample's time, in milliseconds since epoch
+     * @param value      the sample's value
+     * @param alerts     receives the alerts raised
+     * @return the number of alerts raised
+     */
+    public int dispatch(String recordType, int patientId, long timestamp, double value, Consumer<Alert> alerts) {
+        return dispatch(types.codeOfLabel(recordType), patientId, timestamp, value, alerts);
+    }
+
+    /**
+     * Evaluates a patient's records with the batch rules. The records are split
+     * by metric type in one pass and each rule sees only the records of its type,
+     * in their original order.
+     *
+     * @param patient the patient
+     * @param records the patient's records
+     * @param alerts  receives the alerts raised
+     */
+    public void evaluate(Patient patient, List<PatientRecord> records, Consumer<Alert> alerts) {
+        List<List<PatientRecord>> byType = new ArrayList<>(batchRules.length);
+        for (int code = 0; code < batchRules.length; code++) {
+            byType.add(batchRules[code].length > 0 ? new ArrayList<>() : null);
+        }
+        for (PatientRecord record : records) {
+            int code = types.codeOfLabel(record.getRecordType());
+            if (code >= 0 && code < byType.size() && byType.get(code) != null) {
+                byType.get(code).add(record);
+            }
+        }
+        for (int code = 0; code < batchRules.length; code++) {
+            List<PatientRecord> typed = byType.get(code);
+            if (typed == null || typed.isEmpty()) {
+                continue;
+            }
+            for (AlertStrategy rule : batchRules[code]) {
+                Alert alert = rule.checkAlert(patient, typed);
+                if (alert != null) {
+                    alerts.accept(alert);
+                }
+            }
+        }
+    }
+
+    private static <T> T[][] grow(T[][] table, int length, T[] empty) {
+        T[][] grown = Arrays.copyOf(table, length);
+        for (int i = table.length; i < length; i++) {
+            grown[i] = empty;
+        }
+        return grown;
+    }
+}
@@ -0,0 +1,191 @@
+package com.alerts.cep;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.alerts.Alert;
+import com.alerts.strategy.PatientState;
+
+/**
+ * Matches {@link CorrelationPattern}s against each patient's samples, across
+ * record types, as the samples arrive.
+ *
+ * <p>Each pattern keeps one timestamp per event per patient, in an array
+ * indexed by the patient's {@link PatientState} slot, so state is bounded by the number of patients and
+ * events whatever the sample rate or window length. For a join the timestamp is
+ * the latest sample that met the event's condition; for a sequence it is the
+ * start of the latest partial match that got as far as the event, since the
+ * latest start leaves the most time to complete it. An entry older than the
+ * window, judged by the time of the sample being processed, has expired and is
+ * cleared, so expiry follows event time and needs no timer.
+ *
+ * <p>A sample costs one lookup of its record type, then work only for the
+ * pattern events waiting for that type. Like the streaming strategies, a
+ * processor is not thread-safe: a patient's samples must be passed in time
+ * order, from one thread at a time.
+ */
+public class ComplexEventProcessor {
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final CorrelationPattern[] patterns;
+    private final Map<String, Step[]> steps = new HashMap<>();
+    private long[][] times; // Per pattern: slot * events + event
+    private int capacity;
+    private final PatientState patients = new PatientState();
+
+    /** A pattern event waiting for samples of one record type. */
+    private static final class Step {
+        final int pattern;
+        final int event;
+        final EventCondition condition;
+
+        Step(int pattern, int event, EventCondition condition) {
+            this.pattern = pattern;
+            this.event = event;
+            this.condition = condition;
+        }
+    }
+
+    /**
+     * Creates a processor for a set of patterns.
+     *
+     * @param patterns the patterns
+     */
+    public ComplexEventProcessor(List<CorrelationPattern> patterns) {
+        this.patterns = patterns.toArray(new CorrelationPattern[0]);
+        times = new long[this.patterns.length][];
+        Map<String, List<Step>> byType = new HashMap<>();
+        for (int p = 0; p < this.patterns.length; p++) {
+            List<EventCondition> events = this.patterns[p].getEvents();
+            times[p] = new long[0];
+            // Later events first, so one sample cannot advance a sequence by two events at once
+            for (int e = events.size() - 1; e >= 0; e--) {
+                EventCondition condition = events.get(e);
+                byType.computeIfAbsent(condition.getRecordType(), type -> new ArrayList<>())
+                        .add(new Step(p, e, condition));
+            }
+        }
+        for (Map.Entry<String, List<Step>> entry : byType.entrySet()) {
+            steps.put(entry.getKey(), entry.getValue().toArray(new Step[0]));
+        }
+    }
+
+    /**
+     * Processes one sample.
+     *
+     * @param patientId  the patient the sample belongs to
+     * @param recordType the sample's record type
+     * @param timestamp  the sample's time, in milliseconds since epoch
+     * @param value      the sample's value
+     * @param alerts     receives the alerts of the patterns the sample completes
+     * @return the number of alerts raised
+     */
+    public int onSample(int patientId, String recordType, long timestamp, double value, Consumer<Alert> alerts) {
+        Step[] waiting = steps.get(recordType);
+        if (waiting == null) {
+            return 0;
+        }
+        int slot = patients.slot(patientId);
+        if (slot >= capacity) {
+            grow(slot);
+        }
+        int raised = 0;
+        for (Step step : waiting) {
+            if (!step.condition.matches(value)) {
+                continue;
+            }
+            CorrelationPattern pattern = patterns[step.pattern];
+            boolean matched = pattern.isOrdered()
+                    ? advanceSequence(step, pattern, slot, timestamp)
+                    : advanceJoin(step, pattern, slot, timestamp);
+            if (matched) {
+                alerts.accept(new Alert(Integer.toString(patientId), pattern.getCondition(), timestamp));
+                raised++;
+            }
+        }
+        return raised;
+    }
+
+    /**
+     * Forgets every partial match of a patient.
+     *
+     * @param patientId the patient's ID
+     */
+    public void reset(int patientId) {
+        int slot = patients.find(patientId);
+        if (slot < 0) {
+            return;
+        }
+        for (int p = 0; p < patterns.length; p++) {
+            int events = patterns[p].getEvents().size();
+            Arrays.fill(times[p], slot * events, (slot + 1) * events, NONE);
+        }
+    }
+
+    private boolean advanceJoin(Step step, CorrelationPattern pattern, int slot, long timestamp) {
+        long[] state = times[step.pattern];
+        int events = pattern.getEvents().size();
+        int base = slot * events;
+        state[base + step.event] = Math.max(state[base + step.event], timestamp);
+        long oldest = Long.MAX_VALUE;
+        long newest = Long.MIN_VALUE;
+        for (int e = 0; e < events; e++) {
+            long time = state[base + e];
+            if (time != NONE && timestamp - time > pattern.getWindowMillis()) {
+                state[base + e] = NONE; // Expired
+                time = NONE;
+            }
+            if (time == NONE) {
+                return false;
+            }
+            oldest = Math.min(oldest, time);
+            newest = Math.max(newest, time);
+        }
+        if (newest - oldest > pattern.getWindowMillis()) {
+            return false;
+        }
+        Arrays.fill(state, base, base + events, NONE); // Consumed
+        return true;
+    }
+
+    private boolean advanceSequence(Step step, CorrelationPattern pattern, int slot, long timestamp) {
+        long[] state = times[step.pattern];
+        int events = pattern.getEvents().size();
+        int base = slot * events;
+        long start;
+        if (step.event == 0) {
+            start = timestamp;
+        } else {
+            start = state[base + step.event - 1];
+            if (start == NONE || start > timestamp) {
+                return false;
+            }
+            if (timestamp - start > pattern.getWindowMillis()) {
+                state[base + step.event - 1] = NONE; // Expired
+                return false;
+            }
+        }
+        if (step.event < events - 1) {
+            state[base + step.event] = Math.max(state[base + step.event], start);
+            return false;
+        }
+        Arrays.fill(state, base, base + events, NONE); // Consumed
+        return true;
+    }
+
+    private void grow(int slot) {
+        int length = PatientState.grownLength(capacity, slot);
+        for (int p = 0; p < patterns.length; p++) {
+            int events = patterns[p].getEvents().size();
+            // Every index below length * events then fits in an int
+            long[] grown = Arrays.copyOf(times[p], Math.multiplyExact(length, events));
+            Arrays.fill(grown, capacity * events, grown.length, NONE);
+            times[p] = grown;
+        }
+        capacity = length;
+    }
+}
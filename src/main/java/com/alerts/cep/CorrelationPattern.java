@@ -0,0 +1,84 @@
+package com.alerts.cep;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A pattern over several events of one patient that raises an alert when its
+ * events happen close enough together in time.
+ *
+ * <ul>
+ * <li>A <em>join</em> matches when every condition has a matching sample and
+ * all of them lie within the window of each other, in any order.</li>
+ * <li>A <em>sequence</em> matches when the conditions are met one after the
+ * other, in the given order, with the last no later than the window after the
+ * first.</li>
+ * </ul>
+ * Windows are measured in event time, from the samples' timestamps. A match
+ * consumes the events it used, so one set of events raises one alert.
+ */
+public final class CorrelationPattern {
+    private final String condition;
+    private final boolean ordered;
+    private final long windowMillis;
+    private final List<EventCondition> events;
+
+    private CorrelationPattern(String condition, boolean ordered, long windowMillis, EventCondition... events) {
+        if (events.length < 2) {
+            throw new IllegalArgumentException("A correlation needs at least two events");
+        }
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("Window must not be negative: " + windowMillis);
+        }
+        this.condition = condition;
+        this.ordered = ordered;
+        this.windowMillis = windowMillis;
+        this.events = Collections.unmodifiableList(Arrays.asList(events.clone()));
+    }
+
+    /**
+     * Creates a pattern matching all the events, in any order, within a window.
+     *
+     * @param condition    the condition text of the alert raised
+     * @param windowMillis the most time between the first and the last event
+     * @param events       the events
+     * @return the pattern
+     */
+    public static CorrelationPattern join(String condition, long windowMillis, EventCondition... events) {
+        return new CorrelationPattern(condition, false, windowMillis, events);
+    }
+
+    /**
+     * Creates a pattern matching the events in order, within a window.
+     *
+     * @param condition    the condition text of the alert raised
+     * @param windowMillis the most time between the first and the last event
+     * @param events       the events, in the order they must happen
+     * @return the pattern
+     */
+    public static CorrelationPattern sequence(String condition, long windowMillis, EventCondition... events) {
+        return new CorrelationPattern(condition, true, windowMillis, events);
+    }
+
+    public String getCondition() {
+        return condition;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public List<EventCondition> getEvents() {
+        return events;
+    }
+
+    @Override
+    public String toString() {
+        return (ordered ? "sequence " : "join ") + events + " within " + windowMillis + " ms: " + condition;
+    }
+}
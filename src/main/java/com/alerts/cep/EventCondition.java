@@ -0,0 +1,61 @@
+package com.alerts.cep;
+
+import java.util.function.DoublePredicate;
+
+/**
+ * One kind of event a correlation pattern waits for: a sample of a record type
+ * whose value passes a test, e.g. a saturation below 92.
+ */
+public final class EventCondition {
+    private final String recordType;
+    private final DoublePredicate test;
+    private final String description;
+
+    /**
+     * Creates a condition.
+     *
+     * @param recordType  the record type, as stored, e.g. "Saturation"
+     * @param test        the test of the sample's value
+     * @param description how the condition reads, for messages
+     */
+    public EventCondition(String recordType, DoublePredicate test, String description) {
+        this.recordType = recordType;
+        this.test = test;
+        this.description = description;
+    }
+
+    /**
+     * A sample of the record type with a value above a limit.
+     */
+    public static EventCondition above(String recordType, double limit) {
+        return new EventCondition(recordType, value -> value > limit, recordType + " > " + limit);
+    }
+
+    /**
+     * A sample of the record type with a value below a limit.
+     */
+    public static EventCondition below(String recordType, double limit) {
+        return new EventCondition(recordType, value -> value < limit, recordType + " < " + limit);
+    }
+
+    /**
+     * A sample of the record type with exactly the given value, e.g. 1 for a
+     * triggered alert button.
+     */
+    public static EventCondition equalTo(String recordType, double expected) {
+        return new EventCondition(recordType, value -> value == expected, recordType + " = " + expected);
+    }
+
+    public String getRecordType() {
+        return recordType;
+    }
+
+    boolean matches(double value) {
+        return test.test(value);
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
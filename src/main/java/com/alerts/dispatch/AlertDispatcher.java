@@ -0,0 +1,318 @@
+package com.alerts.dispatch;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.alerts.AlertInterface;
+import com.alerts.LatencyHistogram;
+
+/**
+ * Delivers alerts to sinks from background threads, most urgent first, so the
+ * thread that raised an alert never waits for output.
+ *
+ * <p>Each sink has its own bounded queue per {@link AlertPriority} and its own
+ * delivery thread, so a slow sink delays only itself. The thread takes up to a
+ * batch of alerts at a time, critical ones before high before low, so a
+ * critical alert waits at most for the batch in progress however many
+ * low-priority alerts are queued. When a sink's queues are full, a new alert
+ * displaces the oldest queued alert of a lower priority, or is dropped if
+ * there is none.
+ *
+ * <p>The time from {@link #dispatch} to the end of the sink's delivery is
+ * recorded per priority and compared with the priority's SLO in
+ * {@link #report()}.
+ */
+public class AlertDispatcher implements AutoCloseable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 16 * 1024;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private static final AlertPriority[] PRIORITIES = AlertPriority.values();
+
+    /** An alert waiting in the queues, shared by every sink. */
+    private static final class Pending {
+        final AlertInterface alert;
+        final AlertPriority priority;
+        final long dispatchedNanos;
+
+        Pending(AlertInterface alert, AlertPriority priority, long dispatchedNanos) {
+            this.alert = alert;
+            this.priority = priority;
+            this.dispatchedNanos = dispatchedNanos;
+        }
+    }
+
+    private final List<SinkQueue> queues = new ArrayList<>();
+    private final int queueCapacity;
+    private final int batchSize;
+    private final LatencyHistogram[] latencies = new LatencyHistogram[PRIORITIES.length];
+    private final AtomicLongArray dispatched = new AtomicLongArray(PRIORITIES.length);
+    private final AtomicLongArray dropped = new AtomicLongArray(PRIORITIES.length);
+    private final AtomicLongArray failed = new AtomicLongArray(PRIORITIES.length);
+
+    /**
+     * Creates a dispatcher with the default queue capacity and batch size.
+     *
+     * @param sinks the sinks every alert is delivered to
+     */
+    public AlertDispatcher(List<? extends AlertSink> sinks) {
+        this(sinks, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a dispatcher and starts one delivery thread per sink.
+     *
+     * @param sinks         the sinks every alert is delivered to
+     * @param queueCapacity the number of alerts each sink may have waiting
+     * @param batchSize     the most alerts delivered to a sink at once
+     */
+    public AlertDispatcher(List<? extends AlertSink> sinks, int queueCapacity, int batchSize) {
+        if (queueCapacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Invalid alert queue capacity " + queueCapacity
+                    + " or batch size " + batchSize);
+        }
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        for (int p = 0; p < PRIORITIES.length; p++) {
+            latencies[p] = new LatencyHistogram();
+        }
+        for (int i = 0; i < sinks.size(); i++) {
+            SinkQueue queue = new SinkQueue(sinks.get(i));
+            queues.add(queue);
+            Thread thread = new Thread(queue::deliverLoop, "alert-dispatch-" + i);
+            thread.setDaemon(true);
+            queue.thread = thread;
+            thread.start();
+        }
+    }
+
+    /**
+     * Queues an alert for every sink at the priority of its condition.
+     *
+     * @param alert the alert
+     */
+    public void dispatch(AlertInterface alert) {
+        dispatch(alert, AlertPriority.of(alert.getCondition()));
+    }
+
+    /**
+     * Queues an alert for every sink. Never blocks on delivery.
+     *
+     * @param alert    the alert
+     * @param priority the alert's priority
+     */
+    public void dispatch(AlertInterface alert, AlertPriority priority) {
+        Pending pending = new Pending(alert, priority, System.nanoTime());
+        dispatched.incrementAndGet(priority.ordinal());
+        for (SinkQueue queue : queues) {
+            queue.offer(pending);
+        }
+    }
+
+    /**
+     * Waits until every alert dispatched so far has been delivered or dropped.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        for (SinkQueue queue : queues) {
+            queue.awaitIdle();
+        }
+    }
+
+    /**
+     * Returns the dispatch-to-delivery latencies of one priority, over every sink.
+     *
+     * @param priority the priority
+     */
+    public LatencyHistogram getLatency(AlertPriority priority) {
+        return latencies[priority.ordinal()];
+    }
+
+    /**
+     * Returns the number of deliveries of one priority dropped because a sink's
+     * queues were full.
+     *
+     * @param priority the priority
+     */
+    public long getDroppedCount(AlertPriority priority) {
+        return dropped.get(priority.ordinal());
+    }
+
+    /**
+     * Returns whether 99% of the priority's deliveries so far met its SLO.
+     *
+     * @param priority the priority
+     */
+    public boolean meetsSlo(AlertPriority priority) {
+        long sloNanos = TimeUnit.MILLISECONDS.toNanos(priority.getSloMillis());
+        return getLatency(priority).getPercentileNanos(0.99) <= sloNanos;
+    }
+
+    /**
+     * Returns a summary of each priority's counts and delivery latency.
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder("Alert delivery:");
+        for (AlertPriority priority : PRIORITIES) {
+            int p = priority.ordinal();
+            if (dispatched.get(p) == 0) {
+                continue;
+            }
+            report.append(String.format("%n  %-8s dispatched=%d dropped=%d failed=%d %s (SLO p99 %d ms %s)",
+                    priority, dispatched.get(p), dropped.get(p), failed.get(p), latencies[p].summary(),
+                    priority.getSloMillis(), meetsSlo(priority) ? "met" : "MISSED"));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Delivers the alerts still queued, then stops the delivery threads and
+     * closes the sinks.
+     */
+    @Override
+    public void close() {
+        for (SinkQueue queue : queues) {
+            queue.close();
+        }
+        for (SinkQueue queue : queues) {
+            try {
+                queue.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            queue.sink.close();
+        }
+    }
+
+    /** One sink's queues and delivery thread. */
+    private final class SinkQueue {
+        final AlertSink sink;
+        Thread thread;
+        private final List<ArrayDeque<Pending>> byPriority = new ArrayList<>(PRIORITIES.length);
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition idle = lock.newCondition();
+        private int size;
+        private boolean delivering;
+        private boolean closed;
+
+        SinkQueue(AlertSink sink) {
+            this.sink = sink;
+            for (int p = 0; p < PRIORITIES.length; p++) {
+                byPriority.add(new ArrayDeque<>());
+            }
+        }
+
+        void offer(Pending pending) {
+            lock.lock();
+            try {
+                if (closed) {
+                    dropped.incrementAndGet(pending.priority.ordinal());
+                    return;
+                }
+                if (size == queueCapacity && !displaceBelow(pending.priority)) {
+                    dropped.incrementAndGet(pending.priority.ordinal());
+                    return;
+                }
+                byPriority.get(pending.priority.ordinal()).addLast(pending);
+                size++;
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean displaceBelow(AlertPriority priority) {
+            for (int p = PRIORITIES.length - 1; p > priority.ordinal(); p--) {
+                if (!byPriority.get(p).isEmpty()) {
+                    byPriority.get(p).pollFirst();
+                    size--;
+                    dropped.incrementAndGet(p);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void awaitIdle() throws InterruptedException {
+            lock.lock();
+            try {
+                while (size > 0 || delivering) {
+                    idle.await();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void close() {
+            lock.lock();
+            try {
+                closed = true;
+                notEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void deliverLoop() {
+            List<Pending> batch = new ArrayList<>(batchSize);
+            List<AlertInterface> alerts = new ArrayList<>(batchSize);
+            while (true) {
+                lock.lock();
+                try {
+                    delivering = false;
+                    if (size == 0) {
+                        idle.signalAll();
+                    }
+                    while (size == 0 && !closed) {
+                        notEmpty.awaitUninterruptibly();
+                    }
+                    if (size == 0) {
+                        return;
+                    }
+                    for (int p = 0; p < PRIORITIES.length && batch.size() < batchSize; p++) {
+                        ArrayDeque<Pending> queue = byPriority.get(p);
+                        while (!queue.isEmpty() && batch.size() < batchSize) {
+                            batch.add(queue.pollFirst());
+                        }
+                    }
+                    size -= batch.size();
+                    delivering = true;
+                } finally {
+                    lock.unlock();
+                }
+                for (Pending pending : batch) {
+                    alerts.add(pending.alert);
+                }
+                deliver(batch, alerts);
+                batch.clear();
+                alerts.clear();
+            }
+        }
+
+        private void deliver(List<Pending> batch, List<AlertInterface> alerts) {
+            try {
+                sink.deliver(alerts);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error delivering " + alerts.size() + " alerts to "
+                        + sink.getClass().getSimpleName() + ": " + e.getMessage());
+                e.printStackTrace();
+                for (Pending pending : batch) {
+                    failed.incrementAndGet(pending.priority.ordinal());
+                }
+                return;
+            }
+            long now = System.nanoTime();
+            for (Pending pending : batch) {
+                latencies[pending.priority.ordinal()].record(now - pending.dispatchedNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.alerts.dispatch;
+
+import java.util.Locale;
+
+/**
+ * How urgently an alert must be delivered, most urgent first, with the 99th
+ * percentile dispatch-to-delivery latency each level is expected to meet.
+ */
+public enum AlertPriority {
+    CRITICAL(100),
+    HIGH(1_000),
+    LOW(10_000);
+
+    private static final String DECORATOR_PREFIX = "[Priority: ";
+
+    private final long sloMillis;
+
+    AlertPriority(long sloMillis) {
+        this.sloMillis = sloMillis;
+    }
+
+    /**
+     * Returns the latency that 99% of this level's alerts should be delivered within.
+     */
+    public long getSloMillis() {
+        return sloMillis;
+    }
+
+    /**
+     * Returns the priority of an alert condition. A level set with
+     * {@code PriorityAlertDecorator} is used if it names one of these levels;
+     * otherwise "Critical" conditions are critical, trends are low and
+     * everything else is high.
+     *
+     * @param condition the alert's condition
+     * @return the priority
+     */
+    public static AlertPriority of(String condition) {
+        if (condition.startsWith(DECORATOR_PREFIX)) {
+            int end = condition.indexOf(']');
+            if (end > 0) {
+                String level = condition.substring(DECORATOR_PREFIX.length(), end).trim().toUpperCase(Locale.ROOT);
+                for (AlertPriority priority : values()) {
+                    if (priority.name().equals(level)) {
+                        return priority;
+                    }
+                }
+                condition = condition.substring(end + 1).trim();
+            }
+        }
+        if (condition.startsWith("Critical")) {
+            return CRITICAL;
+        }
+        if (condition.contains("trend")) {
+            return LOW;
+        }
+        return HIGH;
+    }
+}
@@ -0,0 +1,38 @@
+package com.alerts.dispatch;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.alerts.AlertInterface;
+
+/**
+ * A destination for alerts, such as the console, a file or connected clients.
+ * Alerts are delivered in batches from the sink's own thread, most urgent first.
+ */
+public interface AlertSink {
+
+    /**
+     * Delivers a batch of alerts.
+     *
+     * @param alerts the alerts, most urgent first
+     * @throws IOException if the alerts could not be delivered
+     */
+    void deliver(List<AlertInterface> alerts) throws IOException;
+
+    /**
+     * Releases the sink's resources once no more alerts will be delivered.
+     */
+    default void close() {
+    }
+
+    /**
+     * Formats an alert as one line of text.
+     *
+     * @param alert the alert
+     * @return the line, without a line separator
+     */
+    static String format(AlertInterface alert) {
+        return "Patient: " + alert.getPatientId() + "; Condition: " + alert.getCondition() + "; Time: "
+                + alert.getTimestamp();
+    }
+}
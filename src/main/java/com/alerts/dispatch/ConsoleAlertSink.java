@@ -0,0 +1,22 @@
+package com.alerts.dispatch;
+
+import java.util.List;
+
+import com.alerts.AlertInterface;
+
+/**
+ * Prints alerts to standard output, one line per alert, with one write per batch.
+ */
+public class ConsoleAlertSink implements AlertSink {
+    private final StringBuilder text = new StringBuilder();
+
+    @Override
+    public void deliver(List<AlertInterface> alerts) {
+        text.setLength(0);
+        for (AlertInterface alert : alerts) {
+            text.append(AlertSink.format(alert)).append(System.lineSeparator());
+        }
+        System.out.print(text);
+        System.out.flush();
+    }
+}
@@ -0,0 +1,52 @@
+package com.alerts.dispatch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import com.alerts.AlertInterface;
+
+/**
+ * Appends alerts to a file, one line per alert, flushing once per batch.
+ */
+public class FileAlertSink implements AlertSink {
+    private final BufferedWriter writer;
+
+    /**
+     * Opens the file for appending, creating it and its directory if needed.
+     *
+     * @param path the file
+     * @throws IOException if the file cannot be opened
+     */
+    public FileAlertSink(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void deliver(List<AlertInterface> alerts) throws IOException {
+        for (AlertInterface alert : alerts) {
+            writer.write(AlertSink.format(alert));
+            writer.newLine();
+        }
+        writer.flush();
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.err.println("Error closing alert file: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
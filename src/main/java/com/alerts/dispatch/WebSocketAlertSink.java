@@ -0,0 +1,90 @@
+package com.alerts.dispatch;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+
+import com.alerts.AlertInterface;
+
+/**
+ * Pushes alerts to every connected WebSocket client, one message per batch with
+ * one alert per line as {@code patientId,timestamp,condition}.
+ */
+public class WebSocketAlertSink implements AlertSink {
+    private final WebSocketServer server;
+    private final StringBuilder message = new StringBuilder();
+
+    /**
+     * Starts a WebSocket server on the given port.
+     *
+     * @param port the port to listen on
+     */
+    public WebSocketAlertSink(int port) {
+        server = new AlertServer(new InetSocketAddress(port));
+        System.out.println("Alert WebSocket server created on port: " + port + ", listening for connections...");
+        server.start();
+    }
+
+    @Override
+    public void deliver(List<AlertInterface> alerts) {
+        if (server.getConnections().isEmpty()) {
+            return;
+        }
+        message.setLength(0);
+        for (AlertInterface alert : alerts) {
+            if (message.length() > 0) {
+                message.append('\n');
+            }
+            message.append(alert.getPatientId()).append(',').append(alert.getTimestamp()).append(',')
+                    .append(alert.getCondition());
+        }
+        server.broadcast(message.toString());
+    }
+
+    @Override
+    public void close() {
+        try {
+            server.stop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A WebSocket server that only pushes alerts and logs connection events.
+     */
+    private static class AlertServer extends WebSocketServer {
+
+        AlertServer(InetSocketAddress address) {
+            super(address);
+        }
+
+        @Override
+        public void onOpen(WebSocket conn, ClientHandshake handshake) {
+            System.out.println("New alert connection: " + conn.getRemoteSocketAddress());
+        }
+
+        @Override
+        public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+            System.out.println("Closed alert connection: " + conn.getRemoteSocketAddress());
+        }
+
+        @Override
+        public void onMessage(WebSocket conn, String message) {
+            // Alert clients only receive
+        }
+
+        @Override
+        public void onError(WebSocket conn, Exception ex) {
+            ex.printStackTrace();
+        }
+
+        @Override
+        public void onStart() {
+            System.out.println("Alert server started successfully");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.alerts.rules;
+
+import java.lang.invoke.MethodHandle;
+
+import com.alerts.Alert;
+import com.alerts.strategy.StreamingAlertStrategy;
+
+/**
+ * The rules of one metric type compiled against their own per-patient state.
+ * Rules are tested in the order they were written and the first one that holds
+ * raises the alert, as the built-in strategies check their conditions in turn.
+ */
+final class CompiledRules implements StreamingAlertStrategy {
+    private final RuleState state;
+    private final String[] names;
+    private final MethodHandle program; // (slot, timestamp, value) -> index of the rule that holds, or -1
+
+    CompiledRules(RuleState state, String[] names, MethodHandle program) {
+        this.state = state;
+        this.names = names;
+        this.program = program;
+    }
+
+    @Override
+    public Alert onSample(int patientId, long timestamp, double value) {
+        int slot = state.slot(patientId);
+        state.update(slot, timestamp, value);
+        int rule;
+        try {
+            rule = (int) program.invokeExact(slot, timestamp, value);
+        } catch (Throwable e) { // The composed handles only call the methods in Predicates, which throw nothing
+            throw new IllegalStateException("Alert rule failed", e);
+        }
+        state.commit(slot, timestamp, value);
+        return rule < 0 ? null : new Alert(Integer.toString(patientId), names[rule], timestamp);
+    }
+
+    @Override
+    public void reset(int patientId) {
+        state.reset(patientId);
+    }
+}
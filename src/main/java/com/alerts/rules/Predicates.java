@@ -0,0 +1,166 @@
+package com.alerts.rules;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Builds the method handles rules are compiled into.
+ *
+ * <p>Every condition becomes a handle of type {@code (int slot, long
+ * timestamp, double value) boolean}, the slot being the patient's index into
+ * the {@link RuleState} arrays, and every operand one of type
+ * {@code (int, long, double) double}, composed from comparisons, constants and
+ * the per-patient state readers below. The JVM compiles a hot composed handle
+ * into code specialized for it, with the constants folded in and every call
+ * inlined, so a rule costs about what the same test written by hand does and
+ * nothing is interpreted per sample.
+ */
+final class Predicates {
+    static final MethodType CONDITION = MethodType.methodType(boolean.class, int.class, long.class, double.class);
+    static final MethodType OPERAND = MethodType.methodType(double.class, int.class, long.class, double.class);
+    static final MethodType PROGRAM = MethodType.methodType(int.class, int.class, long.class, double.class);
+
+    private static final MethodHandle VALUE;
+    private static final MethodHandle SCALE;
+    private static final MethodHandle GREATER;
+    private static final MethodHandle GREATER_OR_EQUAL;
+    private static final MethodHandle DELTA;
+    private static final MethodHandle ELAPSED;
+    private static final MethodHandle MEAN;
+    private static final MethodHandle TREND;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            VALUE = MethodHandles.dropArguments(MethodHandles.identity(double.class), 0, int.class, long.class);
+            MethodType binary = MethodType.methodType(double.class, double.class, double.class);
+            MethodType comparison = MethodType.methodType(boolean.class, double.class, double.class);
+            SCALE = lookup.findStatic(Predicates.class, "scale", binary);
+            GREATER = lookup.findStatic(Predicates.class, "greater", comparison);
+            GREATER_OR_EQUAL = lookup.findStatic(Predicates.class, "greaterOrEqual", comparison);
+            DELTA = lookup.findStatic(Predicates.class, "delta",
+                    MethodType.methodType(double.class, RuleState.class, int.class, long.class, double.class));
+            ELAPSED = lookup.findStatic(Predicates.class, "elapsed",
+                    MethodType.methodType(double.class, RuleState.class, int.class, long.class, double.class));
+            MEAN = lookup.findStatic(Predicates.class, "mean",
+                    MethodType.methodType(double.class, RuleState.Mean.class, int.class, long.class, double.class));
+            TREND = lookup.findStatic(Predicates.class, "trend", MethodType.methodType(boolean.class,
+                    RuleState.Trend.class, int.class, int.class, long.class, double.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Predicates() {
+    }
+
+    /** {@code value}: the sample's value. */
+    static MethodHandle value() {
+        return VALUE;
+    }
+
+    /** {@code delta}: the change from the previous sample, NaN for the first one. */
+    static MethodHandle delta(RuleState state) {
+        return DELTA.bindTo(state);
+    }
+
+    /** {@code elapsed}: milliseconds since the previous sample, NaN for the first one. */
+    static MethodHandle elapsed(RuleState state) {
+        return ELAPSED.bindTo(state);
+    }
+
+    /** {@code mean(<duration>)}: the running mean, including the sample. */
+    static MethodHandle mean(RuleState.Mean mean) {
+        return MEAN.bindTo(mean);
+    }
+
+    /** {@code <factor> * <operand>}. */
+    static MethodHandle scaled(double factor, MethodHandle operand) {
+        return MethodHandles.filterReturnValue(operand, MethodHandles.insertArguments(SCALE, 0, factor));
+    }
+
+    /** {@code <operand> > <limit>}, or {@code >=} if inclusive. */
+    static MethodHandle above(MethodHandle operand, double limit, boolean inclusive) {
+        MethodHandle test = MethodHandles.insertArguments(inclusive ? GREATER_OR_EQUAL : GREATER, 1, limit);
+        return MethodHandles.filterReturnValue(operand, test);
+    }
+
+    /** {@code <operand> < <limit>}, or {@code <=} if inclusive. */
+    static MethodHandle below(MethodHandle operand, double limit, boolean inclusive) {
+        // a < b is b > a
+        MethodHandle test = MethodHandles.insertArguments(inclusive ? GREATER_OR_EQUAL : GREATER, 0, limit);
+        return MethodHandles.filterReturnValue(operand, test);
+    }
+
+    /** {@code <left> > <right>}, or {@code >=} if inclusive. */
+    static MethodHandle exceeds(MethodHandle left, MethodHandle right, boolean inclusive) {
+        MethodHandle both = MethodHandles.collectArguments(inclusive ? GREATER_OR_EQUAL : GREATER, 1, right);
+        both = MethodHandles.collectArguments(both, 0, left);
+        return MethodHandles.permuteArguments(both, CONDITION, 0, 1, 2, 0, 1, 2);
+    }
+
+    /** {@code rising(<n>, <step>)} or {@code falling(<n>, <step>)}. */
+    static MethodHandle trend(RuleState.Trend trend, int steps) {
+        return MethodHandles.insertArguments(TREND, 0, trend, steps);
+    }
+
+    /** {@code <left> and <right>}, evaluating the right only if the left holds. */
+    static MethodHandle and(MethodHandle left, MethodHandle right) {
+        return MethodHandles.guardWithTest(left, right, constant(false));
+    }
+
+    /** {@code <left> or <right>}, evaluating the right only if the left does not hold. */
+    static MethodHandle or(MethodHandle left, MethodHandle right) {
+        return MethodHandles.guardWithTest(left, constant(true), right);
+    }
+
+    /**
+     * Combines a metric type's conditions into one handle of type
+     * {@code (int, long, double) int} returning the index of the first condition
+     * that holds, or -1 if none does.
+     */
+    static MethodHandle firstMatch(MethodHandle[] conditions) {
+        MethodHandle program = MethodHandles.dropArguments(MethodHandles.constant(int.class, -1), 0,
+                int.class, long.class, double.class);
+        for (int i = conditions.length - 1; i >= 0; i--) {
+            MethodHandle matched = MethodHandles.dropArguments(MethodHandles.constant(int.class, i), 0,
+                    int.class, long.class, double.class);
+            program = MethodHandles.guardWithTest(conditions[i], matched, program);
+        }
+        return program;
+    }
+
+    private static MethodHandle constant(boolean value) {
+        return MethodHandles.dropArguments(MethodHandles.constant(boolean.class, value), 0,
+                int.class, long.class, double.class);
+    }
+
+    private static double scale(double factor, double value) {
+        return factor * value;
+    }
+
+    private static boolean greater(double a, double b) {
+        return a > b;
+    }
+
+    private static boolean greaterOrEqual(double a, double b) {
+        return a >= b;
+    }
+
+    private static double delta(RuleState state, int slot, long timestamp, double value) {
+        return state.seen[slot] ? value - state.lastValues[slot] : Double.NaN;
+    }
+
+    private static double elapsed(RuleState state, int slot, long timestamp, double value) {
+        return state.seen[slot] ? timestamp - state.lastTimes[slot] : Double.NaN;
+    }
+
+    private static double mean(RuleState.Mean mean, int slot, long timestamp, double value) {
+        return mean.values[slot];
+    }
+
+    private static boolean trend(RuleState.Trend trend, int steps, int slot, long timestamp, double value) {
+        return trend.counts[slot] >= steps;
+    }
+}
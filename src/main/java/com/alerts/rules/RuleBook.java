@@ -0,0 +1,157 @@
+package com.alerts.rules;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.alerts.Alert;
+import com.alerts.strategy.StreamingAlertStrategy;
+
+/**
+ * Holds the rule set in force and lets it be replaced while samples are being
+ * evaluated.
+ *
+ * <p>The strategies from {@link #strategyFor} check the current rule set once
+ * per sample. When it has been swapped they compile the new set, with fresh
+ * per-patient state, before evaluating the sample, so every sample is evaluated
+ * wholly by the old rules or wholly by the new ones. Each such strategy is
+ * confined to one thread like any other streaming strategy; the rule book itself
+ * is thread-safe.
+ */
+public class RuleBook {
+    private final AtomicReference<RuleSet> current;
+    private Thread watcher;
+
+    /**
+     * Creates a rule book.
+     *
+     * @param rules the rules in force at first
+     */
+    public RuleBook(RuleSet rules) {
+        current = new AtomicReference<>(rules);
+    }
+
+    /**
+     * Returns the rules in force.
+     */
+    public RuleSet get() {
+        return current.get();
+    }
+
+    /**
+     * Puts a new rule set in force.
+     *
+     * @param rules the new rules
+     * @return the rules that were in force
+     */
+    public RuleSet swap(RuleSet rules) {
+        return current.getAndSet(rules);
+    }
+
+    /**
+     * Reads a rules file and puts it in force. If the file is not a valid rule
+     * set, the rules in force are kept.
+     *
+     * @param path the rules file
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid rule set
+     */
+    public void reload(Path path) throws IOException {
+        swap(RuleSet.load(path));
+    }
+
+    /**
+     * Reloads a rules file whenever its modification time changes, checking at
+     * the given interval on a daemon thread. Invalid files are reported and
+     * otherwise ignored.
+     *
+     * @param path           the rules file
+     * @param intervalMillis how often to check the file
+     */
+    public synchronized void watch(Path path, long intervalMillis) {
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+        watcher = new Thread(() -> {
+            FileTime loaded = modified(path);
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Thread.sleep(intervalMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                FileTime time = modified(path);
+                if (time == null || time.equals(loaded)) {
+                    continue;
+                }
+                loaded = time;
+                try {
+                    reload(path);
+                    System.out.println("Reloaded alert rules from " + path + ".");
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Keeping the alert rules in force; " + path + " is invalid: " + e.getMessage());
+                }
+            }
+        }, "alert-rule-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Stops watching the rules file.
+     */
+    public synchronized void stopWatching() {
+        if (watcher != null) {
+            watcher.interrupt();
+            watcher = null;
+        }
+    }
+
+    /**
+     * Returns a strategy that evaluates samples of a metric type with whatever
+     * rules are in force.
+     *
+     * @param metricType the metric type
+     * @return the strategy, for one thread
+     */
+    public StreamingAlertStrategy strategyFor(String metricType) {
+        return new Swappable(metricType);
+    }
+
+    private static FileTime modified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private final class Swappable implements StreamingAlertStrategy {
+        private final String metricType;
+        private RuleSet active;
+        private StreamingAlertStrategy compiled;
+
+        Swappable(String metricType) {
+            this.metricType = metricType;
+        }
+
+        @Override
+        public Alert onSample(int patientId, long timestamp, double value) {
+            RuleSet rules = current.get();
+            if (rules != active) {
+                active = rules;
+                compiled = rules.compile(metricType);
+            }
+            return compiled.onSample(patientId, timestamp, value);
+        }
+
+        @Override
+        public void reset(int patientId) {
+            if (compiled != null) {
+                compiled.reset(patientId);
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.alerts.rules;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * A parsed rule condition. Nodes are immutable, so a parsed rule set can be
+ * compiled any number of times, each time against fresh per-patient state.
+ */
+abstract class RuleNode {
+
+    /**
+     * Compiles the condition into a method handle of type
+     * {@link Predicates#CONDITION} bound to the given state.
+     */
+    abstract MethodHandle compile(RuleState state);
+
+    /** A comparison: {@code <operand> <op> <operand>}, with op one of {@code > >= < <=}. */
+    static final class Comparison extends RuleNode {
+        final Operand left;
+        final String op;
+        final Operand right;
+
+        Comparison(Operand left, String op, Operand right) {
+            if (left.isConstant() && right.isConstant()) {
+                throw new IllegalArgumentException("Comparison of two constants: " + left + " " + op + " " + right);
+            }
+            this.left = left;
+            this.op = op;
+            this.right = right;
+        }
+
+        @Override
+        MethodHandle compile(RuleState state) {
+            if (left.isConstant()) {
+                return new Comparison(right, flip(op), left).compile(state);
+            }
+            boolean above = op.startsWith(">");
+            boolean inclusive = op.endsWith("=");
+            MethodHandle operand = left.compile(state);
+            if (right.isConstant()) {
+                return above ? Predicates.above(operand, right.constant, inclusive)
+                        : Predicates.below(operand, right.constant, inclusive);
+            }
+            MethodHandle other = right.compile(state);
+            return above ? Predicates.exceeds(operand, other, inclusive)
+                    : Predicates.exceeds(other, operand, inclusive);
+        }
+
+        private static String flip(String op) {
+            return op.startsWith(">") ? "<" + op.substring(1) : ">" + op.substring(1);
+        }
+    }
+
+    /** {@code rising(<steps>, <step>)} or {@code falling(<steps>, <step>)}. */
+    static final class Trend extends RuleNode {
+        final boolean rising;
+        final int steps;
+        final double step;
+
+        Trend(boolean rising, int steps, double step) {
+            if (steps < 1 || step < 0) {
+                throw new IllegalArgumentException((rising ? "rising" : "falling")
+                        + " needs a positive step count and a non-negative step");
+            }
+            this.rising = rising;
+            this.steps = steps;
+            this.step = step;
+        }
+
+        @Override
+        MethodHandle compile(RuleState state) {
+            return Predicates.trend(state.trend(rising, step, steps), steps);
+        }
+    }
+
+    /** {@code <condition> and <condition>} or {@code <condition> or <condition>}. */
+    static final class Logical extends RuleNode {
+        final boolean and;
+        final RuleNode left;
+        final RuleNode right;
+
+        Logical(boolean and, RuleNode left, RuleNode right) {
+            this.and = and;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        MethodHandle compile(RuleState state) {
+            MethodHandle a = left.compile(state);
+            MethodHandle b = right.compile(state);
+            return and ? Predicates.and(a, b) : Predicates.or(a, b);
+        }
+    }
+
+    /** A number in a comparison. */
+    static final class Operand {
+        enum Kind { VALUE, DELTA, ELAPSED, MEAN, CONSTANT, SCALED }
+
+        final Kind kind;
+        final double constant; // The constant, the factor, or the mean's time constant in milliseconds
+        final Operand scaled;
+
+        Operand(Kind kind, double constant, Operand scaled) {
+            this.kind = kind;
+            this.constant = constant;
+            this.scaled = scaled;
+        }
+
+        boolean isConstant() {
+            return kind == Kind.CONSTANT;
+        }
+
+        /**
+         * Compiles the operand into a method handle of type {@link Predicates#OPERAND}.
+         */
+        MethodHandle compile(RuleState state) {
+            switch (kind) {
+                case VALUE:
+                    return Predicates.value();
+                case DELTA:
+                    return Predicates.delta(state);
+                case ELAPSED:
+                    return Predicates.elapsed(state);
+                case MEAN:
+                    return Predicates.mean(state.mean(constant));
+                case SCALED:
+                    return Predicates.scaled(constant, scaled.compile(state));
+                default:
+                    throw new IllegalStateException("Constants are folded into comparisons");
+            }
+        }
+
+        @Override
+        public String toString() {
+            switch (kind) {
+                case CONSTANT:
+                    return Double.toString(constant);
+                case MEAN:
+                    return "mean(" + constant + "ms)";
+                case SCALED:
+                    return constant + " * " + scaled;
+                default:
+                    return kind.name().toLowerCase();
+            }
+        }
+    }
+}
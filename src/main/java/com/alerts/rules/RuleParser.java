@@ -0,0 +1,260 @@
+package com.alerts.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses one rule line of the form
+ * {@code rule "<condition name>" on <metric type> when <condition>}
+ * by recursive descent; see {@link RuleSet} for the condition syntax.
+ */
+final class RuleParser {
+    private final List<String> tokens;
+    private int position;
+
+    private RuleParser(List<String> tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * Parses a rule line.
+     *
+     * @param line the line, without comments
+     * @return the rule
+     * @throws IllegalArgumentException if the line is not a valid rule
+     */
+    static RuleSet.Rule parse(String line) {
+        RuleParser parser = new RuleParser(tokenize(line));
+        parser.expect("rule");
+        String name = parser.next();
+        if (!name.startsWith("\"")) {
+            throw new IllegalArgumentException("Expected the alert condition in quotes after 'rule'");
+        }
+        name = name.substring(1);
+        parser.expect("on");
+        StringBuilder metricType = new StringBuilder();
+        while (!parser.peek().equals("when")) {
+            if (metricType.length() > 0) {
+                metricType.append(' ');
+            }
+            metricType.append(parser.next());
+        }
+        if (metricType.length() == 0) {
+            throw new IllegalArgumentException("Expected a metric type after 'on'");
+        }
+        parser.expect("when");
+        RuleNode condition = parser.parseOr();
+        if (parser.position < parser.tokens.size()) {
+            throw new IllegalArgumentException("Unexpected '" + parser.peek() + "'");
+        }
+        return new RuleSet.Rule(name, metricType.toString(), condition);
+    }
+
+    private RuleNode parseOr() {
+        RuleNode node = parseAnd();
+        while (accept("or")) {
+            node = new RuleNode.Logical(false, node, parseAnd());
+        }
+        return node;
+    }
+
+    private RuleNode parseAnd() {
+        RuleNode node = parseAtom();
+        while (accept("and")) {
+            node = new RuleNode.Logical(true, node, parseAtom());
+        }
+        return node;
+    }
+
+    private RuleNode parseAtom() {
+        if (accept("(")) {
+            RuleNode node = parseOr();
+            expect(")");
+            return node;
+        }
+        if (peek().equals("rising") || peek().equals("falling")) {
+            boolean rising = next().equals("rising");
+            expect("(");
+            double steps = parseNumber();
+            expect(",");
+            double step = parseNumber();
+            expect(")");
+            if (steps != Math.rint(steps)) {
+                throw new IllegalArgumentException("The step count must be a whole number: " + steps);
+            }
+            return new RuleNode.Trend(rising, (int) steps, step);
+        }
+        RuleNode.Operand left = parseOperand();
+        String op = next();
+        if (!op.equals(">") && !op.equals(">=") && !op.equals("<") && !op.equals("<=")) {
+            throw new IllegalArgumentException("Expected one of > >= < <= but found '" + op + "'");
+        }
+        return new RuleNode.Comparison(left, op, parseOperand());
+    }
+
+    private RuleNode.Operand parseOperand() {
+        RuleNode.Operand left = parsePrimary();
+        if (!accept("*")) {
+            return left;
+        }
+        RuleNode.Operand right = parsePrimary();
+        if (left.isConstant() && right.isConstant()) {
+            return constant(left.constant * right.constant);
+        } else if (left.isConstant()) {
+            return new RuleNode.Operand(RuleNode.Operand.Kind.SCALED, left.constant, right);
+        } else if (right.isConstant()) {
+            return new RuleNode.Operand(RuleNode.Operand.Kind.SCALED, right.constant, left);
+        }
+        throw new IllegalArgumentException("Only a constant can multiply " + left);
+    }
+
+    private RuleNode.Operand parsePrimary() {
+        String token = peek();
+        switch (token) {
+            case "value":
+                next();
+                return new RuleNode.Operand(RuleNode.Operand.Kind.VALUE, 0, null);
+            case "delta":
+                next();
+                return new RuleNode.Operand(RuleNode.Operand.Kind.DELTA, 0, null);
+            case "elapsed":
+                next();
+                return new RuleNode.Operand(RuleNode.Operand.Kind.ELAPSED, 0, null);
+            case "mean":
+                next();
+                expect("(");
+                double millis = parseNumber();
+                expect(")");
+                if (millis <= 0) {
+                    throw new IllegalArgumentException("The averaging time of mean() must be positive");
+                }
+                return new RuleNode.Operand(RuleNode.Operand.Kind.MEAN, millis, null);
+            default:
+                return constant(parseNumber());
+        }
+    }
+
+    private double parseNumber() {
+        boolean negative = accept("-");
+        String token = next();
+        if (token.isEmpty() || !(Character.isDigit(token.charAt(0)) || token.charAt(0) == '.')) {
+            throw new IllegalArgumentException("Expected a number but found '" + token + "'");
+        }
+        double number;
+        if (Character.isLetter(token.charAt(token.length() - 1))) {
+            number = parseDuration(token); // A duration such as 10m, in milliseconds
+        } else {
+            try {
+                number = Double.parseDouble(token);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number: " + token);
+            }
+        }
+        return negative ? -number : number;
+    }
+
+    /**
+     * Parses a duration with a unit of ms, s, m, h or d into milliseconds. The
+     * result is not rounded, so that {@code mean(0.5ms)} averages over half a
+     * millisecond rather than over none.
+     */
+    private static double parseDuration(String token) {
+        String unit = token.replaceFirst("^[0-9.]+", "");
+        double millis;
+        switch (unit.toLowerCase()) {
+            case "ms":
+                millis = 1;
+                break;
+            case "s":
+                millis = 1000;
+                break;
+            case "m":
+                millis = 60_000;
+                break;
+            case "h":
+                millis = 3_600_000;
+                break;
+            case "d":
+                millis = 86_400_000;
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid duration: " + token);
+        }
+        try {
+            return Double.parseDouble(token.substring(0, token.length() - unit.length())) * millis;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid duration: " + token);
+        }
+    }
+
+    private static RuleNode.Operand constant(double value) {
+        return new RuleNode.Operand(RuleNode.Operand.Kind.CONSTANT, value, null);
+    }
+
+    private String peek() {
+        if (position >= tokens.size()) {
+            throw new IllegalArgumentException("Unexpected end of rule");
+        }
+        return tokens.get(position);
+    }
+
+    private String next() {
+        String token = peek();
+        position++;
+        return token;
+    }
+
+    private boolean accept(String token) {
+        if (position < tokens.size() && tokens.get(position).equals(token)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String token) {
+        String found = position < tokens.size() ? tokens.get(position) : "end of rule";
+        if (!accept(token)) {
+            throw new IllegalArgumentException("Expected '" + token + "' but found '" + found + "'");
+        }
+    }
+
+    /**
+     * Splits a line into words, numbers (with any unit attached), operators and
+     * quoted strings. A quoted string becomes one token starting with its opening
+     * quote, so it cannot be mistaken for a keyword.
+     */
+    private static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < line.length()) {
+            char c = line.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                int end = line.indexOf('"', i + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unterminated quote");
+                }
+                tokens.add(line.substring(i, end));
+                i = end + 1;
+            } else if (Character.isLetterOrDigit(c) || c == '_' || c == '.') {
+                int start = i;
+                while (i < line.length() && (Character.isLetterOrDigit(line.charAt(i)) || line.charAt(i) == '_'
+                        || line.charAt(i) == '.')) {
+                    i++;
+                }
+                tokens.add(line.substring(start, i));
+            } else if ((c == '>' || c == '<') && i + 1 < line.length() && line.charAt(i + 1) == '=') {
+                tokens.add(line.substring(i, i + 2));
+                i += 2;
+            } else if ("<>(),*-".indexOf(c) >= 0) {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else {
+                throw new IllegalArgumentException("Unexpected character '" + c + "'");
+            }
+        }
+        return tokens;
+    }
+}
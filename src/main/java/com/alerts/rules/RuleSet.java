@@ -0,0 +1,189 @@
+package com.alerts.rules;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.alerts.strategy.StreamingAlertStrategy;
+
+/**
+ * Alert rules read from a rules file instead of written as Java classes.
+ *
+ * <p>Each non-empty line that is not a {@code #} comment is one rule:
+ * <pre>
+ * rule "&lt;condition&gt;" on &lt;metric type&gt; when &lt;test&gt;
+ * </pre>
+ * where the condition is the text of the alert raised and the metric type is
+ * one of the {@link com.alerts.MetricTypes} types. A test combines, with
+ * {@code and}, {@code or} and parentheses:
+ * <ul>
+ * <li>comparisons {@code a > b}, {@code >=}, {@code <}, {@code <=} of numbers,
+ * durations such as {@code 10m} (in milliseconds; units ms, s, m, h and d), or
+ * <ul>
+ * <li>{@code value}, the sample's value,</li>
+ * <li>{@code delta}, its change from the patient's previous sample,</li>
+ * <li>{@code elapsed}, the milliseconds since the previous sample,</li>
+ * <li>{@code mean(<duration>)}, a running mean of the patient's samples that
+ * fades over the duration, including this sample,</li>
+ * </ul>
+ * each optionally multiplied by a constant, e.g. {@code value > 1.5 * mean(5m)};</li>
+ * <li>trends {@code rising(<n>, <step>)} and {@code falling(<n>, <step>)}, true
+ * when the last n steps between samples each rose (or fell) by more than step.</li>
+ * </ul>
+ * {@code delta} and {@code elapsed} are undefined for a patient's first sample,
+ * so comparisons with them are false.
+ *
+ * <p>A rule set is immutable. {@link #compile} turns the rules of a metric type
+ * into one composed method handle with fresh state; nothing is parsed or looked
+ * up per sample.
+ */
+public class RuleSet {
+    /** Rules equivalent to the built-in blood pressure, heart rate and oxygen saturation strategies. */
+    public static final List<String> BUILT_IN = Collections.unmodifiableList(Arrays.asList(
+            "rule \"Decreasing trend in blood pressure\" on blood pressure when falling(3, 10)",
+            "rule \"Increasing trend in blood pressure\" on blood pressure when rising(3, 10)",
+            "rule \"Critical high blood pressure\" on blood pressure when value > 180",
+            "rule \"Critical low blood pressure\" on blood pressure when value < 90",
+            "rule \"Rapid drop in oxygen saturation\" on oxygen saturation when delta < -5 and elapsed > 10m",
+            "rule \"Low oxygen saturation\" on oxygen saturation when value < 92",
+            "rule \"Abnormally high heart rate\" on heart rate when value > 1.5 * mean(5m)"));
+
+    private final List<Rule> rules;
+
+    /**
+     * One parsed rule.
+     */
+    public static final class Rule {
+        private final String condition;
+        private final String metricType;
+        private final RuleNode test;
+
+        Rule(String condition, String metricType, RuleNode test) {
+            this.condition = condition;
+            this.metricType = metricType;
+            this.test = test;
+        }
+
+        public String getCondition() {
+            return condition;
+        }
+
+        public String getMetricType() {
+            return metricType;
+        }
+    }
+
+    private RuleSet(List<Rule> rules) {
+        this.rules = Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * Returns the rules equivalent to the built-in strategies.
+     */
+    public static RuleSet builtIn() {
+        return parse(BUILT_IN);
+    }
+
+    /**
+     * Reads a rules file.
+     *
+     * @param path the rules file
+     * @return the rules
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if a line is not a valid rule
+     */
+    public static RuleSet load(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            List<String> lines = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+            return parse(lines);
+        }
+    }
+
+    /**
+     * Parses rule lines.
+     *
+     * @param lines the lines
+     * @return the rules
+     * @throws IllegalArgumentException if a line is not a valid rule
+     */
+    public static RuleSet parse(List<String> lines) {
+        List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = stripComment(lines.get(i)).trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            try {
+                rules.add(RuleParser.parse(line));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+        return new RuleSet(rules);
+    }
+
+    /**
+     * Returns the rules in file order.
+     */
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns the metric types that have rules, in the order they first appear.
+     */
+    public List<String> getMetricTypes() {
+        Set<String> types = new LinkedHashSet<>();
+        for (Rule rule : rules) {
+            types.add(rule.metricType);
+        }
+        return new ArrayList<>(types);
+    }
+
+    /**
+     * Compiles the rules of a metric type into a streaming strategy with its own
+     * per-patient state. The first rule, in file order, that holds for a sample
+     * raises the alert.
+     *
+     * @param metricType the metric type
+     * @return the strategy; it raises nothing if the type has no rules
+     */
+    public StreamingAlertStrategy compile(String metricType) {
+        RuleState state = new RuleState();
+        List<String> names = new ArrayList<>();
+        List<MethodHandle> conditions = new ArrayList<>();
+        for (Rule rule : rules) {
+            if (rule.metricType.equals(metricType)) {
+                names.add(rule.condition);
+                conditions.add(rule.test.compile(state));
+            }
+        }
+        return new CompiledRules(state, names.toArray(new String[0]),
+                Predicates.firstMatch(conditions.toArray(new MethodHandle[0])));
+    }
+
+    private static String stripComment(String line) {
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == '#' && !quoted) {
+                return line.substring(0, i);
+            }
+        }
+        return line;
+    }
+}
@@ -0,0 +1,155 @@
+package com.alerts.rules;
+
+import java.util.Arrays;
+
+import com.alerts.strategy.PatientState;
+
+/**
+ * The per-patient state the compiled rules of one metric type share: the last
+ * sample, and one array per distinct trend and running mean the rules use, so
+ * that two rules over {@code mean(5m)} keep a single mean.
+ *
+ * <p>For each sample, {@link #update} first brings the trends and means up to
+ * date including the sample, the rules are tested, and {@link #commit} then
+ * records the sample as the last one, so rules see the previous sample through
+ * {@code delta} and {@code elapsed}. The arrays are indexed by the patient's
+ * slot, from {@link #slot}, not by patient ID.
+ */
+final class RuleState {
+    double[] lastValues = new double[0];
+    long[] lastTimes = new long[0];
+    boolean[] seen = new boolean[0];
+    private Trend[] trends = new Trend[0];
+    private Mean[] means = new Mean[0];
+    private final PatientState patients = new PatientState();
+
+    /**
+     * Counts the consecutive steps, up to a cap, by which the value rose (or
+     * fell) by more than a minimum step.
+     */
+    static final class Trend {
+        final boolean rising;
+        final double step;
+        int cap;
+        int[] counts = new int[0];
+
+        Trend(boolean rising, double step) {
+            this.rising = rising;
+            this.step = step;
+        }
+    }
+
+    /**
+     * A running mean that weights each sample by how recent it is, fading over a
+     * time constant, including the current sample.
+     */
+    static final class Mean {
+        final double millis;
+        double[] values = new double[0];
+
+        Mean(double millis) {
+            this.millis = millis;
+        }
+    }
+
+    Trend trend(boolean rising, double step, int steps) {
+        for (Trend trend : trends) {
+            if (trend.rising == rising && trend.step == step) {
+                trend.cap = Math.max(trend.cap, steps);
+                return trend;
+            }
+        }
+        Trend trend = new Trend(rising, step);
+        trend.cap = steps;
+        trend.counts = new int[seen.length];
+        trends = Arrays.copyOf(trends, trends.length + 1);
+        trends[trends.length - 1] = trend;
+        return trend;
+    }
+
+    Mean mean(double millis) {
+        for (Mean mean : means) {
+            if (mean.millis == millis) {
+                return mean;
+            }
+        }
+        Mean mean = new Mean(millis);
+        mean.values = new double[seen.length];
+        means = Arrays.copyOf(means, means.length + 1);
+        means[means.length - 1] = mean;
+        return mean;
+    }
+
+    /**
+     * Returns the patient's slot in the state arrays, growing them if the
+     * patient is new.
+     */
+    int slot(int patientId) {
+        int slot = patients.slot(patientId);
+        if (slot >= seen.length) {
+            grow(slot);
+        }
+        return slot;
+    }
+
+    private void grow(int slot) {
+        int length = PatientState.grownLength(seen.length, slot);
+        lastValues = Arrays.copyOf(lastValues, length);
+        lastTimes = Arrays.copyOf(lastTimes, length);
+        seen = Arrays.copyOf(seen, length);
+        for (Trend trend : trends) {
+            trend.counts = Arrays.copyOf(trend.counts, length);
+        }
+        for (Mean mean : means) {
+            mean.values = Arrays.copyOf(mean.values, length);
+        }
+    }
+
+    void update(int slot, long timestamp, double value) {
+        if (!seen[slot]) {
+            for (Trend trend : trends) {
+                trend.counts[slot] = 0;
+            }
+            for (Mean mean : means) {
+                mean.values[slot] = value;
+            }
+            return;
+        }
+        // Kept in separate small methods so that each is compiled with its callees inlined
+        if (trends.length > 0) {
+            updateTrends(slot, value - lastValues[slot]);
+        }
+        if (means.length > 0) {
+            updateMeans(slot, Math.max(0, timestamp - lastTimes[slot]), value);
+        }
+    }
+
+    private void updateTrends(int slot, double step) {
+        for (Trend trend : trends) {
+            boolean continues = trend.rising ? step > trend.step : step < -trend.step;
+            trend.counts[slot] = continues ? Math.min(trend.counts[slot] + 1, trend.cap) : 0;
+        }
+    }
+
+    private void updateMeans(int slot, long elapsed, double value) {
+        for (Mean mean : means) {
+            // Math.exp is compiled inline, where expm1 is a native call costing more than the rest of
+            // the rule; the precision it gives up is far below what a threshold can tell apart
+            double weight = 1 - Math.exp(-elapsed / mean.millis);
+            mean.values[slot] += weight * (value - mean.values[slot]);
+        }
+    }
+
+    void commit(int slot, long timestamp, double value) {
+        lastValues[slot] = value;
+        lastTimes[slot] = timestamp;
+        seen[slot] = true;
+    }
+
+    void reset(int patientId) {
+        int slot = patients.find(patientId);
+        if (slot >= 0) {
+            seen[slot] = false;
+        }
+    }
+}
@@ -1,12 +1,31 @@
 package com.alerts.strategy;
 
+import java.util.Arrays;
 import java.util.List;
 
 import com.alerts.Alert;
 import com.data_management.Patient;
 import com.data_management.PatientRecord;
 
-public class BloodPressureStrategy implements AlertStrategy {
+/**
+ * Alerts on blood pressure that crosses the critical thresholds, or that rises
+ * or falls by more than 10 three readings in a row.
+ *
+ * <p>As a {@link StreamingAlertStrategy} it keeps each patient's last reading
+ * and how many rising and falling steps in a row led up to it.
+ */
+public class BloodPressureStrategy implements AlertStrategy, StreamingAlertStrategy {
+    private static final double TREND_STEP = 10;
+    private static final int TREND_STEPS = 3;
+    private static final double CRITICAL_HIGH = 180;
+    private static final double CRITICAL_LOW = 90;
+
+    private double[] lastValues = new double[0];
+    private byte[] rising = new byte[0]; // Steps in a row, capped at TREND_STEPS
+    private byte[] falling = new byte[0];
+    private boolean[] seen = new boolean[0];
+    private final PatientState patients = new PatientState(); // State arrays are indexed by slot
+
     @Override
     public Alert checkAlert(Patient patient, List<PatientRecord> records) {
         for (int i = 0; i < records.size(); i++) {
@@ -36,4 +55,51 @@ public class BloodPressureStrategy implements AlertStrategy {
         }
         return null; // No alert triggered
     }
-}
\ No newline at end of file
+
+    @Override
+    public Alert onSample(int patientId, long timestamp, double value) {
+        int slot = patients.slot(patientId);
+        if (slot >= seen.length) {
+            grow(slot);
+        }
+        if (seen[slot]) {
+            double step = value - lastValues[slot];
+            rising[slot] = step > TREND_STEP ? (byte) Math.min(rising[slot] + 1, TREND_STEPS) : 0;
+            falling[slot] = step < -TREND_STEP ? (byte) Math.min(falling[slot] + 1, TREND_STEPS) : 0;
+        }
+        seen[slot] = true;
+        lastValues[slot] = value;
+
+        if (falling[slot] == TREND_STEPS) {
+            return new Alert(Integer.toString(patientId), "Decreasing trend in blood pressure", timestamp);
+        }
+        if (rising[slot] == TREND_STEPS) {
+            return new Alert(Integer.toString(patientId), "Increasing trend in blood pressure", timestamp);
+        }
+        if (value > CRITICAL_HIGH) {
+            return new Alert(Integer.toString(patientId), "Critical high blood pressure", timestamp);
+        }
+        if (value < CRITICAL_LOW) {
+            return new Alert(Integer.toString(patientId), "Critical low blood pressure", timestamp);
+        }
+        return null;
+    }
+
+    @Override
+    public void reset(int patientId) {
+        int slot = patients.find(patientId);
+        if (slot >= 0) {
+            seen[slot] = false;
+            rising[slot] = 0;
+            falling[slot] = 0;
+        }
+    }
+
+    private void grow(int slot) {
+        int length = PatientState.grownLength(seen.length, slot);
+        lastValues = Arrays.copyOf(lastValues, length);
+        rising = Arrays.copyOf(rising, length);
+        falling = Arrays.copyOf(falling, length);
+        seen = Arrays.copyOf(seen, length);
+    }
+}
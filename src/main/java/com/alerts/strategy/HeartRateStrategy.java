@@ -1,12 +1,50 @@
 package com.alerts.strategy;
 
+import java.util.Arrays;
 import java.util.List;
 
 import com.alerts.Alert;
 import com.data_management.Patient;
 import com.data_management.PatientRecord;
 
-public class HeartRateStrategy implements AlertStrategy {
+/**
+ * Alerts on a heart rate more than 1.5 times the patient's average.
+ *
+ * <p>Over a list of records the average is the list's mean. As a
+ * {@link StreamingAlertStrategy} it is a running mean that weights each sample
+ * by how recent it is, fading over a time constant (five minutes by default),
+ * so each patient needs only the mean and the time of its last sample.
+ */
+public class HeartRateStrategy implements AlertStrategy, StreamingAlertStrategy {
+    public static final long DEFAULT_AVERAGE_MILLIS = 5 * 60 * 1000;
+    private static final double HIGH_FACTOR = 1.5;
+
+    private final double averageMillis;
+    private double[] means = new double[0];
+    private long[] lastTimestamps = new long[0];
+    private boolean[] seen = new boolean[0];
+    private final PatientState patients = new PatientState(); // State arrays are indexed by slot
+
+    /**
+     * Creates the strategy with the default time constant for streaming samples.
+     */
+    public HeartRateStrategy() {
+        this(DEFAULT_AVERAGE_MILLIS);
+    }
+
+    /**
+     * Creates the strategy.
+     *
+     * @param averageMillis the time constant of the streaming mean: a sample this
+     *                      old counts for about a third as much as a new one
+     */
+    public HeartRateStrategy(long averageMillis) {
+        if (averageMillis <= 0) {
+            throw new IllegalArgumentException("Averaging time must be positive: " + averageMillis);
+        }
+        this.averageMillis = averageMillis;
+    }
+
     @Override
     public Alert checkAlert(Patient patient, List<PatientRecord> records) {
         double sum = 0;
@@ -22,4 +60,42 @@ public class HeartRateStrategy implements AlertStrategy {
         }
         return null; // No alert triggered
     }
-}
\ No newline at end of file
+
+    @Override
+    public Alert onSample(int patientId, long timestamp, double value) {
+        int slot = patients.slot(patientId);
+        if (slot >= seen.length) {
+            grow(slot);
+        }
+        if (seen[slot]) {
+            // The new sample's weight grows with the time since the last one
+            long elapsed = Math.max(0, timestamp - lastTimestamps[slot]);
+            double weight = -Math.expm1(-elapsed / averageMillis);
+            means[slot] += weight * (value - means[slot]);
+        } else {
+            means[slot] = value;
+            seen[slot] = true;
+        }
+        lastTimestamps[slot] = timestamp;
+
+        if (value > HIGH_FACTOR * means[slot]) {
+            return new Alert(Integer.toString(patientId), "Abnormally high heart rate", timestamp);
+        }
+        return null;
+    }
+
+    @Override
+    public void reset(int patientId) {
+        int slot = patients.find(patientId);
+        if (slot >= 0) {
+            seen[slot] = false;
+        }
+    }
+
+    private void grow(int slot) {
+        int length = PatientState.grownLength(seen.length, slot);
+        means = Arrays.copyOf(means, length);
+        lastTimestamps = Arrays.copyOf(lastTimestamps, length);
+        seen = Arrays.copyOf(seen, length);
+    }
+}
@@ -1,12 +1,29 @@
 package com.alerts.strategy;
 
+import java.util.Arrays;
 import java.util.List;
 
 import com.alerts.Alert;
 import com.data_management.Patient;
 import com.data_management.PatientRecord;
 
-public class OxygenSaturationStrategy implements AlertStrategy {
+/**
+ * Alerts on low oxygen saturation, and on a drop of more than 5 between two
+ * consecutive readings that are more than ten minutes apart.
+ *
+ * <p>As a {@link StreamingAlertStrategy} it keeps each patient's last reading
+ * and its time.
+ */
+public class OxygenSaturationStrategy implements AlertStrategy, StreamingAlertStrategy {
+    private static final double RAPID_DROP = 5;
+    private static final long RAPID_DROP_GAP_MILLIS = 600000;
+    private static final double LOW_SATURATION = 92;
+
+    private double[] lastValues = new double[0];
+    private long[] lastTimestamps = new long[0];
+    private boolean[] seen = new boolean[0];
+    private final PatientState patients = new PatientState(); // State arrays are indexed by slot
+
     @Override
     public Alert checkAlert(Patient patient, List<PatientRecord> records) {
         for (int i = 0; i < records.size(); i++) {
@@ -25,4 +42,41 @@ public class OxygenSaturationStrategy implements AlertStrategy {
         }
         return null; // No alert triggered
     }
-}
\ No newline at end of file
+
+    @Override
+    public Alert onSample(int patientId, long timestamp, double value) {
+        int slot = patients.slot(patientId);
+        if (slot >= seen.length) {
+            grow(slot);
+        }
+        boolean rapidDrop = seen[slot]
+                && lastValues[slot] - value > RAPID_DROP
+                && timestamp - lastTimestamps[slot] > RAPID_DROP_GAP_MILLIS;
+        seen[slot] = true;
+        lastValues[slot] = value;
+        lastTimestamps[slot] = timestamp;
+
+        if (rapidDrop) {
+            return new Alert(Integer.toString(patientId), "Rapid drop in oxygen saturation", timestamp);
+        }
+        if (value < LOW_SATURATION) {
+            return new Alert(Integer.toString(patientId), "Low oxygen saturation", timestamp);
+        }
+        return null;
+    }
+
+    @Override
+    public void reset(int patientId) {
+        int slot = patients.find(patientId);
+        if (slot >= 0) {
+            seen[slot] = false;
+        }
+    }
+
+    private void grow(int slot) {
+        int length = PatientState.grownLength(seen.length, slot);
+        lastValues = Arrays.copyOf(lastValues, length);
+        lastTimestamps = Arrays.copyOf(lastTimestamps, length);
+        seen = Arrays.copyOf(seen, length);
+    }
+}
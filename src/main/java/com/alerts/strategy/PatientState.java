@@ -0,0 +1,94 @@
+package com.alerts.strategy;
+
+/**
+ * Assigns each patient ID a dense slot, 0, 1, 2 and so on in order of first
+ * sight, for the per-patient state arrays of streaming strategies. Patient IDs
+ * can be any int, so the arrays are indexed by slot rather than by ID and grow
+ * with the number of patients seen, not with the largest ID.
+ *
+ * <p>Like the strategies that use it, an instance is not thread-safe.
+ */
+public final class PatientState {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int MAX_LENGTH = Integer.MAX_VALUE - 8; // Largest array length every JVM allows
+
+    private int[] ids = new int[16];
+    private int[] slots = new int[16]; // Slot + 1, so that 0 marks a free entry
+    private int size;
+
+    /**
+     * Returns the patient's slot, assigning the next free one if the patient has
+     * none yet.
+     *
+     * @param patientId the patient's ID
+     * @return the slot, from 0 to the number of patients seen minus one
+     */
+    public int slot(int patientId) {
+        int mask = ids.length - 1;
+        int i = hash(patientId) & mask;
+        while (slots[i] != 0) {
+            if (ids[i] == patientId) {
+                return slots[i] - 1;
+            }
+            i = (i + 1) & mask;
+        }
+        if ((size + 1) * 2 > ids.length) {
+            grow();
+            return slot(patientId);
+        }
+        ids[i] = patientId;
+        slots[i] = ++size;
+        return size - 1;
+    }
+
+    /**
+     * Returns the patient's slot without assigning one.
+     *
+     * @param patientId the patient's ID
+     * @return the slot, or -1 if the patient has none
+     */
+    public int find(int patientId) {
+        int mask = ids.length - 1;
+        for (int i = hash(patientId) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            if (ids[i] == patientId) {
+                return slots[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the array length to grow to so that the slot fits, at least
+     * doubling so that growth is amortized.
+     *
+     * @param length the current length
+     * @param slot   the slot that must fit
+     */
+    public static int grownLength(int length, int slot) {
+        long wanted = Math.max(Math.max(INITIAL_CAPACITY, slot + 1L), length * 2L);
+        return (int) Math.min(wanted, MAX_LENGTH);
+    }
+
+    private void grow() {
+        int[] oldIds = ids;
+        int[] oldSlots = slots;
+        ids = new int[oldIds.length * 2];
+        slots = new int[oldIds.length * 2];
+        int mask = ids.length - 1;
+        for (int j = 0; j < oldIds.length; j++) {
+            if (oldSlots[j] != 0) {
+                int i = hash(oldIds[j]) & mask;
+                while (slots[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                ids[i] = oldIds[j];
+                slots[i] = oldSlots[j];
+            }
+        }
+    }
+
+    private static int hash(int patientId) {
+        int hash = patientId * 0x9E3779B9; // Spreads consecutive IDs across the table
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,32 @@
+package com.alerts.strategy;
+
+import com.alerts.Alert;
+
+/**
+ * An alert rule that is evaluated one sample at a time, as samples arrive,
+ * instead of over a list of records.
+ *
+ * <p>Implementations keep a few numbers per patient (the last value, running
+ * means, trend counters) so that each sample costs constant time however long
+ * the patient has been monitored. They are not thread-safe: a patient's samples
+ * must be passed in time order, from one thread at a time.
+ */
+public interface StreamingAlertStrategy {
+
+    /**
+     * Evaluates one new sample of a patient.
+     *
+     * @param patientId the patient's ID
+     * @param timestamp the sample's time, in milliseconds since epoch
+     * @param value     the sample's value
+     * @return the alert this sample raises, or null if it raises none
+     */
+    Alert onSample(int patientId, long timestamp, double value);
+
+    /**
+     * Forgets everything about a patient, as if no sample had been seen.
+     *
+     * @param patientId the patient's ID
+     */
+    void reset(int patientId);
+}
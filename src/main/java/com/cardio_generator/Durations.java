@@ -0,0 +1,73 @@
+package com.cardio_generator;
+
+/**
+ * Parses the human-readable durations accepted on the command line and in
+ * configuration files, such as {@code 500ms}, {@code 20s}, {@code 10m},
+ * {@code 1h} or {@code 7d}. A number without a unit is taken as milliseconds.
+ */
+public final class Durations {
+
+    private Durations() {
+    }
+
+    /**
+     * Parses a duration.
+     *
+     * @param text the duration, e.g. "1h"
+     * @return the duration in milliseconds
+     * @throws IllegalArgumentException if the text is not a valid duration
+     */
+    public static long parseMillis(String text) {
+        String value = text.trim().toLowerCase();
+        long unit;
+        String number;
+        if (value.endsWith("ms")) {
+            unit = 1;
+            number = value.substring(0, value.length() - 2);
+        } else if (value.endsWith("s")) {
+            unit = 1000;
+            number = value.substring(0, value.length() - 1);
+        } else if (value.endsWith("m")) {
+            unit = 60_000;
+            number = value.substring(0, value.length() - 1);
+        } else if (value.endsWith("h")) {
+            unit = 3_600_000;
+            number = value.substring(0, value.length() - 1);
+        } else if (value.endsWith("d")) {
+            unit = 86_400_000;
+            number = value.substring(0, value.length() - 1);
+        } else {
+            unit = 1;
+            number = value;
+        }
+        try {
+            double amount = Double.parseDouble(number);
+            if (amount < 0) {
+                throw new IllegalArgumentException("Duration must not be negative: " + text);
+            }
+            return Math.round(amount * unit);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid duration: " + text);
+        }
+    }
+
+    /**
+     * Formats a duration in the largest unit that represents it exactly, in the
+     * form {@link #parseMillis} accepts.
+     *
+     * @param millis the duration in milliseconds
+     * @return the duration, e.g. "7d" or "1500ms"
+     */
+    public static String format(long millis) {
+        if (millis != 0 && millis % 86_400_000 == 0) {
+            return millis / 86_400_000 + "d";
+        } else if (millis != 0 && millis % 3_600_000 == 0) {
+            return millis / 3_600_000 + "h";
+        } else if (millis != 0 && millis % 60_000 == 0) {
+            return millis / 60_000 + "m";
+        } else if (millis != 0 && millis % 1000 == 0) {
+            return millis / 1000 + "s";
+        }
+        return millis + "ms";
+    }
+}
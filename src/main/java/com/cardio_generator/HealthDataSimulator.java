@@ -4,24 +4,51 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.concurrent.TimeUnit;
 
+import com.alerts.AlertEngine;
+import com.alerts.AlertHistory;
+import com.alerts.AlertStore;
+import com.alerts.dispatch.AlertDispatcher;
+import com.alerts.dispatch.AlertSink;
+import com.alerts.dispatch.ConsoleAlertSink;
+import com.alerts.dispatch.FileAlertSink;
+import com.alerts.dispatch.WebSocketAlertSink;
+import com.alerts.MetricTypes;
+import com.alerts.rules.RuleBook;
+import com.alerts.rules.RuleSet;
+import com.alerts.strategy.BloodPressureStrategy;
+import com.alerts.strategy.OxygenSaturationStrategy;
 import com.cardio_generator.generators.AlertGenerator;
 import com.cardio_generator.generators.BloodLevelsDataGenerator;
 import com.cardio_generator.generators.BloodPressureDataGenerator;
 import com.cardio_generator.generators.BloodSaturationDataGenerator;
 import com.cardio_generator.generators.ECGDataGenerator;
+import com.cardio_generator.generators.HighRateECGDataGenerator;
+import com.cardio_generator.generators.PatientDataGenerator;
+import com.cardio_generator.outputs.BinaryFileOutputStrategy;
+import com.cardio_generator.outputs.CompositeOutputStrategy;
 import com.cardio_generator.outputs.ConsoleOutputStrategy;
+import com.cardio_generator.outputs.DirectOutputStrategy;
 import com.cardio_generator.outputs.FileOutputStrategy;
 import com.cardio_generator.outputs.OutputStrategy;
+import com.cardio_generator.outputs.PatientIdOffsetOutputStrategy;
+import com.cardio_generator.outputs.RollingLayout;
 import com.cardio_generator.outputs.TcpOutputStrategy;
 import com.cardio_generator.outputs.WebSocketOutputStrategy;
+import com.data_management.DataStorage;
 
 /**
 * The HealthDataSimulator class is the entry point for simulating health data for multiple patients.
@@ -37,13 +64,35 @@ public class HealthDataSimulator {
 
     private static int patientCount = 50; // Default number of patients
     private static OutputStrategy outputStrategy = new ConsoleOutputStrategy(); // Default output strategy
-    private static final Random random = new Random();
+    private static long rollWindowMillis = 0; // 0 writes one file per label
+    private static int patientsPerSegment = 0; // 0 does not partition segments by patient
+    private static Random random = new Random(); // Patient order and start delays
+    private static Long seed; // null generates different data on every run
+    private static final long DIRECT_REPORT_INTERVAL_MILLIS = 10_000;
+    private static int workerThreads = Runtime.getRuntime().availableProcessors();
+    private static boolean virtualTime = false;
+    private static Long startTimeMillis; // null starts at the current time
+    private static long durationMillis = 0; // 0 runs until stopped
+    private static int ecgRate = 0; // 0 generates one ECG value per second
+    private static LoadProfile loadProfile; // null keeps the patient count and rates fixed
+    private static int coordinatorPort = -1; // Set to coordinate worker processes instead of generating
+    private static int workerCount = 2;
+    private static String coordinatorAddress; // Set to run as a worker of that coordinator
+    private static boolean alertsEnabled = false;
+    private static MetricTypes alertTypes = MetricTypes.defaults(); // Which stored labels reach which alert rules
+    private static AlertEngine alertEngine; // Evaluates alert rules on samples stored by the direct output
+    private static Path alertRulesPath; // null uses the built-in alert strategies
+    private static long alertSuppressionMillis = AlertStore.DEFAULT_SUPPRESSION_MILLIS;
+    private static AlertStore alertStore; // Coalesces repeated alerts before they are delivered
+    private static String alertSinksArg = "console";
+    private static AlertDispatcher alertDispatcher; // Delivers stored alerts to the --alert-sinks
+    private static Path alertHistoryPath; // null keeps no alert history
+    private static AlertHistory alertHistory; // Records every raised alert in the --alert-history file
     private static HealthDataSimulator instance; // Singleton instance
-    private static ScheduledExecutorService scheduler;
+    private static TickScheduler scheduler;
 
     // Private constructor to prevent instantiation
     private HealthDataSimulator() {
-        scheduler = Executors.newScheduledThreadPool(50); // Default thread pool size
     }
 
     /**
@@ -65,21 +114,67 @@ public class HealthDataSimulator {
      */
     public void startSimulation(int patientCount) {
         HealthDataSimulator.patientCount = patientCount;
-        scheduler = Executors.newScheduledThreadPool(patientCount * 4);
+        SimulationClock clock = virtualTime
+                ? new VirtualClock(startTimeMillis != null ? startTimeMillis : System.currentTimeMillis())
+                : SystemClock.INSTANCE;
+        // A bounded pool: patients are generated in shards, not one task per patient and metric
+        scheduler = new TickScheduler(outputStrategy, clock, workerThreads, TickScheduler.DEFAULT_SHARD_SIZE);
 
         List<Integer> patientIds = initializePatientIds(patientCount);
-        Collections.shuffle(patientIds); // Randomize the order of patient IDs
+        Collections.shuffle(patientIds, random); // Randomize the order of patient IDs
 
-        scheduleTasksForPatients(patientIds);
-        System.out.println("Simulation started for " + patientCount + " patients.");
+        Map<String, TickScheduler.Schedule> schedules = scheduleTasksForPatients(patientIds);
+        if (loadProfile != null) {
+            scheduler.setTickListener(
+                    new LoadProfileRunner(loadProfile, scheduler, schedules, clock.currentTimeMillis()));
+        }
+        if (durationMillis > 0) {
+            scheduler.start(clock.currentTimeMillis() + durationMillis);
+        } else {
+            scheduler.start();
+        }
+        System.out.println("Simulation started for " + patientCount + " patients on " + workerThreads
+                + " worker threads" + (virtualTime ? " in virtual time from " + Instant.ofEpochMilli(
+                        clock.currentTimeMillis()) : "") + ".");
+    }
+
+    /**
+     * Waits until a simulation started with a duration has generated all of its
+     * data, then stops it.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitEnd() throws InterruptedException {
+        long start = System.nanoTime();
+        scheduler.awaitEnd();
+        stopSimulation();
+        System.out.printf("Generated %s of data in %.1f seconds.%n", Durations.format(durationMillis),
+                (System.nanoTime() - start) / 1e9);
     }
 
     /**
-     * Shuts down the simulation.
+     * Shuts down the simulation and closes the output strategy so that buffered
+     * data is written out.
      */
     public void stopSimulation() {
         if (scheduler != null) {
-            scheduler.shutdown();
+            try {
+                scheduler.shutdown(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            outputStrategy.close();
+            if (alertEngine != null) {
+                alertEngine.close();
+                alertDispatcher.close();
+                System.out.println(alertEngine.report());
+                System.out.println("Alert store: " + alertStore.summary());
+                System.out.println(alertDispatcher.report());
+                if (alertHistory != null) {
+                    alertHistory.close();
+                    System.out.println("Alert history: " + alertHistory.size() + " alerts in " + alertHistoryPath);
+                }
+            }
             System.out.println("Simulation stopped.");
         }
     }
@@ -90,12 +185,76 @@ public class HealthDataSimulator {
      * @param args command-line arguments for configuring patient count and output type
      * @throws IOException if file output strategy setup fails
      */
-    public static void main(String[] args) throws IOException {
+    public static void main(String[] args) throws IOException, InterruptedException {
 
         parseArguments(args);
 
+        if (coordinatorPort >= 0) {
+            runCoordinator();
+            return;
+        }
+        if (coordinatorAddress != null) {
+            runWorker();
+            return;
+        }
         HealthDataSimulator simulator = HealthDataSimulator.getInstance();
         simulator.startSimulation(patientCount);
+        if (durationMillis > 0) {
+            simulator.awaitEnd();
+        }
+    }
+
+    /**
+     * Hands the simulation to worker processes and reports on them until they finish.
+     */
+    private static void runCoordinator() throws IOException, InterruptedException {
+        try (SimulationCoordinator coordinator = new SimulationCoordinator(coordinatorPort, workerCount,
+                SimulationCoordinator.DEFAULT_REPORT_INTERVAL_MILLIS)) {
+            coordinator.run(patientCount, loadProfile, seed, virtualTime, startTimeMillis, durationMillis);
+        }
+    }
+
+    /**
+     * Runs the part of a simulation a coordinator assigns to this process. The
+     * patients are generated as IDs 1 to n and published in the assigned range.
+     */
+    private static void runWorker() throws IOException, InterruptedException {
+        int colon = coordinatorAddress.lastIndexOf(':');
+        String host = colon > 0 ? coordinatorAddress.substring(0, colon) : "localhost";
+        int port;
+        try {
+            port = Integer.parseInt(coordinatorAddress.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            System.err.println("Error: Invalid coordinator address " + coordinatorAddress + "; expected host:port.");
+            System.exit(1);
+            return;
+        }
+        SimulationWorker worker = new SimulationWorker(host, port);
+        System.out.println("Connected to coordinator " + coordinatorAddress + "; waiting for the start.");
+        WorkerAssignment assignment = worker.awaitAssignment();
+
+        patientCount = assignment.getPatientCount();
+        seed = assignment.getSeed();
+        random = seed != null ? new Random(seed) : new Random();
+        virtualTime = assignment.isVirtualTime();
+        startTimeMillis = assignment.getStartMillis();
+        durationMillis = assignment.getDurationMillis();
+        loadProfile = assignment.getProfileLines().isEmpty() ? null
+                : LoadProfile.parse(assignment.getProfileLines(), patientCount);
+        outputStrategy = new PatientIdOffsetOutputStrategy(outputStrategy, assignment.getPatientOffset());
+        System.out.println("Worker " + assignment.getIndex() + " of " + assignment.getWorkerCount()
+                + ", patient IDs from " + (assignment.getPatientOffset() + 1) + ".");
+        if (!virtualTime) {
+            SystemClock.INSTANCE.sleepUntil(assignment.getStartMillis()); // Every worker starts together
+        }
+
+        HealthDataSimulator simulator = HealthDataSimulator.getInstance();
+        simulator.startSimulation(patientCount);
+        worker.startReporting(scheduler);
+        if (durationMillis > 0) {
+            simulator.awaitEnd();
+            worker.finish(scheduler);
+        }
     }
 
     /**
@@ -105,6 +264,8 @@ public class HealthDataSimulator {
      * @throws IOException if file output strategy setup fails
      */
     private static void parseArguments(String[] args) throws IOException {
+        String outputArg = null;
+        String profileArg = null;
         for (int i = 0; i < args.length; i++) {
             switch (args[i]) {
                 case "-h":
@@ -121,40 +282,149 @@ public class HealthDataSimulator {
                         }
                     }
                     break;
-                case "--output":
+                case "--threads":
                     if (i + 1 < args.length) {
-                        String outputArg = args[++i];
-                        if (outputArg.equals("console")) {
-                            outputStrategy = new ConsoleOutputStrategy();
-                        } else if (outputArg.startsWith("file:")) {
-                            String baseDirectory = outputArg.substring(5);
-                            Path outputPath = Paths.get(baseDirectory);
-                            if (!Files.exists(outputPath)) {
-                                Files.createDirectories(outputPath);
-                            }
-                            //Changed the name of the class to follow Java naming conventions
-                            outputStrategy = new FileOutputStrategy(baseDirectory);
-                        } else if (outputArg.startsWith("websocket:")) {
-                            try {
-                                int port = Integer.parseInt(outputArg.substring(10));
-                                // Initialize your WebSocket output strategy here
-                                outputStrategy = new WebSocketOutputStrategy(port);
-                                System.out.println("WebSocket output will be on port: " + port);
-                            } catch (NumberFormatException e) {
-                                System.err.println(
-                                        "Invalid port for WebSocket output. Please specify a valid port number.");
-                            }
-                        } else if (outputArg.startsWith("tcp:")) {
-                            try {
-                                int port = Integer.parseInt(outputArg.substring(4));
-                                // Initialize your TCP socket output strategy here
-                                outputStrategy = new TcpOutputStrategy(port);
-                                System.out.println("TCP socket output will be on port: " + port);
-                            } catch (NumberFormatException e) {
-                                System.err.println("Invalid port for TCP output. Please specify a valid port number.");
+                        try {
+                            workerThreads = Math.max(1, Integer.parseInt(args[++i]));
+                        } catch (NumberFormatException e) {
+                            System.err.println("Error: Invalid thread count. Using default value: " + workerThreads);
+                        }
+                    }
+                    break;
+                case "--seed":
+                    if (i + 1 < args.length) {
+                        try {
+                            seed = Long.parseLong(args[++i]);
+                            random = new Random(seed);
+                        } catch (NumberFormatException e) {
+                            System.err.println("Error: Invalid seed. Generating unseeded data.");
+                        }
+                    }
+                    break;
+                case "--virtual-time":
+                    virtualTime = true;
+                    break;
+                case "--start-time":
+                    if (i + 1 < args.length) {
+                        try {
+                            startTimeMillis = parseTime(args[++i]);
+                        } catch (IllegalArgumentException e) {
+                            System.err.println("Error: Invalid start time. Starting at the current time.");
+                        }
+                    }
+                    break;
+                case "--duration":
+                    if (i + 1 < args.length) {
+                        try {
+                            durationMillis = Durations.parseMillis(args[++i]);
+                        } catch (IllegalArgumentException e) {
+                            System.err.println("Error: " + e.getMessage() + ". Running until stopped.");
+                        }
+                    }
+                    break;
+                case "--ecg-rate":
+                    if (i + 1 < args.length) {
+                        try {
+                            int rate = Integer.parseInt(args[++i]);
+                            if (rate < 0 || rate > HighRateECGDataGenerator.MAX_SAMPLE_RATE) {
+                                throw new NumberFormatException("Out of range: " + rate);
                             }
-                        } else {
-                            System.err.println("Unknown output type. Using default (console).");
+                            ecgRate = rate;
+                        } catch (NumberFormatException e) {
+                            System.err.println("Error: Invalid ECG sample rate, expected 0 to "
+                                    + HighRateECGDataGenerator.MAX_SAMPLE_RATE
+                                    + " Hz. Generating one ECG value per second.");
+                        }
+                    }
+                    break;
+                case "--profile":
+                    if (i + 1 < args.length) {
+                        profileArg = args[++i];
+                    }
+                    break;
+                case "--coordinator":
+                    if (i + 1 < args.length) {
+                        try {
+                            coordinatorPort = Integer.parseInt(args[++i]);
+                        } catch (NumberFormatException e) {
+                            System.err.println("Error: Invalid coordinator port.");
+                            System.exit(1);
+                        }
+                    }
+                    break;
+                case "--workers":
+                    if (i + 1 < args.length) {
+                        try {
+                            workerCount = Math.max(1, Integer.parseInt(args[++i]));
+                        } catch (NumberFormatException e) {
+                            System.err.println("Error: Invalid worker count. Using default value: " + workerCount);
+                        }
+                    }
+                    break;
+                case "--worker":
+                    if (i + 1 < args.length) {
+                        coordinatorAddress = args[++i];
+                    }
+                    break;
+                case "--alerts":
+                    alertsEnabled = true;
+                    break;
+                case "--alert-labels":
+                    if (i + 1 < args.length) {
+                        String labelsArg = args[++i];
+                        try {
+                            alertTypes = MetricTypes.load(Paths.get(labelsArg));
+                        } catch (IllegalArgumentException e) {
+                            System.err.println("Error: Invalid alert label mapping " + labelsArg + ": "
+                                    + e.getMessage());
+                            System.exit(1);
+                        }
+                    }
+                    break;
+                case "--alert-rules":
+                    if (i + 1 < args.length) {
+                        alertRulesPath = Paths.get(args[++i]);
+                    }
+                    break;
+                case "--alert-suppression":
+                    if (i + 1 < args.length) {
+                        try {
+                            alertSuppressionMillis = Durations.parseMillis(args[++i]);
+                        } catch (IllegalArgumentException e) {
+                            System.err.println("Error: " + e.getMessage() + ". Using the default suppression window.");
+                        }
+                    }
+                    break;
+                case "--alert-history":
+                    if (i + 1 < args.length) {
+                        alertHistoryPath = Paths.get(args[++i]);
+                    }
+                    break;
+                case "--alert-sinks":
+                    if (i + 1 < args.length) {
+                        alertSinksArg = args[++i];
+                    }
+                    break;
+                case "--output":
+                    if (i + 1 < args.length) {
+                        outputArg = args[++i];
+                    }
+                    break;
+                case "--file-roll":
+                    if (i + 1 < args.length) {
+                        try {
+                            rollWindowMillis = Durations.parseMillis(args[++i]);
+                        } catch (IllegalArgumentException e) {
+                            System.err.println("Error: " + e.getMessage() + ". Writing one file per label.");
+                        }
+                    }
+                    break;
+                case "--file-patients-per-segment":
+                    if (i + 1 < args.length) {
+                        try {
+                            patientsPerSegment = Integer.parseInt(args[++i]);
+                        } catch (NumberFormatException e) {
+                            System.err.println("Error: Invalid patients per segment. Not partitioning by patient.");
                         }
                     }
                     break;
@@ -164,6 +434,193 @@ public class HealthDataSimulator {
                     System.exit(1);
             }
         }
+        // Created after every option is known, since file options may follow --output
+        if (outputArg != null) {
+            outputStrategy = createOutputStrategy(outputArg);
+        }
+        // Loaded last, since the profile starts from --patient-count unless it sets its own
+        if (profileArg != null) {
+            try {
+                loadProfile = LoadProfile.load(Paths.get(profileArg), patientCount);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error: Invalid load profile " + profileArg + ": " + e.getMessage());
+                System.exit(1);
+            }
+            patientCount = loadProfile.getInitialPatients();
+            if (durationMillis == 0) {
+                durationMillis = loadProfile.getDurationMillis();
+            }
+        }
+        if (alertsEnabled && alertEngine == null) {
+            System.err.println("Warning: --alerts only applies with direct output.");
+        }
+        if (startTimeMillis != null && !virtualTime) {
+            System.err.println("Warning: --start-time only applies with --virtual-time.");
+        }
+    }
+
+    /**
+     * Parses a time given as an ISO-8601 instant, e.g. "2024-01-01T00:00:00Z", or
+     * as milliseconds since epoch.
+     *
+     * @param text the time
+     * @return the time in milliseconds since epoch
+     * @throws IllegalArgumentException if the text is not a valid time
+     */
+    private static long parseTime(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            try {
+                return Instant.parse(text).toEpochMilli();
+            } catch (DateTimeParseException notInstant) {
+                throw new IllegalArgumentException("Invalid time: " + text);
+            }
+        }
+    }
+
+    /**
+     * Creates the output strategy described by an {@code --output} argument.
+     *
+     * @param outputArg the output specification, e.g. "file:./output", or several separated by commas
+     * @return the output strategy, or the console strategy if the specification is invalid
+     * @throws IOException if file output strategy setup fails
+     */
+    private static OutputStrategy createOutputStrategy(String outputArg) throws IOException {
+        if (outputArg.contains(",")) {
+            // Several outputs, each fed from its own queue so a slow one does not hold back the rest
+            Map<String, OutputStrategy> sinks = new LinkedHashMap<>();
+            for (String part : outputArg.split(",")) {
+                sinks.put(part.trim(), createOutputStrategy(part.trim()));
+            }
+            return new CompositeOutputStrategy(sinks);
+        } else if (outputArg.equals("console")) {
+            return new ConsoleOutputStrategy();
+        } else if (outputArg.equals("direct")) {
+            // Stores straight into this process's DataStorage, without any transport
+            if (alertsEnabled && alertEngine == null) {
+                alertEngine = createAlertEngine();
+                alertEngine.attach(DataStorage.getInstance());
+            }
+            return new DirectOutputStrategy(DataStorage.getInstance(), DIRECT_REPORT_INTERVAL_MILLIS);
+        } else if (outputArg.startsWith("file:")) {
+            String baseDirectory = outputArg.substring(5);
+            Path outputPath = Paths.get(baseDirectory);
+            if (!Files.exists(outputPath)) {
+                Files.createDirectories(outputPath);
+            }
+            if (rollWindowMillis > 0) {
+                return new FileOutputStrategy(baseDirectory, new RollingLayout(rollWindowMillis, patientsPerSegment));
+            }
+            //Changed the name of the class to follow Java naming conventions
+            return new FileOutputStrategy(baseDirectory);
+        } else if (outputArg.startsWith("binfile:")) {
+            return new BinaryFileOutputStrategy(outputArg.substring(8));
+        } else if (outputArg.startsWith("websocket:")) {
+            try {
+                int port = Integer.parseInt(outputArg.substring(10));
+                // Initialize your WebSocket output strategy here
+                OutputStrategy strategy = new WebSocketOutputStrategy(port);
+                System.out.println("WebSocket output will be on port: " + port);
+                return strategy;
+            } catch (NumberFormatException e) {
+                System.err.println(
+                        "Invalid port for WebSocket output. Please specify a valid port number.");
+            }
+        } else if (outputArg.startsWith("tcp:")) {
+            try {
+                int port = Integer.parseInt(outputArg.substring(4));
+                // Initialize your TCP socket output strategy here
+                OutputStrategy strategy = new TcpOutputStrategy(port);
+                System.out.println("TCP socket output will be on port: " + port);
+                return strategy;
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid port for TCP output. Please specify a valid port number.");
+            }
+        } else {
+            System.err.println("Unknown output type. Using default (console).");
+        }
+        return new ConsoleOutputStrategy();
+    }
+
+    /**
+     * Creates an alert engine with the blood pressure and oxygen saturation rules,
+     * or with the rules of the {@code --alert-rules} file. Each alert is sent to
+     * the {@code --alert-sinks} by priority unless it repeats one sent within the
+     * suppression window, and every alert is recorded in the {@code --alert-history}
+     * file if one is given. A rules file is reloaded whenever it changes.
+     *
+     * @return the alert engine
+     * @throws IOException if the rules file cannot be read
+     */
+    private static AlertEngine createAlertEngine() throws IOException {
+        alertStore = new AlertStore(AlertStore.DEFAULT_CAPACITY, alertSuppressionMillis);
+        alertDispatcher = new AlertDispatcher(createAlertSinks(alertSinksArg));
+        if (alertHistoryPath != null) {
+            alertHistory = AlertHistory.open(alertHistoryPath);
+        }
+        AlertEngine engine = new AlertEngine(alertTypes, workerThreads, AlertEngine.DEFAULT_QUEUE_CAPACITY,
+                alert -> {
+                    if (alertHistory != null) {
+                        alertHistory.add(alert);
+                    }
+                    if (alertStore.add(alert) == AlertStore.Outcome.STORED) {
+                        alertDispatcher.dispatch(alert);
+                    }
+                });
+        if (alertRulesPath == null) {
+            engine.subscribe(MetricTypes.BLOOD_PRESSURE, BloodPressureStrategy::new);
+            engine.subscribe(MetricTypes.OXYGEN_SATURATION, OxygenSaturationStrategy::new);
+            return engine;
+        }
+        RuleBook rules;
+        try {
+            rules = new RuleBook(RuleSet.load(alertRulesPath));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: Invalid alert rules " + alertRulesPath + ": " + e.getMessage());
+            System.exit(1);
+            return engine;
+        }
+        // Types a reloaded file may add rules for must already be subscribed
+        Set<String> metricTypes = new LinkedHashSet<>(Arrays.asList(MetricTypes.BLOOD_PRESSURE,
+                MetricTypes.HEART_RATE, MetricTypes.OXYGEN_SATURATION));
+        metricTypes.addAll(rules.get().getMetricTypes());
+        for (String metricType : metricTypes) {
+            engine.subscribe(metricType, () -> rules.strategyFor(metricType));
+        }
+        rules.watch(alertRulesPath, 1000);
+        return engine;
+    }
+
+    /**
+     * Creates the alert sinks described by an {@code --alert-sinks} argument.
+     *
+     * @param sinksArg the sinks separated by commas, each 'console', 'file:<path>' or 'websocket:<port>'
+     * @return the sinks; the console if none is valid
+     * @throws IOException if an alert file cannot be opened
+     */
+    private static List<AlertSink> createAlertSinks(String sinksArg) throws IOException {
+        List<AlertSink> sinks = new ArrayList<>();
+        for (String part : sinksArg.split(",")) {
+            String sink = part.trim();
+            if (sink.equals("console")) {
+                sinks.add(new ConsoleAlertSink());
+            } else if (sink.startsWith("file:")) {
+                sinks.add(new FileAlertSink(Paths.get(sink.substring(5))));
+            } else if (sink.startsWith("websocket:")) {
+                try {
+                    sinks.add(new WebSocketAlertSink(Integer.parseInt(sink.substring(10))));
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid port for WebSocket alert sink: " + sink);
+                }
+            } else {
+                System.err.println("Unknown alert sink '" + sink + "'.");
+            }
+        }
+        if (sinks.isEmpty()) {
+            sinks.add(new ConsoleAlertSink());
+        }
+        return sinks;
     }
 
     /**
@@ -175,11 +632,49 @@ public class HealthDataSimulator {
         System.out.println("  -h                       Show help and exit.");
         System.out.println(
                 "  --patient-count <count>  Specify the number of patients to simulate data for (default: 50).");
+        System.out.println("  --threads <count>        Number of threads generating data (default: one per core).");
+        System.out.println("  --seed <number>          Generate the same values for each patient on every run.");
+        System.out.println("  --virtual-time           Generate data as fast as the outputs accept it instead of");
+        System.out.println("                           in real time, keeping each metric's interval.");
+        System.out.println("  --start-time <time>      Virtual start time, e.g. '2024-01-01T00:00:00Z' (default: now).");
+        System.out.println("  --duration <duration>    Stop after this much (simulated) time, e.g. '7d'.");
+        System.out.println("  --ecg-rate <hz>          Generate ECG at this sample rate, e.g. 250, from a realistic");
+        System.out.println("                           beat shape, up to 1000 Hz (default: one value per second).");
+        System.out.println("  --profile <file>         Vary the patient count and metric rates over time as the");
+        System.out.println("                           load profile file describes; see README.md.");
+        System.out.println("  --coordinator <port>     Split the simulation over worker processes that connect to");
+        System.out.println("                           this port, and report their combined statistics.");
+        System.out.println("  --workers <count>        Number of workers the coordinator waits for (default: 2).");
+        System.out.println("  --worker <host:port>     Run as a worker of the coordinator at this address; the");
+        System.out.println("                           coordinator sets the patients, seed, profile and timing.");
         System.out.println("  --output <type>          Define the output method. Options are:");
         System.out.println("                             'console' for console output,");
         System.out.println("                             'file:<directory>' for file output,");
+        System.out.println("                             'binfile:<directory>' for compact binary file output,");
         System.out.println("                             'websocket:<port>' for WebSocket output,");
-        System.out.println("                             'tcp:<port>' for TCP socket output.");
+        System.out.println("                             'tcp:<port>' for TCP socket output,");
+        System.out.println("                             'direct' to store into an in-process DataStorage.");
+        System.out.println("                           Separate several outputs with commas, e.g.");
+        System.out.println("                           'file:./out,websocket:8080'. Each output then has its own");
+        System.out.println("                           queue and drops records if it falls too far behind.");
+        System.out.println("  --alerts                 With direct output, evaluate alert rules on each sample as it");
+        System.out.println("                           is stored and report the sample-to-alert latency.");
+        System.out.println("  --alert-rules <file>     Evaluate the alert rules of this file instead of the");
+        System.out.println("                           built-in ones, reloading it when it changes; see README.md.");
+        System.out.println("  --alert-labels <file>    Map stored record types to the alert rules' metric types,");
+        System.out.println("                           one '<label> = <metric type>' per line; see README.md.");
+        System.out.println("  --alert-sinks <sinks>    Where to deliver alerts, most urgent first: 'console',");
+        System.out.println("                           'file:<path>' or 'websocket:<port>', separated by commas");
+        System.out.println("                           (default: console).");
+        System.out.println("  --alert-history <file>   Record every alert in this append-only file, keeping the");
+        System.out.println("                           alerts already in it.");
+        System.out.println("  --alert-suppression <window>");
+        System.out.println("                           Deliver a patient's repeated condition once per window,");
+        System.out.println("                           e.g. '5m', or '0' to deliver every alert (default: 1m).");
+        System.out.println("  --file-roll <window>     Split file output into indexed segments per time window,");
+        System.out.println("                           e.g. '1h' (default: one file per label).");
+        System.out.println("  --file-patients-per-segment <count>");
+        System.out.println("                           Also split rolled segments by patient ID range.");
         System.out.println("Example:");
         System.out.println("  java HealthDataSimulator --patient-count 100 --output websocket:8080");
         System.out.println(
@@ -204,31 +699,58 @@ public class HealthDataSimulator {
      * Schedules tasks for generating health data for each patient.
      *
      * @param patientIds the list of patient IDs
+     * @return the schedules by the metric names load profiles use
      */
-    private static void scheduleTasksForPatients(List<Integer> patientIds) {
-        ECGDataGenerator ecgDataGenerator = new ECGDataGenerator(patientCount);
-        BloodSaturationDataGenerator bloodSaturationDataGenerator = new BloodSaturationDataGenerator(patientCount);
-        BloodPressureDataGenerator bloodPressureDataGenerator = new BloodPressureDataGenerator(patientCount);
-        BloodLevelsDataGenerator bloodLevelsDataGenerator = new BloodLevelsDataGenerator(patientCount);
-        AlertGenerator alertGenerator = new AlertGenerator(patientCount);
-
-        for (int patientId : patientIds) {
-            scheduleTask(() -> ecgDataGenerator.generate(patientId, outputStrategy), 1, TimeUnit.SECONDS);
-            scheduleTask(() -> bloodSaturationDataGenerator.generate(patientId, outputStrategy), 1, TimeUnit.SECONDS);
-            scheduleTask(() -> bloodPressureDataGenerator.generate(patientId, outputStrategy), 1, TimeUnit.MINUTES);
-            scheduleTask(() -> bloodLevelsDataGenerator.generate(patientId, outputStrategy), 2, TimeUnit.MINUTES);
-            scheduleTask(() -> alertGenerator.generate(patientId, outputStrategy), 20, TimeUnit.SECONDS);
+    private static Map<String, TickScheduler.Schedule> scheduleTasksForPatients(List<Integer> patientIds) {
+        PatientDataGenerator ecgDataGenerator;
+        BloodSaturationDataGenerator bloodSaturationDataGenerator;
+        BloodPressureDataGenerator bloodPressureDataGenerator;
+        BloodLevelsDataGenerator bloodLevelsDataGenerator;
+        AlertGenerator alertGenerator;
+        if (seed != null) {
+            // Each generator gets its own seed, split from the one given
+            SplittableRandom seeds = new SplittableRandom(seed);
+            long ecgSeed = seeds.nextLong();
+            ecgDataGenerator = ecgRate > 0
+                    ? new HighRateECGDataGenerator(patientCount, ecgRate, ecgSeed)
+                    : new ECGDataGenerator(patientCount, ecgSeed);
+            bloodSaturationDataGenerator = new BloodSaturationDataGenerator(patientCount, seeds.nextLong());
+            bloodPressureDataGenerator = new BloodPressureDataGenerator(patientCount, seeds.nextLong());
+            bloodLevelsDataGenerator = new BloodLevelsDataGenerator(patientCount, seeds.nextLong());
+            alertGenerator = new AlertGenerator(patientCount, seeds.nextLong());
+        } else {
+            ecgDataGenerator = ecgRate > 0
+                    ? new HighRateECGDataGenerator(patientCount, ecgRate)
+                    : new ECGDataGenerator(patientCount);
+            bloodSaturationDataGenerator = new BloodSaturationDataGenerator(patientCount);
+            bloodPressureDataGenerator = new BloodPressureDataGenerator(patientCount);
+            bloodLevelsDataGenerator = new BloodLevelsDataGenerator(patientCount);
+            alertGenerator = new AlertGenerator(patientCount);
         }
+
+        Map<String, TickScheduler.Schedule> schedules = new LinkedHashMap<>();
+        schedules.put("ecg", scheduleTask(ecgDataGenerator, patientIds, 1, TimeUnit.SECONDS));
+        schedules.put("saturation", scheduleTask(bloodSaturationDataGenerator, patientIds, 1, TimeUnit.SECONDS));
+        schedules.put("pressure", scheduleTask(bloodPressureDataGenerator, patientIds, 1, TimeUnit.MINUTES));
+        schedules.put("blood", scheduleTask(bloodLevelsDataGenerator, patientIds, 2, TimeUnit.MINUTES));
+        schedules.put("alert", scheduleTask(alertGenerator, patientIds, 20, TimeUnit.SECONDS));
+        return schedules;
     }
 
     /**
-     * Schedules a task to be executed at a fixed rate.
+     * Schedules a generator to run at a fixed rate for all patients. Each shard of
+     * patients starts after a random delay of 0 to 4 periods' time units, so the
+     * load is spread out.
      *
-     * @param task     the task to be executed
-     * @param period   the period between successive executions
-     * @param timeUnit the time unit of the period
+     * @param generator  the generator to run
+     * @param patientIds the patients to generate data for
+     * @param period     the period between successive executions
+     * @param timeUnit   the time unit of the period
+     * @return the schedule
      */
-    private static void scheduleTask(Runnable task, long period, TimeUnit timeUnit) {
-        scheduler.scheduleAtFixedRate(task, random.nextInt(5), period, timeUnit);
+    private static TickScheduler.Schedule scheduleTask(PatientDataGenerator generator, List<Integer> patientIds,
+            long period, TimeUnit timeUnit) {
+        return scheduler.schedule(generator, patientIds, timeUnit.toMillis(period),
+                () -> timeUnit.toMillis(random.nextInt(5)));
     }
 }
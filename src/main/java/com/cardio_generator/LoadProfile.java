@@ -0,0 +1,346 @@
+package com.cardio_generator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A simulated load over time, read from a profile file: a sequence of phases,
+ * each with a duration, a patient count that may ramp from one value to another,
+ * rate multipliers per metric that may also ramp, and an optional burst.
+ *
+ * <p>Each non-empty line that is not a {@code #} comment describes one phase:
+ * <pre>
+ * phase &lt;name&gt; duration=&lt;duration&gt; [patients=&lt;n&gt;|&lt;from&gt;-&gt;&lt;to&gt;]
+ *       [&lt;metric&gt;=&lt;multiplier&gt;|&lt;from&gt;-&gt;&lt;to&gt; ...] [burst]
+ * </pre>
+ * Durations use the {@link Durations} format. A phase without a patient count
+ * keeps the count the previous phase ended with. A metric without a multiplier
+ * runs at its normal rate. A burst makes every patient produce all of its
+ * metrics at once when the phase starts.
+ */
+public class LoadProfile {
+    private static final String RAMP = "->";
+
+    private final List<Phase> phases;
+    private final long durationMillis;
+
+    private LoadProfile(List<Phase> phases) {
+        this.phases = Collections.unmodifiableList(phases);
+        long total = 0;
+        for (Phase phase : phases) {
+            total += phase.durationMillis;
+        }
+        this.durationMillis = total;
+    }
+
+    /**
+     * Reads a profile file.
+     *
+     * @param path            the profile file
+     * @param initialPatients the patient count used until a phase sets one
+     * @return the profile
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid profile
+     */
+    public static LoadProfile load(Path path, int initialPatients) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            List<String> lines = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+            return parse(lines, initialPatients);
+        }
+    }
+
+    /**
+     * Parses the lines of a profile.
+     *
+     * @param lines           the profile's lines
+     * @param initialPatients the patient count used until a phase sets one
+     * @return the profile
+     * @throws IllegalArgumentException if the lines are not a valid profile
+     */
+    public static LoadProfile parse(List<String> lines, int initialPatients) {
+        List<Phase> phases = new ArrayList<>();
+        int patients = initialPatients;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            try {
+                Phase phase = parsePhase(line.split("\\s+"), patients);
+                phases.add(phase);
+                patients = phase.patientsTo;
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+        if (phases.isEmpty()) {
+            throw new IllegalArgumentException("The profile has no phases");
+        }
+        return new LoadProfile(phases);
+    }
+
+    private static Phase parsePhase(String[] words, int patients) {
+        if (!words[0].equals("phase") || words.length < 2) {
+            throw new IllegalArgumentException("Expected 'phase <name> duration=<duration> ...'");
+        }
+        String name = words[1];
+        long duration = -1;
+        int patientsFrom = patients;
+        int patientsTo = patients;
+        Map<String, double[]> multipliers = new LinkedHashMap<>();
+        boolean burst = false;
+        for (int i = 2; i < words.length; i++) {
+            String word = words[i];
+            if (word.equals("burst")) {
+                burst = true;
+                continue;
+            }
+            int equals = word.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Expected <key>=<value>, got '" + word + "'");
+            }
+            String key = word.substring(0, equals);
+            String value = word.substring(equals + 1);
+            if (key.equals("duration")) {
+                duration = Durations.parseMillis(value);
+            } else if (key.equals("patients")) {
+                double[] range = parseRange(value);
+                patientsFrom = (int) range[0];
+                patientsTo = (int) range[1];
+                if (patientsFrom != range[0] || patientsTo != range[1] || patientsFrom < 0 || patientsTo < 0) {
+                    throw new IllegalArgumentException("Invalid patient count: " + value);
+                }
+            } else {
+                double[] range = parseRange(value);
+                if (!(range[0] > 0) || !(range[1] > 0)) {
+                    throw new IllegalArgumentException("Rate multipliers must be positive: " + word);
+                }
+                multipliers.put(key, range);
+            }
+        }
+        if (duration <= 0) {
+            throw new IllegalArgumentException("Phase '" + name + "' needs a positive duration");
+        }
+        return new Phase(name, duration, patientsFrom, patientsTo, multipliers, burst);
+    }
+
+    private static double[] parseRange(String value) {
+        try {
+            int ramp = value.indexOf(RAMP);
+            if (ramp < 0) {
+                double single = Double.parseDouble(value);
+                return new double[] {single, single};
+            }
+            return new double[] {Double.parseDouble(value.substring(0, ramp)),
+                Double.parseDouble(value.substring(ramp + RAMP.length()))};
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number or ramp: " + value);
+        }
+    }
+
+    /**
+     * Returns one worker's part of this profile when the load is split over
+     * several simulator processes: the same phases and rates, with each patient
+     * count divided as evenly as possible between the workers.
+     *
+     * @param worker  the worker's index, from 0
+     * @param workers the number of workers
+     * @return the worker's profile
+     */
+    public LoadProfile partition(int worker, int workers) {
+        List<Phase> parts = new ArrayList<>();
+        for (Phase phase : phases) {
+            parts.add(new Phase(phase.name, phase.durationMillis, share(phase.patientsFrom, worker, workers),
+                    share(phase.patientsTo, worker, workers), phase.multipliers, phase.burst));
+        }
+        return new LoadProfile(parts);
+    }
+
+    /**
+     * Returns a worker's even share of a number of patients; the first workers
+     * get one more when it does not divide evenly.
+     *
+     * @param patients the total number of patients
+     * @param worker   the worker's index, from 0
+     * @param workers  the number of workers
+     * @return the worker's number of patients
+     */
+    public static int share(int patients, int worker, int workers) {
+        return patients / workers + (worker < patients % workers ? 1 : 0);
+    }
+
+    /**
+     * Writes the profile back in the file format, with every phase's patient
+     * count given explicitly.
+     *
+     * @return the profile's lines
+     */
+    public List<String> toLines() {
+        List<String> lines = new ArrayList<>();
+        for (Phase phase : phases) {
+            StringBuilder line = new StringBuilder("phase ").append(phase.name)
+                    .append(" duration=").append(Durations.format(phase.durationMillis))
+                    .append(" patients=").append(phase.patientsFrom);
+            if (phase.patientsTo != phase.patientsFrom) {
+                line.append(RAMP).append(phase.patientsTo);
+            }
+            for (Map.Entry<String, double[]> multiplier : phase.multipliers.entrySet()) {
+                double[] range = multiplier.getValue();
+                line.append(' ').append(multiplier.getKey()).append('=').append(range[0]);
+                if (range[1] != range[0]) {
+                    line.append(RAMP).append(range[1]);
+                }
+            }
+            if (phase.burst) {
+                line.append(" burst");
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * Returns the highest patient count of any phase.
+     */
+    public int getMaxPatients() {
+        int max = 0;
+        for (Phase phase : phases) {
+            max = Math.max(max, Math.max(phase.patientsFrom, phase.patientsTo));
+        }
+        return max;
+    }
+
+    /**
+     * Returns the phases in order.
+     */
+    public List<Phase> getPhases() {
+        return phases;
+    }
+
+    /**
+     * Returns the total duration of all phases.
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Returns the patient count the profile starts with.
+     */
+    public int getInitialPatients() {
+        return phases.get(0).patientsFrom;
+    }
+
+    /**
+     * Returns the index of the phase running at a time since the start, or -1
+     * once the profile has ended.
+     *
+     * @param offsetMillis the time since the start of the profile
+     */
+    public int phaseIndexAt(long offsetMillis) {
+        long phaseStart = 0;
+        for (int i = 0; i < phases.size(); i++) {
+            phaseStart += phases.get(i).durationMillis;
+            if (offsetMillis < phaseStart) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the start of a phase, as the time since the start of the profile.
+     *
+     * @param index the phase's index
+     */
+    public long phaseStartMillis(int index) {
+        long phaseStart = 0;
+        for (int i = 0; i < index; i++) {
+            phaseStart += phases.get(i).durationMillis;
+        }
+        return phaseStart;
+    }
+
+    /**
+     * One phase of a profile.
+     */
+    public static final class Phase {
+        private final String name;
+        private final long durationMillis;
+        private final int patientsFrom;
+        private final int patientsTo;
+        private final Map<String, double[]> multipliers;
+        private final boolean burst;
+
+        Phase(String name, long durationMillis, int patientsFrom, int patientsTo, Map<String, double[]> multipliers,
+                boolean burst) {
+            this.name = name;
+            this.durationMillis = durationMillis;
+            this.patientsFrom = patientsFrom;
+            this.patientsTo = patientsTo;
+            this.multipliers = multipliers;
+            this.burst = burst;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public boolean isBurst() {
+            return burst;
+        }
+
+        /**
+         * Returns the metrics this phase sets a multiplier for.
+         */
+        public Iterable<String> getMetrics() {
+            return multipliers.keySet();
+        }
+
+        /**
+         * Returns the patient count at a time within the phase, ramping linearly.
+         *
+         * @param offsetMillis the time since the start of the phase
+         */
+        public int patientsAt(long offsetMillis) {
+            return (int) Math.round(interpolate(patientsFrom, patientsTo, offsetMillis));
+        }
+
+        /**
+         * Returns a metric's rate multiplier at a time within the phase, ramping
+         * linearly; metrics the phase does not mention run at 1.
+         *
+         * @param metric       the metric's name
+         * @param offsetMillis the time since the start of the phase
+         */
+        public double multiplierAt(String metric, long offsetMillis) {
+            double[] range = multipliers.get(metric);
+            return range == null ? 1.0 : interpolate(range[0], range[1], offsetMillis);
+        }
+
+        private double interpolate(double from, double to, long offsetMillis) {
+            double fraction = Math.min(1.0, Math.max(0.0, (double) offsetMillis / durationMillis));
+            return from + (to - from) * fraction;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.cardio_generator;
+
+import java.util.Map;
+
+/**
+ * Applies a {@link LoadProfile} to running schedules. The scheduler calls it
+ * between rounds of ticks; it sets every schedule's patient count and rate for
+ * the current point in the profile, and fires all buckets at once when a burst
+ * phase starts. Once the profile has ended the last values stay in effect.
+ */
+public class LoadProfileRunner implements TickScheduler.TickListener {
+    private final LoadProfile profile;
+    private final TickScheduler scheduler;
+    private final Map<String, TickScheduler.Schedule> schedules;
+    private final long startMillis;
+    private int phaseIndex = -1;
+
+    /**
+     * Creates a runner for a profile that starts at the given time.
+     *
+     * @param profile     the profile to run
+     * @param scheduler   the scheduler the schedules belong to
+     * @param schedules   the schedules, by the metric names used in the profile
+     * @param startMillis the clock time the profile starts at
+     * @throws IllegalArgumentException if the profile names a metric with no schedule
+     */
+    public LoadProfileRunner(LoadProfile profile, TickScheduler scheduler,
+            Map<String, TickScheduler.Schedule> schedules, long startMillis) {
+        for (LoadProfile.Phase phase : profile.getPhases()) {
+            for (String metric : phase.getMetrics()) {
+                if (!schedules.containsKey(metric)) {
+                    throw new IllegalArgumentException("Phase '" + phase.getName() + "' sets unknown metric '"
+                            + metric + "'; expected one of " + schedules.keySet());
+                }
+            }
+        }
+        this.profile = profile;
+        this.scheduler = scheduler;
+        this.schedules = schedules;
+        this.startMillis = startMillis;
+    }
+
+    /**
+     * Returns the index of the current phase, or -1 before the first tick and
+     * after the end.
+     */
+    public int getPhaseIndex() {
+        return phaseIndex;
+    }
+
+    @Override
+    public void beforeTick(long timeMillis) {
+        long offset = timeMillis - startMillis;
+        int index = profile.phaseIndexAt(offset);
+        if (index < 0) {
+            if (phaseIndex >= 0) {
+                System.out.println("Load profile finished; keeping the last phase's load.");
+                phaseIndex = -1;
+            }
+            return;
+        }
+        LoadProfile.Phase phase = profile.getPhases().get(index);
+        long phaseOffset = offset - profile.phaseStartMillis(index);
+        boolean started = index != phaseIndex;
+        phaseIndex = index;
+
+        int patients = phase.patientsAt(phaseOffset);
+        for (Map.Entry<String, TickScheduler.Schedule> entry : schedules.entrySet()) {
+            TickScheduler.Schedule schedule = entry.getValue();
+            if (schedule.getPatientCount() != patients) {
+                schedule.setPatientCount(patients);
+            }
+            schedule.setRateMultiplier(phase.multiplierAt(entry.getKey(), phaseOffset));
+        }
+        if (started) {
+            System.out.printf("Load profile: phase '%s' (%d of %d) for %s, %d patients%s%n", phase.getName(),
+                    index + 1, profile.getPhases().size(), Durations.format(phase.getDurationMillis()), patients,
+                    phase.isBurst() ? ", burst" : "");
+            if (phase.isBurst()) {
+                scheduler.fireAll(timeMillis);
+            }
+        }
+    }
+}
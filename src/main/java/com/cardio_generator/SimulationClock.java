@@ -0,0 +1,23 @@
+package com.cardio_generator;
+
+/**
+ * The source of time for a simulation. Samples are stamped with this clock's
+ * time, and the scheduler waits on it between ticks.
+ */
+public interface SimulationClock {
+
+    /**
+     * Returns the current simulated time.
+     *
+     * @return the time in milliseconds since epoch
+     */
+    long currentTimeMillis();
+
+    /**
+     * Returns once the clock has reached the given time.
+     *
+     * @param timeMillis the time to wait for, in milliseconds since epoch
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void sleepUntil(long timeMillis) throws InterruptedException;
+}
@@ -0,0 +1,297 @@
+package com.cardio_generator;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Runs one simulation spread over several simulator processes, on this host or
+ * others.
+ *
+ * <p>The coordinator waits for the given number of {@link SimulationWorker}s to
+ * connect, then gives each a disjoint range of patient IDs, an even share of
+ * the patients and of any load profile, its own seed, and one common start
+ * time. Real-time workers start at the same wall-clock moment and virtual-time
+ * workers at the same simulated moment, so profile phases change at the same
+ * time everywhere. While the workers run, the coordinator combines their
+ * statistics into one report.
+ */
+public class SimulationCoordinator implements Closeable {
+    public static final long DEFAULT_REPORT_INTERVAL_MILLIS = 10_000;
+    // Time for every worker to receive its assignment before a real-time start
+    private static final long START_DELAY_MILLIS = 2000;
+
+    private final ServerSocket serverSocket;
+    private final int workerCount;
+    private final long reportIntervalMillis;
+    private final List<WorkerStatus> workers = new ArrayList<>();
+
+    /**
+     * Opens the coordinator's port.
+     *
+     * @param port                 the port workers connect to, or 0 for any free port
+     * @param workerCount          the number of workers to wait for
+     * @param reportIntervalMillis how often to print the combined statistics
+     * @throws IOException if the port cannot be opened
+     */
+    public SimulationCoordinator(int port, int workerCount, long reportIntervalMillis) throws IOException {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Worker count must be positive");
+        }
+        this.serverSocket = new ServerSocket(port);
+        this.workerCount = workerCount;
+        this.reportIntervalMillis = reportIntervalMillis;
+    }
+
+    /**
+     * Returns the port workers connect to.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the workers' statistics, once they have connected.
+     */
+    public synchronized List<WorkerStatus> getWorkers() {
+        return Collections.unmodifiableList(new ArrayList<>(workers));
+    }
+
+    /**
+     * Returns the number of samples all workers have generated.
+     */
+    public long getTotalSamples() {
+        long total = 0;
+        for (WorkerStatus worker : getWorkers()) {
+            total += worker.samples;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the largest scheduling lag any worker has reported.
+     */
+    public long getMaxLagMillis() {
+        long max = 0;
+        for (WorkerStatus worker : getWorkers()) {
+            max = Math.max(max, worker.maxLagMillis);
+        }
+        return max;
+    }
+
+    /**
+     * Waits for the workers, starts them and reports on them until every worker
+     * has finished or disconnected.
+     *
+     * @param patientCount   the total number of patients, used when there is no profile
+     * @param profile        the load profile for all workers together, or null
+     * @param seed           the seed the workers' seeds are derived from, or null
+     * @param virtualTime    whether the workers run in virtual time
+     * @param startMillis    the virtual start time, or null for the current time
+     * @param durationMillis how long the workers run, or 0 until they are stopped
+     * @throws IOException          if accepting a worker fails
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public void run(int patientCount, LoadProfile profile, Long seed, boolean virtualTime, Long startMillis,
+            long durationMillis) throws IOException, InterruptedException {
+        System.out.println("Coordinator waiting for " + workerCount + " workers on port " + getPort() + ".");
+        List<Socket> sockets = new ArrayList<>();
+        while (sockets.size() < workerCount) {
+            Socket socket = serverSocket.accept();
+            socket.setTcpNoDelay(true);
+            sockets.add(socket);
+            System.out.println("Worker " + (sockets.size() - 1) + " connected from "
+                    + socket.getRemoteSocketAddress() + ".");
+        }
+
+        int initialPatients = profile != null ? profile.getInitialPatients() : patientCount;
+        int maxPatients = profile != null ? Math.max(profile.getMaxPatients(), initialPatients) : patientCount;
+        int rangeSize = (maxPatients + workerCount - 1) / workerCount;
+        long start = virtualTime
+                ? (startMillis != null ? startMillis : System.currentTimeMillis())
+                : System.currentTimeMillis() + START_DELAY_MILLIS;
+        SplittableRandom seeds = seed != null ? new SplittableRandom(seed) : null;
+        for (int i = 0; i < workerCount; i++) {
+            List<String> profileLines = profile != null
+                    ? profile.partition(i, workerCount).toLines()
+                    : Collections.emptyList();
+            WorkerAssignment assignment = new WorkerAssignment(i, workerCount, i * rangeSize,
+                    LoadProfile.share(initialPatients, i, workerCount), seeds != null ? seeds.nextLong() : null,
+                    profileLines, start, durationMillis, virtualTime);
+            WorkerStatus status = new WorkerStatus(i, i * rangeSize + 1, i * rangeSize + rangeSize);
+            synchronized (this) {
+                workers.add(status);
+            }
+            Socket socket = sockets.get(i);
+            assignment.writeTo(new PrintWriter(new OutputStreamWriter(socket.getOutputStream(),
+                    StandardCharsets.UTF_8)));
+            Thread reader = new Thread(() -> readStatistics(socket, status), "coordinator-worker-" + i);
+            reader.setDaemon(true);
+            reader.start();
+        }
+        System.out.println("Started " + workerCount + " workers with up to " + rangeSize + " patients each.");
+        report(System.nanoTime());
+    }
+
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.err.println("Error closing the coordinator port: " + e.getMessage());
+        }
+    }
+
+    private void readStatistics(Socket socket, WorkerStatus status) {
+        try (Socket connection = socket;
+                BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                        StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] words = line.split(" ");
+                if (words.length != 5 || !(words[0].equals("stats") || words[0].equals("done"))) {
+                    System.err.println("Unexpected line from worker " + status.index + ": " + line);
+                    continue;
+                }
+                status.update(Long.parseLong(words[1]), Long.parseLong(words[2]), Long.parseLong(words[3]),
+                        Long.parseLong(words[4]));
+                if (words[0].equals("done")) {
+                    status.done = true;
+                    break;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Lost worker " + status.index + ": " + e.getMessage());
+        } finally {
+            status.connected = false;
+        }
+    }
+
+    private void report(long startNanos) throws InterruptedException {
+        long[] lastSamples = new long[workerCount];
+        long lastReport = System.nanoTime();
+        boolean running = true;
+        while (running) {
+            long deadline = System.currentTimeMillis() + reportIntervalMillis;
+            running = false;
+            while (System.currentTimeMillis() < deadline) {
+                running = anyConnected();
+                if (!running) {
+                    break;
+                }
+                Thread.sleep(Math.min(100, reportIntervalMillis));
+            }
+            long now = System.nanoTime();
+            double seconds = (now - lastReport) / 1e9;
+            lastReport = now;
+            List<WorkerStatus> statuses = getWorkers();
+            long total = 0;
+            double totalRate = 0;
+            StringBuilder lines = new StringBuilder();
+            for (WorkerStatus worker : statuses) {
+                long samples = worker.samples;
+                double rate = (samples - lastSamples[worker.index]) / seconds;
+                lastSamples[worker.index] = samples;
+                total += samples;
+                totalRate += rate;
+                lines.append(String.format("  worker %d (patients %d-%d): %,.0f samples/sec, max lag %d ms%s%n",
+                        worker.index, worker.firstPatient, worker.lastPatient, rate, worker.maxLagMillis,
+                        worker.done ? ", done" : worker.connected ? "" : ", disconnected"));
+            }
+            if (running) {
+                System.out.printf("Cluster: %d workers, %,.0f samples/sec, %,d samples, max lag %d ms%n%s",
+                        statuses.size(), totalRate, total, getMaxLagMillis(), lines);
+            }
+        }
+        double elapsed = (System.nanoTime() - startNanos) / 1e9;
+        long total = getTotalSamples();
+        System.out.printf("Cluster finished: %,d samples from %d workers in %.1f seconds (%,.0f samples/sec),"
+                + " max lag %d ms%n", total, workerCount, elapsed, total / elapsed, getMaxLagMillis());
+    }
+
+    private boolean anyConnected() {
+        for (WorkerStatus worker : getWorkers()) {
+            if (worker.connected) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The latest statistics of one worker.
+     */
+    public static final class WorkerStatus {
+        private final int index;
+        private final int firstPatient;
+        private final int lastPatient;
+        private volatile long samples;
+        private volatile long ticks;
+        private volatile long maxLagMillis;
+        private volatile long clockMillis;
+        private volatile boolean connected = true;
+        private volatile boolean done;
+
+        WorkerStatus(int index, int firstPatient, int lastPatient) {
+            this.index = index;
+            this.firstPatient = firstPatient;
+            this.lastPatient = lastPatient;
+        }
+
+        void update(long samples, long ticks, long maxLagMillis, long clockMillis) {
+            this.samples = samples;
+            this.ticks = ticks;
+            this.maxLagMillis = maxLagMillis;
+            this.clockMillis = clockMillis;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getFirstPatient() {
+            return firstPatient;
+        }
+
+        public int getLastPatient() {
+            return lastPatient;
+        }
+
+        public long getSamples() {
+            return samples;
+        }
+
+        public long getTicks() {
+            return ticks;
+        }
+
+        public long getMaxLagMillis() {
+            return maxLagMillis;
+        }
+
+        /**
+         * Returns the worker's clock time at its last report.
+         */
+        public long getClockMillis() {
+            return clockMillis;
+        }
+
+        public boolean isDone() {
+            return done;
+        }
+
+        public boolean isConnected() {
+            return connected;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.cardio_generator;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The worker side of a coordinated multi-process simulation. It connects to a
+ * {@link SimulationCoordinator}, receives its {@link WorkerAssignment}, and
+ * while its simulation runs sends the coordinator a statistics line every
+ * second:
+ * <pre>
+ * stats &lt;samples&gt; &lt;ticks&gt; &lt;max lag millis&gt; &lt;clock millis&gt;
+ * </pre>
+ * When the simulation ends it sends the final numbers as a {@code done} line
+ * with the same fields.
+ */
+public class SimulationWorker implements Closeable {
+    public static final long STATS_INTERVAL_MILLIS = 1000;
+
+    private final Socket socket;
+    private final BufferedReader in;
+    private final PrintWriter out;
+    private Thread reporter;
+
+    /**
+     * Connects to the coordinator.
+     *
+     * @param host the coordinator's host
+     * @param port the coordinator's port
+     * @throws IOException if the connection fails
+     */
+    public SimulationWorker(String host, int port) throws IOException {
+        socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Waits until the coordinator has assigned work, which it does once every
+     * worker has connected.
+     *
+     * @return the assignment
+     * @throws IOException if the connection fails
+     */
+    public WorkerAssignment awaitAssignment() throws IOException {
+        return WorkerAssignment.readFrom(in);
+    }
+
+    /**
+     * Starts sending the scheduler's statistics every second.
+     *
+     * @param scheduler the running simulation's scheduler
+     */
+    public synchronized void startReporting(TickScheduler scheduler) {
+        reporter = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Thread.sleep(STATS_INTERVAL_MILLIS);
+                    send("stats", scheduler);
+                }
+            } catch (InterruptedException e) {
+                // Finished
+            }
+        }, "simulation-worker-stats");
+        reporter.setDaemon(true);
+        reporter.start();
+    }
+
+    /**
+     * Stops the statistics, sends the final numbers and disconnects.
+     *
+     * @param scheduler the finished simulation's scheduler
+     */
+    public void finish(TickScheduler scheduler) {
+        synchronized (this) {
+            if (reporter != null) {
+                reporter.interrupt();
+            }
+        }
+        send("done", scheduler);
+        close();
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            System.err.println("Error closing the coordinator connection: " + e.getMessage());
+        }
+    }
+
+    private void send(String kind, TickScheduler scheduler) {
+        synchronized (out) {
+            out.println(kind + " " + scheduler.getSamples() + " " + scheduler.getTicks() + " "
+                    + scheduler.getMaxLagMillis() + " " + scheduler.getClock().currentTimeMillis());
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.cardio_generator;
+
+/**
+ * Clock that follows the wall clock, so data is generated in real time.
+ */
+public final class SystemClock implements SimulationClock {
+    /**
+     * The shared instance.
+     */
+    public static final SystemClock INSTANCE = new SystemClock();
+
+    private SystemClock() {
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void sleepUntil(long timeMillis) throws InterruptedException {
+        long remaining = timeMillis - System.currentTimeMillis();
+        if (remaining > 0) {
+            Thread.sleep(remaining);
+        }
+    }
+}
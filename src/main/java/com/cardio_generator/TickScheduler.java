@@ -0,0 +1,424 @@
+package com.cardio_generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import com.cardio_generator.generators.PatientDataGenerator;
+import com.cardio_generator.outputs.OutputStrategy;
+import com.cardio_generator.outputs.SampleBatch;
+
+/**
+ * Runs patient data generators on a fixed number of threads, no matter how many
+ * patients are simulated.
+ *
+ * <p>Each scheduled generator is split into buckets of up to {@code shardSize}
+ * patients that share a period and a due time. A single driver thread waits for
+ * the earliest due time, then hands every due bucket to the worker pool at once.
+ * A bucket generates one tick for all of its patients into its own
+ * {@link SampleBatch} and passes that to the output strategy in one call. The
+ * driver waits for the tick to finish before it schedules the buckets' next runs,
+ * so a bucket never runs concurrently with itself and owns its patients' state
+ * for the duration of a run.
+ *
+ * <p>Like {@code scheduleAtFixedRate}, a bucket that falls behind runs again
+ * immediately until it has caught up.
+ *
+ * <p>Time comes from a {@link SimulationClock}. With a {@link VirtualClock} the
+ * driver does not wait between ticks, so data is generated as fast as the
+ * workers and outputs allow while each generator keeps its period in simulated
+ * time.
+ *
+ * <p>Each scheduled generator has a {@link Schedule} whose patient count and rate
+ * can change while the simulation runs. Changes are made from a
+ * {@link TickListener}, which the driver calls between rounds of ticks, when no
+ * bucket is running.
+ */
+public class TickScheduler {
+    public static final int DEFAULT_SHARD_SIZE = 1024;
+
+    /**
+     * Called by the driver thread before it looks for due buckets, at least once
+     * a second of clock time. No bucket runs while it is called, so it may change
+     * schedules and generators.
+     */
+    public interface TickListener {
+        /**
+         * @param timeMillis the current clock time
+         */
+        void beforeTick(long timeMillis);
+    }
+
+    private final OutputStrategy outputStrategy;
+    private final SimulationClock clock;
+    private final int shardSize;
+    private final ExecutorService workers;
+    private final PriorityQueue<Bucket> buckets =
+            new PriorityQueue<>((a, b) -> Long.compare(a.nextDue, b.nextDue));
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private final Thread driver;
+    private volatile boolean running;
+    private volatile long maxLagMillis;
+    private long endTimeMillis = Long.MAX_VALUE;
+    private TickListener listener;
+
+    /**
+     * Creates a real-time scheduler with its worker pool. Nothing runs until {@link #start()}.
+     *
+     * @param outputStrategy the output every generated batch is passed to
+     * @param workerCount    the number of threads generating data
+     * @param shardSize      the largest number of patients generated in one pass
+     */
+    public TickScheduler(OutputStrategy outputStrategy, int workerCount, int shardSize) {
+        this(outputStrategy, SystemClock.INSTANCE, workerCount, shardSize);
+    }
+
+    /**
+     * Creates a scheduler with its worker pool. Nothing runs until {@link #start()}.
+     *
+     * @param outputStrategy the output every generated batch is passed to
+     * @param clock          the clock that times the ticks and stamps the samples
+     * @param workerCount    the number of threads generating data
+     * @param shardSize      the largest number of patients generated in one pass
+     */
+    public TickScheduler(OutputStrategy outputStrategy, SimulationClock clock, int workerCount, int shardSize) {
+        if (workerCount < 1 || shardSize < 1) {
+            throw new IllegalArgumentException("Worker count and shard size must be positive");
+        }
+        this.outputStrategy = outputStrategy;
+        this.clock = clock;
+        this.shardSize = shardSize;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "simulator-worker-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.driver = new Thread(this::drive, "simulator-driver");
+        this.driver.setDaemon(true);
+    }
+
+    /**
+     * Schedules a generator for a list of patients. The patients are split into
+     * buckets in list order; each bucket first runs after its own initial delay.
+     *
+     * @param generator     the generator to run
+     * @param patientIds    the patients to generate data for
+     * @param periodMillis  the time between runs of each bucket
+     * @param initialDelays supplies each bucket's first delay, in milliseconds
+     * @return the schedule, to change its patients and rate later
+     */
+    public synchronized Schedule schedule(PatientDataGenerator generator, List<Integer> patientIds,
+            long periodMillis, LongSupplier initialDelays) {
+        if (running) {
+            throw new IllegalStateException("Generators must be scheduled before the scheduler starts");
+        }
+        Schedule schedule = new Schedule(generator, periodMillis, initialDelays);
+        schedule.addBuckets(patientIds, clock.currentTimeMillis());
+        return schedule;
+    }
+
+    /**
+     * Sets the listener the driver calls before each round of ticks.
+     *
+     * @param listener the listener, or null for none
+     */
+    public synchronized void setTickListener(TickListener listener) {
+        if (running) {
+            throw new IllegalStateException("The listener must be set before the scheduler starts");
+        }
+        this.listener = listener;
+    }
+
+    /**
+     * Makes every bucket of every schedule due at the given time, so all patients
+     * produce data at once. Call this from a {@link TickListener}.
+     *
+     * @param timeMillis the time to run every bucket at
+     */
+    public synchronized void fireAll(long timeMillis) {
+        List<Bucket> all = new ArrayList<>(buckets);
+        buckets.clear();
+        for (Bucket bucket : all) {
+            bucket.nextDue = timeMillis;
+        }
+        buckets.addAll(all);
+    }
+
+    /**
+     * Starts the driver thread. Ticks run until {@link #shutdown}.
+     */
+    public synchronized void start() {
+        start(Long.MAX_VALUE);
+    }
+
+    /**
+     * Starts the driver thread. Ticks run until the clock reaches the end time,
+     * or until {@link #shutdown}; the last tick is the last one due before the
+     * end time.
+     *
+     * @param endTimeMillis the time to stop at, in milliseconds since epoch
+     */
+    public synchronized void start(long endTimeMillis) {
+        this.endTimeMillis = endTimeMillis;
+        running = true;
+        driver.start();
+    }
+
+    /**
+     * Waits until the end time given to {@link #start(long)} has been reached
+     * and every tick before it has run.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitEnd() throws InterruptedException {
+        driver.join();
+    }
+
+    /**
+     * Returns the clock the scheduler runs on.
+     */
+    public SimulationClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Stops scheduling new ticks, waits up to the given time for running ticks to
+     * finish, and stops the worker pool.
+     *
+     * @param timeout the longest time to wait
+     * @param unit    the unit of the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        running = false;
+        driver.interrupt();
+        driver.join(unit.toMillis(timeout));
+        workers.shutdown();
+        workers.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Returns the number of bucket runs so far.
+     */
+    public long getTicks() {
+        return ticks.sum();
+    }
+
+    /**
+     * Returns the number of samples generated so far.
+     */
+    public long getSamples() {
+        return samples.sum();
+    }
+
+    /**
+     * Returns the number of buckets.
+     */
+    public synchronized int getBucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * Returns the largest delay seen between a bucket's due time and the start of
+     * its tick, which shows whether the workers keep up.
+     */
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    private void drive() {
+        List<Bucket> due = new ArrayList<>();
+        try {
+            while (running) {
+                long now = clock.currentTimeMillis();
+                if (listener != null) {
+                    listener.beforeTick(now);
+                }
+                long nextDue;
+                synchronized (this) {
+                    nextDue = buckets.isEmpty() ? Long.MAX_VALUE : buckets.peek().nextDue;
+                    if (nextDue >= endTimeMillis) {
+                        return;
+                    }
+                    if (nextDue <= now) {
+                        while (!buckets.isEmpty() && buckets.peek().nextDue <= now) {
+                            due.add(buckets.poll());
+                        }
+                    }
+                }
+                if (due.isEmpty()) {
+                    clock.sleepUntil(Math.min(nextDue, now + 1000));
+                    continue;
+                }
+
+                long lag = now - due.get(0).nextDue;
+                if (lag > maxLagMillis) {
+                    maxLagMillis = lag;
+                }
+                for (Future<Void> result : workers.invokeAll(due)) {
+                    try {
+                        result.get();
+                    } catch (ExecutionException e) {
+                        System.err.println("Error in simulator tick: " + e.getCause());
+                        e.getCause().printStackTrace();
+                    }
+                }
+                ticks.add(due.size());
+                synchronized (this) {
+                    for (Bucket bucket : due) {
+                        bucket.nextDue += bucket.schedule.periodMillis;
+                        buckets.add(bucket);
+                    }
+                }
+                due.clear();
+            }
+        } catch (InterruptedException e) {
+            // Stopped
+        }
+    }
+
+    /**
+     * One scheduled generator: its patients, split into buckets, and its period.
+     *
+     * <p>Patients are identified by ID; only patients with IDs up to the patient
+     * count are generated. Change a running schedule only from a
+     * {@link TickListener}.
+     */
+    public final class Schedule {
+        private final PatientDataGenerator generator;
+        private final long basePeriodMillis;
+        private final LongSupplier initialDelays;
+        private final List<Bucket> ownBuckets = new ArrayList<>();
+        private volatile long periodMillis;
+        private volatile int patientCount; // Patients with higher IDs are skipped
+        private int scheduledPatients; // Highest patient ID that has a bucket
+
+        private Schedule(PatientDataGenerator generator, long periodMillis, LongSupplier initialDelays) {
+            this.generator = generator;
+            this.basePeriodMillis = periodMillis;
+            this.periodMillis = periodMillis;
+            this.initialDelays = initialDelays;
+        }
+
+        /**
+         * Returns the number of patients generated.
+         */
+        public int getPatientCount() {
+            return patientCount;
+        }
+
+        /**
+         * Returns the current time between runs of each bucket.
+         */
+        public long getPeriodMillis() {
+            return periodMillis;
+        }
+
+        /**
+         * Sets the number of patients to generate, as patient IDs 1 to the count.
+         * Patients beyond the scheduled ones are added to the generator and get new
+         * buckets, which first run after the schedule's usual initial delay;
+         * lowering the count pauses the patients above it.
+         *
+         * @param count the number of patients
+         */
+        public void setPatientCount(int count) {
+            synchronized (TickScheduler.this) {
+                if (count > scheduledPatients) {
+                    generator.addPatients(count);
+                    List<Integer> added = new ArrayList<>();
+                    for (int id = scheduledPatients + 1; id <= count; id++) {
+                        added.add(id);
+                    }
+                    addBuckets(added, clock.currentTimeMillis());
+                }
+                patientCount = count;
+            }
+        }
+
+        /**
+         * Runs the schedule this many times as often as it was scheduled. Buckets
+         * that would now be due sooner than planned are moved forward.
+         *
+         * @param multiplier the rate relative to the scheduled period; must be positive
+         */
+        public void setRateMultiplier(double multiplier) {
+            if (!(multiplier > 0)) {
+                throw new IllegalArgumentException("Rate multiplier must be positive: " + multiplier);
+            }
+            long period = Math.max(1, Math.round(basePeriodMillis / multiplier));
+            synchronized (TickScheduler.this) {
+                if (period == periodMillis) {
+                    return;
+                }
+                periodMillis = period;
+                long latest = clock.currentTimeMillis() + period;
+                for (Bucket bucket : ownBuckets) {
+                    if (bucket.nextDue > latest) {
+                        buckets.remove(bucket);
+                        bucket.nextDue = latest;
+                        buckets.add(bucket);
+                    }
+                }
+            }
+        }
+
+        private void addBuckets(List<Integer> patientIds, long now) {
+            for (int from = 0; from < patientIds.size(); from += shardSize) {
+                List<Integer> shard = patientIds.subList(from, Math.min(from + shardSize, patientIds.size()));
+                int[] ids = shard.stream().mapToInt(Integer::intValue).toArray();
+                Bucket bucket = new Bucket(this, ids, now + initialDelays.getAsLong());
+                ownBuckets.add(bucket);
+                buckets.add(bucket);
+                for (int id : ids) {
+                    scheduledPatients = Math.max(scheduledPatients, id);
+                }
+            }
+            patientCount = scheduledPatients;
+        }
+    }
+
+    /**
+     * A shard of one schedule's patients that always run together.
+     */
+    private final class Bucket implements Callable<Void> {
+        private final Schedule schedule;
+        private final int[] patientIds;
+        private final SampleBatch batch;
+        private long nextDue;
+
+        Bucket(Schedule schedule, int[] patientIds, long firstDue) {
+            this.schedule = schedule;
+            this.patientIds = patientIds;
+            this.nextDue = firstDue;
+            this.batch = new SampleBatch(patientIds.length);
+        }
+
+        @Override
+        public Void call() {
+            batch.clear();
+            int patientCount = schedule.patientCount;
+            for (int patientId : patientIds) {
+                if (patientId <= patientCount) {
+                    schedule.generator.generate(patientId, nextDue, batch);
+                }
+            }
+            if (!batch.isEmpty()) {
+                outputStrategy.outputBatch(batch);
+                samples.add(batch.size());
+            }
+            return null;
+        }
+    }
+}
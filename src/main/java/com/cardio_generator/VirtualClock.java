@@ -0,0 +1,39 @@
+package com.cardio_generator;
+
+/**
+ * Clock that jumps straight to whatever time it is asked to wait for.
+ *
+ * <p>With this clock the scheduler runs each tick as soon as the previous one
+ * has been handed to the outputs, so data is generated as fast as the outputs
+ * accept it. The ticks keep their spacing in simulated time, and a run from a
+ * fixed start time with seeded generators produces the same data every time.
+ */
+public final class VirtualClock implements SimulationClock {
+    private volatile long timeMillis; // Only moved by the thread that waits on the clock
+
+    /**
+     * Creates a clock that starts at the given time.
+     *
+     * @param startMillis the start time, in milliseconds since epoch
+     */
+    public VirtualClock(long startMillis) {
+        this.timeMillis = startMillis;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Moves the clock forward to the given time, if it is not already past it.
+     *
+     * @param timeMillis the time to move to
+     */
+    @Override
+    public void sleepUntil(long timeMillis) {
+        if (timeMillis > this.timeMillis) {
+            this.timeMillis = timeMillis;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.cardio_generator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What a {@link SimulationCoordinator} tells one simulator worker to run: the
+ * worker's patient ID range, seed and load profile share, and the common start
+ * time and duration.
+ *
+ * <p>It is sent as text lines, ending with the {@code start} line:
+ * <pre>
+ * assign &lt;index&gt; &lt;workers&gt; &lt;patient offset&gt; &lt;patients&gt;
+ * seed &lt;seed&gt;                  (optional)
+ * profile &lt;profile line&gt;        (one per phase, optional)
+ * start &lt;start millis&gt; &lt;duration millis&gt; &lt;virtual|real&gt;
+ * </pre>
+ */
+public final class WorkerAssignment {
+    private final int index;
+    private final int workerCount;
+    private final int patientOffset;
+    private final int patientCount;
+    private final Long seed;
+    private final List<String> profileLines;
+    private final long startMillis;
+    private final long durationMillis;
+    private final boolean virtualTime;
+
+    /**
+     * Creates an assignment.
+     *
+     * @param index          the worker's index, from 0
+     * @param workerCount    the number of workers
+     * @param patientOffset  added to the worker's local patient IDs 1 to n to get global IDs
+     * @param patientCount   the worker's number of patients at the start
+     * @param seed           the worker's seed, or null for unseeded data
+     * @param profileLines   the worker's load profile, or an empty list for none
+     * @param startMillis    the time every worker starts at
+     * @param durationMillis how long to run, or 0 to run until stopped
+     * @param virtualTime    whether to run in virtual time
+     */
+    public WorkerAssignment(int index, int workerCount, int patientOffset, int patientCount, Long seed,
+            List<String> profileLines, long startMillis, long durationMillis, boolean virtualTime) {
+        this.index = index;
+        this.workerCount = workerCount;
+        this.patientOffset = patientOffset;
+        this.patientCount = patientCount;
+        this.seed = seed;
+        this.profileLines = Collections.unmodifiableList(new ArrayList<>(profileLines));
+        this.startMillis = startMillis;
+        this.durationMillis = durationMillis;
+        this.virtualTime = virtualTime;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public int getPatientOffset() {
+        return patientOffset;
+    }
+
+    public int getPatientCount() {
+        return patientCount;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public List<String> getProfileLines() {
+        return profileLines;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public boolean isVirtualTime() {
+        return virtualTime;
+    }
+
+    /**
+     * Writes the assignment as protocol lines.
+     *
+     * @param out the worker's connection
+     */
+    void writeTo(PrintWriter out) {
+        out.println("assign " + index + " " + workerCount + " " + patientOffset + " " + patientCount);
+        if (seed != null) {
+            out.println("seed " + seed);
+        }
+        for (String line : profileLines) {
+            out.println("profile " + line);
+        }
+        out.println("start " + startMillis + " " + durationMillis + " " + (virtualTime ? "virtual" : "real"));
+        out.flush();
+    }
+
+    /**
+     * Reads an assignment written by {@link #writeTo}.
+     *
+     * @param in the connection to the coordinator
+     * @return the assignment
+     * @throws IOException if the connection fails or the lines are not an assignment
+     */
+    static WorkerAssignment readFrom(BufferedReader in) throws IOException {
+        int[] assign = null;
+        Long seed = null;
+        List<String> profileLines = new ArrayList<>();
+        String line;
+        while ((line = in.readLine()) != null) {
+            try {
+                if (line.startsWith("assign ")) {
+                    String[] words = line.split(" ");
+                    assign = new int[] {Integer.parseInt(words[1]), Integer.parseInt(words[2]),
+                        Integer.parseInt(words[3]), Integer.parseInt(words[4])};
+                } else if (line.startsWith("seed ")) {
+                    seed = Long.parseLong(line.substring(5));
+                } else if (line.startsWith("profile ")) {
+                    profileLines.add(line.substring(8));
+                } else if (line.startsWith("start ") && assign != null) {
+                    String[] words = line.split(" ");
+                    return new WorkerAssignment(assign[0], assign[1], assign[2], assign[3], seed, profileLines,
+                            Long.parseLong(words[1]), Long.parseLong(words[2]), words[3].equals("virtual"));
+                } else {
+                    throw new IOException("Unexpected line from coordinator: " + line);
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException("Invalid line from coordinator: " + line);
+            }
+        }
+        throw new IOException("Coordinator closed the connection before the start");
+    }
+}
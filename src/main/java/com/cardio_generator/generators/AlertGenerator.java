@@ -1,8 +1,11 @@
 package com.cardio_generator.generators;
 
-import java.util.Random;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
+import com.cardio_generator.outputs.MetricRegistry;
 import com.cardio_generator.outputs.OutputStrategy;
+import com.cardio_generator.outputs.SampleBatch;
 
 /**
  * AlertGenerator is responsible for generating alert data for patients.
@@ -19,9 +22,9 @@ import com.cardio_generator.outputs.OutputStrategy;
  */
 public class AlertGenerator implements PatientDataGenerator {
     /**
-     * A shared random number generator used for probabilistic alert simulation.
+     * The random streams used for probabilistic alert simulation, one per patient.
      */
-    public static final Random randomGenerator = new Random();
+    private final PatientRandoms randoms;
     /**
      * The array of alert states for each patient.
      * The index corresponds to the patient ID.
@@ -33,23 +36,53 @@ public class AlertGenerator implements PatientDataGenerator {
      * @param patientCount The number of patients to monitor for alerts.
      */
     public AlertGenerator(int patientCount) {
+        this(new PatientRandoms(patientCount), patientCount);
+    }
+
+    /**
+     * Constructs an AlertGenerator that produces the same alerts on every run with the same seed.
+     *
+     * @param patientCount The number of patients to monitor for alerts.
+     * @param seed         The seed of the patients' random streams.
+     */
+    public AlertGenerator(int patientCount, long seed) {
+        this(new PatientRandoms(patientCount, seed), patientCount);
+    }
+
+    private AlertGenerator(PatientRandoms randoms, int patientCount) {
+        this.randoms = randoms;
         AlertStates = new boolean[patientCount + 1];
     }
+
+    /**
+     * Adds patients up to the new count, with no alert raised.
+     *
+     * @param patientCount The new number of patients.
+     */
+    @Override
+    public void addPatients(int patientCount) {
+        if (patientCount + 1 > AlertStates.length) {
+            randoms.grow(patientCount);
+            AlertStates = Arrays.copyOf(AlertStates, patientCount + 1);
+        }
+    }
     /**
      * Generates alert data for a specific patient.
      * The alert state is determined based on a random probability.
      *
      * @param patientId The ID of the patient.
-     * @param outputStrategy The output strategy to use for sending the generated data.
+     * @param timestamp The time of the tick.
+     * @param batch     The batch to add the alert change to, if any.
      */
     @Override
-    public void generate(int patientId, OutputStrategy outputStrategy) {
+    public void generate(int patientId, long timestamp, SampleBatch batch) {
         try {
+            SplittableRandom randomGenerator = randoms.get(patientId);
             if (AlertStates[patientId]) {
                 if (randomGenerator.nextDouble() < 0.9) { // 90% chance to resolve
                     AlertStates[patientId] = false;
                     // Output the alert
-                    outputStrategy.output(patientId, System.currentTimeMillis(), "Alert", "resolved");
+                    batch.add(patientId, timestamp, MetricRegistry.ALERT, MetricRegistry.ALERT_RESOLVED);
                 }
             } else {
                 double Lambda = 0.1; // Average rate (alerts per period), adjust based on desired frequency
@@ -59,7 +92,7 @@ public class AlertGenerator implements PatientDataGenerator {
                 if (alertTriggered) {
                     AlertStates[patientId] = true;
                     // Output the alert
-                    outputStrategy.output(patientId, System.currentTimeMillis(), "Alert", "triggered");
+                    batch.add(patientId, timestamp, MetricRegistry.ALERT, MetricRegistry.ALERT_TRIGGERED);
                 }
             }
         } catch (Exception e) {
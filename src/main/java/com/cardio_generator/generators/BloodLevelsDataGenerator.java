@@ -1,8 +1,11 @@
 package com.cardio_generator.generators;
 
-import java.util.Random;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
+import com.cardio_generator.outputs.MetricRegistry;
 import com.cardio_generator.outputs.OutputStrategy;
+import com.cardio_generator.outputs.SampleBatch;
 
 /**
  * BloodLevelsDataGenerator is responsible for generating blood levels data for patients.
@@ -12,23 +15,61 @@ import com.cardio_generator.outputs.OutputStrategy;
  * <p>Output data is sent via the configured {@link OutputStrategy}.
  */
 public class BloodLevelsDataGenerator implements PatientDataGenerator {
-    private static final Random random = new Random();
-    private final double[] baselineCholesterol;
-    private final double[] baselineWhiteCells;
-    private final double[] baselineRedCells;
+    private final PatientRandoms randoms;
+    private double[] baselineCholesterol;
+    private double[] baselineWhiteCells;
+    private double[] baselineRedCells;
     /**
      * Constructs a BloodLevelsDataGenerator with a specified number of patients.
      *
      * @param patientCount The number of patients to generate blood levels data for.
      */
     public BloodLevelsDataGenerator(int patientCount) {
+        this(new PatientRandoms(patientCount), patientCount);
+    }
+
+    /**
+     * Constructs a BloodLevelsDataGenerator that produces the same data on every run with the same seed.
+     *
+     * @param patientCount The number of patients to generate blood levels data for.
+     * @param seed         The seed of the patients' random streams.
+     */
+    public BloodLevelsDataGenerator(int patientCount, long seed) {
+        this(new PatientRandoms(patientCount, seed), patientCount);
+    }
+
+    private BloodLevelsDataGenerator(PatientRandoms randoms, int patientCount) {
+        this.randoms = randoms;
         // Initialize arrays to store baseline values for each patient
-        baselineCholesterol = new double[patientCount + 1];
-        baselineWhiteCells = new double[patientCount + 1];
-        baselineRedCells = new double[patientCount + 1];
+        baselineCholesterol = new double[1];
+        baselineWhiteCells = new double[1];
+        baselineRedCells = new double[1];
+        grow(patientCount);
+    }
+
+    /**
+     * Adds patients up to the new count, each with its own random baselines.
+     *
+     * @param patientCount The new number of patients.
+     */
+    @Override
+    public void addPatients(int patientCount) {
+        grow(patientCount);
+    }
+
+    private void grow(int patientCount) {
+        int first = baselineCholesterol.length;
+        if (patientCount < first) {
+            return;
+        }
+        randoms.grow(patientCount);
+        baselineCholesterol = Arrays.copyOf(baselineCholesterol, patientCount + 1);
+        baselineWhiteCells = Arrays.copyOf(baselineWhiteCells, patientCount + 1);
+        baselineRedCells = Arrays.copyOf(baselineRedCells, patientCount + 1);
 
-        // Generate baseline values for each patient
-        for (int i = 1; i <= patientCount; i++) {
+        // Generate baseline values for each new patient
+        for (int i = first; i <= patientCount; i++) {
+            SplittableRandom random = randoms.get(i);
             baselineCholesterol[i] = 150 + random.nextDouble() * 50; // Initial random baseline
             baselineWhiteCells[i] = 4 + random.nextDouble() * 6; // Initial random baseline
             baselineRedCells[i] = 4.5 + random.nextDouble() * 1.5; // Initial random baseline
@@ -39,21 +80,22 @@ public class BloodLevelsDataGenerator implements PatientDataGenerator {
      * The values are generated around the baseline with small variations for realism.
      *
      * @param patientId The ID of the patient.
-     * @param outputStrategy The output strategy to use for sending the generated data.
+     * @param timestamp The time of the tick.
+     * @param batch     The batch to add the three values to.
      */
     @Override
-    public void generate(int patientId, OutputStrategy outputStrategy) {
+    public void generate(int patientId, long timestamp, SampleBatch batch) {
         try {
+            SplittableRandom random = randoms.get(patientId);
             // Generate values around the baseline for realism
             double cholesterol = baselineCholesterol[patientId] + (random.nextDouble() - 0.5) * 10; // Small variation
             double whiteCells = baselineWhiteCells[patientId] + (random.nextDouble() - 0.5) * 1; // Small variation
             double redCells = baselineRedCells[patientId] + (random.nextDouble() - 0.5) * 0.2; // Small variation
 
             // Output the generated values
-            outputStrategy.output(patientId, System.currentTimeMillis(), "Cholesterol", Double.toString(cholesterol));
-            outputStrategy.output(patientId, System.currentTimeMillis(), "WhiteBloodCells",
-                    Double.toString(whiteCells));
-            outputStrategy.output(patientId, System.currentTimeMillis(), "RedBloodCells", Double.toString(redCells));
+            batch.add(patientId, timestamp, MetricRegistry.CHOLESTEROL, cholesterol);
+            batch.add(patientId, timestamp, MetricRegistry.WHITE_BLOOD_CELLS, whiteCells);
+            batch.add(patientId, timestamp, MetricRegistry.RED_BLOOD_CELLS, redCells);
         } catch (Exception e) {
             System.err.println("An error occurred while generating blood levels data for patient " + patientId);
             e.printStackTrace(); // This will print the stack trace to help identify where the error occurred.
@@ -1,8 +1,11 @@
 package com.cardio_generator.generators;
 
-import java.util.Random;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
+import com.cardio_generator.outputs.MetricRegistry;
 import com.cardio_generator.outputs.OutputStrategy;
+import com.cardio_generator.outputs.SampleBatch;
 /**
  * BloodPressureDataGenerator is responsible for generating blood pressure data for patients.
  * It simulates the generation of systolic and diastolic blood pressure values
@@ -11,7 +14,7 @@ import com.cardio_generator.outputs.OutputStrategy;
  * <p>Output data is sent via the configured {@link OutputStrategy}.
  */
 public class BloodPressureDataGenerator implements PatientDataGenerator {
-    private static final Random random = new Random();
+    private final PatientRandoms randoms;
 
     private int[] lastSystolicValues;
     private int[] lastDiastolicValues;
@@ -21,11 +24,48 @@ public class BloodPressureDataGenerator implements PatientDataGenerator {
      * @param patientCount The number of patients to generate blood pressure data for.
      */
     public BloodPressureDataGenerator(int patientCount) {
-        lastSystolicValues = new int[patientCount + 1];
-        lastDiastolicValues = new int[patientCount + 1];
+        this(new PatientRandoms(patientCount), patientCount);
+    }
+
+    /**
+     * Constructs a BloodPressureDataGenerator that produces the same data on every run with the same seed.
+     *
+     * @param patientCount The number of patients to generate blood pressure data for.
+     * @param seed         The seed of the patients' random streams.
+     */
+    public BloodPressureDataGenerator(int patientCount, long seed) {
+        this(new PatientRandoms(patientCount, seed), patientCount);
+    }
+
+    private BloodPressureDataGenerator(PatientRandoms randoms, int patientCount) {
+        this.randoms = randoms;
+        lastSystolicValues = new int[1];
+        lastDiastolicValues = new int[1];
+        grow(patientCount);
+    }
+
+    /**
+     * Adds patients up to the new count, each starting from its own random baseline.
+     *
+     * @param patientCount The new number of patients.
+     */
+    @Override
+    public void addPatients(int patientCount) {
+        grow(patientCount);
+    }
+
+    private void grow(int patientCount) {
+        int first = lastSystolicValues.length;
+        if (patientCount < first) {
+            return;
+        }
+        randoms.grow(patientCount);
+        lastSystolicValues = Arrays.copyOf(lastSystolicValues, patientCount + 1);
+        lastDiastolicValues = Arrays.copyOf(lastDiastolicValues, patientCount + 1);
 
-        // Initialize with baseline values for each patient
-        for (int i = 1; i <= patientCount; i++) {
+        // Initialize with baseline values for each new patient
+        for (int i = first; i <= patientCount; i++) {
+            SplittableRandom random = randoms.get(i);
             lastSystolicValues[i] = 110 + random.nextInt(20); // Random baseline between 110 and 130
             lastDiastolicValues[i] = 70 + random.nextInt(15); // Random baseline between 70 and 85
         }
@@ -35,11 +75,13 @@ public class BloodPressureDataGenerator implements PatientDataGenerator {
      * The values are generated around the last recorded values with small variations for realism.
      *
      * @param patientId The ID of the patient.
-     * @param outputStrategy The output strategy to use for sending the generated data.
+     * @param timestamp The time of the tick.
+     * @param batch     The batch to add the systolic and diastolic values to.
      */
     @Override
-    public void generate(int patientId, OutputStrategy outputStrategy) {
+    public void generate(int patientId, long timestamp, SampleBatch batch) {
         try {
+            SplittableRandom random = randoms.get(patientId);
             int systolicVariation = random.nextInt(5) - 2; // -2, -1, 0, 1, or 2
             int diastolicVariation = random.nextInt(5) - 2;
             int newSystolicValue = lastSystolicValues[patientId] + systolicVariation;
@@ -50,10 +92,8 @@ public class BloodPressureDataGenerator implements PatientDataGenerator {
             lastSystolicValues[patientId] = newSystolicValue;
             lastDiastolicValues[patientId] = newDiastolicValue;
 
-            outputStrategy.output(patientId, System.currentTimeMillis(), "SystolicPressure",
-                    Double.toString(newSystolicValue));
-            outputStrategy.output(patientId, System.currentTimeMillis(), "DiastolicPressure",
-                    Double.toString(newDiastolicValue));
+            batch.add(patientId, timestamp, MetricRegistry.SYSTOLIC_PRESSURE, newSystolicValue);
+            batch.add(patientId, timestamp, MetricRegistry.DIASTOLIC_PRESSURE, newDiastolicValue);
         } catch (Exception e) {
             System.err.println("An error occurred while generating blood pressure data for patient " + patientId);
             e.printStackTrace(); // This will print the stack trace to help identify where the error occurred.
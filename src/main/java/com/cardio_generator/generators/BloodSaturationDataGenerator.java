@@ -1,8 +1,9 @@
 package com.cardio_generator.generators;
 
-import java.util.Random;
+import java.util.Arrays;
 
-import com.cardio_generator.outputs.OutputStrategy;
+import com.cardio_generator.outputs.MetricRegistry;
+import com.cardio_generator.outputs.SampleBatch;
 
 /**
  * Generates simulated blood saturation data for patients by implementing the PatientDataGenerator interface.
@@ -10,7 +11,7 @@ import com.cardio_generator.outputs.OutputStrategy;
  */
 public class BloodSaturationDataGenerator implements PatientDataGenerator {
 
-    private static final Random random = new Random();
+    private final PatientRandoms randoms;
     private int[] lastSaturationValues;
 
     /**
@@ -20,11 +21,46 @@ public class BloodSaturationDataGenerator implements PatientDataGenerator {
      * @param patientCount The total number of patients for which data will be generated.
      */
     public BloodSaturationDataGenerator(int patientCount) {
-        lastSaturationValues = new int[patientCount + 1];
+        this(new PatientRandoms(patientCount), patientCount);
+    }
+
+    /**
+     * Constructs a BloodSaturationDataGenerator that produces the same data on every run with the same seed.
+     *
+     * @param patientCount The total number of patients for which data will be generated.
+     * @param seed         The seed of the patients' random streams.
+     */
+    public BloodSaturationDataGenerator(int patientCount, long seed) {
+        this(new PatientRandoms(patientCount, seed), patientCount);
+    }
+
+    private BloodSaturationDataGenerator(PatientRandoms randoms, int patientCount) {
+        this.randoms = randoms;
+        lastSaturationValues = new int[1];
+        grow(patientCount);
+    }
+
+    /**
+     * Adds patients up to the new count, each starting between 95% and 100%.
+     *
+     * @param patientCount The new number of patients.
+     */
+    @Override
+    public void addPatients(int patientCount) {
+        grow(patientCount);
+    }
+
+    private void grow(int patientCount) {
+        int first = lastSaturationValues.length;
+        if (patientCount < first) {
+            return;
+        }
+        randoms.grow(patientCount);
+        lastSaturationValues = Arrays.copyOf(lastSaturationValues, patientCount + 1);
 
-        // Initialize with baseline saturation values for each patient
-        for (int i = 1; i <= patientCount; i++) {
-            lastSaturationValues[i] = 95 + random.nextInt(6); // Initializes with a value between 95 and 100
+        // Initialize with baseline saturation values for each new patient
+        for (int i = first; i <= patientCount; i++) {
+            lastSaturationValues[i] = 95 + randoms.get(i).nextInt(6); // Initializes with a value between 95 and 100
         }
     }
 
@@ -32,21 +68,22 @@ public class BloodSaturationDataGenerator implements PatientDataGenerator {
      * Generates and outputs a new blood saturation data point for a specific patient.
      * Simulates small fluctuations to maintain realism within a healthy range.
      *
-     * @param patientId      The unique identifier of the patient.
-     * @param outputStrategy The strategy to output the generated saturation data.
+     * @param patientId The unique identifier of the patient.
+     * @param timestamp The time of the tick.
+     * @param batch     The batch to add the saturation value to.
      */
     @Override
-    public void generate(int patientId, OutputStrategy outputStrategy) {
+    public void generate(int patientId, long timestamp, SampleBatch batch) {
         try {
             // Simulate blood saturation values
-            int variation = random.nextInt(3) - 1; // -1, 0, or 1 to simulate small fluctuations
+            int variation = randoms.get(patientId).nextInt(3) - 1; // -1, 0, or 1 to simulate small fluctuations
             int newSaturationValue = lastSaturationValues[patientId] + variation;
 
             // Ensure the saturation stays within a realistic and healthy range
             newSaturationValue = Math.min(Math.max(newSaturationValue, 90), 100);
             lastSaturationValues[patientId] = newSaturationValue;
-            outputStrategy.output(patientId, System.currentTimeMillis(), "Saturation",
-                    Double.toString(newSaturationValue) + "%");
+            // Written as e.g. "97.0%" by text outputs
+            batch.add(patientId, timestamp, MetricRegistry.SATURATION, newSaturationValue);
         } catch (Exception e) {
             System.err.println("An error occurred while generating blood saturation data for patient " + patientId);
             e.printStackTrace(); // Prints the stack trace to help identify the error source.
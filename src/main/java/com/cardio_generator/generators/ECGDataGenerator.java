@@ -1,8 +1,11 @@
 package com.cardio_generator.generators;
 
-import java.util.Random;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
+import com.cardio_generator.outputs.MetricRegistry;
 import com.cardio_generator.outputs.OutputStrategy;
+import com.cardio_generator.outputs.SampleBatch;
 /**
  * ECGDataGenerator is responsible for generating ECG data for patients.
  * It simulates the generation of ECG values based on a simplified model of heart activity.
@@ -10,7 +13,7 @@ import com.cardio_generator.outputs.OutputStrategy;
  * <p>Output data is sent via the configured {@link OutputStrategy}.
  */
 public class ECGDataGenerator implements PatientDataGenerator {
-    private static final Random random = new Random();
+    private final PatientRandoms randoms;
     private double[] lastEcgValues;
     private static final double PI = Math.PI;
     /**
@@ -19,25 +22,54 @@ public class ECGDataGenerator implements PatientDataGenerator {
      * @param patientCount The number of patients to generate ECG data for.
      */
     public ECGDataGenerator(int patientCount) {
+        this(new PatientRandoms(patientCount), patientCount);
+    }
+
+    /**
+     * Constructs an ECGDataGenerator that produces the same data on every run with the same seed.
+     *
+     * @param patientCount The number of patients to generate ECG data for.
+     * @param seed         The seed of the patients' random streams.
+     */
+    public ECGDataGenerator(int patientCount, long seed) {
+        this(new PatientRandoms(patientCount, seed), patientCount);
+    }
+
+    private ECGDataGenerator(PatientRandoms randoms, int patientCount) {
+        this.randoms = randoms;
         lastEcgValues = new double[patientCount + 1];
         // Initialize the last ECG value for each patient
         for (int i = 1; i <= patientCount; i++) {
             lastEcgValues[i] = 0; // Initial ECG value can be set to 0
         }
     }
+
+    /**
+     * Adds patients up to the new count.
+     *
+     * @param patientCount The new number of patients.
+     */
+    @Override
+    public void addPatients(int patientCount) {
+        if (patientCount + 1 > lastEcgValues.length) {
+            randoms.grow(patientCount);
+            lastEcgValues = Arrays.copyOf(lastEcgValues, patientCount + 1); // New patients start at 0
+        }
+    }
     /**
      * Generates ECG data for a specific patient.
      * The values are generated based on a simplified model of heart activity.
      *
      * @param patientId The ID of the patient.
-     * @param outputStrategy The output strategy to use for sending the generated data.
+     * @param timestamp The time of the tick.
+     * @param batch     The batch to add the ECG value to.
      */
     @Override
-    public void generate(int patientId, OutputStrategy outputStrategy) {
+    public void generate(int patientId, long timestamp, SampleBatch batch) {
         // TODO Check how realistic this data is and make it more realistic if necessary
         try {
-            double ecgValue = simulateEcgWaveform(patientId, lastEcgValues[patientId]);
-            outputStrategy.output(patientId, System.currentTimeMillis(), "ECG", Double.toString(ecgValue));
+            double ecgValue = simulateEcgWaveform(randoms.get(patientId), timestamp, lastEcgValues[patientId]);
+            batch.add(patientId, timestamp, MetricRegistry.ECG, ecgValue);
             lastEcgValues[patientId] = ecgValue;
         } catch (Exception e) {
             System.err.println("An error occurred while generating ECG data for patient " + patientId);
@@ -48,14 +80,15 @@ public class ECGDataGenerator implements PatientDataGenerator {
      * Simulates an ECG waveform using a simplified model.
      * This method generates a continuous ECG signal based on heart activity.
      *
-     * @param patientId The ID of the patient.
+     * @param random The patient's random stream.
+     * @param timestamp The time of the sample.
      * @param lastEcgValue The last recorded ECG value for the patient.
      * @return The simulated ECG value.
      */
-    private double simulateEcgWaveform(int patientId, double lastEcgValue) {
+    private double simulateEcgWaveform(SplittableRandom random, long timestamp, double lastEcgValue) {
         // Simplified ECG waveform generation based on sinusoids
         double hr = 60.0 + random.nextDouble() * 20.0; // Simulate heart rate variability between 60 and 80 bpm
-        double t = System.currentTimeMillis() / 1000.0; // Use system time to simulate continuous time
+        double t = timestamp / 1000.0; // Use the sample time to simulate continuous time
         double ecgFrequency = hr / 60.0; // Convert heart rate to Hz
 
         // Simulate different components of the ECG signal
@@ -0,0 +1,66 @@
+package com.cardio_generator.generators;
+
+import java.util.SplittableRandom;
+
+/**
+ * Precomputed lookup tables for synthesizing ECG: one heartbeat and a block of
+ * measurement noise.
+ *
+ * <p>The beat is the sum of five Gaussian bumps for the P wave, the Q, R and S
+ * deflections and the T wave, sampled over one beat's phase from 0 to 1. The
+ * shape is stretched to each beat's length, so a sample costs one table lookup
+ * instead of evaluating the waveform.
+ */
+final class EcgWaveform {
+    static final int TABLE_SIZE = 4096;
+    private static final int NOISE_SIZE = 8192; // Power of two, so indexes wrap with a mask
+    private static final double NOISE_AMPLITUDE = 0.03; // mV
+    private static final long NOISE_SEED = 0x5EED_EC6L; // The same noise table on every run
+
+    // Amplitude (mV), center (fraction of the beat) and width of P, Q, R, S and T
+    private static final double[][] WAVES = {
+        {0.15, 0.20, 0.025},
+        {-0.15, 0.37, 0.010},
+        {1.20, 0.40, 0.010},
+        {-0.25, 0.43, 0.010},
+        {0.30, 0.65, 0.040},
+    };
+
+    private static final double[] BEAT = new double[TABLE_SIZE];
+    private static final double[] NOISE = new double[NOISE_SIZE];
+
+    static {
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            double phase = (double) i / TABLE_SIZE;
+            double value = 0;
+            for (double[] wave : WAVES) {
+                double distance = (phase - wave[1]) / wave[2];
+                value += wave[0] * Math.exp(-0.5 * distance * distance);
+            }
+            BEAT[i] = value;
+        }
+        SplittableRandom random = new SplittableRandom(NOISE_SEED);
+        for (int i = 0; i < NOISE_SIZE; i++) {
+            NOISE[i] = (random.nextDouble() - 0.5) * 2 * NOISE_AMPLITUDE;
+        }
+    }
+
+    private EcgWaveform() {
+    }
+
+    /**
+     * Returns the beat's value at a phase.
+     *
+     * @param phase the position within the beat, from 0 (inclusive) to 1 (exclusive)
+     */
+    static double beat(double phase) {
+        return BEAT[(int) (phase * TABLE_SIZE)];
+    }
+
+    /**
+     * Returns a noise value; any int is a valid index.
+     */
+    static double noise(int index) {
+        return NOISE[index & (NOISE_SIZE - 1)];
+    }
+}
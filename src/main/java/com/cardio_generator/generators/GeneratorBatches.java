@@ -0,0 +1,25 @@
+package com.cardio_generator.generators;
+
+import com.cardio_generator.outputs.SampleBatch;
+
+/**
+ * Holds one reusable {@link SampleBatch} per generating thread, so that
+ * generating a tick does not allocate.
+ */
+final class GeneratorBatches {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final ThreadLocal<SampleBatch> BATCHES =
+            ThreadLocal.withInitial(() -> new SampleBatch(INITIAL_CAPACITY));
+
+    private GeneratorBatches() {
+    }
+
+    /**
+     * Returns the calling thread's batch, cleared.
+     */
+    static SampleBatch forCurrentThread() {
+        SampleBatch batch = BATCHES.get();
+        batch.clear();
+        return batch;
+    }
+}
@@ -0,0 +1,164 @@
+package com.cardio_generator.generators;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import com.cardio_generator.outputs.MetricRegistry;
+import com.cardio_generator.outputs.SampleBatch;
+
+/**
+ * Generates ECG at a clinical sample rate, such as 250 or 500 Hz, instead of one
+ * value per tick.
+ *
+ * <p>Each call emits, as one block, every sample of the patient from the last
+ * call up to the tick's timestamp, so the signal has no gaps whatever the tick
+ * period. Samples are read from a precomputed beat table ({@link EcgWaveform})
+ * and each patient keeps its own position in the current beat, its beat length
+ * and its heart rate. The beat length varies from beat to beat around the
+ * patient's rate, which is the only random draw, once per beat.
+ */
+public class HighRateECGDataGenerator implements PatientDataGenerator {
+    // Timestamps are whole milliseconds, so faster rates would give samples the same timestamp
+    public static final int MAX_SAMPLE_RATE = 1000;
+
+    private static final double MAX_BLOCK_SECONDS = 10; // Longer gaps are skipped, not filled in
+    private static final double BEAT_VARIABILITY = 0.05; // Beat-to-beat change of the beat length
+
+    private final PatientRandoms randoms;
+    private final int sampleRate;
+    private final double sampleMillis;
+    private double[] beatsPerMinute;
+    private double[] beatPhase; // Position in the current beat, from 0 to 1
+    private double[] phasePerSample; // How far one sample moves through the current beat
+    private long[] firstSampleTime;
+    private long[] sampleIndex; // Index of the next sample since firstSampleTime; -1 before the first
+    private int[] noiseOffset;
+
+    /**
+     * Constructs a HighRateECGDataGenerator with a specified number of patients.
+     *
+     * @param patientCount The number of patients to generate ECG data for.
+     * @param sampleRate   The number of samples per second per patient.
+     */
+    public HighRateECGDataGenerator(int patientCount, int sampleRate) {
+        this(new PatientRandoms(patientCount), patientCount, sampleRate);
+    }
+
+    /**
+     * Constructs a HighRateECGDataGenerator that produces the same data on every run with the same seed.
+     *
+     * @param patientCount The number of patients to generate ECG data for.
+     * @param sampleRate   The number of samples per second per patient.
+     * @param seed         The seed of the patients' random streams.
+     */
+    public HighRateECGDataGenerator(int patientCount, int sampleRate, long seed) {
+        this(new PatientRandoms(patientCount, seed), patientCount, sampleRate);
+    }
+
+    private HighRateECGDataGenerator(PatientRandoms randoms, int patientCount, int sampleRate) {
+        if (sampleRate < 1 || sampleRate > MAX_SAMPLE_RATE) {
+            throw new IllegalArgumentException("Sample rate must be between 1 and " + MAX_SAMPLE_RATE + " Hz: "
+                    + sampleRate);
+        }
+        this.randoms = randoms;
+        this.sampleRate = sampleRate;
+        this.sampleMillis = 1000.0 / sampleRate;
+        beatsPerMinute = new double[1];
+        beatPhase = new double[1];
+        phasePerSample = new double[1];
+        firstSampleTime = new long[1];
+        sampleIndex = new long[1];
+        noiseOffset = new int[1];
+        grow(patientCount);
+    }
+
+    /**
+     * Adds patients up to the new count, each with its own heart rate and a
+     * random position in its first beat.
+     *
+     * @param patientCount The new number of patients.
+     */
+    @Override
+    public void addPatients(int patientCount) {
+        grow(patientCount);
+    }
+
+    private void grow(int patientCount) {
+        int first = beatsPerMinute.length;
+        if (patientCount < first) {
+            return;
+        }
+        randoms.grow(patientCount);
+        beatsPerMinute = Arrays.copyOf(beatsPerMinute, patientCount + 1);
+        beatPhase = Arrays.copyOf(beatPhase, patientCount + 1);
+        phasePerSample = Arrays.copyOf(phasePerSample, patientCount + 1);
+        firstSampleTime = Arrays.copyOf(firstSampleTime, patientCount + 1);
+        sampleIndex = Arrays.copyOf(sampleIndex, patientCount + 1);
+        noiseOffset = Arrays.copyOf(noiseOffset, patientCount + 1);
+        for (int i = first; i <= patientCount; i++) {
+            SplittableRandom random = randoms.get(i);
+            beatsPerMinute[i] = 60 + random.nextDouble() * 20; // Resting rate between 60 and 80 bpm
+            beatPhase[i] = random.nextDouble(); // Patients are not in step with each other
+            phasePerSample[i] = nextPhasePerSample(random, beatsPerMinute[i]);
+            noiseOffset[i] = random.nextInt();
+            sampleIndex[i] = -1;
+        }
+    }
+
+    /**
+     * Returns the number of samples per second per patient.
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Generates the patient's ECG samples from the previous call up to the timestamp.
+     * The first call for a patient, or the first after a gap of more than ten
+     * seconds, generates the single sample at the timestamp.
+     *
+     * @param patientId The ID of the patient.
+     * @param timestamp The time of the tick.
+     * @param batch     The batch to add the block of samples to.
+     */
+    @Override
+    public void generate(int patientId, long timestamp, SampleBatch batch) {
+        try {
+            long index = sampleIndex[patientId];
+            if (index < 0 || (timestamp - sampleTime(patientId, index)) / 1000.0 > MAX_BLOCK_SECONDS) {
+                firstSampleTime[patientId] = timestamp;
+                index = 0;
+            }
+            double phase = beatPhase[patientId];
+            double step = phasePerSample[patientId];
+            int noise = noiseOffset[patientId];
+            long time;
+            while ((time = sampleTime(patientId, index)) <= timestamp) {
+                batch.add(patientId, time, MetricRegistry.ECG, EcgWaveform.beat(phase) + EcgWaveform.noise(noise++));
+                index++;
+                phase += step;
+                // At low sample rates one sample can span more than a beat
+                while (phase >= 1) { // Next beat, with its own length
+                    phase -= 1;
+                    step = nextPhasePerSample(randoms.get(patientId), beatsPerMinute[patientId]);
+                }
+            }
+            sampleIndex[patientId] = index;
+            beatPhase[patientId] = phase;
+            phasePerSample[patientId] = step;
+            noiseOffset[patientId] = noise;
+        } catch (Exception e) {
+            System.err.println("An error occurred while generating high-rate ECG data for patient " + patientId);
+            e.printStackTrace();
+        }
+    }
+
+    private long sampleTime(int patientId, long index) {
+        return firstSampleTime[patientId] + (long) (index * sampleMillis);
+    }
+
+    private double nextPhasePerSample(SplittableRandom random, double beatsPerMinute) {
+        double beatSeconds = 60.0 / beatsPerMinute * (1 + (random.nextDouble() - 0.5) * 2 * BEAT_VARIABILITY);
+        return 1.0 / (beatSeconds * sampleRate);
+    }
+}
@@ -1,18 +1,54 @@
 package com.cardio_generator.generators;
 
 import com.cardio_generator.outputs.OutputStrategy;
+import com.cardio_generator.outputs.SampleBatch;
 
 /**
  * Interface for generating patient health data.
  * Implementations should provide specific data generation logic.
+ *
+ * <p>Implementations keep their state, including random streams, per patient.
+ * Different patients may be generated concurrently, but the caller must make
+ * sure one patient is only generated by one thread at a time, with a
+ * happens-before edge between successive calls (as {@code TickScheduler}
+ * provides by waiting for each tick to finish).
  */
 
 public interface PatientDataGenerator {
     /**
-     * Generates health data for a specific patient.
+     * Generates one tick of health data for a specific patient into a batch.
+     * Every sample of the tick gets the same timestamp.
+     *
+     * @param patientId The ID of the patient.
+     * @param timestamp The time of the tick, in milliseconds since epoch.
+     * @param batch     The batch to add the generated samples to.
+     */
+    void generate(int patientId, long timestamp, SampleBatch batch);
+
+    /**
+     * Grows the generator's per-patient state so that patients with IDs up to the
+     * new count can be generated; existing patients keep their state. Must not be
+     * called while the generator is generating. Generators without per-patient
+     * state need not override this.
+     *
+     * @param patientCount The new number of patients.
+     */
+    default void addPatients(int patientCount) {
+    }
+
+    /**
+     * Generates health data for a specific patient at the current time and passes
+     * it to the output strategy as one batch.
      *
      * @param patientId The ID of the patient.
      * @param outputStrategy The output strategy to use for sending the generated data.
      */
-    void generate(int patientId, OutputStrategy outputStrategy);
+    default void generate(int patientId, OutputStrategy outputStrategy) {
+        SampleBatch batch = GeneratorBatches.forCurrentThread();
+        generate(patientId, System.currentTimeMillis(), batch);
+        if (!batch.isEmpty()) {
+            outputStrategy.outputBatch(batch);
+        }
+        batch.clear();
+    }
 }
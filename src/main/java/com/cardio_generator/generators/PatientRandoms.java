@@ -0,0 +1,68 @@
+package com.cardio_generator.generators;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * One independent random stream per patient, split from a single master seed.
+ *
+ * <p>Streams are not thread-safe and not shared: a patient's stream is only used
+ * by whoever is generating that patient's data, just like the generators' other
+ * per-patient state. Because each patient has its own stream, a seeded run
+ * produces the same values per patient no matter how patients are spread over
+ * threads.
+ */
+final class PatientRandoms {
+    private final SplittableRandom master;
+    private SplittableRandom[] randoms;
+
+    /**
+     * Creates unseeded streams, different on every run.
+     *
+     * @param patientCount the number of patients, with IDs 1 to patientCount
+     */
+    PatientRandoms(int patientCount) {
+        this(patientCount, new SplittableRandom());
+    }
+
+    /**
+     * Creates streams that are the same on every run with the same seed.
+     *
+     * @param patientCount the number of patients, with IDs 1 to patientCount
+     * @param seed         the master seed
+     */
+    PatientRandoms(int patientCount, long seed) {
+        this(patientCount, new SplittableRandom(seed));
+    }
+
+    private PatientRandoms(int patientCount, SplittableRandom master) {
+        this.master = master;
+        randoms = new SplittableRandom[0];
+        grow(patientCount);
+    }
+
+    /**
+     * Adds streams for patients up to the new count. New patients' streams are
+     * split from the same master, so a seeded run that grows the same way gets
+     * the same streams.
+     *
+     * @param patientCount the new number of patients
+     */
+    void grow(int patientCount) {
+        int oldLength = randoms.length;
+        if (patientCount + 1 <= oldLength) {
+            return;
+        }
+        randoms = Arrays.copyOf(randoms, patientCount + 1);
+        for (int i = oldLength; i <= patientCount; i++) {
+            randoms[i] = master.split();
+        }
+    }
+
+    /**
+     * Returns the stream of a patient.
+     */
+    SplittableRandom get(int patientId) {
+        return randoms[patientId];
+    }
+}
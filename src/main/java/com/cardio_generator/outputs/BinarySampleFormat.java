@@ -0,0 +1,143 @@
+package com.cardio_generator.outputs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Layout of the segment files written by {@link BinaryFileOutputStrategy}.
+ *
+ * <p>All values are little-endian. A segment starts with a header:
+ * <pre>
+ *     int    magic ("CGSB")
+ *     int    version
+ *     int    record size in bytes (24)
+ *     int    offset of the first record
+ *     int    metric count
+ *     per metric, in ID order:
+ *         byte   text format ({@link MetricRegistry.Format} ordinal)
+ *         short  label length in bytes
+ *         byte[] label, UTF-8
+ *     zero padding up to a multiple of 8 bytes
+ * </pre>
+ * followed by fixed-width records until the end of the file:
+ * <pre>
+ *     int    patient ID
+ *     long   timestamp, milliseconds since epoch
+ *     int    metric ID, an index into the header's metric table
+ *     double value
+ * </pre>
+ * The record count is implied by the file size; a partly written trailing
+ * record is ignored.
+ */
+public final class BinarySampleFormat {
+    public static final int MAGIC = 0x42534743; // "CGSB" read as little-endian bytes
+    public static final int VERSION = 1;
+    public static final int RECORD_BYTES = 24;
+    public static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    public static final String FILE_SUFFIX = ".bin";
+
+    private BinarySampleFormat() {
+    }
+
+    /**
+     * Encodes a header describing the first {@code metricCount} metrics of the registry.
+     *
+     * @param metricCount the number of metrics, from ID 0, the segment may contain
+     * @return a buffer positioned at 0 holding the header
+     */
+    public static ByteBuffer encodeHeader(int metricCount) {
+        byte[][] labels = new byte[metricCount][];
+        int length = 20;
+        for (int i = 0; i < metricCount; i++) {
+            labels[i] = MetricRegistry.label(i).getBytes(StandardCharsets.UTF_8);
+            length += 3 + labels[i].length;
+        }
+        int dataOffset = (length + 7) & ~7;
+        ByteBuffer header = ByteBuffer.allocate(dataOffset).order(ORDER);
+        header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_BYTES).putInt(dataOffset).putInt(metricCount);
+        for (int i = 0; i < metricCount; i++) {
+            header.put((byte) MetricRegistry.format(i).ordinal());
+            header.putShort((short) labels[i].length);
+            header.put(labels[i]);
+        }
+        header.position(0);
+        return header;
+    }
+
+    /**
+     * Decodes a header.
+     *
+     * @param buffer a buffer whose content starts at position 0 with a header
+     * @return the decoded header
+     * @throws IOException if the buffer does not hold a valid header
+     */
+    public static Header decodeHeader(ByteBuffer buffer) throws IOException {
+        ByteBuffer in = buffer.duplicate().order(ORDER);
+        in.position(0);
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a binary sample segment");
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary sample segment version " + version);
+            }
+            int recordBytes = in.getInt();
+            if (recordBytes != RECORD_BYTES) {
+                throw new IOException("Unexpected record size " + recordBytes);
+            }
+            int dataOffset = in.getInt();
+            int metricCount = in.getInt();
+            String[] labels = new String[metricCount];
+            for (int i = 0; i < metricCount; i++) {
+                in.get(); // Text format, not needed to load the values
+                byte[] label = new byte[in.getShort()];
+                in.get(label);
+                labels[i] = new String(label, StandardCharsets.UTF_8);
+            }
+            return new Header(dataOffset, labels);
+        } catch (RuntimeException e) {
+            throw new IOException("Truncated binary sample segment header", e);
+        }
+    }
+
+    /**
+     * A decoded segment header.
+     */
+    public static final class Header {
+        private final int dataOffset;
+        private final String[] labels;
+
+        Header(int dataOffset, String[] labels) {
+            this.dataOffset = dataOffset;
+            this.labels = labels;
+        }
+
+        /**
+         * Returns the file offset of the first record.
+         */
+        public int getDataOffset() {
+            return dataOffset;
+        }
+
+        public int getMetricCount() {
+            return labels.length;
+        }
+
+        /**
+         * Returns the label of a metric ID used in this segment.
+         */
+        public String getLabel(int metricId) {
+            return labels[metricId];
+        }
+
+        /**
+         * Returns the number of complete records in a segment of the given size.
+         */
+        public long recordCount(long fileSize) {
+            return Math.max(0, (fileSize - dataOffset) / RECORD_BYTES);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.cardio_generator.outputs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends every record to several output strategies at once without letting the
+ * slowest one set the simulation rate.
+ *
+ * <p>Each sink has its own bounded {@link OutputQueue} and drain thread. The
+ * generator thread only enqueues; when a sink's queue is full the record is
+ * dropped for that sink alone and counted. Per-sink queue depth (lag), delivered
+ * and dropped counts are printed periodically and are available through
+ * {@link #getSinks()}.
+ */
+public class CompositeOutputStrategy implements OutputStrategy {
+    public static final int DEFAULT_QUEUE_CAPACITY = 64 * 1024;
+    public static final long DEFAULT_REPORT_INTERVAL_MILLIS = 10_000;
+    private static final long DRAIN_TIMEOUT_MILLIS = 100;
+    private static final int PENDING_BATCH_SIZE = 1024;
+
+    private final List<Sink> sinks = new ArrayList<>();
+    private final long reportIntervalMillis;
+    private final Thread reporter;
+    private volatile boolean closed;
+
+    /**
+     * Creates a composite with the default queue capacity and report interval.
+     *
+     * @param sinks the output strategies to write to, keyed by a display name
+     */
+    public CompositeOutputStrategy(Map<String, OutputStrategy> sinks) {
+        this(sinks, DEFAULT_QUEUE_CAPACITY, DEFAULT_REPORT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Creates a composite and starts a drain thread per sink.
+     *
+     * @param sinks                the output strategies to write to, keyed by a display name
+     * @param queueCapacity        the number of records each sink may fall behind before records are dropped
+     * @param reportIntervalMillis how often to print per-sink metrics, or 0 to not print them
+     */
+    public CompositeOutputStrategy(Map<String, OutputStrategy> sinks, int queueCapacity, long reportIntervalMillis) {
+        this.reportIntervalMillis = reportIntervalMillis;
+        for (Map.Entry<String, OutputStrategy> entry : sinks.entrySet()) {
+            this.sinks.add(new Sink(entry.getKey(), entry.getValue(), queueCapacity));
+        }
+        if (reportIntervalMillis > 0) {
+            reporter = new Thread(this::reportPeriodically, "output-metrics");
+            reporter.setDaemon(true);
+            reporter.start();
+        } else {
+            reporter = null;
+        }
+    }
+
+    /**
+     * Returns the sinks in the order they were given, for inspecting their metrics.
+     *
+     * @return an unmodifiable list of sinks
+     */
+    public List<Sink> getSinks() {
+        return Collections.unmodifiableList(sinks);
+    }
+
+    /**
+     * Queues the record for every sink, dropping it for sinks that are too far behind.
+     *
+     * @param patientId  The unique identifier of the patient
+     * @param timestamp  The timestamp at which the data was recorded, in milliseconds since epoch
+     * @param label      A descriptive label for the type of data being outputted (e.g., heart rate)
+     * @param data       The actual data value to output, formatted as a String
+     */
+    @Override
+    public void output(int patientId, long timestamp, String label, String data) {
+        for (Sink sink : sinks) {
+            if (!sink.queue.offer(patientId, timestamp, label, data)) {
+                sink.dropped.increment();
+            }
+        }
+    }
+
+    /**
+     * Queues a numeric sample for every sink, dropping it for sinks that are too far behind.
+     *
+     * @param patientId  The unique identifier of the patient
+     * @param timestamp  The timestamp at which the data was recorded, in milliseconds since epoch
+     * @param metricId   The metric the value belongs to
+     * @param value      The value
+     */
+    @Override
+    public void output(int patientId, long timestamp, int metricId, double value) {
+        for (Sink sink : sinks) {
+            if (!sink.queue.offer(patientId, timestamp, metricId, value)) {
+                sink.dropped.increment();
+            }
+        }
+    }
+
+    /**
+     * Queues a batch for every sink with one lock acquisition per sink. Samples that
+     * do not fit in a sink's queue are dropped for that sink.
+     *
+     * @param batch The samples to output
+     */
+    @Override
+    public void outputBatch(SampleBatch batch) {
+        for (Sink sink : sinks) {
+            int accepted = sink.queue.offerAll(batch);
+            if (accepted < batch.size()) {
+                sink.dropped.add(batch.size() - accepted);
+            }
+        }
+    }
+
+    /**
+     * Drains every queued record into its sink, closes the sinks and prints the final metrics.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (reporter != null) {
+            reporter.interrupt();
+        }
+        for (Sink sink : sinks) {
+            sink.queue.close();
+        }
+        for (Sink sink : sinks) {
+            try {
+                sink.drainThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sink.strategy.close();
+        }
+        if (reportIntervalMillis > 0) {
+            printMetrics();
+        }
+    }
+
+    private void reportPeriodically() {
+        while (!closed) {
+            try {
+                Thread.sleep(reportIntervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            printMetrics();
+        }
+    }
+
+    private void printMetrics() {
+        for (Sink sink : sinks) {
+            System.out.printf("Output %s: delivered=%d, lag=%d records (max %d), dropped=%d%n",
+                    sink.name, sink.getDelivered(), sink.getLag(), sink.getMaxLag(), sink.getDropped());
+        }
+    }
+
+    /**
+     * One output strategy with its queue, drain thread and metrics.
+     */
+    public static final class Sink {
+        private final String name;
+        private final OutputStrategy strategy;
+        private final OutputQueue queue;
+        private final Thread drainThread;
+        private final OutputQueue.RecordHandler handler;
+        private final SampleBatch pending = new SampleBatch(PENDING_BATCH_SIZE); // Only touched by the drain thread
+        private final AtomicLong delivered = new AtomicLong();
+        private final LongAdder dropped = new LongAdder();
+        private volatile int maxLag;
+
+        private Sink(String name, OutputStrategy strategy, int queueCapacity) {
+            this.name = name;
+            this.strategy = strategy;
+            this.queue = new OutputQueue(queueCapacity);
+            this.handler = new OutputQueue.RecordHandler() {
+                @Override
+                public void handle(int patientId, long timestamp, String label, String data) {
+                    flushPending(); // Keep records in order
+                    strategy.output(patientId, timestamp, label, data);
+                }
+
+                @Override
+                public void handle(int patientId, long timestamp, int metricId, double value) {
+                    pending.add(patientId, timestamp, metricId, value);
+                    if (pending.size() >= PENDING_BATCH_SIZE) {
+                        flushPending();
+                    }
+                }
+            };
+            this.drainThread = new Thread(this::drain, "output-" + name);
+            drainThread.setDaemon(true);
+            drainThread.start();
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    int lag = queue.size();
+                    if (lag > maxLag) {
+                        maxLag = lag;
+                    }
+                    int count = queue.drain(handler, DRAIN_TIMEOUT_MILLIS);
+                    try {
+                        flushPending();
+                    } catch (RuntimeException e) { // Keep draining: the next batch may well succeed
+                        System.err.println("Output " + name + " failed to write a batch: " + e.getMessage());
+                        e.printStackTrace();
+                    }
+                    if (count < 0) {
+                        return;
+                    }
+                    delivered.addAndGet(count);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                System.err.println("Output " + name + " failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+
+        /**
+         * Passes the samples collected during a drain to the sink as one batch.
+         * The samples are discarded even if the sink fails, so that a failed batch
+         * is not retried with every later sample.
+         */
+        private void flushPending() {
+            if (!pending.isEmpty()) {
+                try {
+                    strategy.outputBatch(pending);
+                } finally {
+                    pending.clear();
+                }
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public OutputStrategy getStrategy() {
+            return strategy;
+        }
+
+        /**
+         * Returns the number of records queued for this sink but not yet written to it.
+         */
+        public int getLag() {
+            return queue.size();
+        }
+
+        /**
+         * Returns the largest lag seen so far.
+         */
+        public int getMaxLag() {
+            return maxLag;
+        }
+
+        public long getDelivered() {
+            return delivered.get();
+        }
+
+        public long getDropped() {
+            return dropped.sum();
+        }
+    }
+}
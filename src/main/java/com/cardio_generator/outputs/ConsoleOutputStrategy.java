@@ -5,6 +5,7 @@ package com.cardio_generator.outputs;
  * Useful for debugging or simple monitoring purposes.
  */
 public class ConsoleOutputStrategy implements OutputStrategy {
+    private final ThreadLocal<StringBuilder> lineBuilders = ThreadLocal.withInitial(() -> new StringBuilder(96));
 
     /**
      * Outputs patient data to the system console.
@@ -18,4 +19,44 @@ public class ConsoleOutputStrategy implements OutputStrategy {
     public void output(int patientId, long timestamp, String label, String data) {
         System.out.printf("Patient ID: %d, Timestamp: %d, Label: %s, Data: %s%n", patientId, timestamp, label, data);
     }
+
+    /**
+     * Outputs a numeric sample to the system console in the same layout.
+     *
+     * @param patientId  The unique identifier of the patient
+     * @param timestamp  The timestamp at which the data was recorded, in milliseconds since epoch
+     * @param metricId   The metric the value belongs to
+     * @param value      The value
+     */
+    @Override
+    public void output(int patientId, long timestamp, int metricId, double value) {
+        StringBuilder line = lineBuilders.get();
+        line.setLength(0);
+        line.append("Patient ID: ").append(patientId).append(", Timestamp: ").append(timestamp)
+                .append(", Label: ").append(MetricRegistry.label(metricId)).append(", Data: ");
+        MetricRegistry.appendValue(line, metricId, value);
+        System.out.println(line);
+    }
+
+    /**
+     * Outputs a whole batch to the system console with a single print call.
+     *
+     * @param batch The samples to output
+     */
+    @Override
+    public void outputBatch(SampleBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        StringBuilder lines = lineBuilders.get();
+        lines.setLength(0);
+        for (int i = 0; i < batch.size(); i++) {
+            int metricId = batch.getMetricId(i);
+            lines.append("Patient ID: ").append(batch.getPatientId(i)).append(", Timestamp: ")
+                    .append(batch.getTimestamp(i)).append(", Label: ").append(MetricRegistry.label(metricId))
+                    .append(", Data: ");
+            MetricRegistry.appendValue(lines, metricId, batch.getValue(i)).append(System.lineSeparator());
+        }
+        System.out.print(lines);
+    }
 }
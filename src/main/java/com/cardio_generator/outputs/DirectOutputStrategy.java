@@ -0,0 +1,156 @@
+package com.cardio_generator.outputs;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.data_management.DataStorage;
+import com.data_management.RecordBatch;
+
+/**
+ * Output strategy that stores samples straight into a {@link DataStorage} in the
+ * same process, with no text formatting, transport or parsing in between.
+ *
+ * <p>Generator threads write through the batch ingest path themselves: each
+ * thread converts a {@link SampleBatch} into its own reusable {@link RecordBatch}
+ * and stores it with one call. DataStorage is safe for concurrent writers, so
+ * this measures the storage at its own limit.
+ */
+public class DirectOutputStrategy implements OutputStrategy {
+    private static final int INITIAL_BATCH_CAPACITY = 64;
+
+    private final DataStorage storage;
+    private final ThreadLocal<RecordBatch> recordBatches =
+            ThreadLocal.withInitial(() -> new RecordBatch(INITIAL_BATCH_CAPACITY));
+    private final LongAdder recordsStored = new LongAdder();
+    private final Thread reporter;
+    private final long reportIntervalMillis;
+    private volatile boolean closed;
+
+    /**
+     * Creates a direct output that does not print ingest statistics.
+     *
+     * @param storage the storage to write to
+     */
+    public DirectOutputStrategy(DataStorage storage) {
+        this(storage, 0);
+    }
+
+    /**
+     * Creates a direct output.
+     *
+     * @param storage              the storage to write to
+     * @param reportIntervalMillis how often to print the ingest rate, or 0 to not print it
+     */
+    public DirectOutputStrategy(DataStorage storage, long reportIntervalMillis) {
+        this.storage = storage;
+        this.reportIntervalMillis = reportIntervalMillis;
+        if (reportIntervalMillis > 0) {
+            reporter = new Thread(this::reportPeriodically, "direct-output-metrics");
+            reporter.setDaemon(true);
+            reporter.start();
+        } else {
+            reporter = null;
+        }
+    }
+
+    /**
+     * Returns the storage records are written to.
+     */
+    public DataStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Returns the number of records stored so far.
+     */
+    public long getRecordsStored() {
+        return recordsStored.sum();
+    }
+
+    /**
+     * Stores a text record. Percent signs are stripped and alert states become
+     * 1 (triggered) or 0 (resolved); other non-numeric values are skipped.
+     *
+     * @param patientId  The unique identifier of the patient
+     * @param timestamp  The timestamp at which the data was recorded, in milliseconds since epoch
+     * @param label      The record type
+     * @param data       The value as text
+     */
+    @Override
+    public void output(int patientId, long timestamp, String label, String data) {
+        double value;
+        if ("triggered".equals(data)) {
+            value = MetricRegistry.ALERT_TRIGGERED;
+        } else if ("resolved".equals(data)) {
+            value = MetricRegistry.ALERT_RESOLVED;
+        } else {
+            try {
+                value = Double.parseDouble(data.endsWith("%") ? data.substring(0, data.length() - 1) : data);
+            } catch (NumberFormatException e) {
+                System.err.println("Skipping non-numeric " + label + " value for direct output: " + data);
+                return;
+            }
+        }
+        storage.addPatientData(patientId, value, label, timestamp);
+        recordsStored.increment();
+    }
+
+    /**
+     * Stores a numeric sample under its metric's label.
+     *
+     * @param patientId  The unique identifier of the patient
+     * @param timestamp  The timestamp at which the data was recorded, in milliseconds since epoch
+     * @param metricId   The metric the value belongs to
+     * @param value      The value
+     */
+    @Override
+    public void output(int patientId, long timestamp, int metricId, double value) {
+        storage.addPatientData(patientId, value, MetricRegistry.label(metricId), timestamp);
+        recordsStored.increment();
+    }
+
+    /**
+     * Stores a whole batch with one call to the storage's batch ingest path.
+     *
+     * @param batch The samples to store
+     */
+    @Override
+    public void outputBatch(SampleBatch batch) {
+        RecordBatch records = recordBatches.get();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                records.add(batch.getPatientId(i), batch.getValue(i), MetricRegistry.label(batch.getMetricId(i)),
+                        batch.getTimestamp(i));
+            }
+            storage.addPatientData(records);
+            recordsStored.add(batch.size());
+        } finally {
+            records.clear(); // The batch is reused by this thread, so it must not keep a failed call's records
+        }
+    }
+
+    /**
+     * Stops the statistics reporter.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (reporter != null) {
+            reporter.interrupt();
+        }
+    }
+
+    private void reportPeriodically() {
+        long last = 0;
+        while (!closed) {
+            try {
+                Thread.sleep(reportIntervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long stored = recordsStored.sum();
+            System.out.printf("Direct output: %d records stored, %.0f records/sec%n", stored,
+                    (stored - last) * 1000.0 / reportIntervalMillis);
+            last = stored;
+        }
+    }
+}
@@ -1,34 +1,135 @@
 package com.cardio_generator.outputs;
 
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 //Added missing javadoc block at the beggining of the public class, as specified in sections 7.1.1 and 7.3 of Google Java Style Guide (GJSG)
 /**
  * Output strategy that writes patient health data to files.
  * Each label results in a separate text file.
+ *
+ * <p>Generator threads only enqueue records. A single writer thread drains the
+ * queue into long-lived per-label channels with large write buffers, and commits
+ * a group of records with one write once the flush interval elapses or a buffer
+ * reaches the byte threshold. Call {@link #close()} to write out everything that
+ * is still queued and close the files.
+ *
+ * <p>With a {@link RollingLayout}, each label is split into segments by time window
+ * and optionally by patient range, and every segment gets a {@link SegmentIndex}
+ * sidecar that is rewritten after each group commit. Segments are closed once
+ * records a full window newer have arrived.
  */
 
 //changed the class name to follow GJSG
 public class FileOutputStrategy implements OutputStrategy {
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+    public static final int DEFAULT_FLUSH_THRESHOLD_BYTES = 256 * 1024;
+    private static final int QUEUE_CAPACITY = 64 * 1024;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
     //changed the name of the variable to be in camelCase to follow GJSG
     private String baseDirectory;
     //changed field name (file_map) to camelCase to follow GJSG
     public final ConcurrentHashMap<String, String> fileMap = new ConcurrentHashMap<>();
 
+    private final long flushIntervalMillis;
+    private final int flushThresholdBytes;
+    private final boolean syncOnFlush;
+    private final OutputQueue queue = new OutputQueue(QUEUE_CAPACITY);
+    private final RollingLayout layout; // null writes one ever-growing file per label
+    private final Map<String, LabelFile> files = new HashMap<>(); // Only touched by the writer thread
+    private final Map<String, LabelSegments> segments = new HashMap<>(); // Only touched by the writer thread
+    private final StringBuilder valueText = new StringBuilder(32); // Only touched by the writer thread
+    private final OutputQueue.RecordHandler writer = new OutputQueue.RecordHandler() {
+        @Override
+        public void handle(int patientId, long timestamp, String label, String data) {
+            write(patientId, timestamp, label, data);
+        }
+
+        @Override
+        public void handle(int patientId, long timestamp, int metricId, double value) {
+            // Formatted on the writer thread into a reused builder
+            valueText.setLength(0);
+            MetricRegistry.appendValue(valueText, metricId, value);
+            write(patientId, timestamp, MetricRegistry.label(metricId), valueText);
+        }
+    };
+    private final Thread writerThread;
+    private final Thread shutdownHook;
+
     //changed declaration of the constructor to follow the new file name in accordance to GJSG
+    /**
+     * Creates a file output strategy with the default flush interval and threshold.
+     *
+     * @param baseDirectory The directory the label files are written to.
+     */
     public FileOutputStrategy(String baseDirectory) {
+        this(baseDirectory, DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_FLUSH_THRESHOLD_BYTES, false, null);
+    }
+
+    /**
+     * Creates a file output strategy that writes indexed, time-partitioned segments.
+     *
+     * @param baseDirectory The directory the label directories are written to.
+     * @param layout        How records are partitioned into segments.
+     */
+    public FileOutputStrategy(String baseDirectory, RollingLayout layout) {
+        this(baseDirectory, DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_FLUSH_THRESHOLD_BYTES, false, layout);
+    }
+
+    /**
+     * Creates a file output strategy with explicit group-commit settings.
+     *
+     * @param baseDirectory       The directory the label files are written to.
+     * @param flushIntervalMillis The longest time a record may sit in a write buffer.
+     * @param flushThresholdBytes The buffered size per file that triggers an immediate write.
+     * @param syncOnFlush         Whether every group commit is forced to the storage device.
+     */
+    public FileOutputStrategy(String baseDirectory, long flushIntervalMillis, int flushThresholdBytes,
+            boolean syncOnFlush) {
+        this(baseDirectory, flushIntervalMillis, flushThresholdBytes, syncOnFlush, null);
+    }
+
+    /**
+     * Creates a file output strategy with explicit group-commit settings and layout.
+     *
+     * @param baseDirectory       The directory the label files are written to.
+     * @param flushIntervalMillis The longest time a record may sit in a write buffer.
+     * @param flushThresholdBytes The buffered size per file that triggers an immediate write.
+     * @param syncOnFlush         Whether every group commit is forced to the storage device.
+     * @param layout              How records are partitioned into segments, or null for one file per label.
+     */
+    public FileOutputStrategy(String baseDirectory, long flushIntervalMillis, int flushThresholdBytes,
+            boolean syncOnFlush, RollingLayout layout) {
         //once again, changed the name for baseDirectory to be in camelCase in accordance to GJSG
         this.baseDirectory = baseDirectory;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.flushThresholdBytes = flushThresholdBytes;
+        this.syncOnFlush = syncOnFlush;
+        this.layout = layout;
+
+        writerThread = new Thread(this::runWriter, "file-output-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        // Make sure buffered records reach disk when the simulator is stopped with Ctrl+C
+        shutdownHook = new Thread(this::close, "file-output-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
     }
 
     //Added missing javadoc block at the beggining of the method, as specified in sections 7.1.1 and 7.3 of Google Java Style Guide (GJSG)
     /**
-     * Outputs the patient health data to a file.
+     * Queues the patient health data for the writer thread.
+     * Blocks only if the writer has fallen a full queue behind.
      *
      * @param patientId The ID of the patient.
      * @param timestamp The timestamp of the data.
@@ -37,30 +138,372 @@ public class FileOutputStrategy implements OutputStrategy {
      */
     @Override
     public void output(int patientId, long timestamp, String label, String data) {
+        if (!queue.put(patientId, timestamp, label, data)) {
+            System.err.println("File output is closed; dropping " + label + " record for patient " + patientId);
+        }
+    }
+
+    /**
+     * Queues a numeric sample for the writer thread, which formats it as text.
+     * Blocks only if the writer has fallen a full queue behind.
+     *
+     * @param patientId The ID of the patient.
+     * @param timestamp The timestamp of the data.
+     * @param metricId  The metric of the data.
+     * @param value     The value to be written to the file.
+     */
+    @Override
+    public void output(int patientId, long timestamp, int metricId, double value) {
+        if (!queue.put(patientId, timestamp, metricId, value)) {
+            System.err.println("File output is closed; dropping " + MetricRegistry.label(metricId)
+                    + " record for patient " + patientId);
+        }
+    }
+
+    /**
+     * Queues a whole batch for the writer thread with one lock acquisition.
+     *
+     * @param batch The samples to be written to the files.
+     */
+    @Override
+    public void outputBatch(SampleBatch batch) {
+        if (!queue.putAll(batch)) {
+            System.err.println("File output is closed; dropping a batch of " + batch.size() + " records");
+        }
+    }
+
+    /**
+     * Writes all queued records, flushes and closes every file.
+     * Further records are rejected. Safe to call more than once.
+     */
+    @Override
+    public void close() {
+        queue.close();
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down; the hook is running this method
+        }
+    }
+
+    /**
+     * Writer loop: drains the queue, commits buffers that crossed the threshold or
+     * whose interval elapsed, and closes every file once the queue is closed.
+     */
+    private void runWriter() {
         try {
-            // Create the directory
             //once again, changed the name for baseDirectory to be in camelCase in accordance to GJSG
             Files.createDirectories(Paths.get(baseDirectory));
         } catch (IOException e) {
             System.err.println("Error creating base directory: " + e.getMessage());
+        }
+
+        long nextFlush = System.currentTimeMillis() + flushIntervalMillis;
+        try {
+            while (true) {
+                long wait = Math.max(1, nextFlush - System.currentTimeMillis());
+                int drained = queue.drain(writer, wait);
+                if (drained < 0) {
+                    break;
+                }
+                if (System.currentTimeMillis() >= nextFlush) {
+                    flushAll();
+                    closeExpiredSegments();
+                    nextFlush = System.currentTimeMillis() + flushIntervalMillis;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            System.err.println("File output writer stopped: " + e);
+            e.printStackTrace();
+        } finally {
+            queue.close(); // Producers must not wait for a writer that has exited
+            closeAll();
+        }
+    }
+
+    private void write(int patientId, long timestamp, String label, CharSequence data) {
+        if (layout != null) {
+            LabelSegments labelSegments = segments.get(label);
+            if (labelSegments == null) {
+                labelSegments = new LabelSegments(label);
+                segments.put(label, labelSegments);
+            }
+            labelSegments.write(patientId, timestamp, data);
             return;
         }
+        LabelFile file = files.get(label);
+        if (file == null) {
+            file = open(label);
+            if (file == null) {
+                return;
+            }
+        }
+        file.append(patientId, timestamp, label, data);
+    }
+
+    private LabelFile open(String label) {
         // Set the FilePath variable
         //changed the name of the variable to be in camelCase to follow GJSG
-        String FilePath = fileMap.computeIfAbsent(label, k -> Paths.get(baseDirectory, label + ".txt").toString());
+        String filePath = fileMap.computeIfAbsent(label, k -> Paths.get(baseDirectory, label + ".txt").toString());
+        try {
+            LabelFile file = new LabelFile(Paths.get(filePath), null, 0);
+            files.put(label, file);
+            return file;
+        } catch (IOException e) {
+            System.err.println("Error opening file " + filePath + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void flushAll() {
+        for (LabelFile file : files.values()) {
+            file.flush();
+        }
+        for (LabelSegments labelSegments : segments.values()) {
+            labelSegments.flush();
+        }
+    }
+
+    private void closeExpiredSegments() {
+        for (LabelSegments labelSegments : segments.values()) {
+            labelSegments.closeExpired();
+        }
+    }
+
+    private void closeAll() {
+        for (LabelFile file : files.values()) {
+            file.close();
+        }
+        files.clear();
+        for (LabelSegments labelSegments : segments.values()) {
+            labelSegments.closeAll();
+        }
+        segments.clear();
+    }
+
+    /**
+     * The open segments of one label under the rolling layout.
+     */
+    private final class LabelSegments {
+        private final String label;
+        private final Path directory;
+        private final Map<Long, LabelFile> open = new HashMap<>();
+        private LabelFile lastFile; // Records usually arrive for the same segment in a row
+        private long lastKey = Long.MIN_VALUE;
+        private long latestTimestamp = Long.MIN_VALUE;
+
+        LabelSegments(String label) {
+            this.label = label;
+            this.directory = Paths.get(baseDirectory, label);
+        }
 
-        // Write the data to the file
-        //Unsure if it is neccesary to wrap this newBufferedWriter in multiple lines as section 4.5.1 note only mentions that wrapping should be done
-        //when the readibility suffers. I will wrap it but it migh not be necessary.
+        void write(int patientId, long timestamp, CharSequence data) {
+            latestTimestamp = Math.max(latestTimestamp, timestamp);
+            long windowStart = layout.windowStart(timestamp);
+            int partitionStart = layout.partitionStart(patientId);
+            long key = (windowStart / layout.getWindowMillis()) << 32
+                    | (layout.getPatientsPerSegment() == 0 ? 0 : partitionStart / layout.getPatientsPerSegment())
+                    & 0xffffffffL;
+            LabelFile file = key == lastKey ? lastFile : open.get(key);
+            if (file == null) {
+                file = openSegment(windowStart, partitionStart);
+                if (file == null) {
+                    return;
+                }
+                open.put(key, file);
+            }
+            lastKey = key;
+            lastFile = file;
+            file.append(patientId, timestamp, label, data);
+        }
+
+        private LabelFile openSegment(long windowStart, int partitionStart) {
+            Path path = directory.resolve(layout.segmentFileName(label, windowStart, partitionStart));
+            fileMap.putIfAbsent(label, directory.toString());
+            try {
+                Files.createDirectories(directory);
+                SegmentIndex index;
+                Path indexPath = SegmentIndex.indexPathFor(path);
+                if (Files.exists(indexPath)) {
+                    index = SegmentIndex.read(indexPath); // Reopened after a restart or a late record
+                } else {
+                    index = new SegmentIndex(layout.getIndexBlockBytes());
+                    if (Files.exists(path) && Files.size(path) > 0) {
+                        index.addUnknown(0, Files.size(path));
+                    }
+                }
+                return new LabelFile(path, index, windowStart);
+            } catch (IOException e) {
+                System.err.println("Error opening segment " + path + ": " + e.getMessage());
+                return null;
+            }
+        }
+
+        void flush() {
+            for (LabelFile file : open.values()) {
+                file.flush();
+            }
+        }
+
+        /**
+         * Closes segments whose window ended more than one full window before the
+         * newest record, allowing for records that arrive slightly out of order.
+         */
+        void closeExpired() {
+            long cutoff = latestTimestamp - 2 * layout.getWindowMillis();
+            open.values().removeIf(file -> {
+                if (file.windowStart <= cutoff) {
+                    file.close();
+                    return true;
+                }
+                return false;
+            });
+            lastKey = Long.MIN_VALUE;
+            lastFile = null;
+        }
+
+        void closeAll() {
+            for (LabelFile file : open.values()) {
+                file.close();
+            }
+            open.clear();
+        }
+    }
+
+    /**
+     * An open label file or segment together with its write buffer and, for
+     * segments, its index.
+     */
+    private final class LabelFile {
+        private final Path path;
+        private final FileChannel channel;
+        private ByteBuffer buffer;
+        private final SegmentIndex index;
+        private final long windowStart;
+        private long filePosition; // Offset in the file where the buffer's first byte goes
+
+        LabelFile(Path path, SegmentIndex index, long windowStart) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            this.buffer = ByteBuffer.allocate(Math.max(flushThresholdBytes, 4096));
+            this.index = index;
+            this.windowStart = windowStart;
+            this.filePosition = channel.size();
+        }
+
+        void append(int patientId, long timestamp, String label, CharSequence data) {
+            // Same layout as before: "Patient ID: %d, Timestamp: %d, Label: %s, Data: %s%n"
+            int length = estimateLength(label, data);
+            if (buffer.remaining() < length) {
+                flush();
+                if (buffer.capacity() < length) {
+                    buffer = ByteBuffer.allocate(length); // A record longer than the buffer
+                }
+            }
+            int lineStart = buffer.position();
+            putAscii("Patient ID: ");
+            putLong(patientId);
+            putAscii(", Timestamp: ");
+            putLong(timestamp);
+            putAscii(", Label: ");
+            putText(label);
+            putAscii(", Data: ");
+            putText(data);
+            buffer.put(LINE_SEPARATOR);
+            if (index != null) {
+                index.add(filePosition + lineStart, buffer.position() - lineStart, patientId, timestamp);
+            }
+            if (buffer.position() >= flushThresholdBytes) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (buffer.position() == 0) {
+                return;
+            }
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    filePosition += channel.write(buffer);
+                }
+                if (syncOnFlush) {
+                    channel.force(false);
+                }
+                if (index != null) {
+                    // Written after the data so the index never points past the end of the segment
+                    index.write(SegmentIndex.indexPathFor(path));
+                }
+            } catch (IOException e) {
+                System.err.println("Error writing to file " + path + ": " + e.getMessage());
+            }
+            buffer.clear();
+        }
+
+        void close() {
+            flush();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing file " + path + ": " + e.getMessage());
+            }
+        }
+
+        private int estimateLength(String label, CharSequence data) {
+            // 42 bytes of fixed text, numbers of up to 11 and 20 chars and a line separator;
+            // non-ASCII chars take up to 3 bytes
+            return 80 + 3 * (label.length() + (data == null ? 4 : data.length()));
+        }
+
+        private void putAscii(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                buffer.put((byte) text.charAt(i));
+            }
+        }
+
+        private void putText(CharSequence text) {
+            if (text == null) {
+                putAscii("null");
+                return;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c >= 0x80) {
+                    buffer.put(text.subSequence(i, text.length()).toString().getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                buffer.put((byte) c);
+            }
+        }
 
-        try (PrintWriter out = new PrintWriter(
-                Files.newBufferedWriter(
-                    Paths.get(FilePath), 
-                    StandardOpenOption.CREATE, 
-                    StandardOpenOption.APPEND))) {
-            out.printf("Patient ID: %d, Timestamp: %d, Label: %s, Data: %s%n", patientId, timestamp, label, data);
-        } catch (Exception e) {
-            System.err.println("Error writing to file " + FilePath + ": " + e.getMessage());
+        private void putLong(long value) {
+            if (value < 0) {
+                buffer.put((byte) '-');
+                if (value == Long.MIN_VALUE) {
+                    putAscii("9223372036854775808");
+                    return;
+                }
+                value = -value;
+            }
+            int start = buffer.position();
+            do {
+                buffer.put((byte) ('0' + (value % 10)));
+                value /= 10;
+            } while (value != 0);
+            // Digits were written least significant first; reverse them in place
+            for (int i = start, j = buffer.position() - 1; i < j; i++, j--) {
+                byte tmp = buffer.get(i);
+                buffer.put(i, buffer.get(j));
+                buffer.put(j, tmp);
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,146 @@
+package com.cardio_generator.outputs;
+
+import java.util.Arrays;
+
+/**
+ * Maps the numeric metric IDs used on the primitive output path to their labels
+ * and text formats.
+ *
+ * <p>Generators emit {@code (patientId, timestamp, metricId, value)} without
+ * building any strings; text is produced only by sinks that need it, using
+ * {@link #appendValue(StringBuilder, int, double)}. The text is the same as the
+ * generators used to produce, e.g. {@code 97.0%} for saturation and
+ * {@code triggered} for alerts.
+ *
+ * <p>The built-in metrics have fixed IDs. Further metrics can be registered at
+ * startup; lookups are lock-free.
+ */
+public final class MetricRegistry {
+
+    /**
+     * How a metric's value is written as text.
+     */
+    public enum Format {
+        /** The value as by {@link Double#toString(double)}. */
+        DECIMAL,
+        /** The value followed by {@code %}. */
+        PERCENT,
+        /** {@code triggered} for {@link #ALERT_TRIGGERED}, {@code resolved} otherwise. */
+        ALERT_STATE
+    }
+
+    public static final int ECG = 0;
+    public static final int SATURATION = 1;
+    public static final int SYSTOLIC_PRESSURE = 2;
+    public static final int DIASTOLIC_PRESSURE = 3;
+    public static final int CHOLESTEROL = 4;
+    public static final int WHITE_BLOOD_CELLS = 5;
+    public static final int RED_BLOOD_CELLS = 6;
+    public static final int ALERT = 7;
+
+    public static final double ALERT_TRIGGERED = 1.0;
+    public static final double ALERT_RESOLVED = 0.0;
+
+    private static volatile String[] labels = {"ECG", "Saturation", "SystolicPressure", "DiastolicPressure",
+        "Cholesterol", "WhiteBloodCells", "RedBloodCells", "Alert"};
+    private static volatile Format[] formats = {Format.DECIMAL, Format.PERCENT, Format.DECIMAL, Format.DECIMAL,
+        Format.DECIMAL, Format.DECIMAL, Format.DECIMAL, Format.ALERT_STATE};
+
+    private MetricRegistry() {
+    }
+
+    /**
+     * Registers a metric, or returns the existing ID if the label is already registered.
+     *
+     * @param label  the label written for the metric
+     * @param format how values are written as text
+     * @return the metric ID
+     */
+    public static synchronized int register(String label, Format format) {
+        int existing = idOf(label);
+        if (existing >= 0) {
+            return existing;
+        }
+        String[] newLabels = Arrays.copyOf(labels, labels.length + 1);
+        Format[] newFormats = Arrays.copyOf(formats, formats.length + 1);
+        newLabels[labels.length] = label;
+        newFormats[formats.length] = format;
+        formats = newFormats; // Published before labels, which readers check first
+        labels = newLabels;
+        return labels.length - 1;
+    }
+
+    /**
+     * Returns the number of registered metrics; IDs run from 0 to this value minus one.
+     */
+    public static int size() {
+        return labels.length;
+    }
+
+    /**
+     * Returns the label of a metric.
+     *
+     * @throws IllegalArgumentException if the ID is not registered
+     */
+    public static String label(int metricId) {
+        String[] current = labels;
+        if (metricId < 0 || metricId >= current.length) {
+            throw new IllegalArgumentException("Unknown metric ID: " + metricId);
+        }
+        return current[metricId];
+    }
+
+    /**
+     * Returns the text format of a metric.
+     *
+     * @throws IllegalArgumentException if the ID is not registered
+     */
+    public static Format format(int metricId) {
+        Format[] current = formats;
+        if (metricId < 0 || metricId >= current.length) {
+            throw new IllegalArgumentException("Unknown metric ID: " + metricId);
+        }
+        return current[metricId];
+    }
+
+    /**
+     * Returns the ID registered for a label.
+     *
+     * @return the metric ID, or -1 if the label is not registered
+     */
+    public static int idOf(String label) {
+        String[] current = labels;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].equals(label)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Appends the text form of a value to the builder without creating a string.
+     *
+     * @param text     the builder to append to
+     * @param metricId the metric the value belongs to
+     * @param value    the value
+     * @return the builder
+     */
+    public static StringBuilder appendValue(StringBuilder text, int metricId, double value) {
+        switch (format(metricId)) {
+            case PERCENT:
+                return text.append(value).append('%');
+            case ALERT_STATE:
+                return text.append(value == ALERT_TRIGGERED ? "triggered" : "resolved");
+            default:
+                return text.append(value);
+        }
+    }
+
+    /**
+     * Returns the text form of a value, for sinks that need a string anyway.
+     */
+    public static String formatValue(int metricId, double value) {
+        return appendValue(new StringBuilder(24), metricId, value).toString();
+    }
+}
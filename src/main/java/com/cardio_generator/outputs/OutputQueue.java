@@ -0,0 +1,277 @@
+package com.cardio_generator.outputs;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded multi-producer, single-consumer queue of output records, used to hand
+ * samples from generator threads to a sink's own writer thread.
+ *
+ * <p>Records are stored in preallocated parallel arrays, so enqueuing does not
+ * allocate. A record is either a label with text or, on the primitive path, a
+ * {@link MetricRegistry} ID with a double value. The consumer drains every available record with a single lock
+ * round-trip and processes them outside the lock; producers cannot overwrite
+ * those slots until the drain completes.
+ */
+final class OutputQueue {
+
+    /**
+     * Receives drained records on the consumer thread.
+     */
+    interface RecordHandler {
+        void handle(int patientId, long timestamp, String label, String data);
+
+        /**
+         * Receives a record queued on the primitive path. The default formats it as text.
+         */
+        default void handle(int patientId, long timestamp, int metricId, double value) {
+            handle(patientId, timestamp, MetricRegistry.label(metricId), MetricRegistry.formatValue(metricId, value));
+        }
+    }
+
+    private final int[] patientIds;
+    private final long[] timestamps;
+    private final String[] labels;
+    private final String[] data;
+    private final int[] metricIds; // -1 for records queued with a label and text
+    private final double[] values;
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private int head; // Next slot to drain
+    private int size;
+    private boolean closed;
+
+    OutputQueue(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be at least 1: " + capacity);
+        }
+        this.capacity = capacity;
+        patientIds = new int[capacity];
+        timestamps = new long[capacity];
+        labels = new String[capacity];
+        data = new String[capacity];
+        metricIds = new int[capacity];
+        values = new double[capacity];
+    }
+
+    /**
+     * Appends a record, waiting for space if the queue is full.
+     *
+     * @return false if the queue has been closed
+     */
+    boolean put(int patientId, long timestamp, String label, String value) {
+        lock.lock();
+        try {
+            while (size == capacity && !closed) {
+                notFull.awaitUninterruptibly();
+            }
+            if (closed) {
+                return false;
+            }
+            enqueue(patientId, timestamp, label, value, -1, 0);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a primitive record, waiting for space if the queue is full.
+     *
+     * @return false if the queue has been closed
+     */
+    boolean put(int patientId, long timestamp, int metricId, double value) {
+        lock.lock();
+        try {
+            while (size == capacity && !closed) {
+                notFull.awaitUninterruptibly();
+            }
+            if (closed) {
+                return false;
+            }
+            enqueue(patientId, timestamp, null, null, metricId, value);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a record if there is space, without waiting.
+     *
+     * @return false if the queue is full or closed
+     */
+    boolean offer(int patientId, long timestamp, String label, String value) {
+        lock.lock();
+        try {
+            if (size == capacity || closed) {
+                return false;
+            }
+            enqueue(patientId, timestamp, label, value, -1, 0);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a primitive record if there is space, without waiting.
+     *
+     * @return false if the queue is full or closed
+     */
+    boolean offer(int patientId, long timestamp, int metricId, double value) {
+        lock.lock();
+        try {
+            if (size == capacity || closed) {
+                return false;
+            }
+            enqueue(patientId, timestamp, null, null, metricId, value);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends every sample in the batch, in order, under a single lock acquisition
+     * unless the queue fills up part way through.
+     *
+     * @return false if the queue was closed before every sample was appended
+     */
+    boolean putAll(SampleBatch batch) {
+        lock.lock();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                while (size == capacity && !closed) {
+                    notFull.awaitUninterruptibly();
+                }
+                if (closed) {
+                    return false;
+                }
+                enqueue(batch.getPatientId(i), batch.getTimestamp(i), null, null, batch.getMetricId(i),
+                        batch.getValue(i));
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends as many samples from the batch as there is space for, in order,
+     * without waiting.
+     *
+     * @return the number of samples appended
+     */
+    int offerAll(SampleBatch batch) {
+        lock.lock();
+        try {
+            if (closed) {
+                return 0;
+            }
+            int count = Math.min(batch.size(), capacity - size);
+            for (int i = 0; i < count; i++) {
+                enqueue(batch.getPatientId(i), batch.getTimestamp(i), null, null, batch.getMetricId(i),
+                        batch.getValue(i));
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueue(int patientId, long timestamp, String label, String text, int metricId, double value) {
+        int slot = (head + size) % capacity;
+        patientIds[slot] = patientId;
+        timestamps[slot] = timestamp;
+        labels[slot] = label;
+        data[slot] = text;
+        metricIds[slot] = metricId;
+        values[slot] = value;
+        if (size++ == 0) {
+            notEmpty.signal();
+        }
+    }
+
+    /**
+     * Waits up to the given time for records and passes every available record to
+     * the handler. Must only be called from the single consumer thread. A record
+     * whose handler throws is reported and skipped.
+     *
+     * @return the number of records drained, or -1 if the queue is closed and empty
+     */
+    int drain(RecordHandler handler, long timeoutMillis) throws InterruptedException {
+        int start;
+        int count;
+        lock.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (size == 0 && !closed && remaining > 0) {
+                remaining = notEmpty.awaitNanos(remaining);
+            }
+            if (size == 0) {
+                return closed ? -1 : 0;
+            }
+            start = head;
+            count = size;
+        } finally {
+            lock.unlock();
+        }
+
+        for (int i = 0; i < count; i++) {
+            int slot = (start + i) % capacity;
+            try {
+                if (metricIds[slot] >= 0) {
+                    handler.handle(patientIds[slot], timestamps[slot], metricIds[slot], values[slot]);
+                } else {
+                    handler.handle(patientIds[slot], timestamps[slot], labels[slot], data[slot]);
+                }
+            } catch (RuntimeException e) {
+                // One bad record must not stop the consumer, or producers would wait on a full queue forever
+                System.err.println("Error handling record for patient " + patientIds[slot] + ": " + e);
+                e.printStackTrace();
+            }
+            labels[slot] = null;
+            data[slot] = null;
+        }
+
+        lock.lock();
+        try {
+            head = (head + count) % capacity;
+            size -= count;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of records waiting to be drained.
+     */
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rejects further records and wakes the consumer so it can finish draining.
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -16,4 +16,41 @@ public interface OutputStrategy {
      * @param data       The actual data value to output, formatted as a String
      */
     void output(int patientId, long timestamp, String label, String data);
+
+    /**
+     * Outputs a numeric sample identified by a {@link MetricRegistry} ID. This is the
+     * path generators use; it lets sinks avoid building strings until they write
+     * text, or avoid text entirely. The default formats the value and delegates
+     * to {@link #output(int, long, String, String)}.
+     *
+     * @param patientId  The unique identifier of the patient
+     * @param timestamp  The timestamp at which the data was recorded, in milliseconds since epoch
+     * @param metricId   The metric the value belongs to, as registered in {@link MetricRegistry}
+     * @param value      The value
+     */
+    default void output(int patientId, long timestamp, int metricId, double value) {
+        output(patientId, timestamp, MetricRegistry.label(metricId), MetricRegistry.formatValue(metricId, value));
+    }
+
+    /**
+     * Outputs every sample in a batch, in order. Sinks override this to take their
+     * lock, build their text and write once per batch. The default passes each
+     * sample to {@link #output(int, long, int, double)}.
+     *
+     * <p>The batch belongs to the caller and may be reused as soon as this returns.
+     *
+     * @param batch The samples to output
+     */
+    default void outputBatch(SampleBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            output(batch.getPatientId(i), batch.getTimestamp(i), batch.getMetricId(i), batch.getValue(i));
+        }
+    }
+
+    /**
+     * Releases any resources held by this strategy, such as open files or sockets,
+     * after writing out data that is still buffered. The default does nothing.
+     */
+    default void close() {
+    }
 }
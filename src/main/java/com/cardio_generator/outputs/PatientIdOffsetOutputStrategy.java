@@ -0,0 +1,64 @@
+package com.cardio_generator.outputs;
+
+/**
+ * Output strategy that shifts every patient ID by a fixed offset before passing
+ * the record on. A simulator process that generates patients 1 to n locally
+ * uses it to publish them as its assigned range of global patient IDs, so
+ * several processes never produce the same patient.
+ */
+public class PatientIdOffsetOutputStrategy implements OutputStrategy {
+    private final OutputStrategy delegate;
+    private final int offset;
+    private final ThreadLocal<SampleBatch> shiftedBatches = ThreadLocal.withInitial(() -> new SampleBatch(64));
+
+    /**
+     * Creates an output that adds the offset to patient IDs.
+     *
+     * @param delegate the output to pass the records to
+     * @param offset   the number added to every patient ID
+     */
+    public PatientIdOffsetOutputStrategy(OutputStrategy delegate, int offset) {
+        this.delegate = delegate;
+        this.offset = offset;
+    }
+
+    /**
+     * Returns the number added to every patient ID.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public void output(int patientId, long timestamp, String label, String data) {
+        delegate.output(patientId + offset, timestamp, label, data);
+    }
+
+    @Override
+    public void output(int patientId, long timestamp, int metricId, double value) {
+        delegate.output(patientId + offset, timestamp, metricId, value);
+    }
+
+    /**
+     * Passes on a copy of the batch with shifted patient IDs; the caller's batch
+     * is left unchanged.
+     *
+     * @param batch The samples to output
+     */
+    @Override
+    public void outputBatch(SampleBatch batch) {
+        SampleBatch shifted = shiftedBatches.get();
+        shifted.clear();
+        for (int i = 0; i < batch.size(); i++) {
+            shifted.add(batch.getPatientId(i) + offset, batch.getTimestamp(i), batch.getMetricId(i),
+                    batch.getValue(i));
+        }
+        delegate.outputBatch(shifted);
+        shifted.clear();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
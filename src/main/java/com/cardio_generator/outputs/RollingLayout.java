@@ -0,0 +1,86 @@
+package com.cardio_generator.outputs;
+
+/**
+ * Describes how {@link FileOutputStrategy} partitions a label's records into
+ * segment files: by fixed time window and, optionally, by patient ID range.
+ *
+ * <p>Segments are written to {@code <base>/<label>/<label>-<windowStart>[-p<firstPatient>].txt},
+ * where {@code windowStart} is the window's start in milliseconds since epoch.
+ * Each segment has a {@link SegmentIndex} sidecar.
+ */
+public final class RollingLayout {
+    public static final int DEFAULT_INDEX_BLOCK_BYTES = 64 * 1024;
+
+    private final long windowMillis;
+    private final int patientsPerSegment;
+    private final int indexBlockBytes;
+
+    /**
+     * Creates a layout with the default index block size.
+     *
+     * @param windowMillis       the length of each time window, e.g. 3600000 for hourly segments
+     * @param patientsPerSegment the number of patient IDs per segment, or 0 to not partition by patient
+     */
+    public RollingLayout(long windowMillis, int patientsPerSegment) {
+        this(windowMillis, patientsPerSegment, DEFAULT_INDEX_BLOCK_BYTES);
+    }
+
+    /**
+     * Creates a layout.
+     *
+     * @param windowMillis       the length of each time window
+     * @param patientsPerSegment the number of patient IDs per segment, or 0 to not partition by patient
+     * @param indexBlockBytes    the approximate number of bytes covered by one index block
+     */
+    public RollingLayout(long windowMillis, int patientsPerSegment, int indexBlockBytes) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("Window must be positive: " + windowMillis);
+        }
+        if (patientsPerSegment < 0) {
+            throw new IllegalArgumentException("Patients per segment must not be negative: " + patientsPerSegment);
+        }
+        this.windowMillis = windowMillis;
+        this.patientsPerSegment = patientsPerSegment;
+        this.indexBlockBytes = indexBlockBytes;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public int getPatientsPerSegment() {
+        return patientsPerSegment;
+    }
+
+    public int getIndexBlockBytes() {
+        return indexBlockBytes;
+    }
+
+    /**
+     * Returns the start of the window containing the timestamp.
+     */
+    public long windowStart(long timestamp) {
+        return Math.floorDiv(timestamp, windowMillis) * windowMillis;
+    }
+
+    /**
+     * Returns the first patient ID of the partition containing the patient,
+     * or 0 when the layout does not partition by patient.
+     */
+    public int partitionStart(int patientId) {
+        if (patientsPerSegment == 0) {
+            return 0;
+        }
+        return Math.floorDiv(patientId, patientsPerSegment) * patientsPerSegment;
+    }
+
+    /**
+     * Returns the segment file name, without directory, for a label, window and partition.
+     */
+    public String segmentFileName(String label, long windowStart, int partitionStart) {
+        if (patientsPerSegment == 0) {
+            return label + "-" + windowStart + ".txt";
+        }
+        return label + "-" + windowStart + "-p" + partitionStart + ".txt";
+    }
+}
@@ -0,0 +1,102 @@
+package com.cardio_generator.outputs;
+
+import java.util.Arrays;
+
+/**
+ * A reusable, column-oriented batch of numeric samples on their way to an
+ * {@link OutputStrategy}. Generators fill a batch for one tick and hand it to
+ * {@link OutputStrategy#outputBatch(SampleBatch)}, so a sink can take its lock,
+ * format its text and make its system call once per batch instead of once per
+ * sample.
+ *
+ * <p>A batch is not thread-safe; each generating thread should own its own instance.
+ */
+public class SampleBatch {
+    private int[] patientIds;
+    private long[] timestamps;
+    private int[] metricIds;
+    private double[] values;
+    private int size;
+
+    /**
+     * Constructs an empty batch with the given initial capacity.
+     * The batch grows automatically if more samples are added.
+     *
+     * @param capacity the initial number of samples the batch can hold
+     */
+    public SampleBatch(int capacity) {
+        int initial = Math.max(capacity, 1);
+        patientIds = new int[initial];
+        timestamps = new long[initial];
+        metricIds = new int[initial];
+        values = new double[initial];
+    }
+
+    /**
+     * Appends a sample to the batch.
+     *
+     * @param patientId the unique identifier of the patient
+     * @param timestamp the time of the sample, in milliseconds since the Unix epoch
+     * @param metricId  the metric the value belongs to, as registered in {@link MetricRegistry}
+     * @param value     the value
+     */
+    public void add(int patientId, long timestamp, int metricId, double value) {
+        if (size == patientIds.length) {
+            grow();
+        }
+        patientIds[size] = patientId;
+        timestamps[size] = timestamp;
+        metricIds[size] = metricId;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Removes all samples from the batch so it can be reused.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the number of samples currently held in the batch.
+     *
+     * @return the sample count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the batch holds no samples.
+     *
+     * @return whether the batch is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getPatientId(int index) {
+        return patientIds[index];
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    public int getMetricId(int index) {
+        return metricIds[index];
+    }
+
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    private void grow() {
+        int capacity = patientIds.length * 2;
+        patientIds = Arrays.copyOf(patientIds, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        metricIds = Arrays.copyOf(metricIds, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+}
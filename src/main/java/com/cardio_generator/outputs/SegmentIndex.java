@@ -0,0 +1,265 @@
+package com.cardio_generator.outputs;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sidecar index of a rolling output segment. It records the timestamp and
+ * patient ID ranges of the whole segment and of each block of lines, together
+ * with the block's byte offset, so readers can skip segments that cannot match
+ * a query and seek straight to the blocks that can.
+ *
+ * <p>Blocks always start at a line boundary. The index is stored next to the
+ * segment with the {@value #FILE_EXTENSION} extension.
+ */
+public final class SegmentIndex {
+    public static final String FILE_EXTENSION = ".idx";
+    private static final int MAGIC = 0x53494458; // "SIDX"
+    private static final int VERSION = 1;
+
+    private final int blockSize;
+    private final List<Block> blocks = new ArrayList<>();
+    private long minTimestamp = Long.MAX_VALUE;
+    private long maxTimestamp = Long.MIN_VALUE;
+    private int minPatientId = Integer.MAX_VALUE;
+    private int maxPatientId = Integer.MIN_VALUE;
+    private long recordCount;
+
+    /**
+     * Creates an empty index that starts a new block every {@code blockSize} bytes.
+     *
+     * @param blockSize the approximate number of bytes covered by one block
+     */
+    public SegmentIndex(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Registers a line written to the segment.
+     *
+     * @param offset    the byte offset of the line in the segment
+     * @param length    the length of the line in bytes, including the line separator
+     * @param patientId the patient ID of the record
+     * @param timestamp the timestamp of the record
+     */
+    public void add(long offset, int length, int patientId, long timestamp) {
+        Block block = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+        if (block == null || block.length >= blockSize || block.offset + block.length != offset) {
+            block = new Block(offset);
+            blocks.add(block);
+        }
+        block.include(length, patientId, timestamp);
+
+        minTimestamp = Math.min(minTimestamp, timestamp);
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+        minPatientId = Math.min(minPatientId, patientId);
+        maxPatientId = Math.max(maxPatientId, patientId);
+        recordCount++;
+    }
+
+    /**
+     * Registers existing bytes whose contents are unknown, for example a segment
+     * that was written without an index. The block matches every query.
+     *
+     * @param offset the byte offset where the unknown region starts
+     * @param length the length of the region in bytes
+     */
+    public void addUnknown(long offset, long length) {
+        Block block = new Block(offset);
+        block.length = length;
+        block.minTimestamp = Long.MIN_VALUE;
+        block.maxTimestamp = Long.MAX_VALUE;
+        block.minPatientId = Integer.MIN_VALUE;
+        block.maxPatientId = Integer.MAX_VALUE;
+        blocks.add(block);
+        minTimestamp = Long.MIN_VALUE;
+        maxTimestamp = Long.MAX_VALUE;
+        minPatientId = Integer.MIN_VALUE;
+        maxPatientId = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns true if any record of the segment may fall in the given ranges.
+     *
+     * @param startTime     the start of the time range, inclusive
+     * @param endTime       the end of the time range, inclusive
+     * @param fromPatientId the lowest patient ID of interest, inclusive
+     * @param toPatientId   the highest patient ID of interest, inclusive
+     * @return false if the segment can be skipped
+     */
+    public boolean overlaps(long startTime, long endTime, int fromPatientId, int toPatientId) {
+        return !blocks.isEmpty() && minTimestamp <= endTime && maxTimestamp >= startTime
+                && minPatientId <= toPatientId && maxPatientId >= fromPatientId;
+    }
+
+    /**
+     * Returns the blocks that may contain records in the given ranges, in file order.
+     */
+    public List<Block> findBlocks(long startTime, long endTime, int fromPatientId, int toPatientId) {
+        List<Block> matches = new ArrayList<>();
+        for (Block block : blocks) {
+            if (block.overlaps(startTime, endTime, fromPatientId, toPatientId)) {
+                matches.add(block);
+            }
+        }
+        return matches;
+    }
+
+    public List<Block> getBlocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    public long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    public long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    public int getMinPatientId() {
+        return minPatientId;
+    }
+
+    public int getMaxPatientId() {
+        return maxPatientId;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Returns the sidecar index path for a segment file.
+     *
+     * @param segment the segment file
+     * @return the path of its index
+     */
+    public static Path indexPathFor(Path segment) {
+        String name = segment.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot < 0 ? name : name.substring(0, dot);
+        return segment.resolveSibling(base + FILE_EXTENSION);
+    }
+
+    /**
+     * Writes the index, replacing any previous version atomically so readers
+     * never see a partially written index.
+     *
+     * @param path the index file to write
+     * @throws IOException if the index cannot be written
+     */
+    public void write(Path path) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream file = Files.newOutputStream(temporary);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(blockSize);
+            out.writeLong(minTimestamp);
+            out.writeLong(maxTimestamp);
+            out.writeInt(minPatientId);
+            out.writeInt(maxPatientId);
+            out.writeLong(recordCount);
+            out.writeInt(blocks.size());
+            for (Block block : blocks) {
+                out.writeLong(block.offset);
+                out.writeLong(block.length);
+                out.writeLong(block.minTimestamp);
+                out.writeLong(block.maxTimestamp);
+                out.writeInt(block.minPatientId);
+                out.writeInt(block.maxPatientId);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads an index written by {@link #write(Path)}.
+     *
+     * @param path the index file
+     * @return the index
+     * @throws IOException if the file cannot be read or is not a segment index
+     */
+    public static SegmentIndex read(Path path) throws IOException {
+        try (InputStream file = Files.newInputStream(path);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a segment index: " + path);
+            }
+            SegmentIndex index = new SegmentIndex(in.readInt());
+            index.minTimestamp = in.readLong();
+            index.maxTimestamp = in.readLong();
+            index.minPatientId = in.readInt();
+            index.maxPatientId = in.readInt();
+            index.recordCount = in.readLong();
+            int blockCount = in.readInt();
+            for (int i = 0; i < blockCount; i++) {
+                Block block = new Block(in.readLong());
+                block.length = in.readLong();
+                block.minTimestamp = in.readLong();
+                block.maxTimestamp = in.readLong();
+                block.minPatientId = in.readInt();
+                block.maxPatientId = in.readInt();
+                index.blocks.add(block);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * A contiguous run of whole lines within a segment.
+     */
+    public static final class Block {
+        private final long offset;
+        private long length;
+        private long minTimestamp = Long.MAX_VALUE;
+        private long maxTimestamp = Long.MIN_VALUE;
+        private int minPatientId = Integer.MAX_VALUE;
+        private int maxPatientId = Integer.MIN_VALUE;
+
+        private Block(long offset) {
+            this.offset = offset;
+        }
+
+        private void include(int lineLength, int patientId, long timestamp) {
+            length += lineLength;
+            minTimestamp = Math.min(minTimestamp, timestamp);
+            maxTimestamp = Math.max(maxTimestamp, timestamp);
+            minPatientId = Math.min(minPatientId, patientId);
+            maxPatientId = Math.max(maxPatientId, patientId);
+        }
+
+        boolean overlaps(long startTime, long endTime, int fromPatientId, int toPatientId) {
+            return minTimestamp <= endTime && maxTimestamp >= startTime
+                    && minPatientId <= toPatientId && maxPatientId >= fromPatientId;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public long getMinTimestamp() {
+            return minTimestamp;
+        }
+
+        public long getMaxTimestamp() {
+            return maxTimestamp;
+        }
+    }
+}
@@ -1,20 +1,58 @@
 package com.cardio_generator.outputs;
 
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.concurrent.Executors;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Implements the OutputStrategy interface to output patient data over a TCP connection.
  * This class sets up a TCP server to accept connections from clients and sends data to connected clients.
+ *
+ * <p>Any number of clients may connect or disconnect at any time. Each record is
+ * formatted once and copied into every client's bounded ring buffer; a single
+ * selector thread writes those buffers to the sockets without blocking, so many
+ * records go out per system call. A client whose buffer is full is handled
+ * according to the {@link SlowConsumerPolicy}, and never stalls the simulator.
  */
 public class TcpOutputStrategy implements OutputStrategy {
 
-    private ServerSocket serverSocket;
-    private Socket clientSocket;
-    private PrintWriter out;
+    /**
+     * What to do with a record when a client's buffer has no room for it.
+     */
+    public enum SlowConsumerPolicy {
+        /** Skip the record for that client and count it as dropped. */
+        DROP,
+        /** Disconnect the client. */
+        DISCONNECT
+    }
+
+    public static final int DEFAULT_CLIENT_BUFFER_BYTES = 1024 * 1024;
+    private static final int MAX_LINE_BYTES = 512;
+    private static final int LINE_OVERHEAD = 48; // Two numbers, separators and newline
+
+    private final int clientBufferBytes;
+    private final SlowConsumerPolicy policy;
+    private final List<Client> clients = new CopyOnWriteArrayList<>();
+    private final Queue<Client> writeRequests = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private final AtomicLong droppedRecords = new AtomicLong();
+    private final ThreadLocal<LineBuffer> lineBuffers = ThreadLocal.withInitial(LineBuffer::new);
+    private ServerSocketChannel serverChannel;
+    private Selector selector;
+    private Thread selectorThread;
+    private volatile boolean running;
 
     /**
      * Creates a new TCP output strategy on the specified port.
@@ -23,27 +61,67 @@ public class TcpOutputStrategy implements OutputStrategy {
      * @param port The port number on which the TCP server will listen for connections
      */
     public TcpOutputStrategy(int port) {
+        this(port, DEFAULT_CLIENT_BUFFER_BYTES, SlowConsumerPolicy.DROP);
+    }
+
+    /**
+     * Creates a new TCP output strategy with explicit buffering and slow-consumer policy.
+     *
+     * @param port              The port number on which the TCP server will listen, or 0 for an ephemeral port
+     * @param clientBufferBytes The size of each client's ring buffer
+     * @param policy            What to do when a client's buffer is full
+     */
+    public TcpOutputStrategy(int port, int clientBufferBytes, SlowConsumerPolicy policy) {
+        this.clientBufferBytes = clientBufferBytes;
+        this.policy = policy;
         try {
-            serverSocket = new ServerSocket(port);
-            System.out.println("TCP Server started on port " + port);
-
-            // Accept clients in a new thread to avoid blocking the main thread
-            Executors.newSingleThreadExecutor().submit(() -> {
-                try {
-                    clientSocket = serverSocket.accept();
-                    out = new PrintWriter(clientSocket.getOutputStream(), true);
-                    System.out.println("Client connected: " + clientSocket.getInetAddress());
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            });
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.configureBlocking(false);
+            serverChannel.bind(new InetSocketAddress(port));
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            System.out.println("TCP Server started on port " + getPort());
+
+            // Accept and write on a dedicated thread to avoid blocking the generators
+            running = true;
+            selectorThread = new Thread(this::run, "tcp-output-" + getPort());
+            selectorThread.setDaemon(true);
+            selectorThread.start();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * Sends formatted patient data to the connected TCP client.
+     * Returns the port the server is listening on.
+     *
+     * @return the local port, or -1 if the server could not be started
+     */
+    public int getPort() {
+        return serverChannel != null && serverChannel.socket().isBound() ? serverChannel.socket().getLocalPort() : -1;
+    }
+
+    /**
+     * Returns the number of currently connected clients.
+     *
+     * @return the client count
+     */
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * Returns the number of records skipped for clients whose buffer was full,
+     * summed over all clients.
+     *
+     * @return the dropped record count
+     */
+    public long getDroppedRecords() {
+        return droppedRecords.get();
+    }
+
+    /**
+     * Sends formatted patient data to every connected TCP client.
      *
      * @param patientId  The unique identifier of the patient
      * @param timestamp  The timestamp at which the data was recorded, in milliseconds since epoch
@@ -52,9 +130,341 @@ public class TcpOutputStrategy implements OutputStrategy {
      */
     @Override
     public void output(int patientId, long timestamp, String label, String data) {
-        if (out != null) {
-            String message = String.format("%d,%d,%s,%s", patientId, timestamp, label, data);
-            out.println(message);
+        if (clients.isEmpty()) {
+            return;
+        }
+        send(patientId, timestamp, label, data);
+    }
+
+    /**
+     * Sends a numeric sample to every connected TCP client, formatting it into
+     * reused per-thread buffers.
+     *
+     * @param patientId  The unique identifier of the patient
+     * @param timestamp  The timestamp at which the data was recorded, in milliseconds since epoch
+     * @param metricId   The metric the value belongs to
+     * @param value      The value
+     */
+    @Override
+    public void output(int patientId, long timestamp, int metricId, double value) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        StringBuilder text = lineBuffers.get().value;
+        text.setLength(0);
+        MetricRegistry.appendValue(text, metricId, value);
+        send(patientId, timestamp, MetricRegistry.label(metricId), text);
+    }
+
+    /**
+     * Sends a whole batch to every connected TCP client. The lines are formatted
+     * once into one buffer, which is copied into each client's ring with a single
+     * lock acquisition and goes out in as few writes as the socket allows.
+     *
+     * @param batch The samples to output
+     */
+    @Override
+    public void outputBatch(SampleBatch batch) {
+        if (clients.isEmpty() || batch.isEmpty()) {
+            return;
+        }
+        LineBuffer buffer = lineBuffers.get();
+        StringBuilder text = buffer.value;
+        int length = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            int metricId = batch.getMetricId(i);
+            String label = MetricRegistry.label(metricId);
+            text.setLength(0);
+            MetricRegistry.appendValue(text, metricId, batch.getValue(i));
+            buffer.ensureCapacity(length + label.length() + text.length() + LINE_OVERHEAD);
+            length = formatLine(buffer.bytes, length, batch.getPatientId(i), batch.getTimestamp(i), label, text);
+        }
+        for (Client client : clients) {
+            client.append(buffer.bytes, length, batch.size());
+        }
+    }
+
+    private void send(int patientId, long timestamp, String label, CharSequence data) {
+        if (label.length() + data.length() + LINE_OVERHEAD > MAX_LINE_BYTES) {
+            System.err.println("Record too long for TCP output: " + label);
+            return;
+        }
+        byte[] line = lineBuffers.get().bytes;
+        int length = formatLine(line, 0, patientId, timestamp, label, data);
+        for (Client client : clients) {
+            client.append(line, length, 1);
+        }
+    }
+
+    /**
+     * Disconnects every client and stops the server.
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+        if (selectorThread != null) {
+            try {
+                selectorThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Formats "patientId,timestamp,label,data\n" into the buffer at the given
+     * position. The caller makes sure it fits.
+     *
+     * @return the position after the line
+     */
+    private static int formatLine(byte[] line, int position, int patientId, long timestamp, String label,
+            CharSequence data) {
+        position = putLong(line, position, patientId);
+        line[position++] = ',';
+        position = putLong(line, position, timestamp);
+        line[position++] = ',';
+        position = putText(line, position, label);
+        line[position++] = ',';
+        position = putText(line, position, data);
+        line[position++] = '\n';
+        return position;
+    }
+
+    private static int putLong(byte[] line, int position, long value) {
+        // Written in place: epoch-millisecond timestamps are too large for a cached small-number path
+        if (value < 0) {
+            line[position++] = '-';
+            if (value == Long.MIN_VALUE) {
+                return putText(line, position, "9223372036854775808");
+            }
+            value = -value;
+        }
+        int start = position;
+        do {
+            line[position++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (int i = start, j = position - 1; i < j; i++, j--) {
+            byte tmp = line[i];
+            line[i] = line[j];
+            line[j] = tmp;
+        }
+        return position;
+    }
+
+    private static int putText(byte[] line, int position, CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            line[position++] = c < 0x80 ? (byte) c : (byte) '?';
+        }
+        return position;
+    }
+
+    /**
+     * Asks the selector thread to write a client's buffer, waking it at most once
+     * per selector round no matter how many records arrive in between.
+     */
+    private void requestWrite(Client client) {
+        writeRequests.add(client);
+        if (wakeupPending.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Selector loop: accepts clients, watches for disconnects and writes pending
+     * buffers. Write interest is only registered while a client's socket is full.
+     */
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                wakeupPending.set(false);
+
+                Client requested;
+                while ((requested = writeRequests.poll()) != null) {
+                    requested.flush();
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Client client = (Client) key.attachment();
+                    if (key.isReadable()) {
+                        client.readAndDiscard();
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        client.flush();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("TCP output server error: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            for (Client client : clients) {
+                client.disconnect();
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                System.err.println("Error closing TCP output server: " + e.getMessage());
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            Client client = new Client(channel);
+            client.key = channel.register(selector, SelectionKey.OP_READ, client);
+            clients.add(client);
+            System.out.println("Client connected: " + channel.getRemoteAddress());
+        }
+    }
+
+    /**
+     * A formatting thread's reusable line bytes and value text.
+     */
+    private static final class LineBuffer {
+        private byte[] bytes = new byte[MAX_LINE_BYTES];
+        private final StringBuilder value = new StringBuilder(32);
+
+        void ensureCapacity(int capacity) {
+            if (capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+            }
+        }
+    }
+
+    /**
+     * A connected client and its ring buffer. Producers append under the client's
+     * lock; only the selector thread writes from the buffer to the socket.
+     */
+    private final class Client {
+        private final SocketChannel channel;
+        private final byte[] ring = new byte[clientBufferBytes];
+        private final ByteBuffer view = ByteBuffer.wrap(ring); // Used by the selector thread only
+        private final ByteBuffer discard = ByteBuffer.allocate(256); // Used by the selector thread only
+        private SelectionKey key;
+        private long head; // Total bytes written to the socket
+        private long tail; // Total bytes appended
+        private boolean closed;
+        private boolean disconnectRequested;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void append(byte[] line, int length, int records) {
+            boolean wasEmpty;
+            synchronized (this) {
+                if (closed || disconnectRequested) {
+                    return;
+                }
+                if (ring.length - (tail - head) < length) {
+                    droppedRecords.addAndGet(records);
+                    if (policy == SlowConsumerPolicy.DISCONNECT) {
+                        disconnectRequested = true;
+                        requestWrite(this);
+                    }
+                    return;
+                }
+                int start = (int) (tail % ring.length);
+                int firstPart = Math.min(length, ring.length - start);
+                System.arraycopy(line, 0, ring, start, firstPart);
+                System.arraycopy(line, firstPart, ring, 0, length - firstPart);
+                wasEmpty = tail == head;
+                tail += length;
+            }
+            if (wasEmpty) {
+                requestWrite(this);
+            }
+        }
+
+        /**
+         * Writes as much buffered data as the socket accepts without blocking.
+         */
+        void flush() {
+            long start;
+            long end;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (disconnectRequested) {
+                    System.err.println("Disconnecting slow TCP client");
+                    disconnect();
+                    return;
+                }
+                start = head;
+                end = tail;
+            }
+            try {
+                while (start < end) {
+                    int offset = (int) (start % ring.length);
+                    int length = (int) Math.min(end - start, ring.length - offset);
+                    view.limit(offset + length).position(offset);
+                    int written = channel.write(view);
+                    if (written == 0) {
+                        break; // Socket send buffer is full
+                    }
+                    start += written;
+                }
+            } catch (IOException e) {
+                disconnect();
+                return;
+            }
+            synchronized (this) {
+                head = start;
+                boolean pending = head < tail;
+                if (key.isValid()) {
+                    // Only ask to be woken for writability while the socket is backed up
+                    key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+                }
+            }
+        }
+
+        void readAndDiscard() {
+            try {
+                discard.clear();
+                if (channel.read(discard) < 0) {
+                    disconnect();
+                }
+            } catch (IOException e) {
+                disconnect();
+            }
+        }
+
+        void disconnect() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            clients.remove(this);
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing TCP client: " + e.getMessage());
+            }
         }
     }
 }
@@ -8,10 +8,14 @@ import org.java_websocket.server.WebSocketServer;
 /**
  * An implementation of OutputStrategy that sends patient data to connected clients over WebSocket.
  * It starts a WebSocket server on the given port and broadcasts data to all clients.
+ *
+ * <p>Each message holds one record as {@code patientId,timestamp,label,data}. Batches
+ * are sent as one message with one record per line.
  */
 public class WebSocketOutputStrategy implements OutputStrategy {
 
     private WebSocketServer server;
+    private final ThreadLocal<StringBuilder> messageBuilders = ThreadLocal.withInitial(() -> new StringBuilder(64));
 
     /**
      * Constructs a WebSocketOutputStrategy that starts a WebSocket server on the specified port.
@@ -40,6 +44,57 @@ public class WebSocketOutputStrategy implements OutputStrategy {
         }
 
         String message = String.format("%d,%d,%s,%s", patientId, timestamp, label, data);
+        broadcast(message);
+    }
+
+    /**
+     * Sends a numeric sample to all connected WebSocket clients. The message text
+     * is built once in a reused per-thread builder, and only when clients are connected.
+     *
+     * @param patientId  The unique identifier of the patient
+     * @param timestamp  The timestamp at which the data was recorded, in milliseconds since epoch
+     * @param metricId   The metric the value belongs to
+     * @param value      The value
+     */
+    @Override
+    public void output(int patientId, long timestamp, int metricId, double value) {
+        if (server.getConnections().isEmpty()) {
+            return;
+        }
+        StringBuilder message = messageBuilders.get();
+        message.setLength(0);
+        message.append(patientId).append(',').append(timestamp).append(',')
+                .append(MetricRegistry.label(metricId)).append(',');
+        MetricRegistry.appendValue(message, metricId, value);
+        broadcast(message.toString());
+    }
+
+    /**
+     * Sends a whole batch to all connected WebSocket clients as a single text frame,
+     * one record per line.
+     *
+     * @param batch The samples to output
+     */
+    @Override
+    public void outputBatch(SampleBatch batch) {
+        if (batch.isEmpty() || server.getConnections().isEmpty()) {
+            return;
+        }
+        StringBuilder message = messageBuilders.get();
+        message.setLength(0);
+        for (int i = 0; i < batch.size(); i++) {
+            int metricId = batch.getMetricId(i);
+            if (i > 0) {
+                message.append('\n');
+            }
+            message.append(batch.getPatientId(i)).append(',').append(batch.getTimestamp(i)).append(',')
+                    .append(MetricRegistry.label(metricId)).append(',');
+            MetricRegistry.appendValue(message, metricId, batch.getValue(i));
+        }
+        broadcast(message.toString());
+    }
+
+    private void broadcast(String message) {
         // Broadcast the message to all connected clients
         for (WebSocket conn : server.getConnections()) {
             try {
@@ -0,0 +1,159 @@
+package com.data_management;
+
+import java.io.IOException;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.cardio_generator.outputs.BinarySampleFormat;
+
+/**
+ * Reads the binary segments written by {@code BinaryFileOutputStrategy}.
+ *
+ * <p>Segments are memory-mapped and decoded straight from the mapping, with no
+ * text parsing and no per-record allocation besides the stored records
+ * themselves. Records are handed to {@link DataStorage} in large batches.
+ */
+public class BinaryFileDataReader implements DataReader {
+    private static final int BATCH_SIZE = 64 * 1024;
+    private static final int MESSAGE_LINES = 1024;
+    // Mapped in windows so segments of any size can be read
+    private static final long MAP_WINDOW_BYTES = (1L << 30) / BinarySampleFormat.RECORD_BYTES
+            * BinarySampleFormat.RECORD_BYTES;
+
+    /**
+     * Receives decoded samples in file order.
+     */
+    public interface SampleHandler {
+        void handle(int patientId, long timestamp, String recordType, double value);
+    }
+
+    private final String outputDirectory;
+
+    /**
+     * Constructs a BinaryFileDataReader for the specified output directory.
+     *
+     * @param outputDirectory the directory containing the segment files
+     */
+    public BinaryFileDataReader(String outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    /**
+     * Sends every record over the WebSocket as text, many records per message
+     * with one record per line.
+     *
+     * @param socket the WebSocket connection to send the records to
+     * @throws IOException if there is an error reading the data
+     */
+    @Override
+    public void readData(WebSocket socket) throws IOException {
+        StringBuilder message = new StringBuilder();
+        int[] lines = new int[1];
+        readSamples((patientId, timestamp, recordType, value) -> {
+            if (lines[0] > 0) {
+                message.append('\n');
+            }
+            message.append(patientId).append(',').append(timestamp).append(',').append(recordType).append(',')
+                    .append(value);
+            if (++lines[0] == MESSAGE_LINES) {
+                socket.sendText(message.toString(), true).join();
+                message.setLength(0);
+                lines[0] = 0;
+            }
+        });
+        if (lines[0] > 0) {
+            socket.sendText(message.toString(), true).join();
+        }
+    }
+
+    /**
+     * Loads every record in the output directory into the storage.
+     *
+     * @param storage the storage where data will be stored
+     * @throws IOException if there is an error reading the data
+     */
+    public void readData(DataStorage storage) throws IOException {
+        RecordBatch batch = new RecordBatch(BATCH_SIZE);
+        readSamples((patientId, timestamp, recordType, value) -> {
+            batch.add(patientId, value, recordType, timestamp);
+            if (batch.size() == BATCH_SIZE) {
+                storage.addPatientData(batch);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            storage.addPatientData(batch);
+        }
+    }
+
+    /**
+     * Decodes every record of every segment, in segment order, and passes it to the handler.
+     *
+     * @param handler receives the samples
+     * @return the number of bytes of segment data read
+     * @throws IOException if there is an error reading the data
+     */
+    public long readSamples(SampleHandler handler) throws IOException {
+        Path directory = Paths.get(outputDirectory);
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("Invalid output directory: " + outputDirectory);
+        }
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(path -> path.toString().endsWith(BinarySampleFormat.FILE_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        long bytes = 0;
+        for (Path segment : segments) {
+            bytes += readSegment(segment, handler);
+        }
+        return bytes;
+    }
+
+    private long readSegment(Path path, SampleHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            BinarySampleFormat.Header header = BinarySampleFormat.decodeHeader(
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, 64 * 1024)));
+            String[] recordTypes = new String[header.getMetricCount()];
+            for (int i = 0; i < recordTypes.length; i++) {
+                recordTypes[i] = header.getLabel(i).intern(); // Shared with the labels used everywhere else
+            }
+
+            long position = header.getDataOffset();
+            long end = position + header.recordCount(size) * BinarySampleFormat.RECORD_BYTES;
+            while (position < end) {
+                long length = Math.min(end - position, MAP_WINDOW_BYTES);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                decode(window, (int) length, recordTypes, handler, path);
+                position += length;
+            }
+            return size;
+        }
+    }
+
+    private static void decode(ByteBuffer window, int length, String[] recordTypes, SampleHandler handler,
+            Path path) throws IOException {
+        window.order(BinarySampleFormat.ORDER);
+        for (int offset = 0; offset < length; offset += BinarySampleFormat.RECORD_BYTES) {
+            int patientId = window.getInt(offset);
+            long timestamp = window.getLong(offset + 4);
+            int metricId = window.getInt(offset + 12);
+            double value = window.getDouble(offset + 16);
+            if (metricId < 0 || metricId >= recordTypes.length) {
+                throw new IOException("Unknown metric ID " + metricId + " in " + path);
+            }
+            handler.handle(patientId, timestamp, recordTypes[metricId], value);
+        }
+    }
+}
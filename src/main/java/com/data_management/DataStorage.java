@@ -1,10 +1,9 @@
 package com.data_management;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.alerts.AlertGenerator;
 
@@ -16,12 +15,14 @@ import com.alerts.AlertGenerator;
  */
 public class DataStorage {
     private static DataStorage instance; // Singleton instance
-    private final Map<Integer, Patient> patientMap; // Stores patient objects indexed by their unique patient ID.
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(); // Lock for thread-safe access
+    // Stores patient objects indexed by their unique patient ID. Each Patient guards its own records,
+    // so writers for different patients never contend on a storage-wide lock.
+    private final ConcurrentHashMap<Integer, Patient> patientMap;
+    private final CopyOnWriteArrayList<SampleListener> listeners = new CopyOnWriteArrayList<>();
 
     // Private constructor to prevent instantiation
     public DataStorage() {
-        this.patientMap = new HashMap<>();
+        this.patientMap = new ConcurrentHashMap<>();
     }
 
     /**
@@ -50,26 +51,79 @@ public class DataStorage {
      *                         milliseconds since the Unix epoch
      */
     public void addPatientData(int patientId, double measurementValue, String recordType, long timestamp) {
-        lock.writeLock().lock(); // Acquire write lock for thread-safe updates
-        try {
-            Patient patient = patientMap.get(patientId);
-            if (patient == null) {
-                patient = new Patient(patientId);
-                patientMap.put(patientId, patient);
+        if (getOrCreatePatient(patientId).addRecordIfAbsent(measurementValue, recordType, timestamp)) {
+            publish(patientId, recordType, timestamp, measurementValue);
+        }
+    }
+
+    /**
+     * Adds every record of a batch to the storage. This is the preferred entry
+     * point for high-volume ingest paths: consecutive records of the same patient
+     * reuse the patient lookup. Duplicate records are skipped exactly as in
+     * {@link #addPatientData(int, double, String, long)}.
+     *
+     * @param batch the records to store; the batch is not modified
+     */
+    public void addPatientData(RecordBatch batch) {
+        Patient patient = null;
+        for (int i = 0; i < batch.size(); i++) {
+            int patientId = batch.getPatientId(i);
+            if (patient == null || patient.getId() != patientId) {
+                patient = getOrCreatePatient(patientId);
+            }
+            double value = batch.getMeasurementValue(i);
+            String recordType = batch.getRecordType(i);
+            long timestamp = batch.getTimestamp(i);
+            if (patient.addRecordIfAbsent(value, recordType, timestamp)) {
+                publish(patientId, recordType, timestamp, value);
             }
+        }
+    }
+
+    /**
+     * Registers a listener that is called with every sample stored from now on,
+     * so that consumers such as alert rules can react to a sample as soon as it
+     * lands instead of polling the storage for new records. A listener that
+     * throws is logged and does not stop the other listeners or the store.
+     *
+     * @param listener the listener to add
+     */
+    public void addSampleListener(SampleListener listener) {
+        listeners.add(listener);
+    }
 
-            // Check if the record already exists to prevent duplication
-            boolean recordExists = patient.getRecords().stream()
-                .anyMatch(record -> record.getTimestamp() == timestamp && record.getRecordType().equals(recordType));
+    /**
+     * Removes a listener added with {@link #addSampleListener(SampleListener)}.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeSampleListener(SampleListener listener) {
+        listeners.remove(listener);
+    }
 
-            if (!recordExists) {
-                patient.addRecord(measurementValue, recordType, timestamp);
+    private void publish(int patientId, String recordType, long timestamp, double value) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        for (SampleListener listener : listeners) {
+            try {
+                listener.onSample(patientId, recordType, timestamp, value);
+            } catch (RuntimeException e) {
+                // The sample is stored; a failing listener must not fail the thread that stored it
+                System.err.println("Sample listener failed for patient " + patientId + ": " + e.getMessage());
+                e.printStackTrace();
             }
-        } finally {
-            lock.writeLock().unlock(); // Release write lock
         }
     }
 
+    private Patient getOrCreatePatient(int patientId) {
+        Patient patient = patientMap.get(patientId);
+        if (patient == null) {
+            patient = patientMap.computeIfAbsent(patientId, Patient::new);
+        }
+        return patient;
+    }
+
     /**
      * Retrieves a list of PatientRecord objects for a specific patient, filtered by
      * a time range.
@@ -97,7 +151,7 @@ public class DataStorage {
         List<PatientRecord> output = new ArrayList<PatientRecord>();
         for(PatientRecord record : getRecords(patientId, startTime, endTime))
         {
-            if(record.getRecordType() == type)
+            if(type.equals(record.getRecordType()))
             {
                 output.add(record);
             }
@@ -111,7 +165,7 @@ public class DataStorage {
         List<PatientRecord> output = new ArrayList<PatientRecord>();
         for(PatientRecord record : records)
         {
-            if(record.getRecordType() == type)
+            if(type.equals(record.getRecordType()))
             {
                 output.add(record);
             }
@@ -125,12 +179,20 @@ public class DataStorage {
      * @return a list of all patients
      */
     public List<Patient> getAllPatients() {
-        lock.readLock().lock(); // Acquire read lock for thread-safe access
-        try {
-            return new ArrayList<>(patientMap.values());
-        } finally {
-            lock.readLock().unlock(); // Release read lock
+        return new ArrayList<>(patientMap.values());
+    }
+
+    /**
+     * Returns the total number of records stored across all patients.
+     *
+     * @return the record count
+     */
+    public long getRecordCount() {
+        long count = 0;
+        for (Patient patient : patientMap.values()) {
+            count += patient.getRecordCount();
         }
+        return count;
     }
 
     /**
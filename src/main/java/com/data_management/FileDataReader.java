@@ -4,12 +4,31 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.StringReader;
 import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.cardio_generator.outputs.SegmentIndex;
 
 /**
  * Implementation of the DataReader interface that reads data from an output file.
+ *
+ * <p>Besides the flat {@code <label>.txt} files, the reader understands the rolling
+ * layout written by {@code FileOutputStrategy}: segments whose {@link SegmentIndex}
+ * shows no overlap with the requested time and patient range are skipped, and in
+ * the remaining segments only the matching index blocks are read.
  */
 public class FileDataReader implements DataReader {
+    private static final int BATCH_SIZE = 4096;
 
     private final String outputDirectory;
 
@@ -44,6 +63,157 @@ public class FileDataReader implements DataReader {
         }
     }
 
+    /**
+     * Reads every record in the output directory into the storage.
+     *
+     * @param storage the storage where data will be stored
+     * @throws IOException if there is an error reading the data
+     */
+    public void readData(DataStorage storage) throws IOException {
+        readData(storage, Long.MIN_VALUE, Long.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads the records within a time range into the storage.
+     *
+     * @param storage   the storage where data will be stored
+     * @param startTime the start of the time range, inclusive, in milliseconds since epoch
+     * @param endTime   the end of the time range, inclusive, in milliseconds since epoch
+     * @throws IOException if there is an error reading the data
+     */
+    public void readData(DataStorage storage, long startTime, long endTime) throws IOException {
+        readData(storage, startTime, endTime, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads the records within a time range and patient ID range into the storage,
+     * using segment indexes to skip data that cannot match.
+     *
+     * @param storage       the storage where data will be stored
+     * @param startTime     the start of the time range, inclusive, in milliseconds since epoch
+     * @param endTime       the end of the time range, inclusive, in milliseconds since epoch
+     * @param fromPatientId the lowest patient ID to read, inclusive
+     * @param toPatientId   the highest patient ID to read, inclusive
+     * @throws IOException if there is an error reading the data
+     */
+    public void readData(DataStorage storage, long startTime, long endTime, int fromPatientId, int toPatientId)
+            throws IOException {
+        Path directory = Paths.get(outputDirectory);
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("Invalid output directory: " + outputDirectory);
+        }
+
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            files = paths.filter(path -> path.toString().endsWith(".txt") && Files.isRegularFile(path))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        RangeLoader loader = new RangeLoader(storage, startTime, endTime, fromPatientId, toPatientId);
+        for (Path file : files) {
+            Path indexPath = SegmentIndex.indexPathFor(file);
+            if (Files.exists(indexPath)) {
+                readIndexedSegment(file, SegmentIndex.read(indexPath), loader);
+            } else {
+                try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    loader.load(reader);
+                }
+            }
+        }
+        loader.flush();
+    }
+
+    /**
+     * Reads only the index blocks of a segment that can contain matching records.
+     */
+    private void readIndexedSegment(Path file, SegmentIndex index, RangeLoader loader) throws IOException {
+        if (!index.overlaps(loader.startTime, loader.endTime, loader.fromPatientId, loader.toPatientId)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (SegmentIndex.Block block : index.findBlocks(loader.startTime, loader.endTime,
+                    loader.fromPatientId, loader.toPatientId)) {
+                ByteBuffer bytes = ByteBuffer.allocate((int) block.getLength());
+                long position = block.getOffset();
+                while (bytes.hasRemaining() && channel.read(bytes, position + bytes.position()) >= 0) {
+                    // Keep reading until the block is complete or the file ends
+                }
+                String text = new String(bytes.array(), 0, bytes.position(), StandardCharsets.UTF_8);
+                loader.load(new BufferedReader(new StringReader(text)));
+            }
+        }
+    }
+
+    /**
+     * Parses output lines, keeps those in range and stores them in batches.
+     */
+    private static final class RangeLoader {
+        private final DataStorage storage;
+        private final long startTime;
+        private final long endTime;
+        private final int fromPatientId;
+        private final int toPatientId;
+        private final RecordBatch batch = new RecordBatch(BATCH_SIZE);
+
+        RangeLoader(DataStorage storage, long startTime, long endTime, int fromPatientId, int toPatientId) {
+            this.storage = storage;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.fromPatientId = fromPatientId;
+            this.toPatientId = toPatientId;
+        }
+
+        void load(BufferedReader reader) throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    // Example line format: "Patient ID: 1, Timestamp: 1714376789050, Label: HeartRate, Data: 85.0"
+                    String[] parts = line.split(", ");
+                    int patientId = Integer.parseInt(parts[0].split(": ")[1]);
+                    long timestamp = Long.parseLong(parts[1].split(": ")[1]);
+                    if (timestamp < startTime || timestamp > endTime
+                            || patientId < fromPatientId || patientId > toPatientId) {
+                        continue;
+                    }
+                    String recordType = parts[2].split(": ")[1];
+                    double measurementValue = parseMeasurement(parts[3].split(": ")[1]);
+                    batch.add(patientId, measurementValue, recordType, timestamp);
+                    if (batch.size() >= BATCH_SIZE) {
+                        flush();
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("Skipping malformed line: " + line);
+                }
+            }
+        }
+
+        void flush() {
+            storage.addPatientData(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Converts a written data value back to a number. Saturation values carry a
+     * percent sign and alert states are written as "triggered" or "resolved".
+     */
+    private static double parseMeasurement(String data) {
+        if (data.equals("triggered")) {
+            return 1.0;
+        }
+        if (data.equals("resolved")) {
+            return 0.0;
+        }
+        if (data.endsWith("%")) {
+            data = data.substring(0, data.length() - 1);
+        }
+        return Double.parseDouble(data);
+    }
+
     /**
      * Parses a single file and adds the data to the DataStorage.
      *
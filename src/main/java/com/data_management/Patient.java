@@ -1,7 +1,10 @@
 package com.data_management;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
@@ -12,6 +15,8 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 public class Patient {
     private final int patientId;
     private final List<PatientRecord> patientRecords;
+    // Timestamps stored per record type, so the duplicate check does not scan the records
+    private final Map<String, TimestampSet> timestampsByType = new HashMap<>();
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(); // Lock for thread-safe access
 
     /**
@@ -38,11 +43,157 @@ public class Patient {
         try {
             PatientRecord record = new PatientRecord(patientId, measurementValue, recordType, timestamp);
             patientRecords.add(record);
+            timestampsOf(recordType).add(timestamp);
         } finally {
             lock.writeLock().unlock(); // Release write lock
         }
     }
 
+    /**
+     * Adds a new record unless a record with the same timestamp and record type is
+     * already stored. The check and the insertion happen under one write lock, so
+     * concurrent writers cannot both add the same record.
+     *
+     * @param measurementValue The measurement value to store in the record.
+     * @param recordType       The type of record, e.g., "HeartRate", "BloodPressure".
+     * @param timestamp        The time at which the measurement was taken, in milliseconds since UNIX epoch.
+     * @return true if the record was added, false if it was a duplicate.
+     */
+    public boolean addRecordIfAbsent(double measurementValue, String recordType, long timestamp) {
+        lock.writeLock().lock(); // Acquire write lock for thread-safe updates
+        try {
+            if (!timestampsOf(recordType).add(timestamp)) {
+                return false;
+            }
+            patientRecords.add(new PatientRecord(patientId, measurementValue, recordType, timestamp));
+            return true;
+        } finally {
+            lock.writeLock().unlock(); // Release write lock
+        }
+    }
+
+    /**
+     * Checks whether a record with the given timestamp and record type is already stored.
+     * Answered from the stored timestamps of the record type, without scanning
+     * the record list.
+     *
+     * @param timestamp  The timestamp of the record, in milliseconds since UNIX epoch.
+     * @param recordType The type of record, e.g., "HeartRate", "BloodPressure".
+     * @return true if a matching record exists, false otherwise.
+     */
+    public boolean hasRecord(long timestamp, String recordType) {
+        lock.readLock().lock(); // Acquire read lock for thread-safe access
+        try {
+            return containsRecord(timestamp, recordType);
+        } finally {
+            lock.readLock().unlock(); // Release read lock
+        }
+    }
+
+    // Callers must hold either lock
+    private boolean containsRecord(long timestamp, String recordType) {
+        TimestampSet timestamps = timestampsByType.get(recordType);
+        return timestamps != null && timestamps.contains(timestamp);
+    }
+
+    // Callers must hold the write lock
+    private TimestampSet timestampsOf(String recordType) {
+        TimestampSet timestamps = timestampsByType.get(recordType);
+        if (timestamps == null) {
+            timestamps = new TimestampSet();
+            timestampsByType.put(recordType, timestamps);
+        }
+        return timestamps;
+    }
+
+    /**
+     * An open-addressing hash set of timestamps, stored as primitives so each
+     * record costs 16 to 32 bytes of index rather than a boxed key.
+     */
+    private static final class TimestampSet {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] slots = newSlots(16);
+        private int size;
+        private boolean containsEmpty; // EMPTY marks free slots, so it is tracked on its own
+
+        boolean contains(long timestamp) {
+            if (timestamp == EMPTY) {
+                return containsEmpty;
+            }
+            int mask = slots.length - 1;
+            for (int i = slot(timestamp, mask); slots[i] != EMPTY; i = (i + 1) & mask) {
+                if (slots[i] == timestamp) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Adds a timestamp, returning false if it was already present. */
+        boolean add(long timestamp) {
+            if (timestamp == EMPTY) {
+                boolean added = !containsEmpty;
+                containsEmpty = true;
+                return added;
+            }
+            if (size * 2 >= slots.length) {
+                grow();
+            }
+            int mask = slots.length - 1;
+            int i = slot(timestamp, mask);
+            while (slots[i] != EMPTY) {
+                if (slots[i] == timestamp) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            slots[i] = timestamp;
+            size++;
+            return true;
+        }
+
+        private void grow() {
+            long[] old = slots;
+            slots = newSlots(old.length * 2);
+            int mask = slots.length - 1;
+            for (long timestamp : old) {
+                if (timestamp != EMPTY) {
+                    int i = slot(timestamp, mask);
+                    while (slots[i] != EMPTY) {
+                        i = (i + 1) & mask;
+                    }
+                    slots[i] = timestamp;
+                }
+            }
+        }
+
+        private static int slot(long timestamp, int mask) {
+            long hash = timestamp * 0x9E3779B97F4A7C15L; // Spreads consecutive timestamps across the table
+            return (int) (hash >>> 32) & mask;
+        }
+
+        private static long[] newSlots(int length) {
+            long[] slots = new long[length];
+            Arrays.fill(slots, EMPTY);
+            return slots;
+        }
+    }
+
+    /**
+     * Returns the number of records stored for this patient.
+     *
+     * @return The record count.
+     */
+    public int getRecordCount() {
+        lock.readLock().lock(); // Acquire read lock for thread-safe access
+        try {
+            return patientRecords.size();
+        } finally {
+            lock.readLock().unlock(); // Release read lock
+        }
+    }
+
     /**
      * Retrieves a list of PatientRecord objects for this patient that fall within
      * a specified time range.
@@ -1,7 +1,10 @@
 package com.data_management;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import org.java_websocket.WebSocket;
 import org.java_websocket.handshake.ClientHandshake;
@@ -11,19 +14,30 @@ import org.java_websocket.server.WebSocketServer;
  * WebSocket server that accepts incoming patient records from clients
  * and broadcasts them to all connected clients (except the original sender).
  * Received messages are parsed and stored using the DataStorage instance.
+ *
+ * <p>Frames are decoded by a configurable number of decoder threads. Decoded
+ * messages are then sharded by patient ID onto a configurable number of worker
+ * threads, so all records of one patient are stored in arrival order by the same
+ * worker while different patients are processed in parallel.
  */
 public class PatientWebSocketServer extends WebSocketServer {
+    private static final int WORKER_QUEUE_CAPACITY = 16 * 1024;
+    private static final int WORKER_BATCH_SIZE = 1024;
+
     private final DataStorage data;
+    private final IngestWorker[] workers;
+    private volatile boolean logMessages;
+    private volatile boolean rebroadcast = true;
 
     /**
      * Constructs a PatientWebSocketServer with a provided DataStorage instance.
+     * Uses one decoder and one worker thread per available processor.
      *
      * @param port    The port number the WebSocket server will listen on.
      * @param storage The DataStorage instance for storing incoming data.
      */
     public PatientWebSocketServer(int port, DataStorage storage) {
-        super(new InetSocketAddress(port));
-        this.data = storage;
+        this(port, storage, Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors());
     }
 
     /**
@@ -32,8 +46,83 @@ public class PatientWebSocketServer extends WebSocketServer {
      * @param port The port number the WebSocket server will listen on.
      */
     public PatientWebSocketServer(int port) {
-        super(new InetSocketAddress(port));
-        this.data = DataStorage.getInstance(); // use singleton fallback
+        this(port, DataStorage.getInstance()); // use singleton fallback
+    }
+
+    /**
+     * Constructs a PatientWebSocketServer with explicit thread counts.
+     *
+     * @param port         The port number the WebSocket server will listen on.
+     * @param storage      The DataStorage instance for storing incoming data.
+     * @param decoderCount The number of threads decoding WebSocket frames.
+     * @param workerCount  The number of patient-sharded threads parsing and storing messages.
+     */
+    public PatientWebSocketServer(int port, DataStorage storage, int decoderCount, int workerCount) {
+        super(new InetSocketAddress(port), decoderCount);
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Worker count must be at least 1: " + workerCount);
+        }
+        this.data = storage;
+        this.workers = new IngestWorker[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new IngestWorker(i);
+        }
+        setReuseAddr(true); // Allow a quick restart while the old port is in TIME_WAIT
+    }
+
+    /**
+     * Enables or disables printing every received message to the console.
+     * Disabled by default because console output throttles the workers.
+     *
+     * @param logMessages true to log every message
+     */
+    public void setLogMessages(boolean logMessages) {
+        this.logMessages = logMessages;
+    }
+
+    /**
+     * Enables or disables re-broadcasting received messages to the other clients.
+     * Enabled by default.
+     *
+     * @param rebroadcast true to re-broadcast messages
+     */
+    public void setRebroadcast(boolean rebroadcast) {
+        this.rebroadcast = rebroadcast;
+    }
+
+    /**
+     * Returns the number of worker threads messages are sharded across.
+     *
+     * @return the worker count
+     */
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    /**
+     * Starts the decoder threads and the patient-sharded workers.
+     */
+    @Override
+    public void start() {
+        for (IngestWorker worker : workers) {
+            worker.start();
+        }
+        super.start();
+    }
+
+    /**
+     * Stops the server, then lets every worker store the messages it already queued.
+     *
+     * @param timeout      Milliseconds to wait for connections to close.
+     * @param closeMessage The message sent to clients on close.
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    @Override
+    public void stop(int timeout, String closeMessage) throws InterruptedException {
+        super.stop(timeout, closeMessage);
+        for (IngestWorker worker : workers) {
+            worker.shutdown();
+        }
     }
 
     /**
@@ -82,44 +171,191 @@ public class PatientWebSocketServer extends WebSocketServer {
 
     /**
      * Called when a client sends a message to the server.
-     * Parses the message, stores the data in DataStorage, and
-     * broadcasts it to all other connected clients.
+     * Runs on a decoder thread and only routes the message to the worker that owns
+     * its patient; parsing, storage and re-broadcasting happen on that worker.
      *
-     * Expected message format:
+     * Expected message format, with one or more records separated by newlines:
      * <pre>
      *     patientId,timestamp,recordType,measurementValue
      * </pre>
+     * A message whose records all belong to one worker is routed whole; otherwise
+     * each record is routed to its own worker.
      *
      * @param sender  The client that sent the message.
      * @param message The message sent from the client.
      */
     @Override
     public void onMessage(WebSocket sender, String message) {
+        int worker = workerIndex(message, 0);
+        if (isSingleShard(message, worker)) {
+            route(sender, message, worker);
+            return;
+        }
+        int start = 0;
+        while (start < message.length()) {
+            int end = message.indexOf('\n', start);
+            if (end < 0) {
+                end = message.length();
+            }
+            if (end > start) {
+                route(sender, message.substring(start, end), workerIndex(message, start));
+            }
+            start = end + 1;
+        }
+    }
+
+    private void route(WebSocket sender, String message, int worker) {
         try {
-            String[] parts = message.split(",");
-            if (parts.length != 4) {
-                throw new IllegalArgumentException("Invalid message format: " + message);
+            workers[worker].queue.put(new InboundMessage(sender, message));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Interrupted while queueing message: " + message);
+        }
+    }
+
+    /**
+     * Returns true if every record in the message belongs to the given worker.
+     */
+    private boolean isSingleShard(String message, int worker) {
+        for (int newline = message.indexOf('\n'); newline >= 0; newline = message.indexOf('\n', newline + 1)) {
+            if (newline + 1 < message.length() && workerIndex(message, newline + 1) != worker) {
+                return false;
             }
+        }
+        return true;
+    }
 
-            int patientId = Integer.parseInt(parts[0]);
-            long timestamp = Long.parseLong(parts[1]);
-            String recordType = parts[2];
-            double measurementValue = Double.parseDouble(parts[3]);
+    private int workerIndex(String message, int from) {
+        return Math.floorMod(shardKey(message, from), workers.length);
+    }
 
-            // Store in DataStorage
-            data.addPatientData(patientId, measurementValue, recordType, timestamp);
+    /**
+     * Reads the patient ID at the start of a record without allocating. Malformed
+     * records get key 0 and are reported by the worker that tries to parse them.
+     */
+    private static int shardKey(String message, int from) {
+        int key = 0;
+        for (int i = from; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            key = key * 10 + (c - '0');
+        }
+        return key;
+    }
 
+    /**
+     * Parses every record of a message into the worker's batch and re-broadcasts the message.
+     */
+    private void handle(InboundMessage inbound, RecordBatch batch) {
+        String message = inbound.message;
+        int start = 0;
+        while (start < message.length()) {
+            int end = message.indexOf('\n', start);
+            if (end < 0) {
+                end = message.length();
+            }
+            if (end > start) {
+                parseRecord(message.substring(start, end), batch);
+            }
+            start = end + 1;
+        }
+        try {
             // Re-broadcast to all clients EXCEPT the sender
-            for (WebSocket client : getConnections()) {
-                if (!client.equals(sender)) {
-                    client.send(message);
+            if (rebroadcast) {
+                for (WebSocket client : getConnections()) {
+                    if (!client.equals(inbound.sender)) {
+                        client.send(message);
+                    }
                 }
             }
 
-            System.out.println("Received and broadcasted: " + message);
+            if (logMessages) {
+                System.out.println("Received and broadcasted: " + message);
+            }
         } catch (Exception e) {
             System.err.println("Failed to handle message: " + message);
             e.printStackTrace();
         }
     }
+
+    private static void parseRecord(String record, RecordBatch batch) {
+        try {
+            String[] parts = record.split(",");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Invalid message format: " + record);
+            }
+
+            int patientId = Integer.parseInt(parts[0]);
+            long timestamp = Long.parseLong(parts[1]);
+            String recordType = parts[2];
+            double measurementValue = Double.parseDouble(parts[3]);
+
+            batch.add(patientId, measurementValue, recordType, timestamp);
+        } catch (Exception e) {
+            System.err.println("Failed to handle message: " + record);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * A message together with the connection it arrived on.
+     */
+    private static final class InboundMessage {
+        private final WebSocket sender;
+        private final String message;
+
+        InboundMessage(WebSocket sender, String message) {
+            this.sender = sender;
+            this.message = message;
+        }
+    }
+
+    /**
+     * Single thread that owns one shard of patients. It drains its queue in
+     * batches and stores each batch with one call to DataStorage.
+     */
+    private final class IngestWorker implements Runnable {
+        private final BlockingQueue<InboundMessage> queue = new ArrayBlockingQueue<>(WORKER_QUEUE_CAPACITY);
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        IngestWorker(int index) {
+            thread = new Thread(this, "patient-ws-worker-" + index);
+            thread.setDaemon(true);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        void shutdown() throws InterruptedException {
+            running = false;
+            thread.interrupt();
+            thread.join();
+        }
+
+        @Override
+        public void run() {
+            List<InboundMessage> drained = new ArrayList<>(WORKER_BATCH_SIZE);
+            RecordBatch batch = new RecordBatch(WORKER_BATCH_SIZE);
+            while (running || !queue.isEmpty()) {
+                try {
+                    if (queue.isEmpty()) {
+                        drained.add(queue.take());
+                    }
+                } catch (InterruptedException e) {
+                    continue; // Shutting down; drain what is left
+                }
+                queue.drainTo(drained, WORKER_BATCH_SIZE - drained.size());
+                for (InboundMessage inbound : drained) {
+                    handle(inbound, batch);
+                }
+                data.addPatientData(batch);
+                batch.clear();
+                drained.clear();
+            }
+        }
+    }
 }
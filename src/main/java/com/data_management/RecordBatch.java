@@ -0,0 +1,104 @@
+package com.data_management;
+
+import java.util.Arrays;
+
+/**
+ * A reusable, column-oriented batch of patient records waiting to be stored.
+ * Ingest paths fill a batch and hand it to {@link DataStorage#addPatientData(RecordBatch)}
+ * so consecutive records of the same patient reuse one patient lookup. Each
+ * record still takes only its own patient's lock, so batches for different
+ * patients can be stored concurrently.
+ *
+ * <p>A batch is not thread-safe; each ingest thread should own its own instance.
+ */
+public class RecordBatch {
+    private int[] patientIds;
+    private long[] timestamps;
+    private String[] recordTypes;
+    private double[] measurementValues;
+    private int size;
+
+    /**
+     * Constructs an empty batch with the given initial capacity.
+     * The batch grows automatically if more records are added.
+     *
+     * @param capacity the initial number of records the batch can hold
+     */
+    public RecordBatch(int capacity) {
+        int initial = Math.max(capacity, 1);
+        patientIds = new int[initial];
+        timestamps = new long[initial];
+        recordTypes = new String[initial];
+        measurementValues = new double[initial];
+    }
+
+    /**
+     * Appends a record to the batch.
+     *
+     * @param patientId        the unique identifier of the patient
+     * @param measurementValue the value of the health metric being recorded
+     * @param recordType       the type of record, e.g., "ECG", "Saturation"
+     * @param timestamp        the time at which the measurement was taken, in
+     *                         milliseconds since the Unix epoch
+     */
+    public void add(int patientId, double measurementValue, String recordType, long timestamp) {
+        if (size == patientIds.length) {
+            grow();
+        }
+        patientIds[size] = patientId;
+        measurementValues[size] = measurementValue;
+        recordTypes[size] = recordType;
+        timestamps[size] = timestamp;
+        size++;
+    }
+
+    /**
+     * Removes all records from the batch so it can be reused.
+     */
+    public void clear() {
+        Arrays.fill(recordTypes, 0, size, null); // Let the strings be collected
+        size = 0;
+    }
+
+    /**
+     * Returns the number of records currently held in the batch.
+     *
+     * @return the record count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the batch holds no records.
+     *
+     * @return whether the batch is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getPatientId(int index) {
+        return patientIds[index];
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    public String getRecordType(int index) {
+        return recordTypes[index];
+    }
+
+    public double getMeasurementValue(int index) {
+        return measurementValues[index];
+    }
+
+    private void grow() {
+        int capacity = patientIds.length * 2;
+        patientIds = Arrays.copyOf(patientIds, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        recordTypes = Arrays.copyOf(recordTypes, capacity);
+        measurementValues = Arrays.copyOf(measurementValues, capacity);
+    }
+}
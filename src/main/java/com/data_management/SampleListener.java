@@ -0,0 +1,22 @@
+package com.data_management;
+
+/**
+ * Receives samples as {@link DataStorage} stores them.
+ *
+ * <p>Listeners are called on the thread that stored the sample, after the
+ * sample is stored, and only for samples that were not already stored. Many
+ * ingest threads may call a listener at once, so it should be thread-safe and
+ * quick, and hand any real work to threads of its own.
+ */
+public interface SampleListener {
+
+    /**
+     * Called for each newly stored sample.
+     *
+     * @param patientId  the patient the sample belongs to
+     * @param recordType the sample's record type
+     * @param timestamp  the sample's time, in milliseconds since epoch
+     * @param value      the sample's value
+     */
+    void onSample(int patientId, String recordType, long timestamp, double value);
+}
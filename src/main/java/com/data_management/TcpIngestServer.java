@@ -0,0 +1,518 @@
+package com.data_management;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * TCP server that receives newline-delimited patient records, as emitted by the
+ * simulator's {@code TcpOutputStrategy}, and stores them in a {@link DataStorage}.
+ *
+ * <p>A single selector thread serves every connection. Lines are parsed directly
+ * from each connection's read buffer without creating a {@code String} per line,
+ * and parsed records are handed to the storage in batches.
+ *
+ * Expected line format:
+ * <pre>
+ *     patientId,timestamp,recordType,measurementValue
+ * </pre>
+ */
+public class TcpIngestServer {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int BATCH_SIZE = 4096;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    // Labels come from the network, so the table of known labels must not grow without bound
+    private static final int MAX_RECORD_TYPES = 256;
+    private static final int MAX_RECORD_TYPE_LENGTH = 64;
+    private static final byte[] TRIGGERED = "triggered".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RESOLVED = "resolved".getBytes(StandardCharsets.US_ASCII);
+
+    private final int port;
+    private final DataStorage storage;
+    private final RecordBatch batch = new RecordBatch(BATCH_SIZE);
+    private final RecordTypeTable recordTypes = new RecordTypeTable();
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread selectorThread;
+    private volatile boolean running;
+    private volatile long recordsIngested; // Written only by the selector thread
+    private volatile long malformedLines; // Written only by the selector thread
+
+    /**
+     * Constructs a TcpIngestServer with a provided DataStorage instance.
+     *
+     * @param port    The port number the server will listen on, or 0 for an ephemeral port.
+     * @param storage The DataStorage instance for storing incoming data.
+     */
+    public TcpIngestServer(int port, DataStorage storage) {
+        this.port = port;
+        this.storage = storage;
+    }
+
+    /**
+     * Constructs a TcpIngestServer using the singleton DataStorage instance.
+     *
+     * @param port The port number the server will listen on.
+     */
+    public TcpIngestServer(int port) {
+        this(port, DataStorage.getInstance());
+    }
+
+    /**
+     * Binds the server socket and starts the selector thread.
+     *
+     * @throws IOException if the server socket cannot be opened or bound
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        running = true;
+        selectorThread = new Thread(this::run, "tcp-ingest-" + getPort());
+        selectorThread.start();
+        System.out.println("TCP ingest server started on port: " + getPort());
+    }
+
+    /**
+     * Stops the server, closes every client connection and stores any records
+     * that are still buffered.
+     *
+     * @throws InterruptedException if interrupted while waiting for the selector thread
+     */
+    public synchronized void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        selectorThread.join();
+    }
+
+    /**
+     * Returns the port the server is bound to.
+     *
+     * @return the local port, or the configured port if the server has not been started
+     */
+    public int getPort() {
+        if (serverChannel != null && serverChannel.socket().isBound()) {
+            return serverChannel.socket().getLocalPort();
+        }
+        return port;
+    }
+
+    /**
+     * Returns the number of records handed to the storage so far.
+     *
+     * @return the ingested record count
+     */
+    public long getRecordsIngested() {
+        return recordsIngested;
+    }
+
+    /**
+     * Returns the number of lines that could not be parsed and were discarded.
+     *
+     * @return the malformed line count
+     */
+    public long getMalformedLines() {
+        return malformedLines;
+    }
+
+    /**
+     * Selector loop. Accepts connections, reads available bytes and flushes the
+     * pending batch after every round so that records never wait for a full batch.
+     */
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        read(key);
+                    }
+                }
+                flushBatch();
+            }
+        } catch (IOException e) {
+            System.err.println("TCP ingest server error: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            flushBatch();
+            closeAll();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel client;
+        while ((client = serverChannel.accept()) != null) {
+            client.configureBlocking(false);
+            client.register(selector, SelectionKey.OP_READ, new Connection());
+        }
+    }
+
+    private void read(SelectionKey key) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        ByteBuffer buffer = connection.buffer;
+        int read;
+        try {
+            read = channel.read(buffer);
+        } catch (IOException e) {
+            System.err.println("Client connection failed: " + e.getMessage());
+            close(key);
+            return;
+        }
+
+        buffer.flip();
+        if (connection.discarding && skipLine(buffer)) {
+            connection.discarding = false;
+        }
+        if (!connection.discarding) {
+            parseLines(buffer);
+        }
+        if (read < 0) {
+            // The peer closed the stream; an unterminated last line is still a record
+            if (buffer.hasRemaining() && !connection.discarding) {
+                parseLine(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                        buffer.arrayOffset() + buffer.limit());
+            }
+            close(key);
+            return;
+        }
+        buffer.compact();
+        if (!buffer.hasRemaining()) {
+            System.err.println("Discarding line longer than " + READ_BUFFER_SIZE + " bytes");
+            malformedLines++;
+            buffer.clear();
+            connection.discarding = true; // The rest of the line, up to its newline, goes too
+        }
+    }
+
+    /**
+     * Skips the rest of a discarded line. Returns true and leaves the buffer
+     * positioned after the line's newline if the buffer holds it; otherwise
+     * skips every byte in the buffer.
+     */
+    private static boolean skipLine(ByteBuffer buffer) {
+        byte[] bytes = buffer.array();
+        int offset = buffer.arrayOffset();
+        int end = offset + buffer.limit();
+        for (int i = offset + buffer.position(); i < end; i++) {
+            if (bytes[i] == '\n') {
+                buffer.position(i + 1 - offset);
+                return true;
+            }
+        }
+        buffer.position(buffer.limit());
+        return false;
+    }
+
+    /**
+     * Parses every complete line in the buffer and leaves the buffer positioned
+     * at the start of the first incomplete line.
+     */
+    private void parseLines(ByteBuffer buffer) {
+        byte[] bytes = buffer.array();
+        int offset = buffer.arrayOffset();
+        int lineStart = offset + buffer.position();
+        int end = offset + buffer.limit();
+        for (int i = lineStart; i < end; i++) {
+            if (bytes[i] == '\n') {
+                parseLine(bytes, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        buffer.position(lineStart - offset);
+    }
+
+    private void parseLine(byte[] bytes, int from, int to) {
+        if (to > from && bytes[to - 1] == '\r') {
+            to--;
+        }
+        if (to == from) {
+            return; // Blank line
+        }
+        try {
+            int firstComma = indexOf(bytes, from, to, (byte) ',');
+            int secondComma = indexOf(bytes, firstComma + 1, to, (byte) ',');
+            int thirdComma = indexOf(bytes, secondComma + 1, to, (byte) ',');
+            int patientId = parseInt(bytes, from, firstComma);
+            long timestamp = parseLong(bytes, firstComma + 1, secondComma);
+            String recordType = recordTypes.lookup(bytes, secondComma + 1, thirdComma);
+            double measurementValue = parseValue(bytes, thirdComma + 1, to);
+
+            batch.add(patientId, measurementValue, recordType, timestamp);
+            if (batch.size() >= BATCH_SIZE) {
+                flushBatch();
+            }
+        } catch (NumberFormatException e) {
+            malformedLines++;
+            System.err.println("Failed to handle line: " + new String(bytes, from, to - from, StandardCharsets.UTF_8));
+        }
+    }
+
+    private void flushBatch() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            storage.addPatientData(batch);
+            recordsIngested += batch.size();
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            System.err.println("Error closing client connection: " + e.getMessage());
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            close(key);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            System.err.println("Error closing selector: " + e.getMessage());
+        }
+    }
+
+    private static int indexOf(byte[] bytes, int from, int to, byte value) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        throw new NumberFormatException("expected 4 fields");
+    }
+
+    private static int parseInt(byte[] bytes, int from, int to) {
+        long result = parseLong(bytes, from, to);
+        if (result < Integer.MIN_VALUE || result > Integer.MAX_VALUE) {
+            throw new NumberFormatException("number out of int range");
+        }
+        return (int) result;
+    }
+
+    /**
+     * Parses a decimal long, rejecting values that do not fit instead of letting
+     * them wrap. Digits are accumulated negatively, as in {@link Long#parseLong},
+     * so that {@link Long#MIN_VALUE} is accepted.
+     */
+    private static long parseLong(byte[] bytes, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && bytes[i] == '-') {
+            negative = true;
+            i++;
+        }
+        if (i == to) {
+            throw new NumberFormatException("empty number");
+        }
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / 10;
+        long result = 0;
+        for (; i < to; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("invalid digit");
+            }
+            if (result < multiplyLimit || result * 10 < limit + digit) {
+                throw new NumberFormatException("number out of range");
+            }
+            result = result * 10 - digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parses a measurement value. Plain decimals whose mantissa fits exactly in a
+     * double are converted without allocating; anything else, such as values with
+     * 17 significant digits or exponents, falls back to {@link Double#parseDouble}.
+     * The simulator's "triggered"/"resolved" alert states map to 1 and 0, and a
+     * trailing percent sign is ignored.
+     */
+    private static double parseValue(byte[] bytes, int from, int to) {
+        if (to > from && bytes[to - 1] == '%') {
+            to--;
+        }
+        if (equalsAscii(bytes, from, to, TRIGGERED)) {
+            return 1.0;
+        }
+        if (equalsAscii(bytes, from, to, RESOLVED)) {
+            return 0.0;
+        }
+
+        int i = from;
+        boolean negative = false;
+        if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int fractionDigits = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; i < to; i++) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                seenDigit = true;
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+                if (mantissa > MAX_EXACT_MANTISSA) {
+                    return slowParse(bytes, from, to);
+                }
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                return slowParse(bytes, from, to);
+            }
+        }
+        if (!seenDigit || fractionDigits >= POWERS_OF_TEN.length) {
+            return slowParse(bytes, from, to);
+        }
+        // Both operands are exact, so a single division is correctly rounded
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private static double slowParse(byte[] bytes, int from, int to) {
+        return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+    }
+
+    private static boolean equalsAscii(byte[] bytes, int from, int to, byte[] expected) {
+        if (to - from != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (bytes[from + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A client connection's read buffer, which holds the bytes of its incomplete
+     * last line, and whether the line being received is too long and is being
+     * dropped up to its newline.
+     */
+    private static final class Connection {
+        final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        boolean discarding;
+    }
+
+    /**
+     * Small open-addressing table that maps record type bytes to interned strings,
+     * so each distinct label is decoded once instead of once per line. At most
+     * {@link #MAX_RECORD_TYPES} labels of up to {@link #MAX_RECORD_TYPE_LENGTH}
+     * bytes are accepted; lines with any other label are rejected as malformed.
+     * Only accessed from the selector thread.
+     */
+    private static final class RecordTypeTable {
+        private byte[][] keys = new byte[32][];
+        private String[] values = new String[32];
+        private int size;
+
+        String lookup(byte[] bytes, int from, int to) {
+            if (to == from) {
+                throw new NumberFormatException("empty record type");
+            }
+            if (to - from > MAX_RECORD_TYPE_LENGTH) {
+                throw new NumberFormatException("record type too long");
+            }
+            int hash = hash(bytes, from, to);
+            int mask = keys.length - 1;
+            for (int i = hash & mask; keys[i] != null; i = (i + 1) & mask) {
+                if (equalsAscii(bytes, from, to, keys[i])) {
+                    return values[i];
+                }
+            }
+            if (size == MAX_RECORD_TYPES) {
+                throw new NumberFormatException("too many record types");
+            }
+            byte[] key = Arrays.copyOfRange(bytes, from, to);
+            String value = new String(key, StandardCharsets.UTF_8).intern();
+            put(key, value, hash);
+            return value;
+        }
+
+        private void put(byte[] key, String value, int hash) {
+            if ((size + 1) * 2 > keys.length) {
+                byte[][] oldKeys = keys;
+                String[] oldValues = values;
+                keys = new byte[oldKeys.length * 2][];
+                values = new String[oldKeys.length * 2];
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != null) {
+                        insert(oldKeys[i], oldValues[i], hash(oldKeys[i], 0, oldKeys[i].length));
+                    }
+                }
+            }
+            insert(key, value, hash);
+            size++;
+        }
+
+        private void insert(byte[] key, String value, int hash) {
+            int mask = keys.length - 1;
+            int i = hash & mask;
+            while (keys[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private static int hash(byte[] bytes, int from, int to) {
+            int hash = 1;
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + bytes[i];
+            }
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    /**
+     * Starts a standalone ingest server backed by the singleton DataStorage.
+     *
+     * @param args optional port number (default: 9090)
+     * @throws IOException if the server cannot be started
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 9090;
+        new TcpIngestServer(port).start();
+    }
+}
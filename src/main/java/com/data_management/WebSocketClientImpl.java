@@ -39,12 +39,24 @@ public class WebSocketClientImpl extends WebSocketClient {
 
     /**
      * Called when a message is received from the server.
-     * Parses the message and stores it as a patient record.
+     * Parses the message and stores each of its lines as a patient record.
      *
-     * @param message The incoming message in CSV format.
+     * @param message The incoming message in CSV format, one record per line.
      */
     @Override
     public void onMessage(String message) {
+        if (message.indexOf('\n') < 0) {
+            handleRecord(message);
+            return;
+        }
+        for (String record : message.split("\n")) {
+            if (!record.isEmpty()) {
+                handleRecord(record);
+            }
+        }
+    }
+
+    private void handleRecord(String message) {
         try {
             // Example message format: "1,1714376789050,HeartRate,85.0"
             String[] parts = message.split(",");
@@ -0,0 +1,130 @@
+package alerts;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.alerts.Alert;
+import com.alerts.AlertInterface;
+import com.alerts.decorator.PriorityAlertDecorator;
+import com.alerts.dispatch.AlertDispatcher;
+import com.alerts.dispatch.AlertPriority;
+import com.alerts.dispatch.AlertSink;
+import com.alerts.dispatch.FileAlertSink;
+
+/**
+ * Verifies that the dispatcher delivers critical alerts ahead of a backlog,
+ * in batches, displaces low-priority alerts when full, and records latency
+ * per priority.
+ */
+class AlertDispatcherTest {
+    private static final long START = 1714376789050L;
+
+    @TempDir
+    Path directory;
+
+    /** Records each batch, holding the first one until released. */
+    private static class RecordingSink implements AlertSink {
+        final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch firstBatch = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void deliver(List<AlertInterface> alerts) {
+            List<String> conditions = new ArrayList<>();
+            for (AlertInterface alert : alerts) {
+                conditions.add(alert.getCondition());
+            }
+            batches.add(conditions);
+            firstBatch.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Test
+    void testPriorityOfConditions() {
+        assertEquals(AlertPriority.CRITICAL, AlertPriority.of("Critical low blood pressure"));
+        assertEquals(AlertPriority.LOW, AlertPriority.of("Increasing trend in blood pressure"));
+        assertEquals(AlertPriority.HIGH, AlertPriority.of("Low oxygen saturation"));
+        AlertInterface decorated = new PriorityAlertDecorator(new Alert("1", "Low oxygen saturation", START),
+                "critical");
+        assertEquals(AlertPriority.CRITICAL, AlertPriority.of(decorated.getCondition()));
+        AlertInterface unknown = new PriorityAlertDecorator(new Alert("1", "Critical high blood pressure", START),
+                "P1");
+        assertEquals(AlertPriority.CRITICAL, AlertPriority.of(unknown.getCondition()));
+    }
+
+    @Test
+    void testCriticalAlertsBypassBacklog() throws InterruptedException {
+        RecordingSink sink = new RecordingSink();
+        try (AlertDispatcher dispatcher = new AlertDispatcher(Arrays.asList(sink), 100, 4)) {
+            dispatcher.dispatch(new Alert("1", "Decreasing trend in blood pressure", START));
+            sink.firstBatch.await(); // The sink is now busy with the first alert
+            for (int i = 0; i < 10; i++) {
+                dispatcher.dispatch(new Alert("1", "Increasing trend in blood pressure", START + i));
+            }
+            dispatcher.dispatch(new Alert("2", "Low oxygen saturation", START));
+            dispatcher.dispatch(new Alert("3", "Critical low blood pressure", START));
+            sink.release.countDown();
+            dispatcher.flush();
+
+            assertEquals(4, sink.batches.size()); // 1, then 12 in batches of 4
+            assertEquals(Arrays.asList("Critical low blood pressure", "Low oxygen saturation",
+                    "Increasing trend in blood pressure", "Increasing trend in blood pressure"),
+                    sink.batches.get(1));
+            assertEquals(1, dispatcher.getLatency(AlertPriority.CRITICAL).getCount());
+            assertEquals(11, dispatcher.getLatency(AlertPriority.LOW).getCount());
+            assertTrue(dispatcher.report().contains("CRITICAL"));
+        }
+    }
+
+    @Test
+    void testFullQueueDisplacesLowerPriority() throws InterruptedException {
+        RecordingSink sink = new RecordingSink();
+        try (AlertDispatcher dispatcher = new AlertDispatcher(Arrays.asList(sink), 2, 10)) {
+            dispatcher.dispatch(new Alert("1", "Increasing trend in blood pressure", START));
+            sink.firstBatch.await();
+            dispatcher.dispatch(new Alert("1", "Increasing trend in blood pressure", START + 1));
+            dispatcher.dispatch(new Alert("1", "Low oxygen saturation", START + 2));
+            dispatcher.dispatch(new Alert("1", "Critical low blood pressure", START + 3)); // Displaces the trend
+            dispatcher.dispatch(new Alert("1", "Decreasing trend in blood pressure", START + 4)); // Dropped
+            sink.release.countDown();
+            dispatcher.flush();
+
+            assertEquals(Arrays.asList("Critical low blood pressure", "Low oxygen saturation"), sink.batches.get(1));
+            assertEquals(2, dispatcher.getDroppedCount(AlertPriority.LOW));
+            assertEquals(0, dispatcher.getDroppedCount(AlertPriority.CRITICAL));
+        }
+    }
+
+    @Test
+    void testFileSinkAndFailingSink() throws IOException, InterruptedException {
+        Path file = directory.resolve("alerts/alerts.log");
+        AlertSink failing = alerts -> {
+            throw new IOException("Sink unavailable");
+        };
+        try (AlertDispatcher dispatcher = new AlertDispatcher(Arrays.asList(new FileAlertSink(file), failing))) {
+            dispatcher.dispatch(new Alert("7", "Critical high blood pressure", START));
+            dispatcher.dispatch(new Alert("8", "Low oxygen saturation", START + 1));
+            dispatcher.flush();
+            // Only the file sink delivered them
+            assertEquals(1, dispatcher.getLatency(AlertPriority.CRITICAL).getCount());
+        }
+        assertEquals(Arrays.asList("Patient: 7; Condition: Critical high blood pressure; Time: " + START,
+                "Patient: 8; Condition: Low oxygen saturation; Time: " + (START + 1)), Files.readAllLines(file));
+    }
+}
@@ -0,0 +1,96 @@
+package alerts;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.alerts.Alert;
+import com.alerts.AlertEngine;
+import com.alerts.LatencyHistogram;
+import com.alerts.MetricTypes;
+import com.alerts.strategy.BloodPressureStrategy;
+import com.alerts.strategy.OxygenSaturationStrategy;
+import com.data_management.DataStorage;
+import com.data_management.RecordBatch;
+
+/**
+ * Verifies that samples stored in DataStorage reach the alert rule of their
+ * record type on the engine's partitions, and that latency is recorded.
+ */
+class AlertEngineTest {
+    private static final long START = 1714376789050L;
+
+    @Test
+    void testStoredSamplesRaiseAlerts() throws Exception {
+        DataStorage storage = new DataStorage();
+        List<Alert> alerts = Collections.synchronizedList(new ArrayList<>());
+        try (AlertEngine engine = new AlertEngine(3, alerts::add)) {
+            engine.subscribe(MetricTypes.BLOOD_PRESSURE, BloodPressureStrategy::new);
+            engine.subscribe(MetricTypes.OXYGEN_SATURATION, OxygenSaturationStrategy::new);
+            engine.attach(storage);
+
+            RecordBatch batch = new RecordBatch(16);
+            for (int patientId = 1; patientId <= 6; patientId++) {
+                for (int i = 0; i < 4; i++) {
+                    batch.add(patientId, 150 - 12 * i, "SystolicPressure", START + i);
+                    batch.add(patientId, 70, "ECG", START + i); // No rule, not queued
+                }
+            }
+            storage.addPatientData(batch);
+            storage.addPatientData(4, 91, "Saturation", START);
+            storage.addPatientData(4, 91, "Saturation", START); // Duplicate, not stored and not published
+            engine.flush();
+
+            assertEquals(25, engine.getSamplesEvaluated());
+            assertEquals(7, engine.getAlertCount());
+            assertEquals(7, alerts.size());
+            long lowSaturation = alerts.stream()
+                    .filter(alert -> alert.getCondition().equals("Low oxygen saturation")).count();
+            assertEquals(1, lowSaturation);
+            assertEquals(25, engine.getLatency().getCount());
+        }
+    }
+
+    @Test
+    void testRuleErrorDoesNotStopPartition() throws Exception {
+        DataStorage storage = new DataStorage();
+        try (AlertEngine engine = new AlertEngine(MetricTypes.defaults(), 1, 1, alert -> { })) {
+            engine.subscribe(MetricTypes.BLOOD_PRESSURE, () -> new BloodPressureStrategy() {
+                @Override
+                public Alert onSample(int patientId, long timestamp, double value) {
+                    if (patientId == 2) {
+                        throw new StackOverflowError("rule failed"); // An Error, not an exception
+                    }
+                    return super.onSample(patientId, timestamp, value);
+                }
+            });
+            engine.attach(storage);
+
+            // With a queue of one sample, ingest would wait forever on a dead partition
+            for (int i = 0; i < 100; i++) {
+                storage.addPatientData(1 + i % 2, 120, "SystolicPressure", START + i);
+            }
+            engine.flush();
+
+            assertEquals(100, engine.getSamplesEvaluated());
+            assertEquals(0, engine.getSamplesDropped());
+        }
+    }
+
+    @Test
+    void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMaxNanos());
+        assertEquals(500_000, histogram.getPercentileNanos(0.5), 500_000 * 0.125);
+        assertEquals(990_000, histogram.getPercentileNanos(0.99), 990_000 * 0.125);
+        assertEquals(1_000_000, histogram.getPercentileNanos(1.0));
+    }
+}
@@ -0,0 +1,132 @@
+package alerts;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.alerts.Alert;
+import com.alerts.AlertHistory;
+import com.alerts.AlertManager;
+import com.alerts.AlertStore;
+import com.alerts.dispatch.AlertPriority;
+
+/**
+ * Verifies that the alert history answers time range queries per patient,
+ * condition and priority in time order, including late alerts, and that a
+ * history file reloads its alerts and survives a partly written record.
+ */
+class AlertHistoryTest {
+    private static final long START = 1714376789050L;
+    private static final long HOUR = 3_600_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRangeQueries() {
+        AlertHistory history = new AlertHistory();
+        for (int i = 0; i < 100; i++) {
+            String condition = i % 10 == 0 ? "Critical low blood pressure" : "Low oxygen saturation";
+            history.add(i % 5, condition, START + i * HOUR);
+        }
+        history.add(new Alert("3", "Increasing trend in blood pressure", START + 12 * HOUR + 1)); // Late
+        history.add(3, "Increasing trend in blood pressure", START + 99 * HOUR);
+        assertEquals(102, history.size());
+
+        List<Alert> patient = history.getAlerts(3, START + 6 * HOUR, START + 18 * HOUR);
+        assertEquals(4, patient.size()); // Hours 8, 13 and 18, plus the late alert at 12
+        assertEquals(START + 8 * HOUR, patient.get(0).getTimestamp());
+        assertEquals("Increasing trend in blood pressure", patient.get(1).getCondition());
+        assertEquals(START + 12 * HOUR + 1, patient.get(1).getTimestamp());
+        assertEquals(START + 18 * HOUR, patient.get(3).getTimestamp());
+        assertEquals("3", patient.get(0).getPatientId());
+
+        List<Alert> critical = history.getAlerts(AlertPriority.CRITICAL, START + 15 * HOUR, Long.MAX_VALUE);
+        assertEquals(8, critical.size()); // Hours 20 to 90
+        assertEquals(START + 20 * HOUR, critical.get(0).getTimestamp());
+        assertEquals(10, history.getAlerts("Critical low blood pressure", START, START + 90 * HOUR).size());
+        assertEquals(2, history.getAlerts(AlertPriority.LOW, START, Long.MAX_VALUE).size());
+
+        List<Alert> all = history.getAlerts(START + 12 * HOUR, START + 13 * HOUR);
+        assertEquals(3, all.size());
+        assertTrue(all.get(0).getTimestamp() <= all.get(1).getTimestamp());
+
+        assertTrue(history.getAlerts(42, START, Long.MAX_VALUE).isEmpty());
+        history.add(Integer.MAX_VALUE, "Low oxygen saturation", START); // Large IDs need no large index
+        assertEquals(1, history.getAlerts(Integer.MAX_VALUE, START, START).size());
+        assertTrue(history.getAlerts("Unknown condition", START, Long.MAX_VALUE).isEmpty());
+        assertTrue(history.getAlerts(START + 5, START + 6).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> history.add(new Alert("bed 4", "Low", START)));
+    }
+
+    @Test
+    void testFilePersistence() throws IOException {
+        Path file = directory.resolve("history/alerts.hist");
+        try (AlertHistory history = AlertHistory.open(file)) {
+            history.add(1, "Critical high blood pressure", START);
+            history.add(2, "Low oxygen saturation", START + 1000);
+        }
+        try (AlertHistory history = AlertHistory.open(file)) {
+            assertEquals(2, history.size());
+            history.add(1, "Low oxygen saturation", START + 2000);
+            history.add(1, "Abnormally high heart rate", START + 3000);
+        }
+        // A crash in the middle of the last record
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+        try (AlertHistory history = AlertHistory.open(file)) {
+            List<Alert> patient = history.getAlerts(1, START, Long.MAX_VALUE);
+            assertEquals(2, patient.size());
+            assertEquals("Critical high blood pressure", patient.get(0).getCondition());
+            assertEquals("Low oxygen saturation", patient.get(1).getCondition());
+            history.add(3, "Abnormally high heart rate", START + 4000);
+        }
+        try (AlertHistory history = AlertHistory.open(file)) {
+            assertEquals(4, history.size());
+            assertEquals("Abnormally high heart rate",
+                    history.getAlerts(3, START, Long.MAX_VALUE).get(0).getCondition());
+        }
+
+        // Each alert reaches the file when added, without waiting for close
+        AlertHistory unclosed = AlertHistory.open(file);
+        unclosed.add(9, "Low oxygen saturation", START + 5000);
+        try (AlertHistory reader = AlertHistory.open(file)) {
+            assertEquals(5, reader.size());
+        }
+        unclosed.close();
+
+        // A crash before the header was complete leaves a file that starts afresh
+        Path partial = directory.resolve("partial.hist");
+        Files.write(partial, new byte[] {0x41, 0x4c, 0x48});
+        try (AlertHistory history = AlertHistory.open(partial)) {
+            assertEquals(0, history.size());
+            history.add(4, "Low oxygen saturation", START);
+        }
+        try (AlertHistory history = AlertHistory.open(partial)) {
+            assertEquals(1, history.size());
+        }
+
+        Path other = directory.resolve("other.bin");
+        Files.write(other, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+        assertThrows(IOException.class, () -> AlertHistory.open(other));
+    }
+
+    @Test
+    void testAlertManagerRecordsHistory() {
+        AlertHistory history = new AlertHistory();
+        AlertManager manager = new AlertManager(new AlertStore(100, 60_000), history);
+        manager.addAlert(new Alert("5", "Low oxygen saturation", START));
+        manager.addAlert(new Alert("5", "Low oxygen saturation", START + 1000)); // Coalesced, still recorded
+        assertEquals(1, manager.getAlerts().size());
+        assertEquals(2, history.getAlerts(5, START, START + 1000).size());
+    }
+}
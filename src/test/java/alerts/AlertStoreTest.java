@@ -0,0 +1,130 @@
+package alerts;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+import com.alerts.Alert;
+import com.alerts.AlertManager;
+import com.alerts.AlertStore;
+import com.alerts.AlertStore.Outcome;
+import com.alerts.AlertStore.StoredAlert;
+
+/**
+ * Verifies that the alert store coalesces repeats within the suppression
+ * window, applies per-patient and global rate limits, keeps only the newest
+ * alerts, and counts every alert from concurrent producers.
+ */
+class AlertStoreTest {
+    private static final long START = 1714376789050L;
+
+    @Test
+    void testRepeatsCoalesceWithinWindow() {
+        AlertStore store = new AlertStore(100, 60_000);
+        assertEquals(Outcome.STORED, store.add(new Alert("1", "Low saturation", START)));
+        assertEquals(Outcome.COALESCED, store.add(new Alert("1", "Low saturation", START + 1000)));
+        assertEquals(Outcome.COALESCED, store.add(new Alert("1", "Low saturation", START + 59_999)));
+        assertEquals(Outcome.STORED, store.add(new Alert("1", "Critical high blood pressure", START + 2000)));
+        assertEquals(Outcome.STORED, store.add(new Alert("2", "Low saturation", START + 2000)));
+        // The window runs from the first alert, so a condition that keeps firing is stored again
+        assertEquals(Outcome.STORED, store.add(new Alert("1", "Low saturation", START + 60_000)));
+
+        List<StoredAlert> alerts = store.getAlerts("1");
+        assertEquals(3, alerts.size());
+        assertEquals(2, alerts.get(0).getRepeatCount());
+        assertEquals(START + 59_999, alerts.get(0).getLastTimestamp());
+        assertEquals("Low saturation (Repeated 2 times)", alerts.get(0).toAlert().getCondition());
+        assertEquals("Critical high blood pressure", alerts.get(1).toAlert().getCondition());
+        assertEquals(4, store.getStoredCount());
+        assertEquals(2, store.getCoalescedCount());
+
+        AlertStore unsuppressed = new AlertStore(100, 0);
+        unsuppressed.add(new Alert("1", "Low saturation", START));
+        assertEquals(Outcome.STORED, unsuppressed.add(new Alert("1", "Low saturation", START)));
+    }
+
+    @Test
+    void testRateLimits() {
+        AlertStore store = new AlertStore(100, 0, 1, 2, 2, 3);
+        assertEquals(Outcome.STORED, store.add(new Alert("1", "A", START)));
+        assertEquals(Outcome.STORED, store.add(new Alert("1", "B", START)));
+        assertEquals(Outcome.RATE_LIMITED, store.add(new Alert("1", "C", START))); // Patient burst used up
+        assertEquals(Outcome.STORED, store.add(new Alert("2", "A", START)));
+        assertEquals(Outcome.RATE_LIMITED, store.add(new Alert("3", "A", START))); // Global burst used up
+        assertEquals(Outcome.STORED, store.add(new Alert("3", "A", START + 500))); // One global token earned
+        assertEquals(Outcome.STORED, store.add(new Alert("1", "C", START + 1000)));
+        assertEquals(2, store.getRateLimitedCount());
+        assertEquals(5, store.getAlerts().size());
+    }
+
+    @Test
+    void testGlobalLimitDoesNotSpendPatientToken() {
+        AlertStore store = new AlertStore(100, 0, 0.5, 1, 1, 1);
+        assertEquals(Outcome.STORED, store.add(new Alert("1", "A", START)));
+        assertEquals(Outcome.RATE_LIMITED, store.add(new Alert("2", "A", START))); // Global burst used up
+        // Patient 2 still has its token; only the global one had to be earned
+        assertEquals(Outcome.STORED, store.add(new Alert("2", "A", START + 1000)));
+        assertEquals(Outcome.RATE_LIMITED, store.add(new Alert("2", "B", START + 2000))); // Patient token spent
+    }
+
+    @Test
+    void testRingKeepsNewestAlerts() {
+        AlertStore store = new AlertStore(3, 60_000);
+        for (int i = 0; i < 5; i++) {
+            store.add(new Alert(Integer.toString(i), "Low saturation", START + i));
+        }
+        List<StoredAlert> alerts = store.getAlerts();
+        assertEquals(3, alerts.size());
+        assertEquals("2", alerts.get(0).getPatientId());
+        assertEquals("4", alerts.get(2).getPatientId());
+        // A forgotten alert no longer absorbs repeats
+        assertEquals(Outcome.STORED, store.add(new Alert("0", "Low saturation", START + 10)));
+        assertEquals(Outcome.COALESCED, store.add(new Alert("4", "Low saturation", START + 10)));
+    }
+
+    @Test
+    void testConcurrentProducers() throws InterruptedException {
+        AlertStore store = new AlertStore(1000, 60_000);
+        int threads = 4;
+        int alertsPerThread = 10_000;
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] producers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            producers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < alertsPerThread; i++) {
+                    store.add(new Alert(Integer.toString(i % 100), "Condition " + i % 3, START + i));
+                }
+            });
+            producers[t].start();
+        }
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertEquals(threads * alertsPerThread, store.getStoredCount() + store.getCoalescedCount());
+        assertEquals(300, store.getStoredCount()); // One per patient and condition within the window
+        int repeats = 0;
+        for (StoredAlert alert : store.getAlerts()) {
+            repeats += alert.getRepeatCount();
+        }
+        assertEquals(store.getCoalescedCount(), repeats);
+    }
+
+    @Test
+    void testAlertManagerDelegatesToStore() {
+        AlertManager manager = new AlertManager();
+        manager.addAlert(new Alert("1", "Low saturation", START));
+        manager.addAlert(new Alert("1", "Low saturation", START + 1000));
+        assertEquals(2, manager.getAlertCount());
+        assertEquals(1, manager.getAlerts().size());
+        assertEquals(1, manager.getAlerts().get(0).getRepeatCount());
+    }
+}
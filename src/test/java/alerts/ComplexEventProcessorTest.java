@@ -0,0 +1,106 @@
+package alerts;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.alerts.Alert;
+import com.alerts.cep.ComplexEventProcessor;
+import com.alerts.cep.CorrelationPattern;
+import com.alerts.cep.EventCondition;
+
+/**
+ * Verifies that correlation patterns match events of different record types
+ * within their window, in any order for joins and in order for sequences, and
+ * that matched and expired events are not reused.
+ */
+class ComplexEventProcessorTest {
+    private static final long START = 1714376789050L;
+
+    private final CorrelationPattern hypoxiaWithHypotension = CorrelationPattern.join(
+            "Low saturation with low blood pressure", 60_000,
+            EventCondition.below("Saturation", 92), EventCondition.below("SystolicPressure", 90));
+    private final CorrelationPattern anomalyThenAlert = CorrelationPattern.sequence(
+            "ECG anomaly followed by alert", 30_000,
+            EventCondition.above("ECG", 2.5), EventCondition.equalTo("Alert", 1));
+    private final List<Alert> alerts = new ArrayList<>();
+
+    @Test
+    void testJoinMatchesInEitherOrderWithinWindow() {
+        ComplexEventProcessor processor = new ComplexEventProcessor(Arrays.asList(hypoxiaWithHypotension));
+        assertEquals(0, processor.onSample(1, "Saturation", START, 90, alerts::add));
+        assertEquals(0, processor.onSample(1, "SystolicPressure", START + 1000, 120, alerts::add)); // Not low
+        assertEquals(1, processor.onSample(1, "SystolicPressure", START + 59_000, 85, alerts::add));
+
+        assertEquals(0, processor.onSample(2, "SystolicPressure", START, 80, alerts::add));
+        assertEquals(1, processor.onSample(2, "Saturation", START + 10_000, 91, alerts::add));
+
+        assertEquals(2, alerts.size());
+        assertEquals("1", alerts.get(0).getPatientId());
+        assertEquals("Low saturation with low blood pressure", alerts.get(0).getCondition());
+        assertEquals(START + 59_000, alerts.get(0).getTimestamp());
+        assertEquals("2", alerts.get(1).getPatientId());
+    }
+
+    @Test
+    void testAnyPatientIdKeepsItsOwnMatches() {
+        ComplexEventProcessor processor = new ComplexEventProcessor(Arrays.asList(hypoxiaWithHypotension));
+        assertEquals(0, processor.onSample(Integer.MAX_VALUE, "Saturation", START, 90, alerts::add));
+        assertEquals(0, processor.onSample(Integer.MIN_VALUE, "SystolicPressure", START, 80, alerts::add));
+        processor.reset(-1); // Not seen yet: nothing to forget
+        assertEquals(1, processor.onSample(Integer.MAX_VALUE, "SystolicPressure", START + 1000, 85, alerts::add));
+        assertEquals(1, processor.onSample(Integer.MIN_VALUE, "Saturation", START + 1000, 91, alerts::add));
+        assertEquals(Integer.toString(Integer.MAX_VALUE), alerts.get(0).getPatientId());
+        assertEquals(Integer.toString(Integer.MIN_VALUE), alerts.get(1).getPatientId());
+    }
+
+    @Test
+    void testJoinEventsExpireAndAreConsumed() {
+        ComplexEventProcessor processor = new ComplexEventProcessor(Arrays.asList(hypoxiaWithHypotension));
+        processor.onSample(1, "Saturation", START, 90, alerts::add);
+        assertEquals(0, processor.onSample(1, "SystolicPressure", START + 60_001, 85, alerts::add)); // Too late
+        assertEquals(1, processor.onSample(1, "Saturation", START + 70_000, 89, alerts::add));
+        // Both events were used by the match
+        assertEquals(0, processor.onSample(1, "Saturation", START + 71_000, 89, alerts::add));
+        assertEquals(1, alerts.size());
+
+        processor.onSample(3, "Saturation", START, 90, alerts::add);
+        assertEquals(0, processor.onSample(4, "SystolicPressure", START, 85, alerts::add)); // Other patient
+        processor.reset(3);
+        assertEquals(0, processor.onSample(3, "SystolicPressure", START + 1000, 85, alerts::add));
+    }
+
+    @Test
+    void testSequenceNeedsOrderWithinWindow() {
+        ComplexEventProcessor processor = new ComplexEventProcessor(Arrays.asList(anomalyThenAlert));
+        assertEquals(0, processor.onSample(1, "Alert", START, 1, alerts::add)); // Nothing to follow
+        assertEquals(0, processor.onSample(1, "ECG", START + 1000, 3.0, alerts::add));
+        assertEquals(0, processor.onSample(1, "Alert", START + 2000, 0, alerts::add)); // Resolved, not triggered
+        assertEquals(1, processor.onSample(1, "Alert", START + 31_000, 1, alerts::add));
+        assertEquals(0, processor.onSample(1, "Alert", START + 32_000, 1, alerts::add)); // Consumed
+
+        assertEquals(0, processor.onSample(2, "ECG", START, 3.0, alerts::add));
+        assertEquals(0, processor.onSample(2, "Alert", START + 30_001, 1, alerts::add)); // Too late
+        assertEquals(0, processor.onSample(2, "ECG", START + 40_000, 1.0, alerts::add)); // Normal beat
+        assertEquals(0, processor.onSample(2, "ECG", START + 41_000, 2.6, alerts::add));
+        assertEquals(1, processor.onSample(2, "Alert", START + 45_000, 1, alerts::add));
+        assertEquals(2, alerts.size());
+    }
+
+    @Test
+    void testThreeEventSequenceKeepsLatestStart() {
+        CorrelationPattern pattern = CorrelationPattern.sequence("Deterioration", 10_000,
+                EventCondition.above("HeartRate", 120), EventCondition.below("Saturation", 92),
+                EventCondition.below("SystolicPressure", 90));
+        ComplexEventProcessor processor = new ComplexEventProcessor(Arrays.asList(pattern));
+        processor.onSample(1, "HeartRate", START, 130, alerts::add);
+        processor.onSample(1, "HeartRate", START + 8000, 130, alerts::add); // Later start, more time left
+        processor.onSample(1, "Saturation", START + 9000, 90, alerts::add);
+        assertEquals(1, processor.onSample(1, "SystolicPressure", START + 15_000, 80, alerts::add));
+        assertEquals(0, processor.onSample(1, "ECG", START + 15_000, 80, alerts::add)); // Unused record type
+    }
+}
@@ -0,0 +1,87 @@
+package alerts;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.alerts.Alert;
+import com.alerts.AlertGenerator;
+import com.alerts.MetricTypes;
+import com.alerts.ParallelAlertSweep;
+import com.alerts.RuleRegistry;
+import com.data_management.DataStorage;
+
+/**
+ * Verifies that a parallel sweep raises the same alerts, in the same order,
+ * whatever the number of workers, that it can be repeated, and that a rule
+ * failing for one patient does not lose or duplicate other patients' alerts.
+ */
+class ParallelAlertSweepTest {
+    private static final long START = 1714376789050L;
+
+    @Test
+    void testResultDoesNotDependOnWorkers() throws Exception {
+        DataStorage storage = new DataStorage();
+        for (int patientId = 1; patientId <= 300; patientId++) {
+            for (int i = 0; i < 10; i++) {
+                // Every third patient's pressure climbs steeply, every fifth patient's saturation is low
+                double pressure = patientId % 3 == 0 ? 100 + 15 * i : 120;
+                storage.addPatientData(patientId, pressure, "SystolicPressure", START + i * 1000L);
+                storage.addPatientData(patientId, patientId % 5 == 0 ? 90 : 97, "Saturation", START + i * 1000L);
+            }
+        }
+
+        List<Alert> serial = sweep(storage, 1);
+        assertEquals(100 + 60, serial.size());
+        List<Alert> sorted = new ArrayList<>(serial);
+        sorted.sort(ParallelAlertSweep.ALERT_ORDER);
+        assertEquals(describe(sorted), describe(serial));
+        assertEquals(describe(serial), describe(sweep(storage, 4)));
+
+        try (ParallelAlertSweep sweep = new ParallelAlertSweep(storage,
+                () -> AlertGenerator.defaultRules(MetricTypes.defaults()), 3)) {
+            assertEquals(describe(serial), describe(sweep.sweep(START, START + 10_000)));
+            assertEquals(describe(serial), describe(sweep.sweep(START, START + 10_000))); // Repeatable
+            assertTrue(sweep.sweep(START + 60_000, START + 70_000).isEmpty());
+        }
+    }
+
+    @Test
+    void testFailingRuleDoesNotStopSweep() throws Exception {
+        DataStorage storage = new DataStorage();
+        for (int patientId = 1; patientId <= 40; patientId++) {
+            storage.addPatientData(patientId, 120, "SystolicPressure", START);
+        }
+        try (ParallelAlertSweep sweep = new ParallelAlertSweep(storage, () -> {
+            RuleRegistry rules = new RuleRegistry(MetricTypes.defaults());
+            rules.addBatchRule(MetricTypes.BLOOD_PRESSURE, (patient, records) -> {
+                if (patient.getId() == 7) {
+                    throw new IllegalStateException("Broken rule for patient 7");
+                }
+                return new Alert(Integer.toString(patient.getId()), "Seen", START);
+            });
+            return rules;
+        }, 2)) {
+            assertEquals(39, sweep.sweep(START, START).size());
+            assertEquals(39, sweep.sweep(START, START).size()); // Nothing left over from the failure
+        }
+    }
+
+    private static List<Alert> sweep(DataStorage storage, int workers) throws InterruptedException {
+        try (ParallelAlertSweep sweep = new ParallelAlertSweep(storage,
+                () -> AlertGenerator.defaultRules(MetricTypes.defaults()), workers)) {
+            return sweep.sweep(START, START + 10_000);
+        }
+    }
+
+    private static List<String> describe(List<Alert> alerts) {
+        List<String> described = new ArrayList<>();
+        for (Alert alert : alerts) {
+            described.add(alert.getPatientId() + " " + alert.getCondition() + " " + alert.getTimestamp());
+        }
+        return described;
+    }
+}
@@ -0,0 +1,74 @@
+package alerts;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.alerts.Alert;
+import com.alerts.MetricTypes;
+import com.alerts.RuleRegistry;
+import com.alerts.strategy.BloodPressureStrategy;
+import com.alerts.strategy.OxygenSaturationStrategy;
+import com.data_management.Patient;
+import com.data_management.PatientRecord;
+
+/**
+ * Verifies that stored labels are mapped to metric types as configured and that
+ * samples and records reach only the rules subscribed to their metric type.
+ */
+class RuleRegistryTest {
+    private static final long START = 1714376789050L;
+
+    @Test
+    void testLabelsMapToMetricTypes() {
+        MetricTypes types = MetricTypes.defaults();
+        int bloodPressure = types.code(MetricTypes.BLOOD_PRESSURE);
+        assertEquals(bloodPressure, types.codeOfLabel("SystolicPressure"));
+        assertEquals(bloodPressure, types.codeOfLabel("blood pressure"));
+        assertEquals(MetricTypes.UNMAPPED, types.codeOfLabel("DiastolicPressure"));
+        assertEquals(MetricTypes.BLOOD_PRESSURE, types.name(bloodPressure));
+
+        types.mapLabels(Arrays.asList("# Ward monitors", "NBP_SYS = blood pressure", "", "Resp = respiration"));
+        assertEquals(bloodPressure, types.codeOfLabel("NBP_SYS"));
+        assertEquals(types.code("respiration"), types.codeOfLabel("Resp"));
+        types.unmapLabel("SystolicPressure");
+        assertEquals(MetricTypes.UNMAPPED, types.codeOfLabel("SystolicPressure"));
+        assertThrows(IllegalArgumentException.class, () -> types.mapLabels(Arrays.asList("Saturation")));
+    }
+
+    @Test
+    void testSamplesReachSubscribedRules() {
+        RuleRegistry registry = new RuleRegistry(MetricTypes.defaults());
+        registry.addRule(MetricTypes.BLOOD_PRESSURE, new BloodPressureStrategy());
+        registry.addRule(MetricTypes.BLOOD_PRESSURE, new BloodPressureStrategy());
+        registry.addRule(MetricTypes.OXYGEN_SATURATION, new OxygenSaturationStrategy());
+
+        List<Alert> alerts = new ArrayList<>();
+        assertEquals(2, registry.dispatch("SystolicPressure", 1, START, 190, alerts::add)); // Both rules raise it
+        assertEquals(0, registry.dispatch("DiastolicPressure", 1, START, 50, alerts::add)); // Not mapped
+        assertEquals(1, registry.dispatch("Saturation", 1, START, 90, alerts::add));
+        assertEquals(3, alerts.size());
+        assertTrue(registry.hasRules(registry.getTypes().codeOfLabel("Saturation")));
+        assertFalse(registry.hasRules(registry.getTypes().code(MetricTypes.HEART_RATE)));
+    }
+
+    @Test
+    void testRecordsAreSplitByMetricType() {
+        RuleRegistry registry = new RuleRegistry(MetricTypes.defaults());
+        registry.addBatchRule(MetricTypes.BLOOD_PRESSURE, new BloodPressureStrategy());
+        List<PatientRecord> records = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            records.add(new PatientRecord(1, 100 + 12 * i, "SystolicPressure", START + i));
+            records.add(new PatientRecord(1, 60, "DiastolicPressure", START + i)); // Would break the trend
+        }
+
+        List<Alert> alerts = new ArrayList<>();
+        registry.evaluate(new Patient(1), records, alerts::add);
+        assertEquals(1, alerts.size());
+        assertEquals("Increasing trend in blood pressure", alerts.get(0).getCondition());
+    }
+}
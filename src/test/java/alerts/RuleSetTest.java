@@ -0,0 +1,150 @@
+package alerts;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.alerts.Alert;
+import com.alerts.MetricTypes;
+import com.alerts.rules.RuleBook;
+import com.alerts.rules.RuleSet;
+import com.alerts.strategy.BloodPressureStrategy;
+import com.alerts.strategy.HeartRateStrategy;
+import com.alerts.strategy.OxygenSaturationStrategy;
+import com.alerts.strategy.StreamingAlertStrategy;
+
+/**
+ * Verifies that rule files parse and compile to strategies that behave like the
+ * hand-written ones, and that a rule book swaps rule sets between samples.
+ */
+class RuleSetTest {
+    private static final long START = 1714376789050L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testBuiltInRulesMatchStrategies() {
+        RuleSet rules = RuleSet.builtIn();
+        assertEquals(Arrays.asList(MetricTypes.BLOOD_PRESSURE, MetricTypes.OXYGEN_SATURATION,
+                MetricTypes.HEART_RATE), rules.getMetricTypes());
+        assertSameAlerts(new BloodPressureStrategy(), rules.compile(MetricTypes.BLOOD_PRESSURE), 120, 40, 1000);
+        assertSameAlerts(new OxygenSaturationStrategy(), rules.compile(MetricTypes.OXYGEN_SATURATION), 95, 8,
+                400_000);
+        assertSameAlerts(new HeartRateStrategy(), rules.compile(MetricTypes.HEART_RATE), 75, 60, 1000);
+    }
+
+    @Test
+    void testConditionsCombine() {
+        RuleSet rules = RuleSet.parse(Arrays.asList(
+                "# Precedence: and binds tighter than or",
+                "rule \"Either\" on x when value > 100 or value < 10 and delta < -5 # trailing comment",
+                "rule \"Grouped\" on y when (value >= 50 or value <= 0) and 2 * value < 150",
+                "rule \"Quiet # not a comment\" on z when elapsed >= 1m"));
+        StreamingAlertStrategy x = rules.compile("x");
+        assertEquals("Either", condition(x.onSample(1, START, 101)));
+        assertNull(x.onSample(1, START + 1, 12));
+        assertEquals("Either", condition(x.onSample(1, START + 2, 5)));
+        assertNull(x.onSample(1, START + 3, 4)); // Below 10 but only fell by 1
+
+        StreamingAlertStrategy y = rules.compile("y");
+        assertEquals("Grouped", condition(y.onSample(1, START, 50)));
+        assertNull(y.onSample(1, START, 80)); // 160 is not below 150
+        assertEquals("Grouped", condition(y.onSample(1, START, -3)));
+
+        StreamingAlertStrategy z = rules.compile("z");
+        assertNull(z.onSample(1, START, 1)); // Nothing elapsed before the first sample
+        assertEquals("Quiet # not a comment", condition(z.onSample(1, START + 60_000, 1)));
+        assertNull(rules.compile("other").onSample(1, START, 1000));
+    }
+
+    @Test
+    void testSubMillisecondMeanStaysFinite() {
+        RuleSet rules = RuleSet.parse(Arrays.asList(
+                "rule \"Fast\" on x when value > 2 * mean(0.5)",
+                "rule \"Slow\" on y when value > 2 * mean(1.5S)"));
+        StreamingAlertStrategy x = rules.compile("x");
+        assertNull(x.onSample(1, START, 10));
+        assertNull(x.onSample(1, START, 12)); // Same timestamp: the sample gets no weight yet
+        assertEquals("Fast", condition(x.onSample(1, START, 25))); // The mean is still 10, not NaN
+        assertNull(x.onSample(1, START + 10, 25)); // Half a millisecond is long past: the mean is 25
+
+        StreamingAlertStrategy y = rules.compile("y");
+        assertNull(y.onSample(1, START, 10));
+        assertEquals("Slow", condition(y.onSample(1, START + 100, 30))); // 100 ms is short against 1.5 s
+    }
+
+    @Test
+    void testAnyPatientIdKeepsItsOwnState() {
+        StreamingAlertStrategy rules = RuleSet.parse(Arrays.asList(
+                "rule \"Drop\" on x when delta < -5")).compile("x");
+        assertNull(rules.onSample(Integer.MAX_VALUE, START, 100));
+        assertNull(rules.onSample(Integer.MIN_VALUE, START, 50));
+        assertEquals("Drop", condition(rules.onSample(Integer.MAX_VALUE, START + 1, 90)));
+        assertNull(rules.onSample(Integer.MIN_VALUE, START + 1, 49));
+        rules.reset(Integer.MAX_VALUE);
+        assertNull(rules.onSample(Integer.MAX_VALUE, START + 2, 10)); // No previous sample after a reset
+    }
+
+    @Test
+    void testInvalidRulesAreReported() {
+        assertInvalid("rule \"A\" on x when value >", "Line 1");
+        assertInvalid("rule A on x when value > 1", "quotes");
+        assertInvalid("rule \"A\" on x when 3 > 1", "two constants");
+        assertInvalid("rule \"A\" on x when value * delta > 1", "constant");
+        assertInvalid("rule \"A\" on x when value = 1", "Unexpected character");
+        assertInvalid("rule \"A\" on x when value delta", "Expected one of");
+        assertInvalid("rule \"A\" on x when rising(1.5, 2)", "whole number");
+    }
+
+    @Test
+    void testRuleBookSwapsRules() throws Exception {
+        Path file = directory.resolve("rules.txt");
+        Files.write(file, Arrays.asList("rule \"High\" on x when value > 100"));
+        RuleBook book = new RuleBook(RuleSet.load(file));
+        StreamingAlertStrategy strategy = book.strategyFor("x");
+        assertEquals("High", condition(strategy.onSample(1, START, 150)));
+
+        Files.write(file, Arrays.asList("rule \"Very high\" on x when value > 200"));
+        book.reload(file);
+        assertNull(strategy.onSample(1, START + 1, 150));
+        assertEquals("Very high", condition(strategy.onSample(1, START + 2, 250)));
+
+        Files.write(file, Arrays.asList("rule \"Broken\" on x when"));
+        assertThrows(IllegalArgumentException.class, () -> book.reload(file));
+        assertEquals("Very high", book.get().getRules().get(0).getCondition()); // Still in force
+    }
+
+    private static void assertSameAlerts(StreamingAlertStrategy expected, StreamingAlertStrategy actual, double mean,
+            double spread, long interval) {
+        SplittableRandom random = new SplittableRandom(11);
+        int alerts = 0;
+        for (int i = 0; i < 20_000; i++) {
+            int patientId = 1 + random.nextInt(20);
+            long timestamp = START + i * interval;
+            double value = Math.round(mean + (random.nextDouble() - 0.5) * spread);
+            Alert a = expected.onSample(patientId, timestamp, value);
+            Alert b = actual.onSample(patientId, timestamp, value);
+            assertEquals(a == null ? null : a.getCondition(), b == null ? null : b.getCondition(), "sample " + i);
+            alerts += a == null ? 0 : 1;
+        }
+        assertTrue(alerts > 0);
+    }
+
+    private static void assertInvalid(String line, String message) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> RuleSet.parse(Arrays.asList(line)));
+        assertTrue(e.getMessage().contains(message), e.getMessage());
+    }
+
+    private static String condition(Alert alert) {
+        assertNotNull(alert);
+        return alert.getCondition();
+    }
+}
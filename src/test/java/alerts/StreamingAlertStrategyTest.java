@@ -0,0 +1,100 @@
+package alerts;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.alerts.Alert;
+import com.alerts.strategy.BloodPressureStrategy;
+import com.alerts.strategy.HeartRateStrategy;
+import com.alerts.strategy.OxygenSaturationStrategy;
+import com.alerts.strategy.StreamingAlertStrategy;
+
+/**
+ * Verifies that the streaming alert rules raise the same conditions as the
+ * list-based rules, at the sample that completes them, with per-patient state.
+ */
+class StreamingAlertStrategyTest {
+    private static final long START = 1714376789050L;
+
+    @Test
+    void testBloodPressureTrendsAndThresholds() {
+        BloodPressureStrategy strategy = new BloodPressureStrategy();
+        assertNull(feed(strategy, 1, 150, 138, 126));
+        assertEquals("Decreasing trend in blood pressure", condition(strategy.onSample(1, START + 3, 114)));
+        assertEquals("Decreasing trend in blood pressure", condition(strategy.onSample(1, START + 4, 100)));
+        assertNull(strategy.onSample(1, START + 5, 101)); // Trend broken
+
+        assertNull(feed(strategy, 2, 100, 112, 124)); // Another patient, independent state
+        Alert rising = strategy.onSample(2, START + 3, 136);
+        assertEquals("Increasing trend in blood pressure", condition(rising));
+        assertEquals("2", rising.getPatientId());
+        assertEquals(START + 3, rising.getTimestamp());
+
+        assertEquals("Critical high blood pressure", condition(strategy.onSample(3, START, 181)));
+        assertEquals("Critical low blood pressure", condition(strategy.onSample(3, START + 1, 89)));
+    }
+
+    @Test
+    void testOxygenSaturationDropNeedsGap() {
+        OxygenSaturationStrategy strategy = new OxygenSaturationStrategy();
+        assertNull(strategy.onSample(1, START, 99));
+        assertNull(strategy.onSample(1, START + 1000, 93)); // Drop of 6, but only a second apart
+        assertNull(strategy.onSample(1, START + 2000, 99));
+        assertEquals("Rapid drop in oxygen saturation", condition(strategy.onSample(1, START + 700_000, 93)));
+        assertEquals("Low oxygen saturation", condition(strategy.onSample(1, START + 701_000, 91)));
+    }
+
+    @Test
+    void testHeartRateAgainstRunningMean() {
+        HeartRateStrategy strategy = new HeartRateStrategy(60_000);
+        for (int second = 0; second < 600; second++) {
+            assertNull(strategy.onSample(7, START + second * 1000L, 70 + second % 3));
+        }
+        assertEquals("Abnormally high heart rate", condition(strategy.onSample(7, START + 600_000, 130)));
+
+        // A slow rise moves the mean along and raises nothing
+        for (int second = 601; second < 1200; second++) {
+            assertNull(strategy.onSample(7, START + second * 1000L, 70 + (second - 600) * 0.1));
+        }
+
+        strategy.reset(7);
+        assertNull(strategy.onSample(7, START + 1_200_000, 200)); // The first sample is its own mean
+    }
+
+    @Test
+    void testAnyPatientIdKeepsItsOwnState() {
+        BloodPressureStrategy strategy = new BloodPressureStrategy();
+        int[] patientIds = {Integer.MAX_VALUE, Integer.MIN_VALUE, 1_500_000_000, -7};
+        for (int patientId : patientIds) {
+            strategy.reset(patientId); // Not seen yet: nothing to forget
+            assertNull(feed(strategy, patientId, 150, 138, 126));
+        }
+        for (int patientId : patientIds) {
+            Alert alert = strategy.onSample(patientId, START + 3, 114);
+            assertEquals("Decreasing trend in blood pressure", condition(alert));
+            assertEquals(Integer.toString(patientId), alert.getPatientId());
+        }
+
+        OxygenSaturationStrategy saturation = new OxygenSaturationStrategy();
+        assertNull(saturation.onSample(Integer.MAX_VALUE, START, 99));
+        assertEquals("Rapid drop in oxygen saturation",
+                condition(saturation.onSample(Integer.MAX_VALUE, START + 700_000, 93)));
+        HeartRateStrategy heartRate = new HeartRateStrategy();
+        assertNull(heartRate.onSample(Integer.MIN_VALUE, START, 70));
+        assertEquals("Abnormally high heart rate", condition(heartRate.onSample(Integer.MIN_VALUE, START + 1, 200)));
+    }
+
+    private static Alert feed(StreamingAlertStrategy strategy, int patientId, double... values) {
+        Alert last = null;
+        for (int i = 0; i < values.length; i++) {
+            last = strategy.onSample(patientId, START + i, values[i]);
+        }
+        return last;
+    }
+
+    private static String condition(Alert alert) {
+        assertNotNull(alert);
+        return alert.getCondition();
+    }
+}
@@ -0,0 +1,73 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.alerts.Alert;
+import com.alerts.strategy.AlertStrategy;
+import com.alerts.strategy.BloodPressureStrategy;
+import com.alerts.strategy.HeartRateStrategy;
+import com.alerts.strategy.OxygenSaturationStrategy;
+import com.alerts.strategy.StreamingAlertStrategy;
+import com.data_management.Patient;
+import com.data_management.PatientRecord;
+
+/**
+ * Compares the cost per new sample of evaluating alert rules over the window
+ * of a patient's records, as {@code AlertGenerator.evaluateData} does, with
+ * the streaming rules that keep per-patient state, for growing window sizes.
+ *
+ * <p>Usage: {@code AlertBenchmark [samples]}
+ */
+public class AlertBenchmark {
+    private static final long START = 1714376789050L;
+
+    public static void main(String[] args) {
+        int samples = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        Random random = new Random(42);
+        List<PatientRecord> records = new ArrayList<>();
+        for (int i = 0; i < samples; i++) {
+            records.add(new PatientRecord(1, 95 + random.nextInt(4), "oxygen saturation", START + i * 1000L));
+        }
+        Patient patient = new Patient(1);
+
+        for (int window : new int[] {60, 600, 3600}) {
+            AlertStrategy[] batch = {new BloodPressureStrategy(), new HeartRateStrategy(),
+                new OxygenSaturationStrategy()};
+            int alerts = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < samples; i++) {
+                List<PatientRecord> recent = records.subList(Math.max(0, i - window + 1), i + 1);
+                for (AlertStrategy strategy : batch) {
+                    if (strategy.checkAlert(patient, recent) != null) {
+                        alerts++;
+                    }
+                }
+            }
+            report("window of " + window + " records", samples, System.nanoTime() - start, alerts);
+        }
+
+        StreamingAlertStrategy[] streaming = {new BloodPressureStrategy(), new HeartRateStrategy(),
+            new OxygenSaturationStrategy()};
+        for (int run = 0; run < 3; run++) { // Later runs show the speed with a warm JIT
+            int alerts = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < samples; i++) {
+                PatientRecord record = records.get(i);
+                for (StreamingAlertStrategy strategy : streaming) {
+                    Alert alert = strategy.onSample(1 + run, record.getTimestamp(), record.getMeasurementValue());
+                    if (alert != null) {
+                        alerts++;
+                    }
+                }
+            }
+            report("streaming", samples, System.nanoTime() - start, alerts);
+        }
+    }
+
+    private static void report(String name, int samples, long nanos, int alerts) {
+        System.out.printf("%s: %,.0f ns/sample, %,.0f samples/sec (%d alerts)%n", name, (double) nanos / samples,
+                samples / (nanos / 1e9), alerts);
+    }
+}
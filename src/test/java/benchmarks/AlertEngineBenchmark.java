@@ -0,0 +1,49 @@
+package benchmarks;
+
+import com.alerts.AlertEngine;
+import com.alerts.MetricTypes;
+import com.alerts.strategy.BloodPressureStrategy;
+import com.alerts.strategy.OxygenSaturationStrategy;
+import com.data_management.DataStorage;
+import com.data_management.RecordBatch;
+
+/**
+ * Measures how many samples per second DataStorage can store with the alert
+ * engine attached, and the time from a sample being stored to its alert rule
+ * having been evaluated.
+ *
+ * <p>Usage: {@code AlertEngineBenchmark [patients] [seconds] [partitions]}
+ */
+public class AlertEngineBenchmark {
+    private static final long START = 1714376789050L;
+
+    public static void main(String[] args) throws Exception {
+        int patients = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        int partitions = args.length > 2 ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+
+        DataStorage storage = new DataStorage();
+        AlertEngine engine = new AlertEngine(partitions, alert -> { });
+        engine.subscribe(MetricTypes.BLOOD_PRESSURE, BloodPressureStrategy::new);
+        engine.subscribe(MetricTypes.OXYGEN_SATURATION, OxygenSaturationStrategy::new);
+        engine.attach(storage);
+
+        RecordBatch batch = new RecordBatch(patients * 2);
+        long start = System.nanoTime();
+        for (int second = 0; second < seconds; second++) { // One sample per metric and patient per simulated second
+            for (int patientId = 1; patientId <= patients; patientId++) {
+                batch.add(patientId, 110 + (patientId + second) % 30, "SystolicPressure", START + second * 1000L);
+                batch.add(patientId, 95 + (patientId + second) % 5, "Saturation", START + second * 1000L);
+            }
+            storage.addPatientData(batch);
+            batch.clear();
+        }
+        engine.flush();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        engine.close();
+        System.out.printf("patients=%d partitions=%d: %,.0f samples/sec stored and evaluated%n", patients,
+                partitions, engine.getSamplesEvaluated() / elapsed);
+        System.out.println(engine.report());
+    }
+}
@@ -0,0 +1,70 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+
+import com.alerts.AlertHistory;
+import com.alerts.dispatch.AlertPriority;
+
+/**
+ * Fills an alert history with alerts spread over a month and measures the
+ * cost of adding them and of range queries per patient, per priority and
+ * over all alerts.
+ *
+ * <p>Usage: {@code AlertHistoryBenchmark [alerts]}
+ */
+public class AlertHistoryBenchmark {
+    private static final long START = 1714376789050L;
+    private static final long MONTH = 30L * 24 * 3_600_000;
+    private static final long HOUR = 3_600_000;
+    private static final int PATIENTS = 1000;
+    private static final int QUERIES = 10_000;
+    private static final String[] CONDITIONS = {"Critical high blood pressure", "Critical low blood pressure",
+        "Low oxygen saturation", "Rapid drop in oxygen saturation", "Abnormally high heart rate",
+        "Increasing trend in blood pressure", "Decreasing trend in blood pressure"};
+
+    public static void main(String[] args) {
+        int alerts = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        SplittableRandom random = new SplittableRandom(11);
+        AlertHistory history = new AlertHistory();
+        long step = MONTH / alerts;
+        long start = System.nanoTime();
+        for (int i = 0; i < alerts; i++) {
+            // Mostly in time order, with some alerts a few seconds late
+            long timestamp = START + i * step - (random.nextInt(100) == 0 ? random.nextInt(5000) : 0);
+            history.add(random.nextInt(PATIENTS), CONDITIONS[random.nextInt(CONDITIONS.length)], timestamp);
+        }
+        long nanos = System.nanoTime() - start;
+        System.out.printf("add: %.1f ns/alert (%d alerts)%n", (double) nanos / alerts, history.size());
+
+        for (int run = 0; run < 3; run++) { // Later runs show the speed with a warm JIT
+            long found = 0;
+            start = System.nanoTime();
+            for (int q = 0; q < QUERIES; q++) {
+                long from = START + (long) (random.nextDouble() * (MONTH - 6 * HOUR));
+                found += history.getAlerts(random.nextInt(PATIENTS), from, from + 6 * HOUR).size();
+            }
+            report("patient, last 6 hours", System.nanoTime() - start, found);
+
+            found = 0;
+            start = System.nanoTime();
+            for (int q = 0; q < QUERIES; q++) {
+                long from = START + (long) (random.nextDouble() * (MONTH - HOUR));
+                found += history.getAlerts(AlertPriority.CRITICAL, from, from + HOUR / 10).size();
+            }
+            report("critical, 6 minutes", System.nanoTime() - start, found);
+
+            found = 0;
+            start = System.nanoTime();
+            for (int q = 0; q < QUERIES; q++) {
+                long from = START + (long) (random.nextDouble() * (MONTH - HOUR));
+                found += history.getAlerts(from, from + 60_000).size();
+            }
+            report("all, 1 minute", System.nanoTime() - start, found);
+        }
+    }
+
+    private static void report(String name, long nanos, long found) {
+        System.out.printf("%-24s %8.1f us/query, %6.1f alerts/query%n", name, nanos / 1e3 / QUERIES,
+                (double) found / QUERIES);
+    }
+}
@@ -0,0 +1,58 @@
+package benchmarks;
+
+import java.util.concurrent.CountDownLatch;
+
+import com.alerts.Alert;
+import com.alerts.AlertStore;
+
+/**
+ * Measures how many alerts per second the alert store takes from concurrent
+ * producers when most alerts repeat a condition already stored.
+ *
+ * <p>Usage: {@code AlertStoreBenchmark [alerts per thread] [threads]}
+ */
+public class AlertStoreBenchmark {
+    private static final long START = 1714376789050L;
+    private static final int PATIENTS = 10_000;
+    private static final String[] CONDITIONS = {"Critical high blood pressure", "Low saturation",
+        "Abnormally high heart rate"};
+
+    public static void main(String[] args) throws InterruptedException {
+        int alertsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String[] patientIds = new String[PATIENTS];
+        for (int i = 0; i < PATIENTS; i++) {
+            patientIds[i] = Integer.toString(i + 1);
+        }
+        for (int run = 0; run < 3; run++) { // Later runs show the speed with a warm JIT
+            AlertStore store = new AlertStore(AlertStore.DEFAULT_CAPACITY, AlertStore.DEFAULT_SUPPRESSION_MILLIS);
+            CountDownLatch ready = new CountDownLatch(1);
+            Thread[] producers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                producers[t] = new Thread(() -> {
+                    try {
+                        ready.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < alertsPerThread; i++) {
+                        int n = i + offset;
+                        store.add(new Alert(patientIds[n % PATIENTS], CONDITIONS[n % CONDITIONS.length],
+                                START + i / 10));
+                    }
+                });
+                producers[t].start();
+            }
+            long start = System.nanoTime();
+            ready.countDown();
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            long nanos = System.nanoTime() - start;
+            long total = (long) alertsPerThread * threads;
+            System.out.printf("%d threads: %,.0f alerts/sec, %.1f ns/alert (%s)%n", threads, total * 1e9 / nanos,
+                    (double) nanos / total, store.summary());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import com.cardio_generator.outputs.BinaryFileOutputStrategy;
+import com.cardio_generator.outputs.FileOutputStrategy;
+import com.cardio_generator.outputs.MetricRegistry;
+import com.cardio_generator.outputs.OutputStrategy;
+import com.cardio_generator.outputs.SampleBatch;
+import com.data_management.BinaryFileDataReader;
+import com.data_management.DataStorage;
+import com.data_management.FileDataReader;
+
+/**
+ * Compares the binary segment format with the text file format: bytes per
+ * sample on disk, raw decode speed of the memory-mapped segments, and the speed
+ * of a full load into DataStorage.
+ *
+ * <p>Usage: {@code BinaryFileBenchmark [samples]}
+ */
+public class BinaryFileBenchmark {
+    private static final int PATIENTS = 1000;
+    private static final int BATCH_SIZE = 1000;
+
+    public static void main(String[] args) throws Exception {
+        int samples = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        Path binaryDirectory = Files.createTempDirectory("binary-benchmark");
+        Path textDirectory = Files.createTempDirectory("text-benchmark");
+
+        write(new BinaryFileOutputStrategy(binaryDirectory.toString()), samples);
+        write(new FileOutputStrategy(textDirectory.toString()), samples);
+        long binaryBytes = directorySize(binaryDirectory);
+        long textBytes = directorySize(textDirectory);
+        System.out.printf("samples=%d%n", samples);
+        System.out.printf("binary: %.1f bytes/sample, text: %.1f bytes/sample%n",
+                (double) binaryBytes / samples, (double) textBytes / samples);
+
+        BinaryFileDataReader binaryReader = new BinaryFileDataReader(binaryDirectory.toString());
+        double[] checksum = new double[1];
+        for (int run = 0; run < 3; run++) { // Later runs show the speed with a warm JIT and page cache
+            checksum[0] = 0;
+            long start = System.nanoTime();
+            long bytes = binaryReader.readSamples((patientId, timestamp, recordType, value) -> checksum[0] += value);
+            report("binary decode", bytes, System.nanoTime() - start);
+        }
+
+        long start = System.nanoTime();
+        binaryReader.readData(new DataStorage());
+        report("binary load into DataStorage", binaryBytes, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        new FileDataReader(textDirectory.toString()).readData(new DataStorage());
+        report("text load into DataStorage", textBytes, System.nanoTime() - start);
+        System.out.println("checksum " + checksum[0]);
+    }
+
+    private static void write(OutputStrategy output, int samples) {
+        SampleBatch batch = new SampleBatch(BATCH_SIZE);
+        long timestamp = 1714376789050L;
+        for (int i = 0; i < samples; i++) {
+            batch.add(i % PATIENTS + 1, timestamp + i / PATIENTS, MetricRegistry.ECG, Math.sin(i * 0.01));
+            if (batch.size() == BATCH_SIZE) {
+                output.outputBatch(batch);
+                batch.clear();
+            }
+        }
+        output.outputBatch(batch);
+        output.close();
+    }
+
+    private static void report(String name, long bytes, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%s: %,.0f MB/s (%.0f ms)%n", name, bytes / seconds / 1e6, seconds * 1000);
+    }
+
+    private static long directorySize(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import com.alerts.cep.ComplexEventProcessor;
+import com.alerts.cep.CorrelationPattern;
+import com.alerts.cep.EventCondition;
+
+/**
+ * Measures how many events per second the complex event processor handles
+ * with a join and a sequence pattern over a mixed stream of vital signs.
+ *
+ * <p>Usage: {@code CepBenchmark [events]}
+ */
+public class CepBenchmark {
+    private static final long START = 1714376789050L;
+    private static final int PATIENTS = 10_000;
+    private static final String[] TYPES = {"ECG", "Saturation", "SystolicPressure", "HeartRate", "Alert"};
+
+    public static void main(String[] args) {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        SplittableRandom random = new SplittableRandom(5);
+        String[] types = new String[events];
+        double[] values = new double[events];
+        for (int i = 0; i < events; i++) {
+            int type = random.nextInt(TYPES.length);
+            types[i] = TYPES[type];
+            values[i] = type == 0 ? random.nextDouble(-3, 3)
+                    : type == 1 ? 88 + random.nextInt(12)
+                    : type == 2 ? 80 + random.nextInt(80)
+                    : type == 3 ? 50 + random.nextInt(100)
+                    : random.nextInt(2);
+        }
+
+        for (int run = 0; run < 3; run++) { // Later runs show the speed with a warm JIT
+            ComplexEventProcessor processor = new ComplexEventProcessor(Arrays.asList(
+                    CorrelationPattern.join("Low saturation with low blood pressure", 60_000,
+                            EventCondition.below("Saturation", 92), EventCondition.below("SystolicPressure", 90)),
+                    CorrelationPattern.sequence("ECG anomaly followed by alert", 30_000,
+                            EventCondition.above("ECG", 2.5), EventCondition.equalTo("Alert", 1))));
+            long alerts = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < events; i++) {
+                alerts += processor.onSample(i % PATIENTS + 1, types[i], START + (i / PATIENTS) * 1000L, values[i],
+                        alert -> { });
+            }
+            long nanos = System.nanoTime() - start;
+            System.out.printf("%,.0f events/sec, %.1f ns/event (%d alerts)%n", events * 1e9 / nanos,
+                    (double) nanos / events, alerts);
+        }
+    }
+}
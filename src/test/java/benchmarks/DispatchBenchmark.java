@@ -0,0 +1,45 @@
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+import com.alerts.Alert;
+import com.alerts.dispatch.AlertDispatcher;
+import com.alerts.dispatch.AlertPriority;
+import com.alerts.dispatch.AlertSink;
+
+/**
+ * Measures delivery latency per priority when a flood of low-priority alerts
+ * backs up a sink that takes a fixed time per batch, with a critical alert
+ * mixed in every so often.
+ *
+ * <p>Usage: {@code DispatchBenchmark [alerts] [batch micros]}
+ */
+public class DispatchBenchmark {
+    private static final long START = 1714376789050L;
+    private static final int CRITICAL_EVERY = 1000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int alerts = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        long batchNanos = (args.length > 1 ? Long.parseLong(args[1]) : 500) * 1000;
+        AlertSink slowSink = batch -> LockSupport.parkNanos(batchNanos); // Stands in for a network write
+        long start = System.nanoTime();
+        try (AlertDispatcher dispatcher = new AlertDispatcher(Arrays.asList(slowSink), alerts,
+                AlertDispatcher.DEFAULT_BATCH_SIZE)) {
+            for (int i = 0; i < alerts; i++) {
+                String condition = i % CRITICAL_EVERY == 0 ? "Critical low blood pressure"
+                        : "Increasing trend in blood pressure";
+                dispatcher.dispatch(new Alert(Integer.toString(i % 10_000), condition, START + i));
+                if (i % 100 == 0) {
+                    LockSupport.parkNanos(10_000); // Alerts arrive over time rather than all at once
+                }
+            }
+            dispatcher.flush();
+            System.out.printf("%d alerts in %.0f ms%n", alerts, (System.nanoTime() - start) / 1e6);
+            System.out.println(dispatcher.report());
+            System.out.printf("Critical p99 %.3f ms vs low p99 %.3f ms%n",
+                    dispatcher.getLatency(AlertPriority.CRITICAL).getPercentileNanos(0.99) / 1e6,
+                    dispatcher.getLatency(AlertPriority.LOW).getPercentileNanos(0.99) / 1e6);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package benchmarks;
+
+import com.cardio_generator.generators.ECGDataGenerator;
+import com.cardio_generator.generators.HighRateECGDataGenerator;
+import com.cardio_generator.generators.PatientDataGenerator;
+import com.cardio_generator.outputs.SampleBatch;
+
+/**
+ * Measures ECG samples generated per second on one thread: the original
+ * generator, which evaluates the waveform for its one value per tick, and the
+ * table-driven high-rate generator at common clinical sample rates.
+ *
+ * <p>Usage: {@code EcgBenchmark [patients] [seconds of ECG]}
+ */
+public class EcgBenchmark {
+    private static final long START = 1714376789000L;
+
+    public static void main(String[] args) {
+        int patients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+
+        System.out.printf("patients=%d, %d s of ECG per patient%n", patients, seconds);
+        report("ECGDataGenerator (1 Hz)", new ECGDataGenerator(patients, 1), patients, seconds);
+        for (int rate : new int[] {250, 500}) {
+            report("HighRateECGDataGenerator (" + rate + " Hz)", new HighRateECGDataGenerator(patients, rate, 1),
+                    patients, seconds);
+        }
+    }
+
+    private static void report(String name, PatientDataGenerator generator, int patients, int seconds) {
+        SampleBatch batch = new SampleBatch(1024);
+        double checksum = 0;
+        long samples = 0;
+        long start = 0;
+        for (int second = 0; second <= seconds * 2; second++) {
+            if (second == seconds) { // The first half warms up
+                samples = 0;
+                start = System.nanoTime();
+            }
+            for (int patientId = 1; patientId <= patients; patientId++) {
+                batch.clear();
+                generator.generate(patientId, START + second * 1000L, batch);
+                samples += batch.size();
+                checksum += batch.size() > 0 ? batch.getValue(batch.size() - 1) : 0;
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: %,.0f samples/sec (checksum %.1f)%n", name, samples / elapsed, checksum);
+    }
+}
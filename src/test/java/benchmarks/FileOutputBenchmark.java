@@ -0,0 +1,53 @@
+package benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.cardio_generator.outputs.FileOutputStrategy;
+
+/**
+ * Measures sustained FileOutputStrategy throughput with many producer threads
+ * writing to the same label files, including the final flush on close.
+ *
+ * <p>Usage: {@code FileOutputBenchmark [producerThreads] [recordsPerThread]}
+ */
+public class FileOutputBenchmark {
+    private static final String[] LABELS = {"ECG", "Saturation", "SystolicPressure", "DiastolicPressure",
+        "Cholesterol", "WhiteBloodCells", "RedBloodCells", "Alert"};
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int recordsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        Path directory = Files.createTempDirectory("file-output-benchmark");
+
+        FileOutputStrategy output = new FileOutputStrategy(directory.toString());
+        long start = System.nanoTime();
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int threadIndex = t;
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < recordsPerThread; i++) {
+                    output.output(threadIndex * 100 + i % 100, System.currentTimeMillis(),
+                            LABELS[i % LABELS.length], Double.toString(i * 0.25));
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        output.close();
+        long elapsed = System.nanoTime() - start;
+
+        long total = (long) threads * recordsPerThread;
+        long bytes = 0;
+        for (String label : LABELS) {
+            bytes += Files.size(directory.resolve(label + ".txt"));
+        }
+        System.out.printf("threads=%d records=%d bytes=%d%n", threads, total, bytes);
+        System.out.printf("%,.0f records/sec%n", total / (elapsed / 1e9));
+    }
+}
@@ -0,0 +1,113 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.cardio_generator.generators.AlertGenerator;
+import com.cardio_generator.generators.BloodLevelsDataGenerator;
+import com.cardio_generator.generators.BloodPressureDataGenerator;
+import com.cardio_generator.generators.BloodSaturationDataGenerator;
+import com.cardio_generator.generators.ECGDataGenerator;
+import com.cardio_generator.generators.PatientDataGenerator;
+import com.cardio_generator.outputs.SampleBatch;
+
+/**
+ * Measures how generator throughput scales with threads. Each thread owns a
+ * contiguous range of patients and generates ticks of all five generators for
+ * them. For comparison, the same threads also draw random numbers from one
+ * shared {@link Random}, as every generator used to.
+ *
+ * <p>Usage: {@code GeneratorBenchmark [patients] [ticks] [maxThreads]}
+ */
+public class GeneratorBenchmark {
+    private static final long START = 1714376789050L;
+
+    public static void main(String[] args) throws Exception {
+        int patients = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        PatientDataGenerator[] generators = {
+            new ECGDataGenerator(patients, 1),
+            new BloodSaturationDataGenerator(patients, 2),
+            new BloodPressureDataGenerator(patients, 3),
+            new BloodLevelsDataGenerator(patients, 4),
+            new AlertGenerator(patients, 5),
+        };
+        Random shared = new Random();
+
+        System.out.printf("patients=%d ticks=%d cores=%d%n", patients, ticks,
+                Runtime.getRuntime().availableProcessors());
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            run(threads, patients, ticks, generators); // Warm-up
+            long start = System.nanoTime();
+            long samples = run(threads, patients, ticks, generators);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            long sharedStart = System.nanoTime();
+            long draws = drawShared(threads, samples, shared);
+            double sharedSeconds = (System.nanoTime() - sharedStart) / 1e9;
+            System.out.printf("threads=%d: %,.0f samples/sec, shared Random %,.0f draws/sec%n", threads,
+                    samples / seconds, draws / sharedSeconds);
+        }
+    }
+
+    private static long run(int threads, int patients, int ticks, PatientDataGenerator[] generators)
+            throws Exception {
+        List<Callable<Long>> ranges = new ArrayList<>();
+        int rangeSize = (patients + threads - 1) / threads;
+        for (int first = 1; first <= patients; first += rangeSize) {
+            int from = first;
+            int to = Math.min(patients, first + rangeSize - 1);
+            ranges.add(() -> {
+                SampleBatch batch = new SampleBatch(1024);
+                long samples = 0;
+                for (int tick = 0; tick < ticks; tick++) {
+                    for (PatientDataGenerator generator : generators) {
+                        for (int patientId = from; patientId <= to; patientId++) {
+                            generator.generate(patientId, START + tick * 1000L, batch);
+                            if (batch.size() >= 1000) {
+                                samples += batch.size();
+                                batch.clear();
+                            }
+                        }
+                    }
+                }
+                return samples + batch.size();
+            });
+        }
+        return sum(threads, ranges);
+    }
+
+    private static long drawShared(int threads, long total, Random shared) throws Exception {
+        List<Callable<Long>> draws = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            draws.add(() -> {
+                double sink = 0;
+                long count = total / threads;
+                for (long j = 0; j < count; j++) {
+                    sink += shared.nextDouble();
+                }
+                return sink < 0 ? 0 : count;
+            });
+        }
+        return sum(threads, draws);
+    }
+
+    private static long sum(int threads, List<Callable<Long>> tasks) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long sum = 0;
+            for (Future<Long> result : pool.invokeAll(tasks)) {
+                sum += result.get();
+            }
+            return sum;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package benchmarks;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.handshake.ServerHandshake;
+
+import com.cardio_generator.outputs.DirectOutputStrategy;
+import com.cardio_generator.outputs.MetricRegistry;
+import com.cardio_generator.outputs.SampleBatch;
+import com.data_management.DataStorage;
+import com.data_management.PatientWebSocketServer;
+import com.data_management.TcpIngestServer;
+
+/**
+ * Compares ingest throughput of the raw TCP line path against the WebSocket path
+ * and the in-process direct output. Every connection (or, for direct output,
+ * every thread) sends the same pre-generated simulator records; the clock stops
+ * once DataStorage holds every record.
+ *
+ * <p>Usage: {@code IngestBenchmark [connections] [recordsPerConnection]}
+ */
+public class IngestBenchmark {
+    private static final String[] LABELS = {"ECG", "Saturation", "SystolicPressure", "DiastolicPressure"};
+    private static final int DIRECT_BATCH_SIZE = 64;
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int recordsPerConnection = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        List<List<String>> lines = generateLines(connections, recordsPerConnection);
+        long total = (long) connections * recordsPerConnection;
+
+        double tcp = runTcp(lines, total);
+        double webSocket = runWebSocket(lines, total);
+        double direct = runDirect(lines, total);
+        System.out.printf("connections=%d records=%d%n", connections, total);
+        System.out.printf("tcp:       %,.0f records/sec%n", tcp);
+        System.out.printf("websocket: %,.0f records/sec%n", webSocket);
+        System.out.printf("direct:    %,.0f records/sec%n", direct);
+    }
+
+    private static List<List<String>> generateLines(int connections, int recordsPerConnection) {
+        Random random = new Random(42);
+        long baseTimestamp = 1714376789050L;
+        List<List<String>> lines = new ArrayList<>();
+        for (int c = 0; c < connections; c++) {
+            List<String> connectionLines = new ArrayList<>(recordsPerConnection);
+            for (int i = 0; i < recordsPerConnection; i++) {
+                int patientId = c * 50 + (i % 50) + 1;
+                long timestamp = baseTimestamp + i;
+                connectionLines.add(patientId + "," + timestamp + "," + LABELS[i % LABELS.length] + ","
+                        + (random.nextDouble() * 100));
+            }
+            lines.add(connectionLines);
+        }
+        return lines;
+    }
+
+    private static double runTcp(List<List<String>> lines, long total) throws Exception {
+        DataStorage storage = new DataStorage();
+        TcpIngestServer server = new TcpIngestServer(0, storage);
+        server.start();
+
+        long start = System.nanoTime();
+        List<Thread> senders = new ArrayList<>();
+        for (List<String> connectionLines : lines) {
+            Thread sender = new Thread(() -> {
+                try (Socket socket = new Socket("localhost", server.getPort());
+                        OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024)) {
+                    for (String line : connectionLines) {
+                        out.write(line.getBytes(StandardCharsets.US_ASCII));
+                        out.write('\n');
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            });
+            sender.start();
+            senders.add(sender);
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+        waitFor(storage, total);
+        long elapsed = System.nanoTime() - start;
+        server.stop();
+        return total / (elapsed / 1e9);
+    }
+
+    private static double runWebSocket(List<List<String>> lines, long total) throws Exception {
+        DataStorage storage = new DataStorage();
+        int port = freePort();
+        PatientWebSocketServer server = new PatientWebSocketServer(port, storage);
+        server.start();
+        Thread.sleep(500); // Give the server time to bind
+
+        List<WebSocketClient> clients = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            WebSocketClient client = new SilentClient(new URI("ws://localhost:" + port));
+            client.connectBlocking();
+            clients.add(client);
+        }
+
+        long start = System.nanoTime();
+        List<Thread> senders = new ArrayList<>();
+        for (int c = 0; c < lines.size(); c++) {
+            WebSocketClient client = clients.get(c);
+            List<String> connectionLines = lines.get(c);
+            Thread sender = new Thread(() -> {
+                for (String line : connectionLines) {
+                    client.send(line);
+                }
+            });
+            sender.start();
+            senders.add(sender);
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+        waitFor(storage, total);
+        long elapsed = System.nanoTime() - start;
+
+        for (WebSocketClient client : clients) {
+            client.closeBlocking();
+        }
+        server.stop();
+        return total / (elapsed / 1e9);
+    }
+
+    private static double runDirect(List<List<String>> lines, long total) throws Exception {
+        DataStorage storage = new DataStorage();
+        DirectOutputStrategy output = new DirectOutputStrategy(storage);
+        List<SampleBatch> batches = new ArrayList<>();
+        for (List<String> connectionLines : lines) {
+            SampleBatch batch = new SampleBatch(connectionLines.size());
+            for (String line : connectionLines) {
+                String[] parts = line.split(",");
+                batch.add(Integer.parseInt(parts[0]), Long.parseLong(parts[1]), MetricRegistry.idOf(parts[2]),
+                        Double.parseDouble(parts[3]));
+            }
+            batches.add(batch);
+        }
+
+        long start = System.nanoTime();
+        List<Thread> senders = new ArrayList<>();
+        for (SampleBatch batch : batches) {
+            Thread sender = new Thread(() -> {
+                // Hand over the records in simulator-sized batches
+                SampleBatch tick = new SampleBatch(DIRECT_BATCH_SIZE);
+                for (int i = 0; i < batch.size(); i++) {
+                    tick.add(batch.getPatientId(i), batch.getTimestamp(i), batch.getMetricId(i), batch.getValue(i));
+                    if (tick.size() == DIRECT_BATCH_SIZE) {
+                        output.outputBatch(tick);
+                        tick.clear();
+                    }
+                }
+                output.outputBatch(tick);
+            });
+            sender.start();
+            senders.add(sender);
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+        waitFor(storage, total);
+        long elapsed = System.nanoTime() - start;
+        output.close();
+        return total / (elapsed / 1e9);
+    }
+
+    private static void waitFor(DataStorage storage, long total) throws InterruptedException {
+        while (storage.getRecordCount() < total) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Client that ignores everything the server re-broadcasts.
+     */
+    private static class SilentClient extends WebSocketClient {
+        SilentClient(URI uri) {
+            super(uri);
+        }
+
+        @Override
+        public void onOpen(ServerHandshake handshake) {
+        }
+
+        @Override
+        public void onMessage(String message) {
+        }
+
+        @Override
+        public void onClose(int code, String reason, boolean remote) {
+        }
+
+        @Override
+        public void onError(Exception ex) {
+            ex.printStackTrace();
+        }
+    }
+}
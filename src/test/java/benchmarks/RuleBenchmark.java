@@ -0,0 +1,57 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+
+import com.alerts.MetricTypes;
+import com.alerts.rules.RuleBook;
+import com.alerts.rules.RuleSet;
+import com.alerts.strategy.BloodPressureStrategy;
+import com.alerts.strategy.HeartRateStrategy;
+import com.alerts.strategy.OxygenSaturationStrategy;
+import com.alerts.strategy.StreamingAlertStrategy;
+
+/**
+ * Compares the per-sample cost of the hand-written streaming strategies with
+ * the built-in rules compiled from the rule language, directly and through a
+ * hot-swappable rule book.
+ *
+ * <p>Usage: {@code RuleBenchmark [samples]}
+ */
+public class RuleBenchmark {
+    private static final long START = 1714376789050L;
+    private static final int PATIENTS = 10_000;
+
+    public static void main(String[] args) {
+        int samples = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        SplittableRandom random = new SplittableRandom(3);
+        double[] values = new double[samples];
+        for (int i = 0; i < samples; i++) {
+            values[i] = 60 + random.nextInt(140);
+        }
+
+        RuleSet rules = RuleSet.builtIn();
+        RuleBook book = new RuleBook(rules);
+        String[] types = {MetricTypes.BLOOD_PRESSURE, MetricTypes.HEART_RATE, MetricTypes.OXYGEN_SATURATION};
+        for (int run = 0; run < 3; run++) { // Later runs show the speed with a warm JIT
+            for (int type = 0; type < types.length; type++) {
+                StreamingAlertStrategy handWritten = type == 0 ? new BloodPressureStrategy()
+                        : type == 1 ? new HeartRateStrategy() : new OxygenSaturationStrategy();
+                measure(types[type] + " hand-written", handWritten, values);
+                measure(types[type] + " compiled", rules.compile(types[type]), values);
+                measure(types[type] + " rule book", book.strategyFor(types[type]), values);
+            }
+        }
+    }
+
+    private static void measure(String name, StreamingAlertStrategy strategy, double[] values) {
+        int alerts = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < values.length; i++) {
+            if (strategy.onSample(i % PATIENTS + 1, START + (i / PATIENTS) * 1000L, values[i]) != null) {
+                alerts++;
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        System.out.printf("%-36s %6.1f ns/sample (%d alerts)%n", name, (double) nanos / values.length, alerts);
+    }
+}
@@ -0,0 +1,66 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.cardio_generator.TickScheduler;
+import com.cardio_generator.generators.AlertGenerator;
+import com.cardio_generator.generators.BloodLevelsDataGenerator;
+import com.cardio_generator.generators.BloodPressureDataGenerator;
+import com.cardio_generator.generators.BloodSaturationDataGenerator;
+import com.cardio_generator.generators.ECGDataGenerator;
+import com.cardio_generator.outputs.OutputStrategy;
+import com.cardio_generator.outputs.SampleBatch;
+
+/**
+ * Runs the simulator's generator schedule for a large patient population in real
+ * time against an output that only counts samples, and reports the sample rate,
+ * the scheduler's worst lag and the number of live threads.
+ *
+ * <p>Usage: {@code SchedulerBenchmark [patients] [workerThreads] [seconds]}
+ */
+public class SchedulerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int patients = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        LongAdder samples = new LongAdder();
+        OutputStrategy counter = new OutputStrategy() {
+            @Override
+            public void output(int patientId, long timestamp, String label, String data) {
+                samples.increment();
+            }
+
+            @Override
+            public void outputBatch(SampleBatch batch) {
+                samples.add(batch.size());
+            }
+        };
+        List<Integer> patientIds = new ArrayList<>();
+        for (int i = 1; i <= patients; i++) {
+            patientIds.add(i);
+        }
+
+        TickScheduler scheduler = new TickScheduler(counter, threads, TickScheduler.DEFAULT_SHARD_SIZE);
+        scheduler.schedule(new ECGDataGenerator(patients), patientIds, 1000, () -> 0);
+        scheduler.schedule(new BloodSaturationDataGenerator(patients), patientIds, 1000, () -> 0);
+        scheduler.schedule(new BloodPressureDataGenerator(patients), patientIds, 60_000, () -> 0);
+        scheduler.schedule(new BloodLevelsDataGenerator(patients), patientIds, 120_000, () -> 0);
+        scheduler.schedule(new AlertGenerator(patients), patientIds, 20_000, () -> 0);
+        long start = System.nanoTime();
+        scheduler.start();
+        Thread.sleep(seconds * 1000L);
+        int liveThreads = Thread.activeCount();
+        scheduler.shutdown(5, TimeUnit.SECONDS);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("patients=%d workers=%d buckets=%d live threads=%d%n", patients, threads,
+                scheduler.getBucketCount(), liveThreads);
+        System.out.printf("%,.0f samples/sec, max lag %d ms%n", samples.sum() / elapsed,
+                scheduler.getMaxLagMillis());
+    }
+}
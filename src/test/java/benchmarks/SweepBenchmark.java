@@ -0,0 +1,57 @@
+package benchmarks;
+
+import com.alerts.AlertGenerator;
+import com.alerts.MetricTypes;
+import com.alerts.ParallelAlertSweep;
+import com.data_management.DataStorage;
+import com.data_management.RecordBatch;
+
+/**
+ * Measures how a parallel alert sweep over every patient scales with the
+ * number of workers, from one up to the number of cores.
+ *
+ * <p>Usage: {@code SweepBenchmark [patients] [records per patient and metric]}
+ */
+public class SweepBenchmark {
+    private static final long START = 1714376789050L;
+
+    public static void main(String[] args) throws Exception {
+        int patients = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int records = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        DataStorage storage = new DataStorage();
+        RecordBatch batch = new RecordBatch(records * 2);
+        for (int patientId = 1; patientId <= patients; patientId++) {
+            for (int i = 0; i < records; i++) {
+                batch.add(patientId, 110 + (patientId + i) % 30, "SystolicPressure", START + i * 1000L);
+                batch.add(patientId, 95 + (patientId + i) % 5, "Saturation", START + i * 1000L);
+            }
+            storage.addPatientData(batch);
+            batch.clear();
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        double single = 0;
+        for (int workers = 1; workers <= cores; workers *= 2) {
+            try (ParallelAlertSweep sweep = new ParallelAlertSweep(storage,
+                    () -> AlertGenerator.defaultRules(MetricTypes.defaults()), workers)) {
+                long best = Long.MAX_VALUE;
+                int alerts = 0;
+                for (int run = 0; run < 5; run++) { // Best of several runs, with a warm JIT
+                    long start = System.nanoTime();
+                    alerts = sweep.sweep(START, START + records * 1000L).size();
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+                double seconds = best / 1e9;
+                if (workers == 1) {
+                    single = seconds;
+                }
+                System.out.printf("workers=%d: %.0f ms, %,.0f patients/sec, speedup %.2fx, %d shards stolen,"
+                        + " %d alerts%n", workers, seconds * 1000, patients / seconds, single / seconds,
+                        sweep.getShardsStolen(), alerts);
+            }
+            if (workers < cores && workers * 2 > cores) {
+                workers = cores / 2; // Also measure every core when the count is not a power of two
+            }
+        }
+    }
+}
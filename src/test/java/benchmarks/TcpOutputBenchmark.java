@@ -0,0 +1,97 @@
+package benchmarks;
+
+import java.io.InputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.cardio_generator.outputs.TcpOutputStrategy;
+
+/**
+ * Measures TcpOutputStrategy fan-out throughput with 1, 10 and 100 connected
+ * clients. Each client counts received lines on its own thread; a run ends when
+ * every client has received every record that was not dropped.
+ *
+ * <p>Usage: {@code TcpOutputBenchmark [producerThreads] [recordsPerThread]}
+ */
+public class TcpOutputBenchmark {
+    private static final int[] CLIENT_COUNTS = {1, 10, 100};
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int recordsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        for (int clientCount : CLIENT_COUNTS) {
+            run(clientCount, threads, recordsPerThread);
+        }
+    }
+
+    private static void run(int clientCount, int threads, int recordsPerThread) throws Exception {
+        TcpOutputStrategy output = new TcpOutputStrategy(0, TcpOutputStrategy.DEFAULT_CLIENT_BUFFER_BYTES,
+                TcpOutputStrategy.SlowConsumerPolicy.DROP);
+        AtomicLong received = new AtomicLong();
+        List<Socket> sockets = new ArrayList<>();
+        for (int c = 0; c < clientCount; c++) {
+            Socket socket = new Socket("localhost", output.getPort());
+            sockets.add(socket);
+            Thread reader = new Thread(() -> countLines(socket, received));
+            reader.setDaemon(true);
+            reader.start();
+        }
+        while (output.getClientCount() < clientCount) {
+            Thread.sleep(10);
+        }
+
+        long start = System.nanoTime();
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int threadIndex = t;
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < recordsPerThread; i++) {
+                    output.output(threadIndex * 100 + i % 100, 1714376789050L + i, "ECG",
+                            Double.toString(i * 0.25));
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        long sent = (long) threads * recordsPerThread;
+        long expected = sent * clientCount;
+        long deadline = System.nanoTime() + 60_000_000_000L;
+        while (received.get() + output.getDroppedRecords() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("clients=%d records=%d delivered=%d dropped=%d%n",
+                clientCount, sent, received.get(), output.getDroppedRecords());
+        System.out.printf("  %,.0f records/sec produced, %,.0f lines/sec delivered%n",
+                sent / (elapsed / 1e9), received.get() / (elapsed / 1e9));
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        output.close();
+    }
+
+    private static void countLines(Socket socket, AtomicLong received) {
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = socket.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                int lines = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        lines++;
+                    }
+                }
+                received.addAndGet(lines);
+            }
+        } catch (Exception e) {
+            // Socket closed at the end of the run
+        }
+    }
+}
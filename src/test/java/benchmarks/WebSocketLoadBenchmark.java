@@ -0,0 +1,126 @@
+package benchmarks;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.handshake.ServerHandshake;
+
+import com.data_management.DataStorage;
+import com.data_management.PatientWebSocketServer;
+
+/**
+ * Load test for PatientWebSocketServer. Dozens of simulated simulators connect
+ * concurrently and stream records; the run is repeated with 1, 2, 4 ... N decoder
+ * and worker threads to show how messages/sec scales with cores.
+ *
+ * <p>Usage: {@code WebSocketLoadBenchmark [clients] [messagesPerClient] [maxThreads]}
+ */
+public class WebSocketLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int messagesPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        List<String[]> messages = generateMessages(clients, messagesPerClient);
+        System.out.printf("clients=%d messages=%d%n", clients, (long) clients * messagesPerClient);
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            double rate = run(messages, threads);
+            System.out.printf("threads=%-3d %,12.0f messages/sec%n", threads, rate);
+        }
+    }
+
+    private static List<String[]> generateMessages(int clients, int messagesPerClient) {
+        List<String[]> messages = new ArrayList<>();
+        long baseTimestamp = 1714376789050L;
+        for (int c = 0; c < clients; c++) {
+            String[] clientMessages = new String[messagesPerClient];
+            for (int i = 0; i < messagesPerClient; i++) {
+                int patientId = c * 100 + (i % 100) + 1; // Each simulator owns 100 patients
+                clientMessages[i] = patientId + "," + (baseTimestamp + i) + ",ECG," + (i % 1000) / 1000.0;
+            }
+            messages.add(clientMessages);
+        }
+        return messages;
+    }
+
+    private static double run(List<String[]> messages, int threads) throws Exception {
+        DataStorage storage = new DataStorage();
+        int port = freePort();
+        PatientWebSocketServer server = new PatientWebSocketServer(port, storage, threads, threads);
+        server.setRebroadcast(false); // Measure ingest, not fan-out to the other simulators
+        server.start();
+        Thread.sleep(300);
+
+        List<WebSocketClient> clients = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            WebSocketClient client = new SilentClient(new URI("ws://localhost:" + port));
+            client.connectBlocking();
+            clients.add(client);
+        }
+
+        long total = 0;
+        long start = System.nanoTime();
+        List<Thread> senders = new ArrayList<>();
+        for (int c = 0; c < clients.size(); c++) {
+            WebSocketClient client = clients.get(c);
+            String[] clientMessages = messages.get(c);
+            total += clientMessages.length;
+            Thread sender = new Thread(() -> {
+                for (String message : clientMessages) {
+                    client.send(message);
+                }
+            });
+            sender.start();
+            senders.add(sender);
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+        while (storage.getRecordCount() < total) {
+            Thread.sleep(5);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        for (WebSocketClient client : clients) {
+            client.closeBlocking();
+        }
+        server.stop();
+        return total / (elapsed / 1e9);
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Client that only sends.
+     */
+    private static class SilentClient extends WebSocketClient {
+        SilentClient(URI uri) {
+            super(uri);
+        }
+
+        @Override
+        public void onOpen(ServerHandshake handshake) {
+        }
+
+        @Override
+        public void onMessage(String message) {
+        }
+
+        @Override
+        public void onClose(int code, String reason, boolean remote) {
+        }
+
+        @Override
+        public void onError(Exception ex) {
+            ex.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package cardio_generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.cardio_generator.outputs.BinaryFileOutputStrategy;
+import com.cardio_generator.outputs.BinarySampleFormat;
+import com.cardio_generator.outputs.MetricRegistry;
+import com.data_management.BinaryFileDataReader;
+import com.data_management.DataStorage;
+import com.data_management.PatientRecord;
+
+/**
+ * Verifies that binary segments roll at the configured size and load back into
+ * DataStorage with the same labels and values, including text records, and
+ * that a failing output directory is not retried for every record.
+ */
+class BinaryFileOutputStrategyTest {
+
+    @TempDir
+    Path outputDirectory;
+
+    @Test
+    void testSegmentsRoundTripIntoStorage() throws Exception {
+        BinaryFileOutputStrategy output = new BinaryFileOutputStrategy(outputDirectory.toString(), 1000);
+        for (int i = 0; i < 2500; i++) {
+            output.output(i % 10 + 1, 1714376789050L + i, MetricRegistry.ECG, i * 0.5);
+        }
+        output.output(1, 1714376800000L, "Saturation", "97.0%");
+        output.output(1, 1714376800001L, "Alert", "triggered");
+        output.close();
+
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(outputDirectory)) {
+            segments = files.sorted().collect(Collectors.toList());
+        }
+        assertEquals(3, segments.size());
+        long dataBytes = Files.size(segments.get(0)) - BinarySampleFormat.encodeHeader(MetricRegistry.size()).limit();
+        assertEquals(1000L * BinarySampleFormat.RECORD_BYTES, dataBytes);
+
+        DataStorage storage = new DataStorage();
+        new BinaryFileDataReader(outputDirectory.toString()).readData(storage);
+        assertEquals(2502, storage.getRecordCount());
+
+        List<PatientRecord> records = storage.getRecords(1, 1714376789050L, 1714376789050L);
+        assertEquals("ECG", records.get(0).getRecordType());
+        assertEquals(0.0, records.get(0).getMeasurementValue());
+        List<PatientRecord> late = storage.getRecords(1, 1714376800000L, 1714376800001L);
+        assertEquals(2, late.size());
+        assertEquals(97.0, late.get(0).getMeasurementValue());
+        assertEquals(MetricRegistry.ALERT_TRIGGERED, late.get(1).getMeasurementValue());
+        assertEquals("Alert", late.get(1).getRecordType());
+    }
+
+    @Test
+    void testUnwritableDirectoryIsNotRetriedPerRecord() throws Exception {
+        Path notADirectory = Files.createFile(outputDirectory.resolve("taken"));
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        PrintStream originalErr = System.err;
+        System.setErr(new PrintStream(errors, true, "UTF-8"));
+        try {
+            BinaryFileOutputStrategy output = new BinaryFileOutputStrategy(notADirectory.toString(), 1000);
+            for (int i = 0; i < 1000; i++) {
+                output.output(1, 1714376789050L + i, MetricRegistry.ECG, 0.5);
+            }
+            output.close();
+        } finally {
+            System.setErr(originalErr);
+        }
+
+        String log = errors.toString("UTF-8");
+        assertEquals(1, log.split("Error opening segment", -1).length - 1, log);
+    }
+}
@@ -0,0 +1,92 @@
+package cardio_generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.cardio_generator.outputs.CompositeOutputStrategy;
+import com.cardio_generator.outputs.MetricRegistry;
+import com.cardio_generator.outputs.OutputStrategy;
+import com.cardio_generator.outputs.SampleBatch;
+
+/**
+ * Verifies that a stalled sink only loses its own records and does not slow
+ * down delivery to the other sinks, and that a failing sink recovers.
+ */
+class CompositeOutputStrategyTest {
+
+    @Test
+    void testSlowSinkDropsWithoutBlockingOthers() throws Exception {
+        AtomicInteger fastCount = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Map<String, OutputStrategy> sinks = new LinkedHashMap<>();
+        sinks.put("fast", (patientId, timestamp, label, data) -> fastCount.incrementAndGet());
+        sinks.put("stalled", (patientId, timestamp, label, data) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CompositeOutputStrategy output = new CompositeOutputStrategy(sinks, 1000, 0);
+
+        for (int i = 0; i < 10_000; i++) {
+            output.output(i % 10, 1714376789050L + i, "ECG", "0.5");
+        }
+        CompositeOutputStrategy.Sink fast = output.getSinks().get(0);
+        CompositeOutputStrategy.Sink stalled = output.getSinks().get(1);
+        assertTrue(stalled.getDropped() >= 10_000 - 1001);
+
+        release.countDown();
+        output.close();
+        assertEquals(10_000, fast.getDelivered() + fast.getDropped());
+        assertEquals(10_000, fastCount.get() + fast.getDropped());
+        assertEquals(10_000, stalled.getDelivered() + stalled.getDropped());
+        assertEquals(0, stalled.getLag());
+    }
+
+    @Test
+    void testFailedBatchDoesNotDisableSink() throws Exception {
+        AtomicInteger written = new AtomicInteger();
+        AtomicBoolean failing = new AtomicBoolean(true);
+        Map<String, OutputStrategy> sinks = new LinkedHashMap<>();
+        sinks.put("flaky", new OutputStrategy() {
+            @Override
+            public void output(int patientId, long timestamp, String label, String data) {
+                written.incrementAndGet();
+            }
+
+            @Override
+            public void outputBatch(SampleBatch batch) {
+                if (failing.get()) {
+                    throw new IllegalStateException("sink unavailable");
+                }
+                written.addAndGet(batch.size());
+            }
+        });
+        CompositeOutputStrategy output = new CompositeOutputStrategy(sinks, 1000, 0);
+        CompositeOutputStrategy.Sink sink = output.getSinks().get(0);
+
+        for (int i = 0; i < 10; i++) {
+            output.output(1, 1714376789050L + i, MetricRegistry.ECG, 0.5);
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (sink.getDelivered() < 10 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1); // Delivered is counted once the failed batch was passed on
+        }
+        failing.set(false);
+        for (int i = 10; i < 20; i++) {
+            output.output(1, 1714376789050L + i, MetricRegistry.ECG, 0.5);
+        }
+        output.close();
+
+        assertEquals(20, sink.getDelivered());
+        assertEquals(10, written.get()); // Only the samples after the failure, none of the failed ones again
+    }
+}
@@ -0,0 +1,41 @@
+package cardio_generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.cardio_generator.outputs.DirectOutputStrategy;
+import com.cardio_generator.outputs.MetricRegistry;
+import com.cardio_generator.outputs.SampleBatch;
+import com.data_management.DataStorage;
+import com.data_management.PatientRecord;
+
+/**
+ * Verifies that the direct output stores batches and text records in DataStorage
+ * under the generators' labels.
+ */
+class DirectOutputStrategyTest {
+
+    @Test
+    void testSamplesAreStoredDirectly() {
+        DataStorage storage = new DataStorage();
+        DirectOutputStrategy output = new DirectOutputStrategy(storage);
+        SampleBatch batch = new SampleBatch(2);
+        batch.add(7, 1714376789050L, MetricRegistry.SYSTOLIC_PRESSURE, 120);
+        batch.add(7, 1714376789050L, MetricRegistry.DIASTOLIC_PRESSURE, 80);
+        output.outputBatch(batch);
+        output.output(7, 1714376789051L, "Saturation", "96.0%");
+        output.output(7, 1714376789052L, "Alert", "resolved");
+        output.close();
+
+        List<PatientRecord> records = storage.getRecords(7, 0, Long.MAX_VALUE);
+        assertEquals(4, records.size());
+        assertEquals(4, output.getRecordsStored());
+        assertEquals("SystolicPressure", records.get(0).getRecordType());
+        assertEquals(80.0, records.get(1).getMeasurementValue());
+        assertEquals(96.0, records.get(2).getMeasurementValue());
+        assertEquals(MetricRegistry.ALERT_RESOLVED, records.get(3).getMeasurementValue());
+    }
+}
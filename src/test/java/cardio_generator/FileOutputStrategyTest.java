@@ -0,0 +1,112 @@
+package cardio_generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.cardio_generator.outputs.FileOutputStrategy;
+import com.cardio_generator.outputs.MetricRegistry;
+import com.cardio_generator.outputs.RollingLayout;
+import com.cardio_generator.outputs.SegmentIndex;
+import com.data_management.DataStorage;
+import com.data_management.FileDataReader;
+
+/**
+ * Verifies that the buffered file output keeps the line format and writes every
+ * queued record before close returns, that numeric samples are formatted the
+ * way the generators used to format them, and that rolled segments can be read
+ * back by time and patient range.
+ */
+class FileOutputStrategyTest {
+
+    @TempDir
+    Path outputDirectory;
+
+    @Test
+    void testRecordsAreWrittenPerLabelOnClose() throws Exception {
+        FileOutputStrategy output = new FileOutputStrategy(outputDirectory.toString(), 60_000, 1024, false);
+        for (int i = 0; i < 5000; i++) {
+            output.output(i % 50, 1714376789050L + i, i % 2 == 0 ? "ECG" : "Saturation", Double.toString(i / 10.0));
+        }
+        output.close();
+
+        List<String> ecg = Files.readAllLines(outputDirectory.resolve("ECG.txt"));
+        List<String> saturation = Files.readAllLines(outputDirectory.resolve("Saturation.txt"));
+        assertEquals(2500, ecg.size());
+        assertEquals(2500, saturation.size());
+        assertEquals("Patient ID: 0, Timestamp: 1714376789050, Label: ECG, Data: 0.0", ecg.get(0));
+        assertEquals("Patient ID: 49, Timestamp: 1714376794049, Label: Saturation, Data: 499.9",
+                saturation.get(2499));
+    }
+
+    @Test
+    void testRecordsLongerThanTheBufferAreWritten() throws Exception {
+        FileOutputStrategy output = new FileOutputStrategy(outputDirectory.toString(), 60_000, 1024, false);
+        StringBuilder note = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            note.append(i % 2 == 0 ? 'x' : '\u00e9'); // Two bytes in UTF-8
+        }
+        output.output(1, 1714376789050L, "Note", note.toString());
+        output.output(1, 1714376789051L, "Note", "after");
+        output.close();
+
+        List<String> lines = Files.readAllLines(outputDirectory.resolve("Note.txt"));
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).endsWith(note.toString()));
+        assertEquals("Patient ID: 1, Timestamp: 1714376789051, Label: Note, Data: after", lines.get(1));
+    }
+
+    @Test
+    void testPrimitiveSamplesKeepTheTextFormat() throws Exception {
+        FileOutputStrategy output = new FileOutputStrategy(outputDirectory.toString());
+        output.output(3, 1714376789050L, MetricRegistry.SATURATION, 97);
+        output.output(3, 1714376789051L, MetricRegistry.ALERT, MetricRegistry.ALERT_TRIGGERED);
+        output.output(3, 1714376789052L, MetricRegistry.ECG, 0.125);
+        output.close();
+
+        assertEquals("Patient ID: 3, Timestamp: 1714376789050, Label: Saturation, Data: 97.0%",
+                Files.readAllLines(outputDirectory.resolve("Saturation.txt")).get(0));
+        assertEquals("Patient ID: 3, Timestamp: 1714376789051, Label: Alert, Data: triggered",
+                Files.readAllLines(outputDirectory.resolve("Alert.txt")).get(0));
+        assertEquals("Patient ID: 3, Timestamp: 1714376789052, Label: ECG, Data: 0.125",
+                Files.readAllLines(outputDirectory.resolve("ECG.txt")).get(0));
+    }
+
+    @Test
+    void testRollingSegmentsAreIndexedAndReadByRange() throws Exception {
+        long hour = 3_600_000L;
+        long start = 1743930000000L; // Aligned to an hour
+        RollingLayout layout = new RollingLayout(hour, 50, 512);
+        FileOutputStrategy output = new FileOutputStrategy(outputDirectory.toString(), 60_000, 4096, false, layout);
+        for (int window = 0; window < 3; window++) {
+            for (int patientId = 1; patientId <= 100; patientId++) {
+                for (int sample = 0; sample < 10; sample++) {
+                    long timestamp = start + window * hour + sample * 1000L + patientId;
+                    output.output(patientId, timestamp, "Saturation", (90 + sample) + ".0%");
+                }
+            }
+        }
+        output.close();
+
+        Path segment = outputDirectory.resolve("Saturation").resolve("Saturation-" + (start + hour) + "-p0.txt");
+        assertTrue(Files.exists(segment));
+        SegmentIndex index = SegmentIndex.read(SegmentIndex.indexPathFor(segment));
+        assertEquals(490, index.getRecordCount()); // Patients 1 to 49
+        assertEquals(1, index.getMinPatientId());
+        assertEquals(49, index.getMaxPatientId());
+        assertTrue(index.getBlocks().size() > 1);
+
+        DataStorage storage = new DataStorage();
+        FileDataReader reader = new FileDataReader(outputDirectory.toString());
+        reader.readData(storage, start + hour, start + 2 * hour - 1, 40, 60);
+        assertEquals(21 * 10, storage.getRecordCount());
+        assertEquals(0, storage.getRecords(39, 0, Long.MAX_VALUE).size());
+        assertEquals(95.0, storage.getRecords(40, start + hour + 5000, start + hour + 5040).get(0)
+                .getMeasurementValue());
+    }
+}
@@ -0,0 +1,81 @@
+package cardio_generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.cardio_generator.LoadProfile;
+
+/**
+ * Verifies parsing of load profile files and the patient counts and rate
+ * multipliers they give over time.
+ */
+class LoadProfileTest {
+
+    @Test
+    void testPhasesRampAndCarryOver() {
+        LoadProfile profile = LoadProfile.parse(List.of(
+                "# Admissions surge, then shift change and a soak",
+                "phase warmup duration=10m",
+                "",
+                "phase surge  duration=5m patients=100->1000 ecg=1->4   # ramp",
+                "phase shift  duration=1m saturation=3 burst",
+                "phase soak   duration=1h"), 100);
+
+        assertEquals(4, profile.getPhases().size());
+        assertEquals(100, profile.getInitialPatients());
+        assertEquals((10 + 5 + 1 + 60) * 60_000L, profile.getDurationMillis());
+
+        LoadProfile.Phase surge = profile.getPhases().get(1);
+        assertEquals(100, surge.patientsAt(0));
+        assertEquals(550, surge.patientsAt(150_000));
+        assertEquals(1000, surge.patientsAt(300_000));
+        assertEquals(2.5, surge.multiplierAt("ecg", 150_000), 1e-9);
+        assertEquals(1.0, surge.multiplierAt("saturation", 150_000));
+
+        LoadProfile.Phase shift = profile.getPhases().get(2);
+        assertTrue(shift.isBurst());
+        assertEquals(1000, shift.patientsAt(0)); // Carried over from the end of the surge
+        assertEquals(3.0, shift.multiplierAt("saturation", 0));
+
+        assertEquals(0, profile.phaseIndexAt(0));
+        assertEquals(1, profile.phaseIndexAt(600_000));
+        assertEquals(2, profile.phaseIndexAt(900_000));
+        assertEquals(600_000, profile.phaseStartMillis(1));
+        assertEquals(-1, profile.phaseIndexAt(profile.getDurationMillis()));
+    }
+
+    @Test
+    void testPartitionSplitsPatientsEvenlyAndRoundTrips() {
+        LoadProfile profile = LoadProfile.parse(List.of(
+                "phase base duration=10m patients=10",
+                "phase surge duration=5m patients=10->101 ecg=1->4 burst"), 10);
+        assertEquals(101, profile.getMaxPatients());
+
+        int total = 0;
+        for (int worker = 0; worker < 3; worker++) {
+            LoadProfile part = LoadProfile.parse(profile.partition(worker, 3).toLines(), 0);
+            assertEquals(profile.getDurationMillis(), part.getDurationMillis());
+            assertTrue(part.getPhases().get(1).isBurst());
+            assertEquals(2.5, part.getPhases().get(1).multiplierAt("ecg", 150_000), 1e-9);
+            total += part.getPhases().get(1).patientsAt(300_000);
+        }
+        assertEquals(101, total);
+        assertEquals(34, LoadProfile.share(101, 0, 3));
+        assertEquals(33, LoadProfile.share(101, 2, 3));
+    }
+
+    @Test
+    void testInvalidLinesAreReported() {
+        IllegalArgumentException missingDuration = assertThrows(IllegalArgumentException.class,
+                () -> LoadProfile.parse(List.of("phase a duration=1m", "phase b patients=5"), 1));
+        assertTrue(missingDuration.getMessage().startsWith("Line 2:"), missingDuration.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> LoadProfile.parse(List.of("phase a duration=1m ecg=0"), 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> LoadProfile.parse(List.of("phase a duration=1m patients=ten"), 1));
+        assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse(List.of("# nothing"), 1));
+    }
+}
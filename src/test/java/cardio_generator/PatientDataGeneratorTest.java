@@ -0,0 +1,110 @@
+package cardio_generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.cardio_generator.generators.BloodLevelsDataGenerator;
+import com.cardio_generator.generators.ECGDataGenerator;
+import com.cardio_generator.generators.HighRateECGDataGenerator;
+import com.cardio_generator.generators.PatientDataGenerator;
+import com.cardio_generator.outputs.SampleBatch;
+
+/**
+ * Verifies that seeded generators repeat their values per patient, regardless
+ * of the order in which patients are generated, and that high-rate ECG fills
+ * each tick with a gap-free block of samples.
+ */
+class PatientDataGeneratorTest {
+    private static final int PATIENTS = 20;
+    private static final int TICKS = 5;
+    private static final long START = 1714376789050L;
+
+    @Test
+    void testSeededGeneratorsRepeatPerPatient() {
+        double[][] forward = generate(new BloodLevelsDataGenerator(PATIENTS, 42), false);
+        double[][] backward = generate(new BloodLevelsDataGenerator(PATIENTS, 42), true);
+        for (int patientId = 1; patientId <= PATIENTS; patientId++) {
+            assertArrayEquals(forward[patientId], backward[patientId], "Patient " + patientId);
+        }
+        assertArrayEquals(generate(new ECGDataGenerator(PATIENTS, 7), false)[3],
+                generate(new ECGDataGenerator(PATIENTS, 7), true)[3]);
+    }
+
+    @Test
+    void testDifferentSeedsDiffer() {
+        double[][] first = generate(new BloodLevelsDataGenerator(PATIENTS, 1), false);
+        double[][] second = generate(new BloodLevelsDataGenerator(PATIENTS, 2), false);
+        assertFalse(Arrays.equals(first[1], second[1]));
+    }
+
+    @Test
+    void testHighRateEcgEmitsBlocksOfBeats() {
+        HighRateECGDataGenerator generator = new HighRateECGDataGenerator(PATIENTS, 250, 3);
+        SampleBatch batch = new SampleBatch(256);
+        generator.generate(1, START, batch);
+        assertEquals(1, batch.size());
+
+        int beats = 0;
+        long previousTime = START;
+        boolean inPeak = false;
+        for (int second = 1; second <= 60; second++) {
+            batch.clear();
+            generator.generate(1, START + second * 1000L, batch);
+            assertEquals(250, batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                assertEquals(4, batch.getTimestamp(i) - previousTime);
+                previousTime = batch.getTimestamp(i);
+                boolean peak = batch.getValue(i) > 0.6; // Only R waves reach this high
+                if (peak && !inPeak) {
+                    beats++;
+                }
+                inPeak = peak;
+            }
+        }
+        assertTrue(beats >= 55 && beats <= 85, "Expected a resting heart rate, got " + beats + " beats/min");
+    }
+
+    @Test
+    void testHighRateEcgAtOneHertzAndRateLimits() {
+        HighRateECGDataGenerator generator = new HighRateECGDataGenerator(PATIENTS, 1, 3);
+        SampleBatch batch = new SampleBatch(16);
+        for (int second = 0; second <= 30; second++) {
+            batch.clear();
+            generator.generate(1, START + second * 1000L, batch);
+            assertEquals(1, batch.size()); // One new sample per second, none repeated
+            assertEquals(START + second * 1000L, batch.getTimestamp(0));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new HighRateECGDataGenerator(PATIENTS, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new HighRateECGDataGenerator(PATIENTS, HighRateECGDataGenerator.MAX_SAMPLE_RATE + 1));
+    }
+
+    /**
+     * Generates every patient for a few ticks, visiting patients in either
+     * order, and returns each patient's values in generation order.
+     */
+    private static double[][] generate(PatientDataGenerator generator, boolean reverse) {
+        SampleBatch batch = new SampleBatch(16);
+        double[][] values = new double[PATIENTS + 1][];
+        for (int patientId = 1; patientId <= PATIENTS; patientId++) {
+            values[patientId] = new double[0];
+        }
+        for (int tick = 0; tick < TICKS; tick++) {
+            for (int i = 1; i <= PATIENTS; i++) {
+                int patientId = reverse ? PATIENTS + 1 - i : i;
+                batch.clear();
+                generator.generate(patientId, START + tick * 1000L, batch);
+                double[] previous = values[patientId];
+                double[] next = Arrays.copyOf(previous, previous.length + batch.size());
+                for (int j = 0; j < batch.size(); j++) {
+                    next[previous.length + j] = batch.getValue(j);
+                }
+                values[patientId] = next;
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,114 @@
+package cardio_generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.cardio_generator.SimulationCoordinator;
+import com.cardio_generator.SimulationWorker;
+import com.cardio_generator.TickScheduler;
+import com.cardio_generator.VirtualClock;
+import com.cardio_generator.WorkerAssignment;
+import com.cardio_generator.generators.BloodSaturationDataGenerator;
+import com.cardio_generator.outputs.OutputStrategy;
+import com.cardio_generator.outputs.PatientIdOffsetOutputStrategy;
+import com.cardio_generator.outputs.SampleBatch;
+
+/**
+ * Verifies that the coordinator gives workers disjoint patient ranges and a
+ * common start, and adds up the statistics they report.
+ */
+class SimulationCoordinatorTest {
+    private static final int PATIENTS = 100;
+    private static final long START = 1714376789000L;
+    private static final long DURATION = 60_000;
+
+    @Test
+    void testWorkersGetDisjointRangesAndStatisticsAddUp() throws Exception {
+        SimulationCoordinator coordinator = new SimulationCoordinator(0, 2, 200);
+        Thread coordinatorThread = new Thread(() -> {
+            try {
+                coordinator.run(PATIENTS, null, 5L, true, START, DURATION);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        coordinatorThread.start();
+
+        List<Set<Integer>> patientsByWorker = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        List<WorkerAssignment> assignments = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Set<Integer> patients = ConcurrentHashMap.newKeySet();
+            patientsByWorker.add(patients);
+            Thread worker = new Thread(() -> runWorker(coordinator.getPort(), patients, assignments));
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        coordinatorThread.join(TimeUnit.SECONDS.toMillis(30));
+        coordinator.close();
+
+        assertEquals(2, assignments.size());
+        assertEquals(assignments.get(0).getStartMillis(), assignments.get(1).getStartMillis());
+        assertNotEquals(assignments.get(0).getSeed(), assignments.get(1).getSeed());
+        Set<Integer> all = ConcurrentHashMap.newKeySet();
+        for (Set<Integer> patients : patientsByWorker) {
+            assertEquals(PATIENTS / 2, patients.size());
+            for (int patientId : patients) {
+                assertTrue(all.add(patientId), "Patient " + patientId + " generated by two workers");
+            }
+        }
+        for (int patientId = 1; patientId <= PATIENTS; patientId++) {
+            assertTrue(all.contains(patientId));
+        }
+        assertEquals(PATIENTS * DURATION / 1000, coordinator.getTotalSamples());
+        assertTrue(coordinator.getWorkers().stream().allMatch(SimulationCoordinator.WorkerStatus::isDone));
+    }
+
+    private static void runWorker(int port, Set<Integer> patients, List<WorkerAssignment> assignments) {
+        try {
+            SimulationWorker worker = new SimulationWorker("localhost", port);
+            WorkerAssignment assignment = worker.awaitAssignment();
+            synchronized (assignments) {
+                assignments.add(assignment);
+            }
+            OutputStrategy collector = new OutputStrategy() {
+                @Override
+                public void output(int patientId, long timestamp, String label, String data) {
+                }
+
+                @Override
+                public void outputBatch(SampleBatch batch) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        patients.add(batch.getPatientId(i));
+                    }
+                }
+            };
+            TickScheduler scheduler = new TickScheduler(
+                    new PatientIdOffsetOutputStrategy(collector, assignment.getPatientOffset()),
+                    new VirtualClock(assignment.getStartMillis()), 1, TickScheduler.DEFAULT_SHARD_SIZE);
+            List<Integer> patientIds = new ArrayList<>();
+            for (int i = 1; i <= assignment.getPatientCount(); i++) {
+                patientIds.add(i);
+            }
+            scheduler.schedule(new BloodSaturationDataGenerator(assignment.getPatientCount(), assignment.getSeed()),
+                    patientIds, 1000, () -> 0);
+            worker.startReporting(scheduler);
+            scheduler.start(assignment.getStartMillis() + assignment.getDurationMillis());
+            scheduler.awaitEnd();
+            scheduler.shutdown(5, TimeUnit.SECONDS);
+            worker.finish(scheduler);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
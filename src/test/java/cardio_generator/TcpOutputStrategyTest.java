@@ -0,0 +1,87 @@
+package cardio_generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.Socket;
+
+import org.junit.jupiter.api.Test;
+
+import com.cardio_generator.outputs.MetricRegistry;
+import com.cardio_generator.outputs.SampleBatch;
+import com.cardio_generator.outputs.TcpOutputStrategy;
+
+/**
+ * Verifies that every connected client receives each record and batch, and that a client
+ * which stops reading is disconnected under the DISCONNECT policy.
+ */
+class TcpOutputStrategyTest {
+
+    @Test
+    void testAllClientsReceiveRecords() throws Exception {
+        TcpOutputStrategy output = new TcpOutputStrategy(0);
+        try (Socket first = new Socket("localhost", output.getPort());
+             Socket second = new Socket("localhost", output.getPort())) {
+            awaitClients(output, 2);
+            output.output(1, 1714376789050L, "ECG", "0.25");
+            output.output(2, 1714376789051L, "Saturation", "97.0%");
+            output.output(-3, Long.MIN_VALUE, "ECG", "1"); // Numbers are formatted in place, signs included
+
+            for (Socket socket : new Socket[] {first, second}) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                assertEquals("1,1714376789050,ECG,0.25", reader.readLine());
+                assertEquals("2,1714376789051,Saturation,97.0%", reader.readLine());
+                assertEquals("-3,-9223372036854775808,ECG,1", reader.readLine());
+            }
+        } finally {
+            output.close();
+        }
+    }
+
+    @Test
+    void testBatchIsSentAsLines() throws Exception {
+        TcpOutputStrategy output = new TcpOutputStrategy(0);
+        try (Socket client = new Socket("localhost", output.getPort())) {
+            awaitClients(output, 1);
+            SampleBatch batch = new SampleBatch(2);
+            batch.add(4, 1714376789050L, MetricRegistry.SYSTOLIC_PRESSURE, 120);
+            batch.add(4, 1714376789050L, MetricRegistry.DIASTOLIC_PRESSURE, 80);
+            output.outputBatch(batch);
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream()));
+            assertEquals("4,1714376789050,SystolicPressure,120.0", reader.readLine());
+            assertEquals("4,1714376789050,DiastolicPressure,80.0", reader.readLine());
+        } finally {
+            output.close();
+        }
+    }
+
+    @Test
+    void testSlowClientIsDisconnected() throws Exception {
+        TcpOutputStrategy output = new TcpOutputStrategy(0, 4096, TcpOutputStrategy.SlowConsumerPolicy.DISCONNECT);
+        try (Socket idle = new Socket("localhost", output.getPort())) {
+            idle.setReceiveBufferSize(4096);
+            awaitClients(output, 1);
+            long deadline = System.currentTimeMillis() + 10_000;
+            for (int i = 0; output.getClientCount() > 0 && System.currentTimeMillis() < deadline; i++) {
+                output.output(i, 1714376789050L + i, "ECG", Double.toString(i * 0.25));
+                if (output.getDroppedRecords() > 0) {
+                    Thread.sleep(1);
+                }
+            }
+            assertEquals(0, output.getClientCount());
+            assertTrue(output.getDroppedRecords() > 0);
+        } finally {
+            output.close();
+        }
+    }
+
+    private static void awaitClients(TcpOutputStrategy output, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (output.getClientCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, output.getClientCount());
+    }
+}
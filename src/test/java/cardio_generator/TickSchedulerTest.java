@@ -0,0 +1,164 @@
+package cardio_generator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.cardio_generator.LoadProfile;
+import com.cardio_generator.LoadProfileRunner;
+import com.cardio_generator.TickScheduler;
+import com.cardio_generator.generators.BloodSaturationDataGenerator;
+import com.cardio_generator.VirtualClock;
+import com.cardio_generator.outputs.OutputStrategy;
+import com.cardio_generator.outputs.SampleBatch;
+
+/**
+ * Verifies that the tick scheduler runs every patient of every shard at the
+ * scheduled cadence and hands each shard's tick to the output as one batch, in
+ * real and in virtual time, and that a load profile changes patients and rates
+ * while it runs.
+ */
+class TickSchedulerTest {
+
+    @Test
+    void testShardsRunAtFixedRateInBatches() throws Exception {
+        int patients = 3000;
+        AtomicIntegerArray generated = new AtomicIntegerArray(patients + 1);
+        AtomicLong batches = new AtomicLong();
+        AtomicLong samples = new AtomicLong();
+        OutputStrategy output = new OutputStrategy() {
+            @Override
+            public void output(int patientId, long timestamp, String label, String data) {
+                fail("Samples should arrive in batches");
+            }
+
+            @Override
+            public void outputBatch(SampleBatch batch) {
+                batches.incrementAndGet();
+                samples.addAndGet(batch.size());
+            }
+        };
+        List<Integer> patientIds = new ArrayList<>();
+        for (int i = 1; i <= patients; i++) {
+            patientIds.add(i);
+        }
+
+        TickScheduler scheduler = new TickScheduler(output, 2, 1024);
+        scheduler.schedule((patientId, timestamp, batch) -> {
+            generated.incrementAndGet(patientId);
+            batch.add(patientId, timestamp, 0, 1.0);
+        }, patientIds, 50, () -> 0);
+        assertEquals(3, scheduler.getBucketCount());
+        scheduler.start();
+        Thread.sleep(500);
+        scheduler.shutdown(5, TimeUnit.SECONDS);
+
+        long ticks = scheduler.getTicks();
+        assertTrue(ticks >= 3 * 5, "Expected at least five ticks per shard, got " + ticks);
+        assertEquals(ticks, batches.get());
+        for (int i = 1; i <= patients; i++) {
+            assertTrue(generated.get(i) >= 5, "Patient " + i + " ran " + generated.get(i) + " times");
+        }
+        assertEquals(samples.get(), sum(generated));
+    }
+
+    @Test
+    void testVirtualTimeKeepsCadenceAndStopsAtEnd() throws Exception {
+        long start = 1714376789000L;
+        long day = 24 * 60 * 60 * 1000L;
+        List<Long> fastTimes = new ArrayList<>();
+        List<Long> slowTimes = new ArrayList<>();
+        OutputStrategy output = new OutputStrategy() {
+            @Override
+            public void output(int patientId, long timestamp, String label, String data) {
+            }
+
+            @Override
+            public synchronized void outputBatch(SampleBatch batch) {
+                (batch.getMetricId(0) == 0 ? fastTimes : slowTimes).add(batch.getTimestamp(0));
+            }
+        };
+
+        VirtualClock clock = new VirtualClock(start);
+        TickScheduler scheduler = new TickScheduler(output, clock, 2, 1024);
+        scheduler.schedule((patientId, timestamp, batch) -> batch.add(patientId, timestamp, 0, 0),
+                List.of(1, 2), 1000, () -> 0);
+        scheduler.schedule((patientId, timestamp, batch) -> batch.add(patientId, timestamp, 1, 0),
+                List.of(1, 2), 60_000, () -> 500);
+        long wallStart = System.nanoTime();
+        scheduler.start(start + day);
+        scheduler.awaitEnd();
+        scheduler.shutdown(5, TimeUnit.SECONDS);
+
+        assertTrue(System.nanoTime() - wallStart < TimeUnit.SECONDS.toNanos(30), "A day should not take long");
+        assertEquals(day / 1000, fastTimes.size());
+        assertEquals(day / 60_000, slowTimes.size());
+        for (int i = 0; i < fastTimes.size(); i++) {
+            assertEquals(start + i * 1000L, fastTimes.get(i));
+        }
+        assertEquals(start + 500, slowTimes.get(0));
+        assertEquals(start + 500 + 60_000, slowTimes.get(1));
+    }
+
+    @Test
+    void testLoadProfileGrowsPatientsChangesRateAndBursts() throws Exception {
+        long start = 1714376789000L;
+        Map<Long, Integer> samplesAt = new TreeMap<>();
+        Set<Integer> patients = new HashSet<>();
+        OutputStrategy output = new OutputStrategy() {
+            @Override
+            public void output(int patientId, long timestamp, String label, String data) {
+            }
+
+            @Override
+            public synchronized void outputBatch(SampleBatch batch) {
+                for (int i = 0; i < batch.size(); i++) {
+                    samplesAt.merge(batch.getTimestamp(i) - start, 1, Integer::sum);
+                    patients.add(batch.getPatientId(i));
+                }
+            }
+        };
+        LoadProfile profile = LoadProfile.parse(List.of(
+                "phase base  duration=10s",
+                "phase surge duration=10s patients=10->100 saturation=2",
+                "phase shift duration=5s burst"), 10);
+
+        TickScheduler scheduler = new TickScheduler(output, new VirtualClock(start), 2, 16);
+        List<Integer> patientIds = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            patientIds.add(i);
+        }
+        TickScheduler.Schedule schedule = scheduler.schedule(new BloodSaturationDataGenerator(10, 1), patientIds,
+                1000, () -> 0);
+        scheduler.setTickListener(new LoadProfileRunner(profile, scheduler, Map.of("saturation", schedule), start));
+        scheduler.start(start + profile.getDurationMillis());
+        scheduler.awaitEnd();
+        scheduler.shutdown(5, TimeUnit.SECONDS);
+
+        assertEquals(10, samplesAt.get(0L));
+        assertNull(samplesAt.get(500L), "Normal rate before the surge");
+        assertNotNull(samplesAt.get(15_500L), "Double rate during the surge");
+        assertEquals(100, patients.size());
+        assertEquals(100, samplesAt.get(20_000L), "Every patient at once at the burst");
+        assertNull(samplesAt.get(20_500L), "Normal rate after the surge");
+        assertEquals(1000, schedule.getPeriodMillis());
+    }
+
+    private static long sum(AtomicIntegerArray values) {
+        long sum = 0;
+        for (int i = 0; i < values.length(); i++) {
+            sum += values.get(i);
+        }
+        return sum;
+    }
+}
@@ -5,7 +5,9 @@ import org.junit.jupiter.api.Test;
 import com.data_management.DataStorage;
 import com.data_management.MockDataReader;
 import com.data_management.PatientRecord;
+import com.data_management.RecordBatch;
 
+import java.util.ArrayList;
 import java.util.List;
 
 class DataStorageTest {
@@ -22,4 +24,53 @@ class DataStorageTest {
          assertEquals(2, records.size()); // Check if two records are retrieved
          assertEquals(100.0, records.get(0).getMeasurementValue()); // Validate first record
      }
+
+     @Test
+     void testGetRecordsByTypeComparesText() {
+         DataStorage storage = new DataStorage();
+         storage.addPatientData(1, 120.0, "SystolicPressure", 1714376789050L);
+         storage.addPatientData(1, 80.0, "DiastolicPressure", 1714376789050L);
+
+         // A label built at run time is a different String object than the stored one
+         String type = new StringBuilder("Systolic").append("Pressure").toString();
+         List<PatientRecord> records = storage.getRecords(1, type, 1714376789050L, 1714376789050L);
+         assertEquals(1, records.size());
+         assertEquals(120.0, records.get(0).getMeasurementValue());
+     }
+
+     @Test
+     void testDuplicatesDetectedAtSharedAndEarlierTimestamps() {
+         DataStorage storage = new DataStorage();
+         long start = 1714376789050L;
+         for (int i = 0; i < 1000; i++) {
+             storage.addPatientData(1, i, "SystolicPressure", start + i);
+             storage.addPatientData(1, i, "DiastolicPressure", start + i); // Same tick, other type
+         }
+         storage.addPatientData(1, -1.0, "SystolicPressure", start + 500); // Duplicate of an earlier record
+         storage.addPatientData(1, -1.0, "DiastolicPressure", start + 999); // Duplicate on the latest tick
+         storage.addPatientData(1, 7.0, "Saturation", start + 500); // New type on an earlier tick
+
+         assertEquals(2001, storage.getRecords(1, start, start + 1000).size());
+         List<PatientRecord> tick = storage.getRecords(1, "SystolicPressure", start + 500, start + 500);
+         assertEquals(500.0, tick.get(0).getMeasurementValue());
+     }
+
+     @Test
+     void testFailingListenerDoesNotFailTheStore() {
+         DataStorage storage = new DataStorage();
+         List<Long> published = new ArrayList<>();
+         storage.addSampleListener((patientId, recordType, timestamp, value) -> {
+             throw new IllegalStateException("listener failed");
+         });
+         storage.addSampleListener((patientId, recordType, timestamp, value) -> published.add(timestamp));
+         RecordBatch batch = new RecordBatch(2);
+         batch.add(1, 70.0, "HeartRate", 1714376789050L);
+         batch.add(1, 71.0, "HeartRate", 1714376789051L);
+
+         storage.addPatientData(batch);
+         storage.addPatientData(1, 72.0, "HeartRate", 1714376789052L);
+
+         assertEquals(3, storage.getRecords(1, 0L, Long.MAX_VALUE).size());
+         assertEquals(3, published.size());
+     }
  }
@@ -81,4 +81,27 @@ public class PatientWebSocketTest {
 
         client.close();
     }
+
+    /**
+     * Tests that a batched message with one record per line is stored record by
+     * record, including records of patients handled by different workers.
+     *
+     * @throws Exception if connection or data processing fails
+     */
+    @Test
+    public void testMultiLineMessageIsStoredPerRecord() throws Exception {
+        DataStorage storage = DataStorage.getInstance();
+        WebSocketClientImpl client = new WebSocketClientImpl(SERVER_URI, storage);
+        client.connectBlocking();
+
+        client.send("201,1714376789050,HeartRate,70.0\n202,1714376789050,HeartRate,71.0\n"
+                + "201,1714376789051,HeartRate,72.0");
+        Thread.sleep(1000);
+
+        assertEquals(2, storage.getRecords(201, 1714376789040L, 1714376789060L).size());
+        assertEquals(71.0, storage.getRecords(202, 1714376789040L, 1714376789060L).get(0).getMeasurementValue(),
+                0.001);
+
+        client.close();
+    }
 }
\ No newline at end of file
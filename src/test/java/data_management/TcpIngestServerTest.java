@@ -0,0 +1,133 @@
+package data_management;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.data_management.DataStorage;
+import com.data_management.PatientRecord;
+import com.data_management.TcpIngestServer;
+
+/**
+ * Verifies that the TCP ingest server parses simulator lines, including lines
+ * split across packets, and stores them in DataStorage.
+ */
+class TcpIngestServerTest {
+
+    private DataStorage storage;
+    private TcpIngestServer server;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        storage = new DataStorage();
+        server = new TcpIngestServer(0, storage);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    void testLinesAreParsedAndStored() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write("7,1714376789050,ECG,-0.5270920643292076\n7,1714376789051,Satu".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            Thread.sleep(100); // Force the second line to arrive in a separate read
+            out.write("ration,97.0%\r\nnot a record\n7,1714376789052,Alert,triggered\n8,1714376789053,Cholesterol,181.25\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+
+        waitForRecords(4);
+
+        List<PatientRecord> records = storage.getRecords(7, 1714376789050L, 1714376789052L);
+        assertEquals(3, records.size());
+        assertEquals("ECG", records.get(0).getRecordType());
+        assertEquals(-0.5270920643292076, records.get(0).getMeasurementValue());
+        assertEquals("Saturation", records.get(1).getRecordType());
+        assertEquals(97.0, records.get(1).getMeasurementValue());
+        assertEquals(1.0, records.get(2).getMeasurementValue());
+        assertEquals(181.25, storage.getRecords(8, 0L, Long.MAX_VALUE).get(0).getMeasurementValue());
+        assertEquals(1, server.getMalformedLines());
+    }
+
+    @Test
+    void testOutOfRangeNumbersAreRejected() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("4294967303,1,ECG,1.0\n" // Would wrap to patient 7
+                    + "7,9223372036854775808,ECG,2.0\n"
+                    + "7,99999999999999999999,ECG,3.0\n"
+                    + "2147483647,-9223372036854775808,ECG,4.0\n"
+                    + "-2147483648,9223372036854775807,ECG,5.0\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+
+        waitForRecords(2);
+
+        assertTrue(storage.getRecords(7, Long.MIN_VALUE, Long.MAX_VALUE).isEmpty());
+        assertEquals(4.0, storage.getRecords(Integer.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE)
+                .get(0).getMeasurementValue());
+        assertEquals(5.0, storage.getRecords(Integer.MIN_VALUE, Long.MIN_VALUE, Long.MAX_VALUE)
+                .get(0).getMeasurementValue());
+        assertEquals(3, server.getMalformedLines());
+    }
+
+    @Test
+    void testRecordTypeLabelsAreCapped() throws Exception {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            lines.append("1,").append(i).append(",Type").append(i).append(",1.0\n");
+        }
+        lines.append("1,300,").append("X".repeat(65)).append(",1.0\n");
+        lines.append("1,301,Type0,2.0\n"); // Known labels are still accepted
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(lines.toString().getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+
+        waitForRecords(257);
+
+        assertEquals(45, server.getMalformedLines());
+        assertEquals(2.0, storage.getRecords(1, 301L, 301L).get(0).getMeasurementValue());
+    }
+
+    @Test
+    void testLineLongerThanTheBufferIsDroppedWhole() throws Exception {
+        StringBuilder line = new StringBuilder("7,1714376789050,ECG,");
+        while (line.length() < 100_000) {
+            line.append("1,2,3,4,"); // The tail beyond the buffer would parse as a record
+        }
+        line.append("5\n");
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(line.toString().getBytes(StandardCharsets.US_ASCII));
+            out.write("9,1714376789051,ECG,0.5\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+
+        waitForRecords(1);
+
+        assertEquals(0.5, storage.getRecords(9, 0L, Long.MAX_VALUE).get(0).getMeasurementValue());
+        assertEquals(1, server.getMalformedLines());
+    }
+
+    private void waitForRecords(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (storage.getRecordCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, storage.getRecordCount());
+    }
+}